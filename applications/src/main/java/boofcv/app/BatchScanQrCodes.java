@@ -35,11 +35,23 @@ import java.io.FileNotFoundException;
 import java.io.PrintStream;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
-import java.util.LinkedList;
-import java.util.Queue;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
+ * <p>
  * Scans all images in a directory for QR codes and outputs the results
+ * </p>
+ *
+ * <p>
+ * Processing is pipelined. One thread searches for files, decoding threads load the images, and worker threads
+ * scan them for QR codes using their own detector. The number of decoded images waiting to be scanned is bounded
+ * so that memory doesn't grow when decoding is faster than scanning. Results are written by the thread which
+ * invoked {@link #process()}, either in the order the images were found or as soon as they are available.
+ * </p>
  *
  * @author Peter Abeles
  */
@@ -57,24 +69,61 @@ public class BatchScanQrCodes {
 	@Option(name = "--Recursive", usage="Should input directory be recursively searched")
 	boolean recursive = false;
 
+	@Option(name = "--Threads", usage="Number of threads which scan images for QR codes. <= 0 for one per core")
+	int threads = 0;
+
+	@Option(name = "--DecodeThreads", usage="Number of threads which load and decode images")
+	int decodeThreads = 1;
+
+	@Option(name = "--QueueSize", usage="Maximum number of decoded images waiting to be scanned. <= 0 for automatic")
+	int queueSize = 0;
+
+	@Option(name = "--Unordered", usage="Write results as soon as they are available instead of in the order found")
+	boolean unordered = false;
+
 	@Option(name="--GUI", usage="Ignore all other command line arguments and switch to GUI mode")
 	private boolean guiMode = false;
 
-	QrCodeDetector<GrayU8> scanner = FactoryFiducial.qrcode(null,GrayU8.class);
-	GrayU8 gray = new GrayU8(1,1);
-
 	PrintStream output;
 
 	BatchControlPanel.Listener listener;
 
+	// Number of images which have been written to the output
 	int total;
+	// Number of images which could not be loaded
+	int totalFailed;
 
-	void finishParsing() {
+	// Marks the end of a queue
+	private static final Job END = new Job(-1,null);
+	// Tells the writer to stop because a thread failed
+	private static final Job END_FAILED = new Job(-1,null);
+
+	// files which need to be decoded
+	private BlockingQueue<Job> queueFiles;
+	// decoded images which need to be scanned
+	private BlockingQueue<Job> queueImages;
+	// images which have been processed and need to be written to the output
+	private BlockingQueue<Job> queueResults;
+	// Recycled images. The number of images bounds how many can be decoded but not yet scanned
+	private BlockingQueue<GrayU8> imagePool;
 
+	// Set to an exception which was thrown inside a thread. Causes everything to stop
+	private volatile Throwable failure;
+
+	void finishParsing() {
+		if( threads <= 0 )
+			threads = Runtime.getRuntime().availableProcessors();
+		if( decodeThreads <= 0 )
+			decodeThreads = 1;
+		if( queueSize <= 0 )
+			queueSize = 2*threads;
 	}
 
 	void process() throws FileNotFoundException, UnsupportedEncodingException {
+		finishParsing();
 		total = 0;
+		totalFailed = 0;
+		failure = null;
 		output = new PrintStream(pathOutput);
 		output.println("# Found QR Codes inside of images");
 		output.println("# "+new File(pathInput).getPath());
@@ -82,7 +131,53 @@ public class BatchScanQrCodes {
 		output.println("# <File Name> <Total Found>");
 		output.println("# message encoded with URLEncoder");
 
+		queueFiles = new ArrayBlockingQueue<>(queueSize);
+		queueImages = new LinkedBlockingQueue<>();
+		queueResults = new LinkedBlockingQueue<>();
+		imagePool = new ArrayBlockingQueue<>(queueSize+threads);
+		for (int i = 0; i < queueSize+threads; i++) {
+			imagePool.add(new GrayU8(1,1));
+		}
+
+		List<Thread> pipeline = new ArrayList<>();
+		pipeline.add(new Thread(this::findFiles,"QR Files"));
+		AtomicInteger decodersRunning = new AtomicInteger(decodeThreads);
+		for (int i = 0; i < decodeThreads; i++) {
+			pipeline.add(new Thread(()->decodeImages(decodersRunning),"QR Decode "+i));
+		}
+		for (int i = 0; i < threads; i++) {
+			pipeline.add(new Thread(this::scanImages,"QR Scan "+i));
+		}
+
+		long time0 = System.nanoTime();
+		Statistics stats = new Statistics();
 		try {
+			for( Thread t : pipeline ) {
+				t.setDaemon(true);
+				t.start();
+			}
+			writeResults(stats);
+		} finally {
+			for( Thread t : pipeline ) {
+				t.interrupt();
+			}
+			output.close();
+		}
+		long time1 = System.nanoTime();
+
+		if( failure != null )
+			throw new RuntimeException(failure);
+
+		System.out.println("\n\nDone! Images Count = "+total);
+		stats.print(total,totalFailed,(time1-time0)*1e-9);
+	}
+
+	/**
+	 * Searches for images and adds them to the decode queue in the order found
+	 */
+	private void findFiles() {
+		try {
+			int index = 0;
 			Queue<File> files = new LinkedList<>();
 			files.add(new File(pathInput));
 
@@ -92,14 +187,14 @@ public class BatchScanQrCodes {
 					System.err.println("Does not exist: " + f.getPath());
 				} else {
 					if (f.isFile()) {
-						processFile(f);
+						index = enqueueFile(f, index);
 					} else {
 						File[] children = f.listFiles();
 						if (children == null)
 							continue;
 						for (File c : children) {
 							if (c.isFile()) {
-								processFile(c);
+								index = enqueueFile(c, index);
 							} else if (recursive) {
 								files.add(c);
 							}
@@ -107,40 +202,204 @@ public class BatchScanQrCodes {
 					}
 				}
 			}
-		} finally {
-			output.close();
+			for (int i = 0; i < decodeThreads; i++) {
+				queueFiles.put(END);
+			}
+		} catch( InterruptedException ignore ) {
+		} catch( Throwable e ) {
+			abort(e);
 		}
-		System.out.println("\n\nDone! Images Count = "+total);
 	}
 
-	private void processFile(File f) throws UnsupportedEncodingException {
+	private int enqueueFile( File f , int index ) throws InterruptedException {
 		if( regex.length() > 0 && !f.getName().matches(regex))
-			return;
+			return index;
+		queueFiles.put(new Job(index,f));
+		return index+1;
+	}
 
-		BufferedImage buffered = UtilImageIO.loadImage(f.getAbsolutePath());
-		if( buffered == null ) {
-			System.err.println("Can't open "+f.getPath());
-			return;
+	/**
+	 * Loads images and converts them into gray scale. Images which can't be loaded go straight to the output
+	 */
+	private void decodeImages( AtomicInteger decodersRunning ) {
+		try {
+			while( true ) {
+				Job job = queueFiles.take();
+				if( job == END )
+					break;
+
+				GrayU8 gray = imagePool.take();
+				job.timeDecode0 = System.nanoTime();
+				BufferedImage buffered = UtilImageIO.loadImage(job.file.getAbsolutePath());
+				if( buffered == null ) {
+					imagePool.put(gray);
+					job.failed = true;
+					queueResults.put(job);
+					continue;
+				}
+				ConvertBufferedImage.convertFrom(buffered,gray);
+				job.gray = gray;
+				job.timeDecode1 = System.nanoTime();
+				queueImages.put(job);
+			}
+			// The last decoder to finish tells all the scanners to stop
+			if( decodersRunning.decrementAndGet() == 0 ) {
+				for (int i = 0; i < threads; i++) {
+					queueImages.put(END);
+				}
+			}
+		} catch( InterruptedException ignore ) {
+		} catch( Throwable e ) {
+			abort(e);
 		}
-		if( listener != null ) {
-			listener.batchUpdate(f.getName());
+	}
+
+	/**
+	 * Scans decoded images for QR codes. Each thread has its own detector
+	 */
+	private void scanImages() {
+		try {
+			QrCodeDetector<GrayU8> scanner = FactoryFiducial.qrcode(null,GrayU8.class);
+			while( true ) {
+				Job job = queueImages.take();
+				if( job == END )
+					break;
+
+				job.timeScan0 = System.nanoTime();
+				scanner.process(job.gray);
+				for (QrCode qr : scanner.getDetections()) {
+					job.messages.add(qr.message);
+				}
+				job.timeScanned = System.nanoTime();
+
+				imagePool.put(job.gray);
+				job.gray = null;
+				queueResults.put(job);
+			}
+			queueResults.put(END);
+		} catch( InterruptedException ignore ) {
+		} catch( Throwable e ) {
+			abort(e);
 		}
+	}
 
-		ConvertBufferedImage.convertFrom(buffered,gray);
+	/**
+	 * Writes the results until all the scanning threads have finished
+	 */
+	private void writeResults( Statistics stats ) throws UnsupportedEncodingException {
+		Map<Integer,Job> pending = new HashMap<>();
+		int nextIndex = 0;
+		int finishedScanners = 0;
 
-		scanner.process(gray);
-		output.printf("%d %s\n",scanner.getDetections().size(),f.getPath());
+		while( finishedScanners < threads ) {
+			Job job;
+			try {
+				job = queueResults.take();
+			} catch (InterruptedException e) {
+				throw new RuntimeException(e);
+			}
+			if( job == END_FAILED ) {
+				break;
+			} else if( job == END ) {
+				finishedScanners++;
+				continue;
+			}
 
-		for (QrCode qr : scanner.getDetections()) {
-			output.println(URLEncoder.encode(qr.message,"UTF-8"));
+			if( unordered ) {
+				writeJob(job,stats);
+			} else {
+				pending.put(job.index,job);
+				while( (job = pending.remove(nextIndex)) != null ) {
+					writeJob(job,stats);
+					nextIndex++;
+				}
+			}
 		}
+	}
 
+	private void writeJob( Job job , Statistics stats ) throws UnsupportedEncodingException {
+		if( job.failed ) {
+			System.err.println("Can't open "+job.file.getPath());
+			totalFailed++;
+			return;
+		}
+		if( listener != null ) {
+			listener.batchUpdate(job.file.getName());
+		}
+
+		output.printf("%d %s\n",job.messages.size(),job.file.getPath());
+		for (String message : job.messages) {
+			output.println(URLEncoder.encode(message,"UTF-8"));
+		}
+
+		stats.add(job,System.nanoTime());
 		total++;
 		if( total%50 == 0 ) {
 			System.out.println("processed "+total);
 		}
 	}
 
+	/**
+	 * Records the exception and wakes up the writer so that it will stop
+	 */
+	private void abort( Throwable e ) {
+		failure = e;
+		queueResults.offer(END_FAILED);
+	}
+
+	/**
+	 * An image as it moves through the pipeline
+	 */
+	private static class Job {
+		final int index;
+		final File file;
+		GrayU8 gray;
+		boolean failed;
+		List<String> messages = new ArrayList<>();
+		long timeDecode0, timeDecode1, timeScan0, timeScanned;
+
+		Job(int index, File file) {
+			this.index = index;
+			this.file = file;
+		}
+	}
+
+	/**
+	 * Summary of how long each stage took
+	 */
+	private static class Statistics {
+		double sumDecode, sumScan;
+		double[] latency = new double[16];
+		int size;
+
+		void add( Job job , long timeWritten ) {
+			sumDecode += (job.timeDecode1-job.timeDecode0)*1e-6;
+			sumScan += (job.timeScanned-job.timeScan0)*1e-6;
+			if( size == latency.length )
+				latency = Arrays.copyOf(latency,size*2);
+			latency[size++] = (timeWritten-job.timeDecode0)*1e-6;
+		}
+
+		void print( int total , int totalFailed , double seconds ) {
+			System.out.printf("Failed to load   %d\n",totalFailed);
+			System.out.printf("Elapsed          %.1f (s)\n",seconds);
+			System.out.printf("Throughput       %.2f (images/s)\n",total/seconds);
+			if( size == 0 )
+				return;
+			Arrays.sort(latency,0,size);
+			double sum = 0;
+			for (int i = 0; i < size; i++) {
+				sum += latency[i];
+			}
+			System.out.printf("Decode mean      %.1f (ms)\n",sumDecode/size);
+			System.out.printf("Scan mean        %.1f (ms)\n",sumScan/size);
+			System.out.printf("Latency mean     %.1f (ms)\n",sum/size);
+			System.out.printf("Latency median   %.1f (ms)\n",latency[size/2]);
+			System.out.printf("Latency 95%%      %.1f (ms)\n",latency[Math.min(size-1,(int)(size*0.95))]);
+			System.out.printf("Latency max      %.1f (ms)\n",latency[size-1]);
+		}
+	}
+
 	private static void printHelpExit(CmdLineParser parser ) {
 		parser.getProperties().withUsageWidth(120);
 		parser.printUsage(System.out);
@@ -150,6 +409,7 @@ public class BatchScanQrCodes {
 		System.out.println();
 		System.out.println("--Recursive -i /path/to/directory -o myresults.txt");
 		System.out.println("--Recursive --Regex \"\\w*\\.jpg\" -i /path/to/directory -o myresults.txt");
+		System.out.println("--Recursive --Threads 8 --DecodeThreads 2 --Unordered -i /path/to/directory -o myresults.txt");
 
 		System.exit(1);
 	}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.app;
+
+import boofcv.alg.fiducial.qrcode.QrCode;
+import boofcv.alg.fiducial.qrcode.QrCodeEncoder;
+import boofcv.alg.fiducial.qrcode.QrCodeGeneratorImage;
+import boofcv.alg.misc.ImageMiscOps;
+import boofcv.io.image.UtilImageIO;
+import boofcv.struct.image.GrayU8;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Peter Abeles
+ */
+public class TestBatchScanQrCodes {
+	File directory;
+	int totalImages = 12;
+
+	@BeforeEach
+	public void before() throws IOException {
+		directory = Files.createTempDirectory("qrbatch").toFile();
+
+		QrCodeGeneratorImage generator = new QrCodeGeneratorImage(4);
+		for (int i = 0; i < totalImages; i++) {
+			GrayU8 image;
+			if( i%4 == 3 ) {
+				// image without a QR code
+				image = new GrayU8(100,100);
+				ImageMiscOps.fill(image,255);
+			} else {
+				QrCode qr = new QrCodeEncoder().addAutomatic("message "+i).fixate();
+				generator.render(qr);
+				image = generator.getGray();
+			}
+			UtilImageIO.saveImage(image,new File(directory,String.format("image%02d.png",i)).getPath());
+		}
+		// a file which can't be loaded
+		Files.write(new File(directory,"corrupt.png").toPath(),"not an image".getBytes(StandardCharsets.UTF_8));
+	}
+
+	@AfterEach
+	public void after() {
+		File[] files = directory.listFiles();
+		if( files != null ) {
+			for( File f : files ) {
+				f.delete();
+			}
+		}
+		directory.delete();
+	}
+
+	/**
+	 * Output should be identical no matter how many threads are used when ordered
+	 */
+	@Test
+	public void ordered_threads() throws IOException {
+		List<String> expected = scan(1,false);
+		assertEquals(totalImages,countImages(expected));
+		assertEquals(totalImages*3/4,countFound(expected));
+
+		for( int threads : new int[]{2,4} ) {
+			assertEquals(expected,scan(threads,false));
+		}
+	}
+
+	/**
+	 * Unordered output should contain the same results but possibly in a different order
+	 */
+	@Test
+	public void unordered() throws IOException {
+		List<String> expected = scan(1,false);
+		List<String> found = scan(4,true);
+		Collections.sort(expected);
+		Collections.sort(found);
+		assertEquals(expected,found);
+	}
+
+	private List<String> scan( int threads , boolean unordered ) throws IOException {
+		File output = new File(directory,"results.txt");
+
+		BatchScanQrCodes app = new BatchScanQrCodes();
+		app.pathInput = directory.getPath();
+		app.pathOutput = output.getPath();
+		app.regex = "\\w*\\.png";
+		app.threads = threads;
+		app.decodeThreads = 2;
+		app.unordered = unordered;
+		app.process();
+
+		assertEquals(1,app.totalFailed);
+		List<String> lines = Files.readAllLines(output.toPath(),StandardCharsets.UTF_8);
+		assertTrue(output.delete());
+		return lines;
+	}
+
+	private static int countImages( List<String> lines ) {
+		int total = 0;
+		for( String line : lines ) {
+			if( line.endsWith(".png") )
+				total++;
+		}
+		return total;
+	}
+
+	private static int countFound( List<String> lines ) {
+		int total = 0;
+		for( String line : lines ) {
+			if( line.startsWith("message") )
+				total++;
+		}
+		return total;
+	}
+}
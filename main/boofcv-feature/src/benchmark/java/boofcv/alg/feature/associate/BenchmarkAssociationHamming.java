@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boofcv.alg.feature.associate;
+
+import boofcv.abst.feature.associate.AssociateDescription;
+import boofcv.abst.feature.associate.ScoreAssociation;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.factory.feature.associate.FactoryAssociation;
+import boofcv.struct.feature.AssociatedIndex;
+import boofcv.struct.feature.TupleDesc_B;
+import org.ddogleg.struct.FastQueue;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares greedy association of binary descriptors against multi-index hashing. The destination set is
+ * created by adding noise to the source set, similar to how real matches differ, plus unrelated features.
+ * Run main() to see the recall of each approach, which is the fraction of the true matches that are found.
+ *
+ * @author Peter Abeles
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+@Fork(value=1)
+public class BenchmarkAssociationHamming {
+
+	@Param({"true","false"})
+	boolean concurrent;
+
+	@Param({"1000","5000"})
+	int NUM_FEATURES;
+
+	@Param({"0","1","2"})
+	int maxRadius;
+
+	// number of bits in the descriptor, same as BRIEF and ORB
+	static final int NUM_BITS = 256;
+	// number of bits that are flipped in a true match
+	static final int NOISE_BITS = 30;
+
+	FastQueue<TupleDesc_B> listA;
+	FastQueue<TupleDesc_B> listB;
+
+	AssociateDescription<TupleDesc_B> greedy;
+	AssociateDescription<TupleDesc_B> hashing;
+
+	@Setup
+	public void setup() {
+		BoofConcurrency.USE_CONCURRENT = concurrent;
+
+		Random rand = new Random(234234);
+		listA = createSet(rand);
+		listB = createMatches(rand,listA);
+
+		ScoreAssociation<TupleDesc_B> score = FactoryAssociation.scoreHamming(TupleDesc_B.class);
+		greedy = FactoryAssociation.greedy(score, Double.MAX_VALUE, false);
+		hashing = FactoryAssociation.multiIndexHashing(null,-1,maxRadius);
+	}
+
+	@Benchmark
+	public void greedy() {
+		greedy.setSource(listA);
+		greedy.setDestination(listB);
+		greedy.associate();
+	}
+
+	@Benchmark
+	public void hashing() {
+		hashing.setSource(listA);
+		hashing.setDestination(listB);
+		hashing.associate();
+	}
+
+	/**
+	 * Fraction of the true matches which were found
+	 */
+	double recall( AssociateDescription<TupleDesc_B> alg ) {
+		alg.setSource(listA);
+		alg.setDestination(listB);
+		alg.associate();
+
+		int correct = 0;
+		FastQueue<AssociatedIndex> matches = alg.getMatches();
+		for (int i = 0; i < matches.size; i++) {
+			AssociatedIndex m = matches.get(i);
+			if( m.src == m.dst )
+				correct++;
+		}
+		return correct/(double)(NUM_FEATURES/2);
+	}
+
+	private FastQueue<TupleDesc_B> createSet( Random rand ) {
+		FastQueue<TupleDesc_B> ret = new FastQueue<>(10, TupleDesc_B.class, () -> new TupleDesc_B(NUM_BITS));
+
+		for( int i = 0; i < NUM_FEATURES; i++ ) {
+			TupleDesc_B t = ret.grow();
+			for( int j = 0; j < t.data.length; j++ ) {
+				t.data[j] = rand.nextInt();
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * The first half are noisy copies of the source and the second half are unrelated
+	 */
+	private FastQueue<TupleDesc_B> createMatches( Random rand , FastQueue<TupleDesc_B> src ) {
+		FastQueue<TupleDesc_B> ret = createSet(rand);
+
+		for( int i = 0; i < NUM_FEATURES/2; i++ ) {
+			TupleDesc_B t = ret.get(i);
+			t.setTo(src.get(i));
+			for (int j = 0; j < NOISE_BITS; j++) {
+				int bit = rand.nextInt(NUM_BITS);
+				t.data[bit/32] ^= 1 << (bit%32);
+			}
+		}
+		return ret;
+	}
+
+	public static void main( String[] args ) throws RunnerException {
+		// print recall so that it can be compared against the speed
+		BenchmarkAssociationHamming b = new BenchmarkAssociationHamming();
+		b.NUM_FEATURES = 5000;
+		for (int radius = 0; radius <= 2; radius++) {
+			b.maxRadius = radius;
+			b.setup();
+			System.out.printf("radius %d recall greedy %.3f hashing %.3f\n",radius,b.recall(b.greedy),b.recall(b.hashing));
+		}
+
+		Options opt = new OptionsBuilder()
+				.include(BenchmarkAssociationHamming.class.getSimpleName())
+				.build();
+
+		new Runner(opt).run();
+	}
+}
@@ -1,140 +1,151 @@
-///*
-// * Copyright (c) 2011-2017, Peter Abeles. All Rights Reserved.
-// *
-// * This file is part of BoofCV (http://boofcv.org).
-// *
-// * Licensed under the Apache License, Version 2.0 (the "License");
-// * you may not use this file except in compliance with the License.
-// * You may obtain a copy of the License at
-// *
-// *   http://www.apache.org/licenses/LICENSE-2.0
-// *
-// * Unless required by applicable law or agreed to in writing, software
-// * distributed under the License is distributed on an "AS IS" BASIS,
-// * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
-// * See the License for the specific language governing permissions and
-// * limitations under the License.
-// */
-//
-//package boofcv.alg.feature.disparity;
-//
-//import boofcv.alg.feature.disparity.impl.*;
-//import boofcv.alg.misc.GImageMiscOps;
-//import boofcv.core.image.GConvertImage;
-//import boofcv.misc.PerformerBase;
-//import boofcv.misc.ProfileOperation;
-//import boofcv.struct.image.GrayF32;
-//import boofcv.struct.image.GrayU8;
-//
-//import java.util.Random;
-//
-///**
-// * @author Peter Abeles
-// */
-//public class BenchmarkDisparityAlgs {
-//	static final long TEST_TIME = 1000;
-//	static final Random rand = new Random(234234);
-//
-//	static final int width=640;
-//	static final int height=480;
-//	static final int min=0;
-//	static final int max=20;
-//	static final int radiusX=2;
-//	static final int radiusY=2;
-//
-//	static final GrayU8 left = new GrayU8(width,height);
-//	static final GrayU8 right = new GrayU8(width,height);
-//
-//	static final GrayF32 left_F32 = new GrayF32(width,height);
-//	static final GrayF32 right_F32 = new GrayF32(width,height);
-//
-//	static final GrayU8 outU8 = new GrayU8(width,height);
-//	static final GrayF32 out_F32 = new GrayF32(width,height);
-//
-//	public static class Naive extends PerformerBase {
-//
-//		StereoDisparityWtoNaive<GrayU8> alg =
-//				new StereoDisparityWtoNaive<>(0, max, radiusX, radiusY);
-//
-//		@Override
-//		public void process() {
-//			alg.process(left,right,out_F32);
-//		}
-//	}
-//
-//	public static class EfficientSad_U8 extends PerformerBase {
-//
-////		DisparitySelect<int[],GrayU8> compDisp =
-////				new ImplSelectRectBasicWta_S32_U8();
-//		DisparitySelect<int[],GrayU8> compDisp =
-//				new ImplSelectRectStandard_S32_U8(250,2,0.1);
-//		ImplDisparityScoreBM_S32<GrayU8> alg =
-//				new ImplDisparityScoreBM_S32<>(min,max,radiusX,radiusY,compDisp);
-//
-//		@Override
-//		public void process() {
-//			alg.process(left,right, outU8);
-//		}
-//	}
-//
-//	public static class EfficientSad_F32 extends PerformerBase {
-//
-//		//		DisparitySelect<int[],GrayU8> compDisp =
-////				new ImplSelectRectBasicWta_S32_U8();
-//		DisparitySelect<float[],GrayU8> compDisp =
-//				new ImplSelectRectStandard_F32_U8(250,2,0.1);
-//		ImplDisparityScoreBM_F32<GrayU8> alg =
-//				new ImplDisparityScoreBM_F32<>(min,max,radiusX,radiusY,compDisp);
-//
-//		@Override
-//		public void process() {
-//			alg.process(left_F32,right_F32, outU8);
-//		}
-//	}
-//
-//	public static class EfficientSubpixelSad extends PerformerBase {
-//
-//		DisparitySelect<int[],GrayF32> compDisp =
-//				new SelectRectSubpixel.S32_F32(250,2,0.1);
-//		ImplDisparityScoreBM_S32<GrayF32> alg =
-//				new ImplDisparityScoreBM_S32<>(min,max,radiusX,radiusY,compDisp);
-//
-//		@Override
-//		public void process() {
-//			alg.process(left,right, out_F32);
-//		}
-//	}
-//
-//	public static class EfficientSadFive_U8 extends PerformerBase {
-//
-//		//		DisparitySelect<int[],GrayU8> compDisp =
-////				new ImplSelectRectBasicWta_S32_U8();
-//		DisparitySelect<int[],GrayU8> compDisp =
-//				new ImplSelectRectStandard_S32_U8(250,2,0.1);
-//		ImplDisparityScoreBMBestFive_SAD_U8<GrayU8> alg =
-//				new ImplDisparityScoreBMBestFive_SAD_U8<>(min,max,radiusX,radiusY,compDisp);
-//
-//		@Override
-//		public void process() {
-//			alg.process(left,right, outU8);
-//		}
-//	}
-//
-//	public static void main( String argsp[ ] ) {
-//		System.out.println("=========  Image Size "+ width +" "+height+"  disparity "+max);
-//		System.out.println();
-//
-//		GImageMiscOps.fillUniform(left, rand, 0, 30);
-//		GImageMiscOps.fillUniform(right, rand, 0, 30);
-//		GConvertImage.convert(left, left_F32);
-//		GConvertImage.convert(right,right_F32);
-//
-//		// the "fastest" seems to always be the first one tested
-//		ProfileOperation.printOpsPerSec(new EfficientSad_U8(),TEST_TIME);
-//		ProfileOperation.printOpsPerSec(new EfficientSadFive_U8(),TEST_TIME);
-//		ProfileOperation.printOpsPerSec(new EfficientSad_F32(),TEST_TIME);
-//		ProfileOperation.printOpsPerSec(new EfficientSubpixelSad(),TEST_TIME);
-//		ProfileOperation.printOpsPerSec(new Naive(), TEST_TIME);
-//
-//	}
-//}
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.feature.disparity;
+
+import boofcv.abst.feature.disparity.StereoDisparity;
+import boofcv.alg.misc.GImageMiscOps;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.core.image.GConvertImage;
+import boofcv.factory.feature.disparity.ConfigureDisparityBM;
+import boofcv.factory.feature.disparity.ConfigureDisparityBMBest5;
+import boofcv.factory.feature.disparity.ConfigureDisparitySGM;
+import boofcv.factory.feature.disparity.DisparityError;
+import boofcv.factory.feature.disparity.FactoryStereoDisparity;
+import boofcv.struct.image.GrayF32;
+import boofcv.struct.image.GrayU8;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks dense stereo disparity algorithms. The number of threads is varied to show how well the
+ * concurrent implementations scale. A single thread will use the non-concurrent code path.
+ *
+ * @author Peter Abeles
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+@Fork(value=1)
+public class BenchmarkDisparityAlgs {
+	@Param({"1","2","4","8"})
+	public int threads;
+
+	@Param({"640"})
+	public int width;
+	@Param({"480"})
+	public int height;
+
+	static final int minDisparity = 0;
+	static final int maxDisparity = 60;
+	static final int radius = 2;
+
+	GrayU8 left = new GrayU8(1,1);
+	GrayU8 right = new GrayU8(1,1);
+	GrayF32 left_F32 = new GrayF32(1,1);
+	GrayF32 right_F32 = new GrayF32(1,1);
+
+	StereoDisparity<GrayU8,GrayU8> bmSad;
+	StereoDisparity<GrayU8,GrayU8> bmCensus;
+	StereoDisparity<GrayU8,GrayF32> bmSadSubpixel;
+	StereoDisparity<GrayF32,GrayU8> bmSad_F32;
+	StereoDisparity<GrayU8,GrayU8> bm5Sad;
+	StereoDisparity<GrayU8,GrayU8> sgmCensus;
+
+	@Setup
+	public void setup() {
+		BoofConcurrency.setMaxThreads(threads);
+		Random rand = new Random(234);
+
+		left.reshape(width,height);
+		right.reshape(width,height);
+		GImageMiscOps.fillUniform(left, rand, 0, 255);
+		// shift the right image so that there is a true disparity
+		GImageMiscOps.copy(10,0,0,0,width-10,height,left,right);
+		GConvertImage.convert(left,left_F32);
+		GConvertImage.convert(right,right_F32);
+
+		ConfigureDisparityBM config = new ConfigureDisparityBM();
+		config.minDisparity = minDisparity;
+		config.maxDisparity = maxDisparity;
+		config.regionRadiusX = config.regionRadiusY = radius;
+		config.subpixel = false;
+		config.error = DisparityError.SAD;
+		bmSad = FactoryStereoDisparity.blockMatch(config,GrayU8.class,GrayU8.class);
+		bmSad_F32 = FactoryStereoDisparity.blockMatch(config,GrayF32.class,GrayU8.class);
+		config.error = DisparityError.CENSUS;
+		bmCensus = FactoryStereoDisparity.blockMatch(config,GrayU8.class,GrayU8.class);
+		config.error = DisparityError.SAD;
+		config.subpixel = true;
+		bmSadSubpixel = FactoryStereoDisparity.blockMatch(config,GrayU8.class,GrayF32.class);
+
+		ConfigureDisparityBMBest5 config5 = new ConfigureDisparityBMBest5();
+		config5.minDisparity = minDisparity;
+		config5.maxDisparity = maxDisparity;
+		config5.regionRadiusX = config5.regionRadiusY = radius;
+		config5.subpixel = false;
+		config5.error = DisparityError.SAD;
+		bm5Sad = FactoryStereoDisparity.blockMatchBest5(config5,GrayU8.class,GrayU8.class);
+
+		ConfigureDisparitySGM configSgm = new ConfigureDisparitySGM();
+		configSgm.minDisparity = minDisparity;
+		configSgm.maxDisparity = maxDisparity;
+		configSgm.subpixel = false;
+		sgmCensus = FactoryStereoDisparity.sgm(configSgm,GrayU8.class,GrayU8.class);
+	}
+
+	@TearDown
+	public void teardown() {
+		// restore the default thread pool
+		BoofConcurrency.setMaxThreads(Runtime.getRuntime().availableProcessors());
+	}
+
+	@Benchmark
+	public void blockMatch_SAD_U8() {
+		bmSad.process(left,right);
+	}
+
+	@Benchmark
+	public void blockMatch_SAD_F32() {
+		bmSad_F32.process(left_F32,right_F32);
+	}
+
+	@Benchmark
+	public void blockMatch_Census_U8() {
+		bmCensus.process(left,right);
+	}
+
+	@Benchmark
+	public void blockMatch_SAD_Subpixel_U8() {
+		bmSadSubpixel.process(left,right);
+	}
+
+	@Benchmark
+	public void blockMatchBest5_SAD_U8() {
+		bm5Sad.process(left,right);
+	}
+
+	@Benchmark
+	public void sgm_Census_U8() {
+		sgmCensus.process(left,right);
+	}
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.flow;
+
+import boofcv.abst.flow.DenseOpticalFlow;
+import boofcv.alg.misc.GImageMiscOps;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.factory.flow.FactoryDenseOpticalFlow;
+import boofcv.struct.flow.ImageFlow;
+import boofcv.struct.image.GrayF32;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks dense optical flow algorithms on a VGA image which has been translated
+ *
+ * @author Peter Abeles
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+@Fork(value=1)
+public class BenchmarkDenseOpticalFlow {
+	@Param({"true","false"})
+	public boolean concurrent;
+
+	int width = 640;
+	int height = 480;
+
+	GrayF32 image1 = new GrayF32(width,height);
+	GrayF32 image2 = new GrayF32(width,height);
+	ImageFlow flow = new ImageFlow(width,height);
+
+	DenseOpticalFlow<GrayF32> hornSchunck;
+	DenseOpticalFlow<GrayF32> hornSchunckPyramid;
+	DenseOpticalFlow<GrayF32> broxWarping;
+	DenseOpticalFlow<GrayF32> region;
+
+	@Setup
+	public void setup() {
+		BoofConcurrency.USE_CONCURRENT = concurrent;
+		Random rand = new Random(234);
+
+		// smooth random texture which has been shifted by a couple of pixels
+		GrayF32 noise = new GrayF32(width/8,height/8);
+		GImageMiscOps.fillUniform(noise,rand,0,200);
+		for( int y = 0; y < height; y++ ) {
+			for( int x = 0; x < width; x++ ) {
+				image1.set(x,y,noise.get(x/8,y/8));
+				image2.set(x,y,noise.get(Math.max(0,x-2)/8,Math.max(0,y-1)/8));
+			}
+		}
+
+		hornSchunck = FactoryDenseOpticalFlow.hornSchunck(null,GrayF32.class);
+		hornSchunckPyramid = FactoryDenseOpticalFlow.hornSchunckPyramid(null,GrayF32.class);
+		broxWarping = FactoryDenseOpticalFlow.broxWarping(null,GrayF32.class);
+		region = FactoryDenseOpticalFlow.region(null,GrayF32.class);
+	}
+
+	@Benchmark
+	public void hornSchunck() {
+		hornSchunck.process(image1,image2,flow);
+	}
+
+	@Benchmark
+	public void hornSchunckPyramid() {
+		hornSchunckPyramid.process(image1,image2,flow);
+	}
+
+	@Benchmark
+	public void broxWarping() {
+		broxWarping.process(image1,image2,flow);
+	}
+
+	@Benchmark
+	public void region() {
+		region.process(image1,image2,flow);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options opt = new OptionsBuilder()
+				.include(BenchmarkDenseOpticalFlow.class.getSimpleName())
+				.build();
+
+		new Runner(opt).run();
+	}
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.abst.feature.disparity;
+
+import boofcv.abst.filter.FilterImageInterface;
+import boofcv.alg.feature.disparity.sgm.SgmStereoDisparity;
+import boofcv.struct.image.GrayF32;
+import boofcv.struct.image.ImageBase;
+import boofcv.struct.image.ImageGray;
+import boofcv.struct.image.ImageType;
+
+import javax.annotation.Nullable;
+
+/**
+ * Wrapper around {@link SgmStereoDisparity} for {@link StereoDisparity}. If a census transform is provided
+ * then the input images are transformed before being passed to SGM.
+ *
+ * @author Peter Abeles
+ */
+@SuppressWarnings("unchecked")
+public class WrapDisparitySgm<T extends ImageGray<T>, C extends ImageBase<C>, DI extends ImageGray<DI>>
+		implements StereoDisparity<T,DI>
+{
+	SgmStereoDisparity<C> alg;
+
+	// Optional transform that's applied to the input images
+	@Nullable FilterImageInterface<T, C> censusTran;
+
+	// Storage for census transform of left and right images
+	@Nullable C cleft;
+	@Nullable C cright;
+
+	ImageType<T> inputType;
+
+	public WrapDisparitySgm(SgmStereoDisparity<C> alg,
+							@Nullable FilterImageInterface<T, C> censusTran ,
+							ImageType<T> inputType )
+	{
+		this.alg = alg;
+		this.censusTran = censusTran;
+		this.inputType = inputType;
+		if( censusTran != null ) {
+			cleft = censusTran.getOutputType().createImage(1,1);
+			cright = censusTran.getOutputType().createImage(1,1);
+		}
+	}
+
+	@Override
+	public void process(T imageLeft, T imageRight) {
+		if( censusTran == null ) {
+			alg.process((C)imageLeft,(C)imageRight);
+		} else {
+			censusTran.process(imageLeft,cleft);
+			censusTran.process(imageRight,cright);
+			alg.process(cleft,cright);
+		}
+	}
+
+	@Override
+	public DI getDisparity() {
+		GrayF32 subpixel = alg.getDisparitySubpixel();
+		if( subpixel != null )
+			return (DI)subpixel;
+		return (DI)alg.getDisparity();
+	}
+
+	@Override
+	public int getMinDisparity() {
+		return alg.getMinDisparity();
+	}
+
+	@Override
+	public int getMaxDisparity() {
+		return alg.getMinDisparity() + alg.getRangeDisparity();
+	}
+
+	@Override
+	public int getBorderX() {
+		return 0;
+	}
+
+	@Override
+	public int getBorderY() {
+		return 0;
+	}
+
+	@Override
+	public ImageType<T> getInputType() {
+		return inputType;
+	}
+
+	@Override
+	public Class<DI> getDisparityType() {
+		if( alg.getDisparitySubpixel() != null )
+			return (Class)GrayF32.class;
+		else
+			return (Class)alg.getDisparity().getClass();
+	}
+
+	public SgmStereoDisparity<C> getAlg() {
+		return alg;
+	}
+}
@@ -0,0 +1,374 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boofcv.alg.descriptor;
+
+import boofcv.struct.feature.TupleDesc_B;
+import org.ddogleg.nn.NearestNeighbor;
+import org.ddogleg.nn.NnData;
+import org.ddogleg.struct.FastQueue;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <p>
+ * Nearest neighbor search for binary descriptors using hamming distance and multi-index hashing [1]. Each
+ * descriptor is split into m substrings and every substring has its own table, which is directly indexed
+ * by the substring's value. If two descriptors are within a hamming distance of m*(r+1)-1 then at least
+ * one of their substrings must be within a distance of r. The search looks up every value in each table
+ * which is within a radius of 0, then 1, and so on, verifying candidates using the full hamming distance.
+ * It stops once the results can't be improved by a larger radius or the maximum radius has been reached.
+ * </p>
+ *
+ * <p>
+ * The maximum radius controls the trade off between speed and accuracy. The results are identical to
+ * an exhaustive search when the true neighbors are within m*(maxRadius+1)-1 bits. Neighbors farther away than
+ * that might be missed. For real descriptors good matches tend to be close while poor matches are distant,
+ * so a small radius can find most of the matches that an association algorithm would accept anyways.
+ * </p>
+ *
+ * <p>
+ * The number of bits in a substring should be about log2 of the number of points. If the number of tables is
+ * &le; 0 then it will be selected using that rule each time the points are set. A substring can't be more
+ * than {@link #MAX_SUBSTRING_BITS} bits. Ties are resolved by selecting the point with the lower index.
+ * </p>
+ *
+ * <p>
+ * [1] Norouzi, Mohammad, Ali Punjani, and David J. Fleet. "Fast search in hamming space with multi-index hashing."
+ * 2012 IEEE Conference on Computer Vision and Pattern Recognition. IEEE, 2012.
+ * </p>
+ *
+ * @author Peter Abeles
+ */
+public class NearestNeighborMultiIndex_B implements NearestNeighbor<TupleDesc_B> {
+
+	/**
+	 * Largest number of bits in a substring. Tables use 2<sup>bits</sup> elements.
+	 */
+	public static final int MAX_SUBSTRING_BITS = 20;
+
+	// number of tables requested by the user. If <= 0 then it's selected automatically
+	private int numTablesConfig;
+	// maximum radius a substring is searched at
+	private int maxRadius;
+
+	// the points being searched
+	List<TupleDesc_B> points;
+	// number of bits in each descriptor
+	int numBits;
+
+	// number of tables actually used
+	int numTables;
+	// first bit and number of bits in each substring
+	int[] substringBit0 = new int[0];
+	int[] substringLength = new int[0];
+
+	// For each table, tableStart[value] to tableStart[value+1] is the range in tableIndexes of points which have
+	// that value in the substring.
+	int[][] tableStart = new int[0][];
+	int[][] tableIndexes = new int[0][];
+
+	/**
+	 * @param numTables Number of tables/substrings. If &le; 0 then it's selected automatically.
+	 * @param maxRadius Maximum radius that each substring is searched at. Try 1. &ge; 0
+	 */
+	public NearestNeighborMultiIndex_B( int numTables , int maxRadius ) {
+		if( maxRadius < 0 )
+			throw new IllegalArgumentException("maxRadius must be >= 0");
+		this.numTablesConfig = numTables;
+		this.maxRadius = maxRadius;
+	}
+
+	@Override
+	public void setPoints(List<TupleDesc_B> points, boolean trackIndicies) {
+		this.points = points;
+		if( points.isEmpty() ) {
+			numTables = 0;
+			return;
+		}
+		numBits = points.get(0).numBits;
+
+		selectSubstrings(points.size());
+		buildTables();
+	}
+
+	/**
+	 * Splits the descriptor into substrings of approximately equal length
+	 */
+	void selectSubstrings( int N ) {
+		if( numTablesConfig > 0 ) {
+			numTables = Math.min(numTablesConfig,numBits);
+		} else {
+			// about log2(N) bits in each substring
+			int bits = 32-Integer.numberOfLeadingZeros(Math.max(1,N-1));
+			bits = Math.max(4,Math.min(MAX_SUBSTRING_BITS,bits));
+			numTables = Math.max(1,(numBits+bits-1)/bits);
+		}
+
+		if( (numBits+numTables-1)/numTables > MAX_SUBSTRING_BITS )
+			throw new IllegalArgumentException("Too few tables. Substrings can't have more than "+
+					MAX_SUBSTRING_BITS+" bits. numBits="+numBits+" numTables="+numTables);
+
+		if( substringBit0.length != numTables ) {
+			substringBit0 = new int[numTables];
+			substringLength = new int[numTables];
+		}
+		for (int i = 0; i < numTables; i++) {
+			substringBit0[i] = i*numBits/numTables;
+			substringLength[i] = (i+1)*numBits/numTables - substringBit0[i];
+		}
+	}
+
+	/**
+	 * Sorts the points into each table using a counting sort
+	 */
+	void buildTables() {
+		final int N = points.size();
+
+		if( tableStart.length != numTables ) {
+			tableStart = new int[numTables][];
+			tableIndexes = new int[numTables][];
+		}
+
+		for (int table = 0; table < numTables; table++) {
+			int bit0 = substringBit0[table];
+			int length = substringLength[table];
+			int numValues = 1 << length;
+
+			if( tableStart[table] == null || tableStart[table].length != numValues+1 )
+				tableStart[table] = new int[numValues+1];
+			if( tableIndexes[table] == null || tableIndexes[table].length < N )
+				tableIndexes[table] = new int[N];
+			int[] start = tableStart[table];
+			int[] indexes = tableIndexes[table];
+
+			// count the number of points with each value
+			Arrays.fill(start,0);
+			for (int i = 0; i < N; i++) {
+				TupleDesc_B p = points.get(i);
+				if( p.numBits != numBits )
+					throw new IllegalArgumentException("All descriptors must have the same number of bits");
+				start[substring(p.data,bit0,length)+1]++;
+			}
+			for (int value = 0; value < numValues; value++) {
+				start[value+1] += start[value];
+			}
+
+			// indexes are added in ascending order inside of each bucket
+			for (int i = 0; i < N; i++) {
+				int value = substring(points.get(i).data,bit0,length);
+				indexes[start[value]++] = i;
+			}
+			// undo the increments from above
+			for (int value = numValues; value > 0; value--) {
+				start[value] = start[value-1];
+			}
+			start[0] = 0;
+		}
+	}
+
+	/**
+	 * Extracts the value of a substring from the descriptor
+	 */
+	static int substring( int[] data , int bit0 , int length ) {
+		int word = bit0 >> 5;
+		int offset = bit0 & 31;
+		long value = data[word] & 0xFFFFFFFFL;
+		if( offset+length > 32 )
+			value |= (data[word+1] & 0xFFFFFFFFL) << 32;
+		return (int)((value >>> offset) & ((1L << length)-1));
+	}
+
+	@Override
+	public Search<TupleDesc_B> createSearch() {
+		return new MultiIndexSearch();
+	}
+
+	public int getNumTables() {
+		return numTables;
+	}
+
+	public int getMaxRadius() {
+		return maxRadius;
+	}
+
+	/**
+	 * Searches the tables. Each search has its own workspace so that several can be used concurrently.
+	 */
+	class MultiIndexSearch implements Search<TupleDesc_B> {
+		// Used to avoid computing the distance to the same point more than once
+		int[] visited = new int[0];
+		int visitedStamp = 0;
+
+		// the k best points found so far sorted by distance
+		int[] bestIndex = new int[0];
+		int[] bestDistance = new int[0];
+		int numFound;
+		int numNeighbors;
+		// distance a point must be less than or equal to
+		int limit;
+
+		// the query and its value in the current table
+		TupleDesc_B query;
+		int[] table0, table1;
+
+		@Override
+		public boolean findNearest(TupleDesc_B point, double maxDistance, NnData<TupleDesc_B> result) {
+			search(point,maxDistance,1);
+			if( numFound == 0 )
+				return false;
+			result.index = bestIndex[0];
+			result.point = points.get(bestIndex[0]);
+			result.distance = bestDistance[0];
+			return true;
+		}
+
+		@Override
+		public void findNearest(TupleDesc_B point, double maxDistance, int numNeighbors,
+								FastQueue<NnData<TupleDesc_B>> result) {
+			result.reset();
+			search(point,maxDistance,numNeighbors);
+			for (int i = 0; i < numFound; i++) {
+				NnData<TupleDesc_B> r = result.grow();
+				r.index = bestIndex[i];
+				r.point = points.get(bestIndex[i]);
+				r.distance = bestDistance[i];
+			}
+		}
+
+		/**
+		 * Finds the numNeighbors points which are closest to the query
+		 */
+		void search( TupleDesc_B query , double maxDistance , int numNeighbors ) {
+			this.query = query;
+			this.numNeighbors = numNeighbors;
+			this.numFound = 0;
+			if( numTables == 0 || numNeighbors <= 0 )
+				return;
+			if( query.numBits != numBits )
+				throw new IllegalArgumentException("Query has a different number of bits than the points");
+
+			limit = maxDistance < 0 || maxDistance >= numBits ? numBits : (int)maxDistance;
+			if( bestIndex.length < numNeighbors ) {
+				bestIndex = new int[numNeighbors];
+				bestDistance = new int[numNeighbors];
+			}
+			if( visited.length < points.size() ) {
+				visited = new int[points.size()];
+				visitedStamp = 0;
+			}
+			if( ++visitedStamp == Integer.MAX_VALUE ) {
+				Arrays.fill(visited,0);
+				visitedStamp = 1;
+			}
+
+			int longest = 0;
+			for (int table = 0; table < numTables; table++) {
+				longest = Math.max(longest,substringLength[table]);
+			}
+
+			for (int radius = 0; radius <= maxRadius && radius <= longest; radius++) {
+				for (int table = 0; table < numTables; table++) {
+					int length = substringLength[table];
+					if( radius > length )
+						continue;
+					table0 = tableStart[table];
+					table1 = tableIndexes[table];
+					probe(substring(query.data,substringBit0[table],length),0,length,radius);
+				}
+
+				// Every point within this distance has been found
+				int complete = numTables*(radius+1)-1;
+				if( limit <= complete )
+					break;
+				if( numFound == numNeighbors && bestDistance[numFound-1] <= complete )
+					break;
+			}
+		}
+
+		/**
+		 * Recursively looks up every value which differs from 'value' by 'radius' bits. Only bits at or above
+		 * 'bit' are flipped.
+		 */
+		void probe( int value , int bit , int length , int radius ) {
+			if( radius == 0 ) {
+				checkBucket(value);
+				return;
+			}
+			for (int i = bit; i <= length-radius; i++) {
+				probe(value ^ (1 << i),i+1,length,radius-1);
+			}
+		}
+
+		/**
+		 * Computes the distance to every point in the bucket which hasn't already been considered
+		 */
+		void checkBucket( int value ) {
+			final int end = table0[value+1];
+			for (int i = table0[value]; i < end; i++) {
+				int index = table1[i];
+				if( visited[index] == visitedStamp )
+					continue;
+				visited[index] = visitedStamp;
+
+				// points which are farther away than the worst of the k-best can't be added
+				int threshold = numFound == numNeighbors ? bestDistance[numFound-1] : limit;
+				int d = distance(points.get(index).data,query.data,threshold);
+				if( d <= threshold )
+					add(index,d);
+			}
+		}
+
+		/**
+		 * Inserts the point into the sorted list of best points
+		 */
+		void add( int index , int distance ) {
+			int location = numFound;
+			while( location > 0 && (bestDistance[location-1] > distance ||
+					(bestDistance[location-1] == distance && bestIndex[location-1] > index)) ) {
+				location--;
+			}
+			if( location >= numNeighbors )
+				return;
+
+			int last = Math.min(numFound,numNeighbors-1);
+			for (int i = last; i > location; i--) {
+				bestIndex[i] = bestIndex[i-1];
+				bestDistance[i] = bestDistance[i-1];
+			}
+			bestIndex[location] = index;
+			bestDistance[location] = distance;
+			if( numFound < numNeighbors )
+				numFound++;
+		}
+	}
+
+	/**
+	 * Computes the hamming distance between the two descriptors. If the distance is more than limit then
+	 * it stops early and returns a value which is more than limit.
+	 */
+	static int distance( int[] a , int[] b , int limit ) {
+		int distance = 0;
+		for (int i = 0; i < a.length; i++) {
+			distance += DescriptorDistance.hamming(a[i] ^ b[i]);
+			if( distance > limit )
+				return distance;
+		}
+		return distance;
+	}
+}
@@ -60,6 +60,8 @@ public class DescribePointSift<Deriv extends ImageGray> extends DescribeSiftComm
 	// conversion from scale-space sigma to image pixels
 	double sigmaToPixels;
 
+	Class<Deriv> derivType;
+
 
 	/**
 	 * Configures the descriptor.
@@ -76,11 +78,20 @@ public class DescribePointSift<Deriv extends ImageGray> extends DescribeSiftComm
 							 double maxDescriptorElementValue , Class<Deriv> derivType ) {
 		super(widthSubregion,widthGrid,numHistogramBins,weightingSigmaFraction,maxDescriptorElementValue);
 		this.sigmaToPixels = sigmaToPixels;
+		this.derivType = derivType;
 
 		imageDerivX = FactoryGImageGray.create(derivType);
 		imageDerivY = FactoryGImageGray.create(derivType);
 	}
 
+	/**
+	 * Creates a new instance with the same configuration
+	 */
+	public DescribePointSift<Deriv> copy() {
+		return new DescribePointSift<>(widthSubregion,widthGrid,numHistogramBins,sigmaToPixels,
+				weightingSigmaFraction,maxDescriptorElementValue,derivType);
+	}
+
 	/**
 	 * Sets the image spacial derivatives.  These should be computed from an image at the appropriate scale
 	 * in scale-space.
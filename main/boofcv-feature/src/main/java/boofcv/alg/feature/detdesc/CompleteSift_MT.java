@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.feature.detdesc;
+
+import boofcv.abst.feature.detect.extract.NonMaxLimiter;
+import boofcv.alg.feature.describe.DescribePointSift;
+import boofcv.alg.feature.detect.interest.SiftScaleSpace;
+import boofcv.alg.feature.orientation.OrientationHistogramSift;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.struct.feature.BrightFeature;
+import boofcv.struct.feature.ScalePoint;
+import boofcv.struct.image.GrayF32;
+import org.ddogleg.struct.FastQueue;
+import org.ddogleg.struct.GrowQueue_F64;
+
+/**
+ * <p>
+ * Concurrent implementation of {@link CompleteSift}. Building the scale-space, computing the gradient, and
+ * finding local extremes in each DoG image are already done concurrently by the algorithms they use. What's
+ * done here is to split the local extremes between threads. Each thread checks to see if they are extremes
+ * in scale-space and not edges, then interpolates their location and computes their orientations and
+ * descriptors. Each thread has its own orientation and descriptor algorithm. The results are added in the
+ * same order as the single threaded version, so for the same local extremes the output is identical.
+ * </p>
+ *
+ * @author Peter Abeles
+ */
+public class CompleteSift_MT extends CompleteSift {
+
+	// Each thread gets its own copy of the algorithms
+	FastQueue<Workspace> workspaces = new FastQueue<>(Workspace.class, Workspace::new);
+
+	// Results for each local extreme
+	FastQueue<Candidate> candidates;
+
+	/**
+	 * @see CompleteSift#CompleteSift
+	 */
+	public CompleteSift_MT(SiftScaleSpace scaleSpace, double edgeR, NonMaxLimiter extractor,
+						   OrientationHistogramSift<GrayF32> orientation,
+						   DescribePointSift<GrayF32> describe) {
+		super(scaleSpace, edgeR, extractor, orientation, describe);
+
+		final int dof = describe.getDescriptorLength();
+		candidates = new FastQueue<>(Candidate.class, ()->new Candidate(dof));
+	}
+
+	@Override
+	protected void processExtremes( FastQueue<NonMaxLimiter.LocalExtreme> found ) {
+		candidates.resize(found.size);
+
+		BoofConcurrency.loopBlocks(0,found.size,workspaces,(work,idx0,idx1)->{
+			work.hessian.setImage(dogTarget);
+			work.orientation.setImageGradient(derivX,derivY);
+			work.describe.setImageGradient(derivX,derivY);
+
+			for (int i = idx0; i < idx1; i++) {
+				processCandidate(work, found.get(i), candidates.get(i));
+			}
+		});
+
+		// add the results in the same order as the single threaded version
+		for (int i = 0; i < candidates.size; i++) {
+			Candidate c = candidates.get(i);
+			if( !c.accepted )
+				continue;
+
+			ScalePoint p = detections.grow();
+			p.set(c.location);
+
+			for (int j = 0; j < c.orientations.size; j++) {
+				features.grow().setTo(c.features.get(j));
+				orientations.add(c.orientations.get(j));
+				locations.add(p);
+			}
+		}
+	}
+
+	/**
+	 * Checks to see if the local extreme is a feature and if so describes it
+	 */
+	private void processCandidate( Workspace work , NonMaxLimiter.LocalExtreme e , Candidate c ) {
+		c.accepted = false;
+		c.orientations.reset();
+		c.features.reset();
+
+		int x = e.location.x, y = e.location.y;
+		if( !isScaleSpaceExtremum(x, y, e.getValue(), e.max ? 1f : -1f) )
+			return;
+		// suppress response along edges
+		if( isEdge(work.hessian,x,y) )
+			return;
+
+		c.accepted = true;
+		interpolateFeature(x,y,e.getValue(),e.max,c.location);
+
+		// adjust the image for the down sampling in each octave
+		double localX = c.location.x / pixelScaleToInput;
+		double localY = c.location.y / pixelScaleToInput;
+		double localSigma = c.location.scale / pixelScaleToInput;
+
+		// find potential orientations first
+		work.orientation.process(localX,localY,localSigma);
+
+		// describe each feature
+		GrowQueue_F64 angles = work.orientation.getOrientations();
+		for (int i = 0; i < angles.size; i++) {
+			BrightFeature feature = c.features.grow();
+			feature.white = c.location.white;
+			work.describe.process(localX,localY,localSigma,angles.get(i),feature);
+			c.orientations.add(angles.get(i));
+		}
+	}
+
+	/**
+	 * Algorithms and work space used by a single thread
+	 */
+	class Workspace {
+		SparseHessian hessian = new SparseHessian();
+		OrientationHistogramSift<GrayF32> orientation = CompleteSift_MT.this.orientation.copy();
+		DescribePointSift<GrayF32> describe = CompleteSift_MT.this.describe.copy();
+	}
+
+	/**
+	 * Processing results for a local extreme
+	 */
+	static class Candidate {
+		// true if it's a feature
+		boolean accepted;
+		ScalePoint location = new ScalePoint();
+		GrowQueue_F64 orientations = new GrowQueue_F64();
+		FastQueue<BrightFeature> features;
+
+		Candidate( int dof ) {
+			features = new FastQueue<>(BrightFeature.class, ()->new BrightFeature(dof));
+		}
+	}
+}
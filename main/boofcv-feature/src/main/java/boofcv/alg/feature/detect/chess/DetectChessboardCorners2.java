@@ -47,9 +47,11 @@ import georegression.metric.UtilAngle;
 import georegression.struct.point.Point2D_I16;
 import georegression.struct.point.Point2D_I32;
 import org.ddogleg.struct.FastQueue;
+import org.ddogleg.struct.GrowQueue_I32;
 import org.ejml.UtilEjml;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static boofcv.misc.CircularIndex.addOffset;
@@ -84,10 +86,9 @@ public class DetectChessboardCorners2<T extends ImageGray<T>> {
 	BlurFilter<T> blurFilter;
 
 	XCornerAbeles2019Intensity computeIntensity = new XCornerAbeles2019Intensity(3);
-	SearchLocalPeak<GrayF32> meanShift;
 
 //	FastQueue<Point2D_F32> maximums = new FastQueue<>(Point2D_F32.class,true);
-	private FastQueue<ChessboardCorner> corners = new FastQueue<>(ChessboardCorner.class,true);
+	FastQueue<ChessboardCorner> corners = new FastQueue<>(ChessboardCorner.class,true);
 	List<ChessboardCorner> filtered = new ArrayList<>();
 
 	// storage for corner detector output
@@ -103,31 +104,23 @@ public class DetectChessboardCorners2<T extends ImageGray<T>> {
 	 */
 	public float considerMaxIntensityImage = 0;
 
-	// Used to compute line integrals of spokes around a corner
-	ImageBorder<T> borderImg;
-	ImageLineIntegral integral = new ImageLineIntegral();
-
-	// for mean-shift
-	InterpolatePixelS<GrayF32> inputInterp = FactoryInterpolation.bilinearPixelS(GrayF32.class,BorderType.ZERO);
-	InterpolatePixelS<GrayF32> blurInterp = FactoryInterpolation.bilinearPixelS(GrayF32.class,BorderType.ZERO);
 	InterpolatePixelS<GrayF32> intensityInterp = FactoryInterpolation.bilinearPixelS(GrayF32.class,BorderType.ZERO);
 	public boolean useMeanShift = true;
 
 	NonMaxSuppression nonmax;
 	QueueCorner foundNonmax = new QueueCorner();
+	GrowQueue_I32 sortedNonmax = new GrowQueue_I32();
 
-	// predeclare memory for compute a feature's orientation
+	// number of spokes used to compute a feature's orientation
 	private final int numSpokes = 32;
 	private final int numSpokeDiam = numSpokes/2;
-	private final double[] spokesRadi = new double[numSpokes];
-	private final double[] spokesDiam = new double[numSpokeDiam];
-	private final double[] smoothedDiam = new double[numSpokeDiam];
-	private final double[] scoreDiam = new double[numSpokeDiam];
 	private final Kernel1D_F64 kernelSmooth = FactoryKernelGaussian.gaussian(1,true,64,-1,numSpokeDiam/4);
 
 	FastQueue<Point2D_I32> outsideCircle4 = new FastQueue<>(Point2D_I32.class,true);
 	FastQueue<Point2D_I32> outsideCircle3 = new FastQueue<>(Point2D_I32.class,true);
-	private final float[] outsideCircleValues;
+
+	// Storage used to check and refine corners
+	CornerWork work;
 
 	// input image type
 	Class<T> imageType;
@@ -152,22 +145,10 @@ public class DetectChessboardCorners2<T extends ImageGray<T>> {
 //		blurFilter = FactoryBlurFilter.mean(imageType,blurRadius);
 		blurred = GeneralizedImageOps.createSingleBand(imageType,1,1);
 
-		// just give it something. this will be changed later
-		borderImg = FactoryImageBorder.single(BorderType.EXTENDED, imageType);
-		borderImg.setImage(GeneralizedImageOps.createSingleBand(imageType,1,1));
-		integral.setImage(FactoryGImageGray.wrap(borderImg));
-
-		{
-			ConfigMeanShiftSearch config = new ConfigMeanShiftSearch(5,1e-6);
-			config.positiveOnly = true;
-			config.odd = false;
-			meanShift = FactorySearchLocalPeak.meanShiftGaussian(config,GrayF32.class);
-			meanShift.setSearchRadius(2);
-		}
-
 		DiscretizedCircle.coordinates(4, outsideCircle4);
 		DiscretizedCircle.coordinates(3, outsideCircle3);
-		outsideCircleValues = new float[ outsideCircle4.size ];
+
+		work = new CornerWork();
 	}
 
 	/**
@@ -176,21 +157,21 @@ public class DetectChessboardCorners2<T extends ImageGray<T>> {
 	 * @param input Gray image. Not modified.
 	 */
 	public void process( T input ) {
-		filtered.clear();
-		corners.reset();
-		foundNonmax.reset();
+		computeIntensity(input);
+		detectCorners(input);
+	}
 
+	/**
+	 * Blurs the input image and computes the x-corner intensity image and its maximum value. Must be called
+	 * before {@link #detectCorners}.
+	 *
+	 * @param input Gray image. Not modified.
+	 */
+	public void computeIntensity( T input ) {
 //		System.out.println("ENTER CHESSBOARD CORNER "+input.width+" x "+input.height);
-		borderImg.setImage(input);
-
 		blurFilter.process(input,blurred);
 		computeIntensity.process3((GrayF32)blurred, intensity);
 
-		intensityInterp.setImage(intensity);
-		inputInterp.setImage((GrayF32)input);
-		blurInterp.setImage((GrayF32)blurred);
-		meanShift.setImage(intensity);
-
 		// Compute the maximum value in the x-corner intensity image
 		// If computed as a pyramid the maximum value in another layer might be "considered"
 		// Considered just means use whichever one has a larger value. It's also fine that consider is zero by default
@@ -198,78 +179,53 @@ public class DetectChessboardCorners2<T extends ImageGray<T>> {
 		// This makes a big difference in heavily blurred images at high resolution where the highest resolution image
 		// is unlikely to have any x-corners and 100,000s of false positives in intensity image.
 		maxIntensityImage = ImageStatistics.max(intensity);
+	}
+
+	/**
+	 * Finds corners in the intensity image computed by {@link #computeIntensity} and then filters them.
+	 * {@link #considerMaxIntensityImage} is used here and can be changed after the intensity has been computed.
+	 *
+	 * @param input The same gray image passed into {@link #computeIntensity}. Not modified.
+	 */
+	public void detectCorners( T input ) {
+		filtered.clear();
+		corners.reset();
+		foundNonmax.reset();
+
+		intensityInterp.setImage(intensity);
+
 		// intensity is squared, so the ratio is squared too
 		nonmaxThreshold = Math.max(considerMaxIntensityImage, maxIntensityImage)*nonmaxThresholdRatio*nonmaxThresholdRatio;
 
 		// Find features using non-maximum suppression and the threshold computed above
 		nonmax.setThresholdMaximum(nonmaxThreshold);
 		nonmax.process(intensity,null,null,null,foundNonmax);
+
+		// The order non-maximum suppression returns peaks in can depend on the number of threads. Put them into
+		// raster order so that the output is always the same
+		sortedNonmax.reset();
 		for (int i = 0; i < foundNonmax.size; i++) {
 			Point2D_I16 c = foundNonmax.get(i);
+			sortedNonmax.add(c.y*intensity.width + c.x);
+		}
+		Arrays.sort(sortedNonmax.data,0,sortedNonmax.size);
+
+		for (int i = 0; i < sortedNonmax.size; i++) {
+			int x = sortedNonmax.data[i]%intensity.width;
+			int y = sortedNonmax.data[i]/intensity.width;
 			ChessboardCorner corner = corners.grow();
-			corner.set(c.x,c.y);
-			corner.intensityXCorner = intensity.unsafe_get(c.x,c.y);
+			corner.set(x,y);
+			corner.intensityXCorner = intensity.unsafe_get(x,y);
 			corner.reset();
 		}
 
-		double maxEdge = 0;
-		double maxIntensity = 0;
-
 //		System.out.println("  * features.size = "+packed.size());
-		for (int i = 0; i < corners.size(); i++) {
-			ChessboardCorner c = corners.get(i);
-
-			int xx = (int)(c.x+0.5f);
-			int yy = (int)(c.y+0.5f);
-
-			if( !checkPositiveInside(xx,yy,4) ) {
-				continue;
-			}
-
-			if( !checkNegativeInside(xx,yy,12)) {
-				continue;
-			}
-
-			// TODO improve these functions
-			if (!checkChessboardCircle((float) c.x, (float) c.y, outsideCircle4, 3, 6, symmetricTol)) {
-				continue;
-			}
-
-			if (!checkChessboardCircle((float) c.x, (float) c.y, outsideCircle3, 3, 4, symmetricTol)) {
-				continue;
-			}
-
-			if( useMeanShift ) {
-				// TODO improve localization using KLT feature intensity?
-				//      x-corner intensity is more robust but less precise
-				// TODO is there a way to use the input image directly instead?
-				meanShift.search((float)c.x,(float)c.y);
-				c.x = meanShift.getPeakX();
-				c.y = meanShift.getPeakY();
-			}
-
-			// tighter tolerance now that the center is known
-			if (!checkChessboardCircle((float) c.x, (float) c.y, outsideCircle4, 4, 4, symmetricTol-1)) {
-				c.edgeIntensity = -1;
-				continue;
-			}
-
-			if( !checkCorner(c)) {
-				c.edgeIntensity = -1;
-				continue;
-			}
-
-			if( !computeFeatures(c) ) {
-				c.edgeIntensity = -1;
-				continue;
-			}
-
-			// account for bias due to discretion
-			c.x += 0.5f;
-			c.y += 0.5f;
+		processCorners(input);
 
-			maxEdge = Math.max(maxEdge,c.edgeIntensity);
-			maxIntensity = Math.max(c.intensity,maxIntensity);
+		// Corners which were rejected have an edge intensity of -1 and accepted corners are >= 0
+		double maxEdge = 0;
+		for (int i = 0; i < corners.size; i++) {
+			maxEdge = Math.max(maxEdge,corners.get(i).edgeIntensity);
 		}
 //		System.out.println("max edge "+maxEdge);
 
@@ -287,6 +243,75 @@ public class DetectChessboardCorners2<T extends ImageGray<T>> {
 				maxIntensityImage,corners.size,filtered.size(),(100*dropped/(double)corners.size));
 	}
 
+	/**
+	 * Checks and refines every corner found by non-maximum suppression. Corners are independent of each other.
+	 */
+	protected void processCorners( T input ) {
+		work.setImage(input);
+		for (int i = 0; i < corners.size(); i++) {
+			processCorner(work, corners.get(i));
+		}
+	}
+
+	/**
+	 * Applies a sequence of tests to the corner, refines its location, and computes its features. If the corner
+	 * is rejected its edge intensity is set to -1.
+	 *
+	 * @return true if the corner was accepted
+	 */
+	protected boolean processCorner( CornerWork work , ChessboardCorner c ) {
+		int xx = (int)(c.x+0.5f);
+		int yy = (int)(c.y+0.5f);
+
+		if( !checkPositiveInside(xx,yy,4) ) {
+			return false;
+		}
+
+		if( !checkNegativeInside(xx,yy,12)) {
+			return false;
+		}
+
+		// TODO improve these functions
+		if (!work.checkChessboardCircle((float) c.x, (float) c.y, outsideCircle4, 3, 6, symmetricTol)) {
+			return false;
+		}
+
+		if (!work.checkChessboardCircle((float) c.x, (float) c.y, outsideCircle3, 3, 4, symmetricTol)) {
+			return false;
+		}
+
+		if( useMeanShift ) {
+			// TODO improve localization using KLT feature intensity?
+			//      x-corner intensity is more robust but less precise
+			// TODO is there a way to use the input image directly instead?
+			work.meanShift.search((float)c.x,(float)c.y);
+			c.x = work.meanShift.getPeakX();
+			c.y = work.meanShift.getPeakY();
+		}
+
+		// tighter tolerance now that the center is known
+		if (!work.checkChessboardCircle((float) c.x, (float) c.y, outsideCircle4, 4, 4, symmetricTol-1)) {
+			c.edgeIntensity = -1;
+			return false;
+		}
+
+		if( !work.checkCorner(c)) {
+			c.edgeIntensity = -1;
+			return false;
+		}
+
+		if( !work.computeFeatures(c) ) {
+			c.edgeIntensity = -1;
+			return false;
+		}
+
+		// account for bias due to discretion
+		c.x += 0.5f;
+		c.y += 0.5f;
+
+		return true;
+	}
+
 	private boolean checkPositiveInside(int cx , int cy , int threshold ) {
 		int radius = 1;
 		if( cx < radius || cx >= intensity.width-radius || cy < radius || cy >= intensity.height-radius )
@@ -332,50 +357,6 @@ public class DetectChessboardCorners2<T extends ImageGray<T>> {
 		return count >= threshold;
 	}
 
-	private boolean checkChessboardCircle(float cx , float cy , FastQueue<Point2D_I32> outside , int min , int max , int symmetric ) {
-//		int radius = 4;
-//		if( cx < radius || cx >= intensity.width-radius || cy < radius || cy >= intensity.height-radius )
-//			return false;
-
-		float mean = 0;
-		for (int i = 0; i < outside.size; i++) {
-			Point2D_I32 p = outside.get(i);
-			float v = inputInterp.get(cx+p.x,cy+p.y);
-			outsideCircleValues[i] = v;
-			mean += v;
-		}
-		mean /= outside.size;
-
-		// Compute the number of times the pixel value transition below and above the mean
-		// There should be 4 transitions in a chessboard
-		int numUpDown = 0;
-		int prevDir = outsideCircleValues[0] > mean ? 1 : -1;
-		for (int i = 1; i < outside.size; i++) {
-			int dir = outsideCircleValues[i] > mean ? 1 : -1;
-			if( prevDir != dir ) {
-				numUpDown++;
-				prevDir = dir;
-			}
-		}
-
-		// Sample points around the circle should be symmetric. This checks to see if a pixle that was above
-		// the mean is also above the mean on the other side, and vis-versa
-		int numMirror = 0;
-		int halfCount = outside.size/2;
-		for (int i = 0; i < halfCount; i++) {
-			int dirI = outsideCircleValues[i] > mean ? 1 : -1;
-			int dirJ = outsideCircleValues[i+halfCount] > mean ? 1 : -1;
-
-			if( dirI == dirJ )
-				numMirror++;
-		}
-
-//		System.out.println("Mirror "+numMirror+"/"+halfCount);
-//		System.out.println("U0Down "+numUpDown+"  circle.size "+outside.size);
-//		return numUpDown <= 5 && numUpDown >= 4;
-		return numUpDown >= min && numUpDown <= max && numMirror >= halfCount-symmetric;
-	}
-
 	private int countNegative( int x0 , int y0 , int stepX , int stepY , int length ) {
 		int count = 0;
 
@@ -389,164 +370,267 @@ public class DetectChessboardCorners2<T extends ImageGray<T>> {
 		return count;
 	}
 
-	private int countTransitions( double mean ) {
-		int transitions = 0;
+	/**
+	 * Storage and interpolation used when checking and refining a single corner. Each thread needs its own copy.
+	 */
+	protected class CornerWork {
+		// Used to compute line integrals of spokes around a corner
+		ImageBorder<T> borderImg;
+		ImageLineIntegral integral = new ImageLineIntegral();
+
+		// for mean-shift
+		InterpolatePixelS<GrayF32> inputInterp = FactoryInterpolation.bilinearPixelS(GrayF32.class,BorderType.ZERO);
+		InterpolatePixelS<GrayF32> blurInterp = FactoryInterpolation.bilinearPixelS(GrayF32.class,BorderType.ZERO);
+		SearchLocalPeak<GrayF32> meanShift;
+
+		// predeclare memory for compute a feature's orientation
+		final double[] spokesRadi = new double[numSpokes];
+		final double[] spokesDiam = new double[numSpokeDiam];
+		final double[] smoothedDiam = new double[numSpokeDiam];
+		final double[] scoreDiam = new double[numSpokeDiam];
+
+		final float[] outsideCircleValues = new float[ outsideCircle4.size ];
+
+		public CornerWork() {
+			// just give it something. this will be changed later
+			borderImg = FactoryImageBorder.single(BorderType.EXTENDED, imageType);
+			borderImg.setImage(GeneralizedImageOps.createSingleBand(imageType,1,1));
+			integral.setImage(FactoryGImageGray.wrap(borderImg));
 
-		boolean above = spokesRadi[numSpokes-1] > mean;
-		for (int i = 0; i < numSpokes; i++) {
-			boolean a = spokesRadi[i] > mean ;
-			if( above != a ) {
-				above = a;
-				transitions++;
-			}
+			ConfigMeanShiftSearch config = new ConfigMeanShiftSearch(5,1e-6);
+			config.positiveOnly = true;
+			config.odd = false;
+			meanShift = FactorySearchLocalPeak.meanShiftGaussian(config,GrayF32.class);
+			meanShift.setSearchRadius(2);
 		}
-		return transitions;
-	}
 
-	private boolean checkCorner( ChessboardCorner c ) {
-		int radius = 3;
+		/**
+		 * Specifies the input image. The blurred and intensity images are also used and must already be computed.
+		 */
+		public void setImage( T input ) {
+			borderImg.setImage(input);
+			inputInterp.setImage((GrayF32)input);
+			blurInterp.setImage((GrayF32)blurred);
+			meanShift.setImage(intensity);
+		}
 
-		int cx = (int)(c.x+0.5f);
-		int cy = (int)(c.y+0.5f);
+		boolean checkChessboardCircle(float cx , float cy , FastQueue<Point2D_I32> outside , int min , int max , int symmetric ) {
+//		int radius = 4;
+//		if( cx < radius || cx >= intensity.width-radius || cy < radius || cy >= intensity.height-radius )
+//			return false;
 
-		float xx=0,yy=0,xy=0;
+			float mean = 0;
+			for (int i = 0; i < outside.size; i++) {
+				Point2D_I32 p = outside.get(i);
+				float v = inputInterp.get(cx+p.x,cy+p.y);
+				outsideCircleValues[i] = v;
+				mean += v;
+			}
+			mean /= outside.size;
+
+			// Compute the number of times the pixel value transition below and above the mean
+			// There should be 4 transitions in a chessboard
+			int numUpDown = 0;
+			int prevDir = outsideCircleValues[0] > mean ? 1 : -1;
+			for (int i = 1; i < outside.size; i++) {
+				int dir = outsideCircleValues[i] > mean ? 1 : -1;
+				if( prevDir != dir ) {
+					numUpDown++;
+					prevDir = dir;
+				}
+			}
 
-		int width = radius*2+1;
+			// Sample points around the circle should be symmetric. This checks to see if a pixle that was above
+			// the mean is also above the mean on the other side, and vis-versa
+			int numMirror = 0;
+			int halfCount = outside.size/2;
+			for (int i = 0; i < halfCount; i++) {
+				int dirI = outsideCircleValues[i] > mean ? 1 : -1;
+				int dirJ = outsideCircleValues[i+halfCount] > mean ? 1 : -1;
 
-		int idx = 0;
-		for (int iy = 0; iy < width; iy++) {
-			for (int ix = 0; ix < width; ix++, idx++) {
+				if( dirI == dirJ )
+					numMirror++;
+			}
 
-				int y = cy + iy - radius;
-				int x = cx + ix - radius;
+//		System.out.println("Mirror "+numMirror+"/"+halfCount);
+//		System.out.println("U0Down "+numUpDown+"  circle.size "+outside.size);
+//		return numUpDown <= 5 && numUpDown >= 4;
+			return numUpDown >= min && numUpDown <= max && numMirror >= halfCount-symmetric;
+		}
 
-				// TODO change to border image
-				float dx = blurInterp.get(x+1,y)- blurInterp.get(x-1,y);
-				float dy = blurInterp.get(x,y+1)- blurInterp.get(x,y-1);
+		int countTransitions( double mean ) {
+			int transitions = 0;
 
-				xx += dx * dx;
-				xy += dx * dy;
-				yy += dy * dy;
+			boolean above = spokesRadi[numSpokes-1] > mean;
+			for (int i = 0; i < numSpokes; i++) {
+				boolean a = spokesRadi[i] > mean ;
+				if( above != a ) {
+					above = a;
+					transitions++;
+				}
 			}
+			return transitions;
 		}
 
-		float totalWeight=width*width;
-		xx /= totalWeight;
-		xy /= totalWeight;
-		yy /= totalWeight;
-
-		float left = (xx + yy) * 0.5f;
-		float b = (xx - yy) * 0.5f;
-		float right = (float)Math.sqrt(b * b + xy * xy);
-
-		// tempting to use edge intensity as a way to filter out false positives
-		// but that makes the corner no longer invariant to affine changes in light, e.g. changes in scale and offset
-		c.edgeIntensity = left-right; // smallest eigen value
-		// the smallest eigenvalue divided by largest. A perfect corner would be 1. As it approaches zero it indicates
-		// that there's more of a line.
-		c.edgeRatio = (left - right)/(left+right);
-
-		// NOTE: Setting the Eigen ratio to a higher value is an effective ratio, but for fisheye images it will
-		//       filter out many of the corners at the border where they are highly distorted
-		return c.edgeRatio >= edgeAspectRatioThreshold;
-	}
+		boolean checkCorner( ChessboardCorner c ) {
+			int radius = 3;
 
-	/**
-	 * Computes features for the corner (angle and intensity) using line integrals in a spokes pattern.
-	 *
-	 * The feature's angle has a value from -pi/2 to pi/2 radians. It is found by finding the line/spoke with the
-	 * minimum value that maximizes distance from the bright lines.
-	 *
-	 * Intensity is found by subtracting bright lines from the dark line on the other side. dark/light lines are
-	 * offset by 90 degrees.
-	 */
-	private boolean computeFeatures(ChessboardCorner corner) {
-		double r = 4;
-
-		// magnitude of the difference is used remove false chessboard corners caused by the corners on black
-		// squares. In that situation there will be a large difference between the left and right values
-		// in the integral below for 1/2 the line
-		double cx = corner.x;
-		double cy = corner.y;
-		double sumDifference = 0;
-		double mean = 0;
-		for (int i = 0; i < numSpokeDiam; i++) {
-			int j = (i+ numSpokeDiam)%numSpokes;
-			double angle = Math.PI*i/ numSpokeDiam;
-			double c = Math.cos(angle);
-			double s = Math.sin(angle);
-
-			double valA = spokesRadi[i] = integral.compute(cx,cy,cx+r*c,cy+r*s)/r;
-			double valB = spokesRadi[j] = integral.compute(cx,cy,cx-r*c,cy-r*s)/r;
-
-			spokesDiam[i] = valA+valB;
-
-			sumDifference += Math.abs(valA-valB);
-			mean += valA + valB;
-		}
-		mean /= numSpokes;
-		sumDifference /= numSpokeDiam;
+			int cx = (int)(c.x+0.5f);
+			int cy = (int)(c.y+0.5f);
 
-		// There should be 4 transitions between above and below the mean
-		if( countTransitions(mean) != 4 )
-			return false;
+			float xx=0,yy=0,xy=0;
+
+			int width = radius*2+1;
+
+			int idx = 0;
+			for (int iy = 0; iy < width; iy++) {
+				for (int ix = 0; ix < width; ix++, idx++) {
 
-		//
-		smoothSpokeDiam();
-		// Select the orientation
-		int bestSpoke = -1;
-		double bestScore = Double.MAX_VALUE;
-		for (int i = 0; i < numSpokeDiam; i++) {
-			// j = 90 off, which should be the opposite color
-			int j = (i+ numSpokeDiam /2)% numSpokeDiam;
-			double score = scoreDiam[i] = smoothedDiam[i] - smoothedDiam[j];
-			// select black 'i', which will negative because white has a higher value
-			if( score < bestScore ) {
-				bestScore = score;
-				bestSpoke = i;
+					int y = cy + iy - radius;
+					int x = cx + ix - radius;
+
+					// TODO change to border image
+					float dx = blurInterp.get(x+1,y)- blurInterp.get(x-1,y);
+					float dy = blurInterp.get(x,y+1)- blurInterp.get(x,y-1);
+
+					xx += dx * dx;
+					xy += dx * dy;
+					yy += dy * dy;
+				}
 			}
+
+			float totalWeight=width*width;
+			xx /= totalWeight;
+			xy /= totalWeight;
+			yy /= totalWeight;
+
+			float left = (xx + yy) * 0.5f;
+			float b = (xx - yy) * 0.5f;
+			float right = (float)Math.sqrt(b * b + xy * xy);
+
+			// tempting to use edge intensity as a way to filter out false positives
+			// but that makes the corner no longer invariant to affine changes in light, e.g. changes in scale and offset
+			c.edgeIntensity = left-right; // smallest eigen value
+			// the smallest eigenvalue divided by largest. A perfect corner would be 1. As it approaches zero it indicates
+			// that there's more of a line.
+			c.edgeRatio = (left - right)/(left+right);
+
+			// NOTE: Setting the Eigen ratio to a higher value is an effective ratio, but for fisheye images it will
+			//       filter out many of the corners at the border where they are highly distorted
+			return c.edgeRatio >= edgeAspectRatioThreshold;
 		}
 
-		// Use a quadratic to estimate the peak's location to a sub-bin accuracy
-		double value0 = scoreDiam[ addOffset(bestSpoke,-1, numSpokeDiam)];
-		double value2 = scoreDiam[ addOffset(bestSpoke, 1, numSpokeDiam)];
+		/**
+		 * Computes features for the corner (angle and intensity) using line integrals in a spokes pattern.
+		 *
+		 * The feature's angle has a value from -pi/2 to pi/2 radians. It is found by finding the line/spoke with the
+		 * minimum value that maximizes distance from the bright lines.
+		 *
+		 * Intensity is found by subtracting bright lines from the dark line on the other side. dark/light lines are
+		 * offset by 90 degrees.
+		 */
+		boolean computeFeatures(ChessboardCorner corner) {
+			double r = 4;
+
+			// magnitude of the difference is used remove false chessboard corners caused by the corners on black
+			// squares. In that situation there will be a large difference between the left and right values
+			// in the integral below for 1/2 the line
+			double cx = corner.x;
+			double cy = corner.y;
+			double sumDifference = 0;
+			double mean = 0;
+			for (int i = 0; i < numSpokeDiam; i++) {
+				int j = (i+ numSpokeDiam)%numSpokes;
+				double angle = Math.PI*i/ numSpokeDiam;
+				double c = Math.cos(angle);
+				double s = Math.sin(angle);
+
+				double valA = spokesRadi[i] = integral.compute(cx,cy,cx+r*c,cy+r*s)/r;
+				double valB = spokesRadi[j] = integral.compute(cx,cy,cx-r*c,cy-r*s)/r;
+
+				spokesDiam[i] = valA+valB;
+
+				sumDifference += Math.abs(valA-valB);
+				mean += valA + valB;
+			}
+			mean /= numSpokes;
+			sumDifference /= numSpokeDiam;
+
+			// There should be 4 transitions between above and below the mean
+			if( countTransitions(mean) != 4 )
+				return false;
+
+			//
+			smoothSpokeDiam();
+			// Select the orientation
+			int bestSpoke = -1;
+			double bestScore = Double.MAX_VALUE;
+			for (int i = 0; i < numSpokeDiam; i++) {
+				// j = 90 off, which should be the opposite color
+				int j = (i+ numSpokeDiam /2)% numSpokeDiam;
+				double score = scoreDiam[i] = smoothedDiam[i] - smoothedDiam[j];
+				// select black 'i', which will negative because white has a higher value
+				if( score < bestScore ) {
+					bestScore = score;
+					bestSpoke = i;
+				}
+			}
 
-		double adjustedIndex = bestSpoke + FastHessianFeatureDetector.polyPeak(value0,bestSpoke,value2);
-		corner.orientation = UtilAngle.boundHalf(Math.PI*adjustedIndex/ numSpokeDiam);
+			// Use a quadratic to estimate the peak's location to a sub-bin accuracy
+			double value0 = scoreDiam[ addOffset(bestSpoke,-1, numSpokeDiam)];
+			double value2 = scoreDiam[ addOffset(bestSpoke, 1, numSpokeDiam)];
 
-		// Compute a how X-Corner like metric
-		double stdev = 0;
-		for (int i = 0; i < numSpokes; i++) {
-			double diff = mean - spokesRadi[i];
-			stdev += diff*diff;
-		}
-		stdev = Math.sqrt(stdev/numSpokes);
+			double adjustedIndex = bestSpoke + FastHessianFeatureDetector.polyPeak(value0,bestSpoke,value2);
+			corner.orientation = UtilAngle.boundHalf(Math.PI*adjustedIndex/ numSpokeDiam);
 
-		corner.intensity = -bestScore*stdev/(sumDifference + UtilEjml.EPS);
+			// Compute a how X-Corner like metric
+			double stdev = 0;
+			for (int i = 0; i < numSpokes; i++) {
+				double diff = mean - spokesRadi[i];
+				stdev += diff*diff;
+			}
+			stdev = Math.sqrt(stdev/numSpokes);
 
-		// Compute difference between white and black region
-		corner.constrast = (scoreDiam[(bestSpoke+numSpokeDiam/2)%numSpokeDiam] - scoreDiam[bestSpoke])/2.0;
+			corner.intensity = -bestScore*stdev/(sumDifference + UtilEjml.EPS);
 
-		return corner.intensity >= cornerIntensity;
-	}
+			// Compute difference between white and black region
+			corner.constrast = (scoreDiam[(bestSpoke+numSpokeDiam/2)%numSpokeDiam] - scoreDiam[bestSpoke])/2.0;
+
+			return corner.intensity >= cornerIntensity;
+		}
 
-	private void smoothSpokeDiam() {
-		// smooth by applying a block filter. This will ensure it doesn't point towards an edge which just happens
-		// to be slightly darker than the center
-		int r_smooth = kernelSmooth.getRadius();
-		int w_smooth = kernelSmooth.getWidth();
-		for (int i = 0; i < numSpokeDiam; i++) {
-			int start = addOffset(i,-r_smooth, numSpokeDiam);
-
-			double sum = 0;
-			for (int j = 0; j < w_smooth; j++) {
-				int index = addOffset(start,j, numSpokeDiam);
-				sum += spokesDiam[index]*kernelSmooth.data[j];
+		void smoothSpokeDiam() {
+			// smooth by applying a block filter. This will ensure it doesn't point towards an edge which just happens
+			// to be slightly darker than the center
+			int r_smooth = kernelSmooth.getRadius();
+			int w_smooth = kernelSmooth.getWidth();
+			for (int i = 0; i < numSpokeDiam; i++) {
+				int start = addOffset(i,-r_smooth, numSpokeDiam);
+
+				double sum = 0;
+				for (int j = 0; j < w_smooth; j++) {
+					int index = addOffset(start,j, numSpokeDiam);
+					sum += spokesDiam[index]*kernelSmooth.data[j];
+				}
+				smoothedDiam[i] = sum;
 			}
-			smoothedDiam[i] = sum;
 		}
 	}
 
+	/**
+	 * Copies tuning parameters from the source detector. Images and found corners are not copied.
+	 */
+	public void copySettings( DetectChessboardCorners2<T> src ) {
+		this.cornerIntensityThreshold = src.cornerIntensityThreshold;
+		this.nonmaxThresholdRatio = src.nonmaxThresholdRatio;
+		this.edgeIntensityRatioThreshold = src.edgeIntensityRatioThreshold;
+		this.edgeAspectRatioThreshold = src.edgeAspectRatioThreshold;
+		this.cornerIntensity = src.cornerIntensity;
+		this.symmetricTol = src.symmetricTol;
+		this.useMeanShift = src.useMeanShift;
+		this.nonmax.setSearchRadius(src.nonmax.getSearchRadius());
+	}
+
 	public T getBlurred() {
 		return blurred;
 	}
@@ -91,37 +91,53 @@ public class DetectChessboardCorners2Pyramid<T extends ImageGray<T>> {
 			detector.process(pyramid.get(level));
 			maxIntensityImage = Math.max(maxIntensityImage,detector.maxIntensityImage);
 
-			// Add found corners to this level's list
-			PyramidLevel featsLevel = featureLevels.get(level);
-
-			List<ChessboardCorner> corners = detector.getCorners();
-			featsLevel.corners.reset();
-
-			for (int i = 0; i < corners.size(); i++) {
-				ChessboardCorner cf = corners.get(i);
-
-				// convert the coordinate into input image coordinates
-				double x = cf.x*scale;
-				double y = cf.y*scale;
-
-				ChessboardCorner cl = featsLevel.corners.grow();
-				cl.first = true;
-				cl.set(x,y,cf.orientation,cf.intensity);
-				cl.constrast = cf.constrast;
-				cl.levelMax = level;
-				cl.level1 = level;
-				cl.level2 = level;
-			}
+			addLevelCorners(level,scale,detector.getCorners());
 			scale /= 2.0;
 		}
 
+		pruneAndCollect();
+	}
+
+	/**
+	 * Converts corners found in a level into input image coordinates and saves them
+	 *
+	 * @param level Which level in the pyramid
+	 * @param scale Scale factor from the level to the input image
+	 * @param found Corners found in the level
+	 */
+	void addLevelCorners( int level , double scale , List<ChessboardCorner> found ) {
+		// Add found corners to this level's list
+		PyramidLevel featsLevel = featureLevels.get(level);
+		featsLevel.corners.reset();
+
+		for (int i = 0; i < found.size(); i++) {
+			ChessboardCorner cf = found.get(i);
+
+			// convert the coordinate into input image coordinates
+			double x = cf.x*scale;
+			double y = cf.y*scale;
+
+			ChessboardCorner cl = featsLevel.corners.grow();
+			cl.first = true;
+			cl.set(x,y,cf.orientation,cf.intensity);
+			cl.constrast = cf.constrast;
+			cl.levelMax = level;
+			cl.level1 = level;
+			cl.level2 = level;
+		}
+	}
+
+	/**
+	 * Prunes corners which are not a maximum across scales and adds the remaining ones to the output list
+	 */
+	void pruneAndCollect() {
 		// Perform non-maximum suppression against features in each scale.
 		// Because of the scale difference the search radius changes depending on the scale of the layer in the pyramid
 		double baseScale = 1.0;
 		for (int levelIdx = 0; levelIdx < pyramid.size(); levelIdx++) {
 			PyramidLevel level0 = featureLevels.get(levelIdx);
 
-			scale = baseScale*2.0;
+			double scale = baseScale*2.0;
 			// mark features in the next level as seen if they match ones in this level
 			for( int nextIdx = levelIdx+1; nextIdx < pyramid.size(); nextIdx++ ) {
 				PyramidLevel level1 = featureLevels.get(nextIdx);
@@ -247,7 +263,7 @@ public class DetectChessboardCorners2Pyramid<T extends ImageGray<T>> {
 		featureLevels.resize(pyramid.size());
 	}
 
-	private static class PyramidLevel {
+	static class PyramidLevel {
 		FastQueue<ChessboardCorner> corners = new FastQueue<>(ChessboardCorner.class,true);
 	}
 
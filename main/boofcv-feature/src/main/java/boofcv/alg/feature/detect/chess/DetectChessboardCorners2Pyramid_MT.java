@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.feature.detect.chess;
+
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.struct.image.ImageGray;
+import org.ddogleg.struct.FastQueue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Concurrent version of {@link DetectChessboardCorners2Pyramid}. Each level in the pyramid has its own detector.
+ * First the intensity image for every level is computed in parallel. Then the maximum intensity is propagated
+ * from low to high resolution, exactly like the single thread version, and the corners in each level are found
+ * in parallel. The output is identical to the single thread version.
+ *
+ * @author Peter Abeles
+ */
+public class DetectChessboardCorners2Pyramid_MT<T extends ImageGray<T>> extends DetectChessboardCorners2Pyramid<T> {
+
+	// Detectors for all levels but the first. The first level uses the main detector so that its intensity image
+	// is at the input image's scale
+	FastQueue<DetectChessboardCorners2<T>> extraDetectors;
+	// Detector used in each level
+	List<DetectChessboardCorners2<T>> levelDetectors = new ArrayList<>();
+
+	public DetectChessboardCorners2Pyramid_MT(DetectChessboardCorners2<T> detector) {
+		super(detector);
+		extraDetectors = new FastQueue<>((Class)DetectChessboardCorners2.class,
+				()->new DetectChessboardCorners2_MT<>(detector.getImageType()));
+	}
+
+	public DetectChessboardCorners2Pyramid_MT(Class<T> imageType) {
+		this(new DetectChessboardCorners2_MT<>(imageType));
+	}
+
+	@Override
+	public void process(T input) {
+		constructPyramid(input);
+
+		corners.reset();
+
+		final int numLevels = pyramid.size();
+		extraDetectors.resize(numLevels-1);
+		levelDetectors.clear();
+		levelDetectors.add(detector);
+		for (int i = 0; i < extraDetectors.size; i++) {
+			DetectChessboardCorners2<T> d = extraDetectors.get(i);
+			d.copySettings(detector);
+			levelDetectors.add(d);
+		}
+
+		// The intensity image in each level only depends on that level
+		BoofConcurrency.loopFor(0,numLevels,level->levelDetectors.get(level).computeIntensity(pyramid.get(level)));
+
+		// Feed the maximum intensity found so far from low to high resolution, see single thread version
+		float maxIntensityImage = 0;
+		for (int level = numLevels-1; level >= 0; level--) {
+			DetectChessboardCorners2<T> d = levelDetectors.get(level);
+			d.considerMaxIntensityImage = maxIntensityImage;
+			maxIntensityImage = Math.max(maxIntensityImage,d.maxIntensityImage);
+		}
+
+		// With the thresholds known each level can be processed independently
+		BoofConcurrency.loopFor(0,numLevels,level->{
+			DetectChessboardCorners2<T> d = levelDetectors.get(level);
+			d.detectCorners(pyramid.get(level));
+			addLevelCorners(level,Math.pow(2.0,level),d.getCorners());
+		});
+
+		pruneAndCollect();
+	}
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.feature.detect.chess;
+
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.struct.image.ImageGray;
+import org.ddogleg.struct.FastQueue;
+
+/**
+ * Concurrent version of {@link DetectChessboardCorners2}. Corners found by non-maximum suppression are checked and
+ * refined in parallel, with each thread having its own interpolation and storage. Filtering is done after
+ * all the corners have been processed so the output is identical to the single thread version.
+ *
+ * @author Peter Abeles
+ */
+public class DetectChessboardCorners2_MT<T extends ImageGray<T>> extends DetectChessboardCorners2<T> {
+
+	// storage for each thread
+	FastQueue<CornerWork> workspaces = new FastQueue<>((Class)CornerWork.class, CornerWork::new);
+
+	public DetectChessboardCorners2_MT(Class<T> imageType) {
+		super(imageType);
+	}
+
+	@Override
+	protected void processCorners( T input ) {
+		BoofConcurrency.loopBlocks(0,corners.size,workspaces,(work,idx0,idx1)->{
+			work.setImage(input);
+			for (int i = idx0; i < idx1; i++) {
+				processCorner(work, corners.get(i));
+			}
+		});
+	}
+}
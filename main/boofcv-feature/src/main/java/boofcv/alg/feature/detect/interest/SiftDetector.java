@@ -96,14 +96,12 @@ public class SiftDetector {
 	protected FastQueue<ScalePoint> detections = new FastQueue<>(ScalePoint.class, true);
 
 	// Computes image derivatives. used in edge rejection
-	ImageConvolveSparse<GrayF32,?> derivXX;
-	ImageConvolveSparse<GrayF32,?> derivXY;
-	ImageConvolveSparse<GrayF32,?> derivYY;
+	protected SparseHessian hessian = new SparseHessian();
 
 	// local scale space around the current scale image being processed
-	GrayF32 dogLower;  // DoG image in lower scale
-	GrayF32 dogTarget; // DoG image in target scale
-	GrayF32 dogUpper;  // DoG image in upper scale
+	protected GrayF32 dogLower;  // DoG image in lower scale
+	protected GrayF32 dogTarget; // DoG image in target scale
+	protected GrayF32 dogUpper;  // DoG image in upper scale
 	double sigmaLower, sigmaTarget, sigmaUpper;
 
 	// finds features from 2D intensity image
@@ -133,28 +131,6 @@ public class SiftDetector {
 		this.extractor = extractor;
 
 		this.edgeThreshold = (edgeR+1)*(edgeR+1)/edgeR;
-
-		createSparseDerivatives();
-	}
-
-	/**
-	 * Define sparse image derivative operators.
-	 */
-	private void createSparseDerivatives() {
-		Kernel1D_F32 kernelD = new Kernel1D_F32(new float[]{-1,0,1},3);
-
-		Kernel1D_F32 kernelDD = KernelMath.convolve1D_F32(kernelD, kernelD);
-		Kernel2D_F32 kernelXY = KernelMath.convolve2D(kernelD, kernelD);
-
-		derivXX = FactoryConvolveSparse.horizontal1D(GrayF32.class, kernelDD);
-		derivXY = FactoryConvolveSparse.convolve2D(GrayF32.class, kernelXY);
-		derivYY = FactoryConvolveSparse.vertical1D(GrayF32.class, kernelDD);
-
-		ImageBorder<GrayF32> border = FactoryImageBorder.single(BorderType.EXTENDED, GrayF32.class);
-
-		derivXX.setImageBorder(border);
-		derivXY.setImageBorder(border);
-		derivYY.setImageBorder(border);
 	}
 
 	/**
@@ -200,10 +176,18 @@ public class SiftDetector {
 		extractor.process(dogTarget);
 		FastQueue<NonMaxLimiter.LocalExtreme> found = extractor.getLocalExtreme();
 
-		derivXX.setImage(dogTarget);
-		derivXY.setImage(dogTarget);
-		derivYY.setImage(dogTarget);
+		hessian.setImage(dogTarget);
 
+		processExtremes(found);
+	}
+
+	/**
+	 * Examines each local extremum found in the target DoG image and processes the ones which are also
+	 * extremums in scale-space
+	 *
+	 * @param found Local spatial extremums in the target DoG image
+	 */
+	protected void processExtremes( FastQueue<NonMaxLimiter.LocalExtreme> found ) {
 		for (int i = 0; i < found.size; i++) {
 			NonMaxLimiter.LocalExtreme e = found.get(i);
 
@@ -226,7 +210,7 @@ public class SiftDetector {
 	 * @param signAdj Adjust the sign so that it can check for maximums
 	 * @return true if its a local extremum
 	 */
-	boolean isScaleSpaceExtremum(int c_x, int c_y, float value, float signAdj) {
+	protected boolean isScaleSpaceExtremum(int c_x, int c_y, float value, float signAdj) {
 		if( c_x <= 1 || c_y <= 1 || c_x >= dogLower.width-1 || c_y >= dogLower.height-1)
 			return false;
 
@@ -261,9 +245,26 @@ public class SiftDetector {
 	 */
 	protected void processFeatureCandidate( int x , int y , float value ,boolean maximum ) {
 		// suppress response along edges
-		if( isEdge(x,y) )
+		if( isEdge(hessian,x,y) )
 			return;
 
+		ScalePoint p = detections.grow();
+		interpolateFeature(x, y, value, maximum, p);
+
+		handleDetection(p);
+	}
+
+	/**
+	 * Estimates the location and scale of a local extremum by fitting 2nd order polynomials. The location will
+	 * be in the input image's coordinate system.
+	 *
+	 * @param x x-coordinate of extremum
+	 * @param y y-coordinate of extremum
+	 * @param value value of the extremum
+	 * @param maximum true if it was a maximum
+	 * @param p (Output) the interpolated feature
+	 */
+	protected void interpolateFeature( int x , int y , float value , boolean maximum , ScalePoint p ) {
 		// Estimate the scale and 2D point by fitting 2nd order polynomials
 		// This is different from the original paper
 		float signAdj = maximum ? 1 : -1;
@@ -278,8 +279,6 @@ public class SiftDetector {
 		float s0 = dogLower.unsafe_get(x , y )*signAdj;
 		float s2 = dogUpper.unsafe_get(x , y )*signAdj;
 
-		ScalePoint p = detections.grow();
-
 		// Compute the interpolated coordinate of the point in the original image coordinates
 		p.x = pixelScaleToInput*(x + polyPeak(x0, value, x2));
 		p.y = pixelScaleToInput*(y + polyPeak(y0, value, y2));
@@ -294,8 +293,6 @@ public class SiftDetector {
 
 		// a maximum corresponds to a dark object and a minimum to a whiter object
 		p.white = !maximum;
-
-		handleDetection(p);
 	}
 
 	/**
@@ -309,12 +306,19 @@ public class SiftDetector {
 	 * Performs an edge test to remove false positives.  See 4.1 in [1].
 	 */
 	boolean isEdge( int x , int y ) {
+		return isEdge(hessian,x,y);
+	}
+
+	/**
+	 * Performs an edge test using the provided Hessian operators
+	 */
+	protected boolean isEdge( SparseHessian hessian , int x , int y ) {
 		if( edgeThreshold <= 0 )
 			return false;
 
-		double xx = derivXX.compute(x,y);
-		double xy = derivXY.compute(x,y);
-		double yy = derivYY.compute(x,y);
+		double xx = hessian.derivXX.compute(x,y);
+		double xy = hessian.derivXY.compute(x,y);
+		double yy = hessian.derivYY.compute(x,y);
 
 		double Tr = xx + yy;
 		double det = xx*yy - xy*xy;
@@ -333,4 +337,36 @@ public class SiftDetector {
 	public FastQueue<ScalePoint> getDetections() {
 		return detections;
 	}
+
+	/**
+	 * Sparse operators for computing the Hessian of a DoG image. Used to reject edges.
+	 */
+	protected static class SparseHessian {
+		ImageConvolveSparse<GrayF32,?> derivXX;
+		ImageConvolveSparse<GrayF32,?> derivXY;
+		ImageConvolveSparse<GrayF32,?> derivYY;
+
+		public SparseHessian() {
+			Kernel1D_F32 kernelD = new Kernel1D_F32(new float[]{-1,0,1},3);
+
+			Kernel1D_F32 kernelDD = KernelMath.convolve1D_F32(kernelD, kernelD);
+			Kernel2D_F32 kernelXY = KernelMath.convolve2D(kernelD, kernelD);
+
+			derivXX = FactoryConvolveSparse.horizontal1D(GrayF32.class, kernelDD);
+			derivXY = FactoryConvolveSparse.convolve2D(GrayF32.class, kernelXY);
+			derivYY = FactoryConvolveSparse.vertical1D(GrayF32.class, kernelDD);
+
+			ImageBorder<GrayF32> border = FactoryImageBorder.single(BorderType.EXTENDED, GrayF32.class);
+
+			derivXX.setImageBorder(border);
+			derivXY.setImageBorder(border);
+			derivYY.setImageBorder(border);
+		}
+
+		public void setImage( GrayF32 image ) {
+			derivXX.setImage(image);
+			derivXY.setImage(image);
+			derivYY.setImage(image);
+		}
+	}
 }
@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.feature.disparity.sgm;
+
+import boofcv.struct.image.GrayU16;
+import boofcv.struct.image.GrayU8;
+import boofcv.struct.image.ImageBase;
+
+/**
+ * Computes the cost as the absolute value of the difference between the two pixels. The difference is
+ * scaled so that the largest possible difference is equal to {@link SgmDisparityCost#MAX_COST}.
+ *
+ * @author Peter Abeles
+ */
+public abstract class SgmCostAbsoluteDifference<T extends ImageBase<T>> extends SgmCostBase<T> {
+
+	public static class U8 extends SgmCostAbsoluteDifference<GrayU8> {
+		@Override
+		protected void computeDisparityErrors(int idxLeft, int idxRight, int idxOut, int localRange, GrayU16 costXD) {
+			final int valueLeft = left.data[idxLeft] & 0xFF;
+			for (int d = 0; d < localRange; d++) {
+				int valueRight = right.data[idxRight-d] & 0xFF;
+				costXD.data[idxOut+d] = (short)(MAX_COST*Math.abs(valueLeft-valueRight)/255);
+			}
+		}
+	}
+}
@@ -0,0 +1,274 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.feature.disparity.sgm;
+
+import boofcv.alg.misc.ImageMiscOps;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.concurrency.IntRangeObjectConsumer;
+import boofcv.struct.image.GrayU16;
+import boofcv.struct.image.Planar;
+import org.ddogleg.struct.FastQueue;
+import org.ddogleg.struct.GrowQueue_I32;
+
+/**
+ * <p>
+ * Aggregates the cost along different paths to compute the final cost volume. The cost along a single path
+ * for pixel p and disparity d is recursively defined as:<br>
+ * L<sub>r</sub>(p,d) = C(p,d) + min(L<sub>r</sub>(p-r,d), L<sub>r</sub>(p-r,d&plusmn;1)+P1,
+ * min<sub>i</sub> L<sub>r</sub>(p-r,i)+P2) - min<sub>i</sub> L<sub>r</sub>(p-r,i)<br>
+ * where r is the path's direction, P1 is the penalty for a small change in disparity, and P2 is the penalty for
+ * a large change in disparity. The aggregated cost is the sum of L<sub>r</sub> across all the directions.
+ * </p>
+ *
+ * <p>
+ * Each direction is processed one at a time. The paths in a single direction are independent of each other
+ * and don't share any pixels, so when concurrency is turned on they are split between the threads. Results
+ * are identical to the single threaded version.
+ * </p>
+ *
+ * <p>
+ * Storage format of the cost volume is described in {@link SgmDisparityCost}.
+ * </p>
+ *
+ * <p>[1] Hirschmuller, Heiko. "Stereo processing by semiglobal matching and mutual information."
+ * IEEE Transactions on pattern analysis and machine intelligence 30.2 (2007): 328-341.</p>
+ *
+ * @author Peter Abeles
+ */
+public class SgmCostAggregation {
+
+	/**
+	 * Path directions (dx,dy). The first N directions are used when N paths are considered.
+	 */
+	public static final int[][] DIRECTIONS = new int[][]{
+			{ 1, 0},{-1, 0},
+			{ 0, 1},{ 0,-1},
+			{ 1, 1},{-1, 1},{ 1,-1},{-1,-1},
+			{ 2, 1},{ 1, 2},{-2, 1},{-1, 2},{ 2,-1},{ 1,-2},{-2,-1},{-1,-2}};
+
+	// Sum of the cost along all the paths
+	Planar<GrayU16> aggregated = new Planar<>(GrayU16.class,1,1,1);
+
+	// Reference to the input cost volume
+	Planar<GrayU16> costYXD;
+
+	// Penalty for a change in disparity of one
+	int penalty1 = 200;
+	// Penalty for a change in disparity larger than one
+	int penalty2 = 2000;
+
+	// Number of paths which are considered
+	int pathsConsidered = 8;
+
+	// Shape of the cost volume. Width, height, and disparity
+	int lengthX, lengthY, lengthD;
+
+	// The direction currently being processed
+	int dx, dy;
+	// Index (y*width + x) of the first pixel in each path
+	GrowQueue_I32 starts = new GrowQueue_I32();
+
+	FastQueue<WorkSpace> workspace = new FastQueue<>(WorkSpace.class, WorkSpace::new);
+	ComputePaths computePaths = new ComputePaths();
+
+	public SgmCostAggregation() {
+		workspace.grow();
+	}
+
+	/**
+	 * Specifies how paths are aggregated
+	 *
+	 * @param pathsConsidered Number of paths. 1, 2, 4, 8, or 16
+	 * @param penalty1 Penalty for a change in disparity of one
+	 * @param penalty2 Penalty for a change in disparity larger than one
+	 */
+	public void configure( int pathsConsidered , int penalty1 , int penalty2 ) {
+		switch( pathsConsidered ) {
+			case 1: case 2: case 4: case 8: case 16: break;
+			default: throw new IllegalArgumentException("Paths must be 1, 2, 4, 8, or 16");
+		}
+		if( penalty1 < 0 || penalty2 < penalty1 )
+			throw new IllegalArgumentException("Penalties must be >= 0 and penalty2 >= penalty1");
+
+		// worst case cost along a single path is MAX_COST + penalty2. Make sure the sum can't overflow
+		if( pathsConsidered*(SgmDisparityCost.MAX_COST+penalty2) > 0xFFFF )
+			throw new IllegalArgumentException("penalty2 is too large for "+pathsConsidered+" paths. Overflow");
+
+		this.pathsConsidered = pathsConsidered;
+		this.penalty1 = penalty1;
+		this.penalty2 = penalty2;
+	}
+
+	/**
+	 * Aggregates the cost along all the paths
+	 *
+	 * @param costYXD (Input) Cost volume
+	 */
+	public void process( Planar<GrayU16> costYXD ) {
+		this.costYXD = costYXD;
+		this.lengthD = costYXD.width;
+		this.lengthX = costYXD.height;
+		this.lengthY = costYXD.getNumBands();
+
+		aggregated.reshape(lengthD,lengthX,lengthY);
+		for (int i = 0; i < lengthY; i++) {
+			ImageMiscOps.fill(aggregated.getBand(i),0);
+		}
+
+		for (int i = 0; i < pathsConsidered; i++) {
+			scoreDirection(DIRECTIONS[i][0],DIRECTIONS[i][1]);
+		}
+	}
+
+	/**
+	 * Computes the cost along every path in the specified direction and adds it to the aggregated cost
+	 */
+	void scoreDirection( int dx , int dy ) {
+		this.dx = dx;
+		this.dy = dy;
+		selectPathStarts(dx, dy);
+
+		if( BoofConcurrency.USE_CONCURRENT ) {
+			BoofConcurrency.loopBlocks(0,starts.size,workspace,computePaths);
+		} else {
+			computePaths.accept(workspace.get(0),0,starts.size);
+		}
+	}
+
+	/**
+	 * Finds all the pixels which are at the start of a path. A pixel is at the start if the previous pixel
+	 * along the path is outside the image.
+	 */
+	void selectPathStarts( int dx , int dy ) {
+		starts.reset();
+
+		// columns which start a path when the row does not
+		int col0, col1;
+		if( dx > 0 ) {
+			col0 = 0; col1 = Math.min(dx,lengthX);
+		} else {
+			col0 = Math.max(0,lengthX+dx); col1 = lengthX;
+		}
+
+		for (int y = 0; y < lengthY; y++) {
+			int prevY = y-dy;
+			if( prevY < 0 || prevY >= lengthY ) {
+				for (int x = 0; x < lengthX; x++) {
+					starts.add(y*lengthX+x);
+				}
+			} else {
+				for (int x = col0; x < col1; x++) {
+					starts.add(y*lengthX+x);
+				}
+			}
+		}
+	}
+
+	private class ComputePaths implements IntRangeObjectConsumer<WorkSpace> {
+		@Override
+		public void accept(WorkSpace workspace, int minInclusive, int maxExclusive) {
+			workspace.checkSize();
+			for (int i = minInclusive; i < maxExclusive; i++) {
+				int index = starts.data[i];
+				computePath(workspace, index%lengthX, index/lengthX);
+			}
+		}
+	}
+
+	/**
+	 * Computes the cost along a single path starting at (x0,y0) and adds it to the aggregated cost
+	 */
+	void computePath( WorkSpace workspace , int x0 , int y0 ) {
+		final int lengthD = this.lengthD;
+		int[] costPrev = workspace.costPrev;
+		int[] costCurr = workspace.costCurr;
+
+		// The first pixel along the path is just the cost
+		int x = x0, y = y0;
+		GrayU16 costXD = costYXD.getBand(y);
+		GrayU16 aggrXD = aggregated.getBand(y);
+		int idx = x*lengthD;
+		int minPrev = Integer.MAX_VALUE;
+		for (int d = 0; d < lengthD; d++, idx++) {
+			int c = costXD.data[idx] & 0xFFFF;
+			costPrev[d] = c;
+			aggrXD.data[idx] = (short)((aggrXD.data[idx] & 0xFFFF) + c);
+			minPrev = Math.min(minPrev,c);
+		}
+
+		x += dx; y += dy;
+		while( x >= 0 && x < lengthX && y >= 0 && y < lengthY ) {
+			costXD = costYXD.getBand(y);
+			aggrXD = aggregated.getBand(y);
+			idx = x*lengthD;
+
+			final int minPrevP2 = minPrev + penalty2;
+			int minCurr = Integer.MAX_VALUE;
+			for (int d = 0; d < lengthD; d++, idx++) {
+				int best = Math.min(costPrev[d],minPrevP2);
+				if( d > 0 )
+					best = Math.min(best,costPrev[d-1]+penalty1);
+				if( d < lengthD-1 )
+					best = Math.min(best,costPrev[d+1]+penalty1);
+
+				// subtracting the previous minimum prevents the cost from growing without bound
+				int c = (costXD.data[idx] & 0xFFFF) + best - minPrev;
+				costCurr[d] = c;
+				aggrXD.data[idx] = (short)((aggrXD.data[idx] & 0xFFFF) + c);
+				minCurr = Math.min(minCurr,c);
+			}
+
+			int[] tmp = costPrev;
+			costPrev = costCurr;
+			costCurr = tmp;
+			minPrev = minCurr;
+
+			x += dx; y += dy;
+		}
+	}
+
+	class WorkSpace {
+		// Path cost for the previous and current pixel
+		int[] costPrev = new int[0];
+		int[] costCurr = new int[0];
+
+		public void checkSize() {
+			if( costPrev.length < lengthD ) {
+				costPrev = new int[lengthD];
+				costCurr = new int[lengthD];
+			}
+		}
+	}
+
+	public Planar<GrayU16> getAggregated() {
+		return aggregated;
+	}
+
+	public int getPenalty1() {
+		return penalty1;
+	}
+
+	public int getPenalty2() {
+		return penalty2;
+	}
+
+	public int getPathsConsidered() {
+		return pathsConsidered;
+	}
+}
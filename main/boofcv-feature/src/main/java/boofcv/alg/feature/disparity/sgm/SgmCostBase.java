@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.feature.disparity.sgm;
+
+import boofcv.alg.InputSanityCheck;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.struct.image.GrayU16;
+import boofcv.struct.image.ImageBase;
+import boofcv.struct.image.Planar;
+
+import java.util.Arrays;
+
+/**
+ * Base class for computing SGM cost volumes. Handles iterating through the image and the image border. Each row
+ * is independent so if concurrency is turned on the rows are processed in parallel. Input images can be
+ * sub-images, which is how only a horizontal band of the image is processed.
+ *
+ * @author Peter Abeles
+ */
+public abstract class SgmCostBase<T extends ImageBase<T>> implements SgmDisparityCost<T> {
+	// reference to input images
+	protected T left, right;
+	// Output cost volume
+	protected Planar<GrayU16> costYXD;
+
+	// range of disparity values which are considered
+	protected int minDisparity, rangeDisparity;
+
+	@Override
+	public void configure(int minDisparity, int rangeDisparity) {
+		if( minDisparity < 0 )
+			throw new IllegalArgumentException("minDisparity must be >= 0");
+		if( rangeDisparity <= 0 )
+			throw new IllegalArgumentException("rangeDisparity must be > 0");
+		this.minDisparity = minDisparity;
+		this.rangeDisparity = rangeDisparity;
+	}
+
+	@Override
+	public void process(T left, T right, Planar<GrayU16> costYXD) {
+		InputSanityCheck.checkSameShape(left,right);
+		if( rangeDisparity <= 0 )
+			throw new IllegalArgumentException("Must call configure() first");
+		this.left = left;
+		this.right = right;
+		this.costYXD = costYXD;
+
+		costYXD.reshape(rangeDisparity,left.width,left.height);
+
+		if( BoofConcurrency.USE_CONCURRENT ) {
+			BoofConcurrency.loopFor(0,left.height,this::processRow);
+		} else {
+			for (int y = 0; y < left.height; y++) {
+				processRow(y);
+			}
+		}
+	}
+
+	/**
+	 * Computes the cost for every pixel and disparity in a single row
+	 */
+	protected void processRow( int y ) {
+		final GrayU16 costXD = costYXD.getBand(y);
+		final int width = left.width;
+
+		// pixels to the left of minDisparity can't be matched to anything
+		int endBorder = Math.min(width,minDisparity)*rangeDisparity;
+		Arrays.fill(costXD.data,0,endBorder,(short)MAX_COST);
+
+		for (int x = minDisparity; x < width; x++) {
+			int idxLeft  = left.startIndex  + y*left.stride  + x;
+			int idxRight = right.startIndex + y*right.stride + x - minDisparity;
+			int idxOut = x*rangeDisparity;
+
+			// number of disparities which can be computed without going outside the right image
+			int localRange = Math.min(rangeDisparity, x-minDisparity+1);
+			computeDisparityErrors(idxLeft, idxRight, idxOut, localRange, costXD);
+
+			// Disparities which go outside the right image are given the max cost
+			Arrays.fill(costXD.data,idxOut+localRange,idxOut+rangeDisparity,(short)MAX_COST);
+		}
+	}
+
+	/**
+	 * Computes the cost for a single pixel in the left image across all the valid disparities.
+	 *
+	 * @param idxLeft Index of the pixel in the left image
+	 * @param idxRight Index of the pixel in the right image at minDisparity. Disparity d is at idxRight-d
+	 * @param idxOut Index in the cost band where the cost at d=0 is written to
+	 * @param localRange Number of disparity values which need to be computed
+	 * @param costXD (Output) Storage for the cost of the current row
+	 */
+	protected abstract void computeDisparityErrors( int idxLeft , int idxRight , int idxOut ,
+													int localRange , GrayU16 costXD );
+
+	public int getMinDisparity() {
+		return minDisparity;
+	}
+
+	public int getRangeDisparity() {
+		return rangeDisparity;
+	}
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.feature.disparity.sgm;
+
+import boofcv.alg.descriptor.DescriptorDistance;
+import boofcv.struct.image.*;
+
+/**
+ * Computes the cost as the hamming distance between two binary encoded pixels, e.g. the output
+ * of a Census Transform. The distance is scaled so that a distance equal to the number of
+ * encoded bits will have a cost of {@link SgmDisparityCost#MAX_COST}.
+ *
+ * @author Peter Abeles
+ */
+public abstract class SgmCostHamming<T extends ImageBase<T>> extends SgmCostBase<T> {
+	// Number of bits which are used to encode each pixel
+	protected int bits;
+
+	protected SgmCostHamming( int bits ) {
+		if( bits <= 0 )
+			throw new IllegalArgumentException("bits must be > 0");
+		this.bits = bits;
+	}
+
+	public int getBits() {
+		return bits;
+	}
+
+	public static class U8 extends SgmCostHamming<GrayU8> {
+		public U8( int bits ) { super(bits); }
+
+		@Override
+		protected void computeDisparityErrors(int idxLeft, int idxRight, int idxOut, int localRange, GrayU16 costXD) {
+			final int a = left.data[idxLeft] & 0xFF;
+			for (int d = 0; d < localRange; d++) {
+				int b = right.data[idxRight-d] & 0xFF;
+				costXD.data[idxOut+d] = (short)(MAX_COST*DescriptorDistance.hamming(a^b)/bits);
+			}
+		}
+	}
+
+	public static class S32 extends SgmCostHamming<GrayS32> {
+		public S32( int bits ) { super(bits); }
+
+		@Override
+		protected void computeDisparityErrors(int idxLeft, int idxRight, int idxOut, int localRange, GrayU16 costXD) {
+			final int a = left.data[idxLeft];
+			for (int d = 0; d < localRange; d++) {
+				int b = right.data[idxRight-d];
+				costXD.data[idxOut+d] = (short)(MAX_COST*DescriptorDistance.hamming(a^b)/bits);
+			}
+		}
+	}
+
+	public static class S64 extends SgmCostHamming<GrayS64> {
+		public S64( int bits ) { super(bits); }
+
+		@Override
+		protected void computeDisparityErrors(int idxLeft, int idxRight, int idxOut, int localRange, GrayU16 costXD) {
+			final long a = left.data[idxLeft];
+			for (int d = 0; d < localRange; d++) {
+				long b = right.data[idxRight-d];
+				costXD.data[idxOut+d] = (short)(MAX_COST*DescriptorDistance.hamming(a^b)/bits);
+			}
+		}
+	}
+}
@@ -23,9 +23,39 @@ import boofcv.struct.image.ImageBase;
 import boofcv.struct.image.Planar;
 
 /**
+ * <p>Computes the cost for every pixel and disparity in a rectified stereo pair. The output is a cost volume
+ * which is stored in a {@link Planar} image. Each band corresponds to a row in the input image. Inside a band
+ * the image's width is the number of disparity values and its height is the width of the input image. Thus
+ * the cost of pixel (x,y) at disparity d is stored in band y at pixel (d,x). This ordering keeps all the
+ * disparities for a single pixel next to each other in memory, which is the order they are accessed during
+ * path aggregation.</p>
+ *
+ * <p>All costs are scaled to be from 0 to {@link #MAX_COST}, inclusive. Disparities which would sample outside
+ * of the right image are assigned {@link #MAX_COST}. The upper limit ensures that when the costs from
+ * all the paths are summed together it won't overflow a 16-bit unsigned integer.</p>
+ *
  * @author Peter Abeles
  */
 public interface SgmDisparityCost<T extends ImageBase<T>> {
+	/**
+	 * Maximum allowed cost of a single pixel. 11-bits
+	 */
+	int MAX_COST = 2047;
+
+	/**
+	 * Specifies the range of disparity values which are considered
+	 *
+	 * @param minDisparity Minimum disparity which is considered. &ge; 0
+	 * @param rangeDisparity Number of disparity values considered. &gt; 0
+	 */
+	void configure( int minDisparity , int rangeDisparity );
 
-	void process(T left , T right , Planar<GrayU16> output );
+	/**
+	 * Computes the cost volume for the two images.
+	 *
+	 * @param left (Input) left rectified image
+	 * @param right (Input) right rectified image
+	 * @param costYXD (Output) Cost volume. Reshaped to match the input images.
+	 */
+	void process( T left , T right , Planar<GrayU16> costYXD );
 }
@@ -0,0 +1,273 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.feature.disparity.sgm;
+
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.struct.image.GrayF32;
+import boofcv.struct.image.GrayU16;
+import boofcv.struct.image.GrayU8;
+import boofcv.struct.image.Planar;
+
+import javax.annotation.Nullable;
+
+/**
+ * <p>
+ * Selects the best disparity for each pixel from the aggregated SGM cost volume using a Winner Takes All (WTA)
+ * strategy. Invalid pixels are assigned a value of rangeDisparity+1. Optionally the disparity can be refined
+ * to sub-pixel accuracy by fitting a parabola to the cost at the selected disparity and its two neighbors.
+ * </p>
+ *
+ * <p>
+ * Validation Filters:<br>
+ * <b>MaxError</b> is the largest aggregated cost the selected disparity can have.<br>
+ * <b>right To Left</b> validates the disparity by seeing if the matched pixel on the right has the same pixel on
+ * the left as its optimal solution, within tolerance.<br>
+ * <b>texture</b> Tolerance for how similar the best disparity is to the second best, which is not adjacent to it.
+ * Reject if textureTol &ge; (C2-C1)/C1, where C2 = second best score and C1 = best score
+ * </p>
+ *
+ * @author Peter Abeles
+ */
+public class SgmDisparitySelector {
+	// range of disparity values which are considered
+	protected int minDisparity = 0;
+	protected int rangeDisparity;
+	// value that an invalid pixel will be assigned
+	protected int invalidDisparity;
+
+	// maximum allowed error
+	protected int maxError = Integer.MAX_VALUE;
+	// tolerance for right to left validation. if < 0 then it's disabled
+	protected int rightToLeftTolerance = 1;
+	// texture threshold, use an integer value for speed.
+	protected int textureThreshold = 0;
+	protected static final int discretizer = 10000;
+
+	// Reference to the aggregated cost and the output
+	Planar<GrayU16> aggregatedYXD;
+	GrayU8 disparity;
+	@Nullable GrayF32 subpixel;
+	// Offset from a row in the disparity image to a band in the aggregated cost volume
+	int bandOffset;
+	// width of the input image
+	int lengthX;
+
+	/**
+	 * Specifies the range of disparity values which are considered
+	 *
+	 * @param minDisparity Minimum disparity which is considered. &ge; 0
+	 * @param rangeDisparity Number of disparity values considered. &gt; 0 and &lt; 255
+	 */
+	public void configure( int minDisparity , int rangeDisparity ) {
+		if( rangeDisparity <= 0 || rangeDisparity > 254 )
+			throw new IllegalArgumentException("rangeDisparity must be from 1 to 254");
+		this.minDisparity = minDisparity;
+		this.rangeDisparity = rangeDisparity;
+		this.invalidDisparity = rangeDisparity+1;
+	}
+
+	/**
+	 * Selects the disparity for every pixel
+	 *
+	 * @param aggregatedYXD (Input) aggregated cost volume
+	 * @param disparity (Output) selected disparity. Must be the same shape as the input image.
+	 * @param subpixel (Output) Optional. Disparity with sub-pixel accuracy.
+	 */
+	public void select( Planar<GrayU16> aggregatedYXD , GrayU8 disparity , @Nullable GrayF32 subpixel ) {
+		select(aggregatedYXD,0,disparity,subpixel);
+	}
+
+	/**
+	 * Selects the disparity for a band of rows. Row y in the disparity image is band y+bandOffset in the
+	 * cost volume.
+	 *
+	 * @param aggregatedYXD (Input) aggregated cost volume
+	 * @param bandOffset Offset from disparity row to band in the cost volume.
+	 * @param disparity (Output) selected disparity. Can be a sub-image.
+	 * @param subpixel (Output) Optional. Disparity with sub-pixel accuracy. Can be a sub-image.
+	 */
+	public void select( Planar<GrayU16> aggregatedYXD , int bandOffset ,
+						GrayU8 disparity , @Nullable GrayF32 subpixel ) {
+		if( aggregatedYXD.width != rangeDisparity )
+			throw new IllegalArgumentException("Disparity range doesn't match the cost volume");
+		if( aggregatedYXD.height != disparity.width )
+			throw new IllegalArgumentException("Image width doesn't match the cost volume");
+		if( bandOffset < 0 || bandOffset + disparity.height > aggregatedYXD.getNumBands() )
+			throw new IllegalArgumentException("Rows are outside of the cost volume");
+
+		this.aggregatedYXD = aggregatedYXD;
+		this.disparity = disparity;
+		this.subpixel = subpixel;
+		this.bandOffset = bandOffset;
+		this.lengthX = disparity.width;
+
+		if( BoofConcurrency.USE_CONCURRENT ) {
+			BoofConcurrency.loopFor(0,disparity.height,this::selectRow);
+		} else {
+			for (int y = 0; y < disparity.height; y++) {
+				selectRow(y);
+			}
+		}
+	}
+
+	/**
+	 * Selects the disparity for every pixel in a row
+	 */
+	void selectRow( int y ) {
+		final GrayU16 aggrXD = aggregatedYXD.getBand(y+bandOffset);
+		final short[] data = aggrXD.data;
+		int idxOut = disparity.startIndex + y*disparity.stride;
+		int idxSub = subpixel == null ? 0 : subpixel.startIndex + y*subpixel.stride;
+
+		for (int x = 0; x < lengthX; x++, idxOut++, idxSub++) {
+			int bestDisparity = invalidDisparity;
+
+			if( x >= minDisparity ) {
+				// Disparities which would go outside the right image are skipped
+				int localRange = Math.min(rangeDisparity, x-minDisparity+1);
+				int idx = x*rangeDisparity;
+
+				int bestScore = Integer.MAX_VALUE;
+				for (int d = 0; d < localRange; d++) {
+					int s = data[idx+d] & 0xFFFF;
+					if( s < bestScore ) {
+						bestScore = s;
+						bestDisparity = d;
+					}
+				}
+
+				if( bestScore > maxError ) {
+					bestDisparity = invalidDisparity;
+				} else if( rightToLeftTolerance >= 0 ) {
+					int disparityRtoL = selectRightToLeft(data,x-bestDisparity-minDisparity);
+					if( Math.abs(disparityRtoL-bestDisparity) > rightToLeftTolerance )
+						bestDisparity = invalidDisparity;
+				}
+
+				// see if the best match is too similar to other matches
+				if( textureThreshold > 0 && bestDisparity != invalidDisparity && localRange >= 3 ) {
+					int secondBest = Integer.MAX_VALUE;
+					for (int d = 0; d < bestDisparity-1; d++) {
+						secondBest = Math.min(secondBest,data[idx+d] & 0xFFFF);
+					}
+					for (int d = bestDisparity+2; d < localRange; d++) {
+						secondBest = Math.min(secondBest,data[idx+d] & 0xFFFF);
+					}
+
+					// similar scores indicate lack of texture
+					// C = (C2-C1)/C1
+					if( (long)discretizer*(secondBest-bestScore) <= (long)textureThreshold*bestScore )
+						bestDisparity = invalidDisparity;
+				}
+
+				if( subpixel != null && bestDisparity != invalidDisparity ) {
+					subpixel.data[idxSub] = bestDisparity + subpixelOffset(data,idx,bestDisparity,localRange);
+				}
+			}
+
+			disparity.data[idxOut] = (byte)bestDisparity;
+			if( subpixel != null && bestDisparity == invalidDisparity )
+				subpixel.data[idxSub] = invalidDisparity;
+		}
+	}
+
+	/**
+	 * Finds the best disparity going from right to left image.
+	 *
+	 * @param col Column in the right image
+	 */
+	int selectRightToLeft( short[] data , int col ) {
+		// don't go outside the left image
+		int localRange = Math.min(rangeDisparity, lengthX-col-minDisparity);
+
+		int bestDisparity = 0;
+		int bestScore = Integer.MAX_VALUE;
+		for (int d = 0; d < localRange; d++) {
+			int xLeft = col + minDisparity + d;
+			int s = data[xLeft*rangeDisparity + d] & 0xFFFF;
+			if( s < bestScore ) {
+				bestScore = s;
+				bestDisparity = d;
+			}
+		}
+		return bestDisparity;
+	}
+
+	/**
+	 * Fits a parabola to the cost around the best disparity and returns the offset to its minimum.
+	 */
+	static float subpixelOffset( short[] data , int idx , int bestDisparity , int localRange ) {
+		if( bestDisparity <= 0 || bestDisparity >= localRange-1 )
+			return 0;
+
+		int c0 = data[idx+bestDisparity-1] & 0xFFFF;
+		int c1 = data[idx+bestDisparity] & 0xFFFF;
+		int c2 = data[idx+bestDisparity+1] & 0xFFFF;
+
+		int denominator = c0 - 2*c1 + c2;
+		if( denominator <= 0 )
+			return 0;
+		return (c0-c2)/(2.0f*denominator);
+	}
+
+	public int getInvalidDisparity() {
+		return invalidDisparity;
+	}
+
+	public int getMinDisparity() {
+		return minDisparity;
+	}
+
+	public int getRangeDisparity() {
+		return rangeDisparity;
+	}
+
+	public int getMaxError() {
+		return maxError;
+	}
+
+	/**
+	 * @param maxError The maximum allowed aggregated error. &le; 0 to disable
+	 */
+	public void setMaxError(int maxError) {
+		this.maxError = maxError <= 0 ? Integer.MAX_VALUE : maxError;
+	}
+
+	public int getRightToLeftTolerance() {
+		return rightToLeftTolerance;
+	}
+
+	/**
+	 * @param rightToLeftTolerance Tolerance for right to left validation. &lt; 0 to disable
+	 */
+	public void setRightToLeftTolerance(int rightToLeftTolerance) {
+		this.rightToLeftTolerance = rightToLeftTolerance;
+	}
+
+	public double getTextureThreshold() {
+		return textureThreshold/(double)discretizer;
+	}
+
+	/**
+	 * @param threshold Tolerance for how similar optimal disparity is to other disparities. &le; 0 to disable
+	 */
+	public void setTextureThreshold(double threshold) {
+		this.textureThreshold = (int)(discretizer*threshold);
+	}
+}
@@ -18,10 +18,36 @@
 
 package boofcv.alg.feature.disparity.sgm;
 
+import boofcv.struct.image.GrayU16;
+import boofcv.struct.image.GrayU8;
+
 /**
+ * Computes the SGM cost using Mutual Information. The cost for each pair of intensity values is looked up
+ * from a table which is computed by {@link StereoMutualInformation}. It's the user's responsibility to
+ * update the mutual information, typically using the disparity from a previous iteration.
  *
+ * @see SgmStereoDisparityMI
  *
  * @author Peter Abeles
  */
-public class SgmMutualInformation {
+public class SgmMutualInformation extends SgmCostBase<GrayU8> {
+
+	StereoMutualInformation mutual;
+
+	public SgmMutualInformation(StereoMutualInformation mutual) {
+		this.mutual = mutual;
+	}
+
+	@Override
+	protected void computeDisparityErrors(int idxLeft, int idxRight, int idxOut, int localRange, GrayU16 costXD) {
+		final int valueLeft = left.data[idxLeft] & 0xFF;
+		for (int d = 0; d < localRange; d++) {
+			int valueRight = right.data[idxRight-d] & 0xFF;
+			costXD.data[idxOut+d] = (short)mutual.costScaled(valueLeft,valueRight);
+		}
+	}
+
+	public StereoMutualInformation getMutual() {
+		return mutual;
+	}
 }
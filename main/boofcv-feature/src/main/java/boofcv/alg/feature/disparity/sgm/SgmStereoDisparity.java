@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.feature.disparity.sgm;
+
+import boofcv.alg.InputSanityCheck;
+import boofcv.struct.image.*;
+
+import javax.annotation.Nullable;
+
+/**
+ * <p>
+ * Semi Global Matching (SGM) for computing dense stereo disparity [1]. First the cost for every pixel and disparity
+ * is computed using a {@link SgmDisparityCost}. Then the cost is aggregated along several 1D paths which
+ * radiate out from each pixel using {@link SgmCostAggregation}. Finally the disparity with the lowest aggregated
+ * cost is selected using {@link SgmDisparitySelector}.
+ * </p>
+ *
+ * <p>
+ * The cost volume requires width*height*rangeDisparity*2 bytes, twice since the cost and the aggregated cost
+ * are both saved. For large images this can be excessive. To bound memory the image can optionally be processed
+ * in horizontal bands. Each band is extended above and below by an overlap region, so that paths
+ * entering the band from above or below have some support, then only the rows inside the band are saved.
+ * This is an approximation since paths are truncated at the edge of the extended band. If the band height
+ * is &le; 0 then the entire image is processed at once.
+ * </p>
+ *
+ * <p>[1] Hirschmuller, Heiko. "Stereo processing by semiglobal matching and mutual information."
+ * IEEE Transactions on pattern analysis and machine intelligence 30.2 (2007): 328-341.</p>
+ *
+ * @author Peter Abeles
+ */
+public class SgmStereoDisparity<T extends ImageBase<T>> {
+	protected SgmDisparityCost<T> sgmCost;
+	protected SgmCostAggregation aggregation = new SgmCostAggregation();
+	protected SgmDisparitySelector selector;
+
+	// Storage for the cost volume
+	protected Planar<GrayU16> costYXD = new Planar<>(GrayU16.class,1,1,1);
+
+	// output disparity image and optional sub-pixel disparity
+	protected GrayU8 disparity = new GrayU8(1,1);
+	protected @Nullable GrayF32 disparitySubpixel;
+
+	// range of disparity values which are considered
+	protected int minDisparity = 0;
+	protected int rangeDisparity = 100;
+
+	// Number of rows in a band. If <= 0 the entire image is processed at once
+	protected int bandHeight = 0;
+	// number of rows above and below a band which are also aggregated
+	protected int bandOverlap = 32;
+
+	// storage for sub-images of a band
+	protected T leftBand, rightBand;
+	protected GrayU8 disparityBand = new GrayU8();
+	protected GrayF32 subpixelBand = new GrayF32();
+
+	public SgmStereoDisparity( SgmDisparityCost<T> sgmCost, SgmDisparitySelector selector ) {
+		this.sgmCost = sgmCost;
+		this.selector = selector;
+	}
+
+	/**
+	 * Specifies the range of disparity values which are considered
+	 *
+	 * @param minDisparity Minimum disparity which is considered. &ge; 0
+	 * @param rangeDisparity Number of disparity values considered. &gt; 0
+	 */
+	public void configure( int minDisparity , int rangeDisparity ) {
+		this.minDisparity = minDisparity;
+		this.rangeDisparity = rangeDisparity;
+		sgmCost.configure(minDisparity,rangeDisparity);
+		selector.configure(minDisparity,rangeDisparity);
+	}
+
+	/**
+	 * Computes the disparity for the two rectified images
+	 *
+	 * @param left (Input) left rectified image
+	 * @param right (Input) right rectified image
+	 */
+	public void process( T left , T right ) {
+		InputSanityCheck.checkSameShape(left,right);
+
+		disparity.reshape(left.width,left.height);
+		if( disparitySubpixel != null )
+			disparitySubpixel.reshape(left.width,left.height);
+
+		if( bandHeight <= 0 || bandHeight >= left.height ) {
+			sgmCost.process(left,right,costYXD);
+			aggregation.process(costYXD);
+			selector.select(aggregation.getAggregated(),disparity,disparitySubpixel);
+		} else {
+			processBands(left, right);
+		}
+	}
+
+	/**
+	 * Processes the image in horizontal bands to reduce memory consumption
+	 */
+	protected void processBands( T left , T right ) {
+		final int width = left.width;
+		final int height = left.height;
+
+		for (int y0 = 0; y0 < height; y0 += bandHeight) {
+			int y1 = Math.min(height,y0+bandHeight);
+
+			// extend the band so that paths which enter from above or below have some support
+			int extendedY0 = Math.max(0,y0-bandOverlap);
+			int extendedY1 = Math.min(height,y1+bandOverlap);
+
+			leftBand = left.subimage(0,extendedY0,width,extendedY1,leftBand);
+			rightBand = right.subimage(0,extendedY0,width,extendedY1,rightBand);
+
+			sgmCost.process(leftBand,rightBand,costYXD);
+			aggregation.process(costYXD);
+
+			disparity.subimage(0,y0,width,y1,disparityBand);
+			GrayF32 subpixel = null;
+			if( disparitySubpixel != null ) {
+				subpixel = disparitySubpixel.subimage(0,y0,width,y1,subpixelBand);
+			}
+			selector.select(aggregation.getAggregated(),y0-extendedY0,disparityBand,subpixel);
+		}
+	}
+
+	/**
+	 * If true then a sub-pixel disparity image will also be computed
+	 */
+	public void setSubpixel( boolean subpixel ) {
+		if( subpixel ) {
+			if( disparitySubpixel == null )
+				disparitySubpixel = new GrayF32(1,1);
+		} else {
+			disparitySubpixel = null;
+		}
+	}
+
+	/**
+	 * Specifies the size of horizontal bands used to bound memory.
+	 *
+	 * @param bandHeight Number of rows in each band. &le; 0 to process the entire image at once
+	 * @param bandOverlap Number of rows above and below each band which are also aggregated. &ge; 0
+	 */
+	public void setBands( int bandHeight , int bandOverlap ) {
+		if( bandOverlap < 0 )
+			throw new IllegalArgumentException("bandOverlap must be >= 0");
+		this.bandHeight = bandHeight;
+		this.bandOverlap = bandOverlap;
+	}
+
+	public GrayU8 getDisparity() {
+		return disparity;
+	}
+
+	public @Nullable GrayF32 getDisparitySubpixel() {
+		return disparitySubpixel;
+	}
+
+	public SgmDisparityCost<T> getSgmCost() {
+		return sgmCost;
+	}
+
+	public SgmCostAggregation getAggregation() {
+		return aggregation;
+	}
+
+	public SgmDisparitySelector getSelector() {
+		return selector;
+	}
+
+	public Planar<GrayU16> getCostYXD() {
+		return costYXD;
+	}
+
+	public int getMinDisparity() {
+		return minDisparity;
+	}
+
+	public int getRangeDisparity() {
+		return rangeDisparity;
+	}
+
+	public int getInvalidDisparity() {
+		return selector.getInvalidDisparity();
+	}
+
+	public int getBandHeight() {
+		return bandHeight;
+	}
+
+	public int getBandOverlap() {
+		return bandOverlap;
+	}
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.feature.disparity.sgm;
+
+import boofcv.struct.image.GrayU8;
+
+/**
+ * SGM using Mutual Information as the cost. Mutual Information needs to know the disparity before it can be
+ * computed, so this is done iteratively. Initially it's assumed that the two images have the same intensity
+ * values. A disparity image is then computed, which is used to update the mutual information, and the process
+ * repeats for the specified number of iterations. This is a simplification of the hierarchical approach
+ * in [1], where the initial iterations are done at a lower resolution.
+ *
+ * <p>[1] Hirschmuller, Heiko. "Stereo processing by semiglobal matching and mutual information."
+ * IEEE Transactions on pattern analysis and machine intelligence 30.2 (2007): 328-341.</p>
+ *
+ * @author Peter Abeles
+ */
+public class SgmStereoDisparityMI extends SgmStereoDisparity<GrayU8> {
+
+	StereoMutualInformation mutual;
+
+	// Number of times the mutual information is updated
+	int iterations = 2;
+
+	public SgmStereoDisparityMI(SgmMutualInformation sgmCost, SgmDisparitySelector selector) {
+		super(sgmCost, selector);
+		this.mutual = sgmCost.getMutual();
+	}
+
+	@Override
+	public void process(GrayU8 left, GrayU8 right) {
+		// Initial guess assumes both images have the same intensity
+		mutual.diagonalHistogram();
+		super.process(left, right);
+
+		for (int i = 0; i < iterations; i++) {
+			mutual.process(left,right,minDisparity,disparity,getInvalidDisparity());
+			super.process(left, right);
+		}
+	}
+
+	public int getIterations() {
+		return iterations;
+	}
+
+	public void setIterations(int iterations) {
+		this.iterations = iterations;
+	}
+
+	public StereoMutualInformation getMutual() {
+		return mutual;
+	}
+}
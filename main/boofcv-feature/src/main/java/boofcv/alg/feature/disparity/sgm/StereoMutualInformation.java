@@ -18,18 +18,21 @@
 
 package boofcv.alg.feature.disparity.sgm;
 
+import boofcv.alg.filter.convolve.ConvolveImageNormalized;
+import boofcv.alg.misc.ImageMiscOps;
 import boofcv.alg.misc.ImageStatistics;
 import boofcv.factory.filter.kernel.FactoryKernelGaussian;
 import boofcv.struct.convolve.Kernel1D_F32;
 import boofcv.struct.image.GrayF32;
 import boofcv.struct.image.GrayS32;
+import boofcv.struct.image.GrayU16;
 import boofcv.struct.image.GrayU8;
 
 import java.util.Arrays;
 
 /**
  * <p></p>Computes the Mutual Information error metric from a rectified stereo pair. Mutual information
- * between two images is defined as: MI(I1,I2) = H<sub>I1</sub> + H<sub>I2</sub> + H<sub>I1,I2</sub>.
+ * between two images is defined as: MI(I1,I2) = H<sub>I1</sub> + H<sub>I2</sub> - H<sub>I1,I2</sub>.
  * Where H is an entropy function, e.g. H<sub>I</sub> = -sum_i P<sub>I</sub>(i)log(P<sub>I</sub>(i)),
  * where P<sub>I</sub>(i) is the probability of a pixel in image 'I' having that intensity. See [1]
  * for details.</p>
@@ -39,6 +42,10 @@ import java.util.Arrays;
  * High dynamic range images are problematic because the joint entropy instead of being a 256x256 image might now be a
  * 4096x4096 image. The PDF for each image might also appear to be too flat.</p>
  *
+ * <p>Entropy is computed using the approximation from [1], where the probabilities are smoothed with a Gaussian
+ * kernel, the log is taken, then it's smoothed again. Once computed the negative of the mutual information is
+ * scaled to be from 0 to {@link SgmDisparityCost#MAX_COST} so that it can be used as a cost by SGM.</p>
+ *
  * <p>[1] Hirschmuller, Heiko. "Stereo processing by semiglobal matching and mutual information."
  * IEEE Transactions on pattern analysis and machine intelligence 30.2 (2007): 328-341.</p>
  *
@@ -51,8 +58,8 @@ public class StereoMutualInformation {
 
 	// Maximum intensity value a pixel can have
 	int maxIntensityValue;
-	// Storage for pixel intensity histogram after scaling
-	int[] histogramIntensity;
+	// Number of bins in the histogram along each axis
+	int intensityBins;
 	float[] probLeft;
 	float[] probRight;
 	float[] probSmoothed;
@@ -61,6 +68,15 @@ public class StereoMutualInformation {
 
 	GrayS32 histJoint = new GrayS32(1,1);
 	GrayF32 probJoint = new GrayF32(1,1);
+	GrayF32 entropyJoint = new GrayF32(1,1);
+	// Workspace for smoothing
+	GrayF32 workJoint = new GrayF32(1,1);
+
+	// Cost for each combination of left and right bins. Scaled to be from 0 to MAX_COST
+	GrayU16 scaledCost = new GrayU16(1,1);
+
+	// Used to avoid taking the log of zero
+	float epsilon = 1e-7f;
 
 	public StereoMutualInformation() {
 		// this is a reasonable default for 8-bit images
@@ -70,10 +86,17 @@ public class StereoMutualInformation {
 	}
 
 	public void configureHistogram(int maxIntensityValue , int intensityBins ) {
+		if( intensityBins > maxIntensityValue+1 )
+			throw new IllegalArgumentException("More bins than possible intensity values");
+
+		histJoint.reshape(intensityBins,intensityBins);
 		probJoint.reshape(intensityBins,intensityBins);
+		entropyJoint.reshape(intensityBins,intensityBins);
+		workJoint.reshape(intensityBins,intensityBins);
+		scaledCost.reshape(intensityBins,intensityBins);
 
 		this.maxIntensityValue = maxIntensityValue;
-		histogramIntensity = new int[intensityBins];
+		this.intensityBins = intensityBins;
 		probLeft = new float[intensityBins];
 		probRight = new float[intensityBins];
 		probSmoothed = new float[intensityBins];
@@ -85,22 +108,61 @@ public class StereoMutualInformation {
 		smoothKernel = FactoryKernelGaussian.gaussian(1,true,32,-1,radius);
 	}
 
-	public void process( GrayU8 left , GrayU8 right , GrayU8 disparity , int invalid ) {
+	/**
+	 * Computes the mutual information from the two images and the disparity which relates them.
+	 *
+	 * @param left (Input) left image
+	 * @param right (Input) right image
+	 * @param minDisparity The minimum disparity. Disparity values in the image are offset by this amount
+	 * @param disparity (Input) disparity from left to right image
+	 * @param invalid Value of a disparity pixel that has no correspondence
+	 */
+	public void process( GrayU8 left , GrayU8 right , int minDisparity , GrayU8 disparity , int invalid ) {
 		if( left.isSubimage() || right.isSubimage() || disparity.isSubimage() )
 			throw new IllegalArgumentException("Can't process sub images. Is this a major issue? Could be fixed");
 
-		computeJointHistogram(left, right, disparity, invalid);
+		computeJointHistogram(left, right, minDisparity, disparity, invalid);
 		computeProbabilities();
+		computeEntropy();
+		computeScaledCost();
+	}
 
-		// TODO compute entropy
+	/**
+	 * Initializes the mutual information by assuming that the two images have identical intensity values.
+	 * Useful as a prior before any disparity has been computed.
+	 */
+	public void diagonalHistogram() {
+		ImageMiscOps.fill(histJoint,0);
+		for (int i = 0; i < intensityBins; i++) {
+			histJoint.data[i*intensityBins+i] = 1;
+		}
+		computeProbabilities();
+		computeEntropy();
+		computeScaledCost();
+	}
+
+	/**
+	 * Returns the scaled cost of the two pixel intensity values
+	 *
+	 * @param leftValue Intensity of the pixel in the left image
+	 * @param rightValue Intensity of the pixel in the right image
+	 * @return cost from 0 to {@link SgmDisparityCost#MAX_COST}
+	 */
+	public int costScaled( int leftValue , int rightValue ) {
+		int binLeft = intensityBins*leftValue/(maxIntensityValue+1);
+		int binRight = intensityBins*rightValue/(maxIntensityValue+1);
+		return scaledCost.data[binLeft*intensityBins+binRight] & 0xFFFF;
 	}
 
 	/**
 	 * Computes the joint histogram of pixel intensities (2D histogram) while skipping over pixels with
 	 * no correspondences
 	 */
-	private void computeJointHistogram(GrayU8 left, GrayU8 right, GrayU8 disparity, int invalid) {
-		final int N = histogramIntensity.length;
+	void computeJointHistogram(GrayU8 left, GrayU8 right, int minDisparity, GrayU8 disparity, int invalid) {
+		final int N = intensityBins;
+		final int bins = maxIntensityValue+1;
+
+		ImageMiscOps.fill(histJoint,0);
 
 		// Compute the joint histogram
 		for (int row = 0; row < left.height; row++) {
@@ -108,17 +170,21 @@ public class StereoMutualInformation {
 			for (int col = 0; col < left.width; col++, idx++ ) {
 				int d = disparity.data[idx]&0xFF;
 				// Don't consider pixels without correspondences
-				if( d != invalid ) {
-					int leftValue = left.data[idx];     // I(x,y)
-					int rightValue = right.data[idx-d]; // I(x-d,y)
+				if( d >= invalid )
+					continue;
+				d += minDisparity;
+				if( col-d < 0 )
+					continue;
 
-					// scale the pixel intensity for the histogram
-					leftValue = N*leftValue/maxIntensityValue;
-					rightValue = N*rightValue/maxIntensityValue;
+				int leftValue = left.data[idx]&0xFF;      // I(x,y)
+				int rightValue = right.data[idx-d]&0xFF;  // I(x-d,y)
 
-					// increment the histogram
-					histJoint.data[leftValue*N+rightValue]++; // H(L,R) += 1
-				}
+				// scale the pixel intensity for the histogram
+				leftValue = N*leftValue/bins;
+				rightValue = N*rightValue/bins;
+
+				// increment the histogram
+				histJoint.data[leftValue*N+rightValue]++; // H(L,R) += 1
 			}
 		}
 	}
@@ -126,9 +192,11 @@ public class StereoMutualInformation {
 	/**
 	 * Computes the joint and image specific probabilities using the joint histogram.
 	 */
-	private void computeProbabilities() {
+	void computeProbabilities() {
 		// Convert joint histogram into a joint probability
 		float totalPixels = ImageStatistics.sum(histJoint);
+		if( totalPixels == 0 )
+			throw new IllegalArgumentException("No valid correspondences to compute the histogram from");
 		int histN = histJoint.width*histJoint.height;
 		for (int i = 0; i < histN; i++) {
 			probJoint.data[i] = histJoint.data[i]/totalPixels;
@@ -149,4 +217,96 @@ public class StereoMutualInformation {
 			probLeft[row] = sumRow;
 		}
 	}
+
+	/**
+	 * Computes the entropy for each possible intensity value using h = -log(P*g)*g, where g is a Gaussian
+	 * kernel and * is the convolution operator.
+	 */
+	void computeEntropy() {
+		// Joint entropy
+		ConvolveImageNormalized.horizontal(smoothKernel,probJoint,workJoint);
+		ConvolveImageNormalized.vertical(smoothKernel,workJoint,entropyJoint);
+		int histN = entropyJoint.width*entropyJoint.height;
+		for (int i = 0; i < histN; i++) {
+			entropyJoint.data[i] = -(float)Math.log(Math.max(epsilon,entropyJoint.data[i]));
+		}
+		ConvolveImageNormalized.horizontal(smoothKernel,entropyJoint,workJoint);
+		ConvolveImageNormalized.vertical(smoothKernel,workJoint,entropyJoint);
+
+		// Entropy of the individual images
+		computeEntropy(probLeft,entropyLeft);
+		computeEntropy(probRight,entropyRight);
+	}
+
+	private void computeEntropy( float[] prob , float[] entropy ) {
+		smooth(prob,probSmoothed);
+		for (int i = 0; i < probSmoothed.length; i++) {
+			probSmoothed[i] = -(float)Math.log(Math.max(epsilon,probSmoothed[i]));
+		}
+		smooth(probSmoothed,entropy);
+	}
+
+	/**
+	 * Applies the smoothing kernel to a 1D array. Along the border the kernel is renormalized.
+	 */
+	void smooth( float[] input , float[] output ) {
+		final int N = input.length;
+		final int offset = smoothKernel.offset;
+		for (int i = 0; i < N; i++) {
+			float sum = 0, weight = 0;
+			for (int k = 0; k < smoothKernel.width; k++) {
+				int j = i+k-offset;
+				if( j < 0 || j >= N )
+					continue;
+				float w = smoothKernel.data[k];
+				sum += w*input[j];
+				weight += w;
+			}
+			output[i] = sum/weight;
+		}
+	}
+
+	/**
+	 * Converts mutual information into a cost. The negative of mutual information is computed and scaled
+	 * so that it's from 0 to MAX_COST.
+	 */
+	void computeScaledCost() {
+		final int N = intensityBins;
+
+		// mutual information for each pair of intensities is stored in the work image
+		float minMI = Float.MAX_VALUE;
+		float maxMI = -Float.MAX_VALUE;
+		for (int row = 0; row < N; row++) {
+			int idx = row*N;
+			for (int col = 0; col < N; col++, idx++) {
+				float mi = entropyLeft[row] + entropyRight[col] - entropyJoint.data[idx];
+				workJoint.data[idx] = mi;
+				minMI = Math.min(minMI,mi);
+				maxMI = Math.max(maxMI,mi);
+			}
+		}
+
+		float range = maxMI-minMI;
+		if( range == 0 )
+			range = 1;
+		for (int i = 0; i < N*N; i++) {
+			scaledCost.data[i] = (short)(SgmDisparityCost.MAX_COST*(maxMI-workJoint.data[i])/range);
+		}
+	}
+
+	public GrayF32 getProbJoint() {
+		return probJoint;
+	}
+
+	public GrayU16 getScaledCost() {
+		return scaledCost;
+	}
+
+	public int getMaxIntensityValue() {
+		return maxIntensityValue;
+	}
+
+	public int getIntensityBins() {
+		return intensityBins;
+	}
 }
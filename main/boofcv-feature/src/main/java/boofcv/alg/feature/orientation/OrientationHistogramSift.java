@@ -83,6 +83,7 @@ public class OrientationHistogramSift<Deriv extends ImageGray>
 
 	// spacial image gradient of closest image in scale-space
 	private GImageGray derivX,derivY;
+	private Class<Deriv> derivType;
 
 	InterpolateArray approximateGauss;
 	double approximateStep = 0.1;
@@ -113,10 +114,18 @@ public class OrientationHistogramSift<Deriv extends ImageGray>
 		}
 		approximateGauss = new InterpolateArray(samples);
 
+		this.derivType = derivType;
 		this.derivX = FactoryGImageGray.create(derivType);
 		this.derivY = FactoryGImageGray.create(derivType);
 	}
 
+	/**
+	 * Creates a new instance with the same configuration
+	 */
+	public OrientationHistogramSift<Deriv> copy() {
+		return new OrientationHistogramSift<>(histogramMag.length,sigmaEnlarge,derivType);
+	}
+
 	/**
 	 * Specify the input image
 	 */
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.flow;
+
+import boofcv.alg.interpolate.InterpolatePixelS;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.core.image.border.FactoryImageBorder;
+import boofcv.struct.border.BorderType;
+import boofcv.struct.image.GrayF32;
+import boofcv.struct.image.ImageGray;
+import org.ddogleg.struct.FastQueue;
+
+/**
+ * <p>
+ * Concurrent implementation of {@link BroxWarpingSpacial}. Warping, interpolation between layers, and
+ * computing Psi-data are split between threads by rows, with each thread having its own interpolation.
+ * </p>
+ *
+ * <p>
+ * The SOR update for a pixel depends on the current value of its 4 neighbors. Instead of raster order the
+ * pixels are updated with a red-black ordering, i.e. pixels where x+y is even are updated then pixels where
+ * x+y is odd. No two pixels with the same color are neighbors so each color can be split between threads and
+ * the result doesn't depend on the number of threads. The visiting order is different from the single threaded
+ * version so the flow will be slightly different, but it converges to the same solution.
+ * </p>
+ *
+ * @author Peter Abeles
+ */
+public class BroxWarpingSpacial_MT<T extends ImageGray<T>> extends BroxWarpingSpacial<T> {
+
+	// Each thread gets its own interpolation
+	FastQueue<InterpolatePixelS<GrayF32>> interpolators;
+
+	// SOR error along each row. Summed in order so that the result doesn't depend on the number of threads
+	float[] rowErrors = new float[0];
+
+	public BroxWarpingSpacial_MT(ConfigBroxWarping config, InterpolatePixelS<GrayF32> interp) {
+		super(config, interp);
+
+		interpolators = new FastQueue<>((Class)InterpolatePixelS.class, ()->{
+			InterpolatePixelS<GrayF32> copy = interp.copy();
+			copy.setBorder(FactoryImageBorder.single(BorderType.EXTENDED, GrayF32.class));
+			return copy;
+		});
+	}
+
+	@Override
+	protected void interpolateFlowScale(GrayF32 prev, GrayF32 curr) {
+		BoofConcurrency.loopBlocks(0,curr.height,interpolators,(interp,y0,y1)->{
+			interp.setImage(prev);
+			interpolateFlowScale(interp, prev, curr, y0, y1);
+		});
+	}
+
+	@Override
+	protected void warpImageTaylor(GrayF32 before, GrayF32 flowX, GrayF32 flowY, GrayF32 after) {
+		BoofConcurrency.loopBlocks(0,before.height,interpolators,(interp,y0,y1)->{
+			interp.setImage(before);
+			warpImageTaylor(interp, before, flowX, flowY, after, y0, y1);
+		});
+	}
+
+	@Override
+	protected void computePsiDataPsiGradient(GrayF32 image1, GrayF32 image2,
+											 GrayF32 deriv1x, GrayF32 deriv1y,
+											 GrayF32 deriv2x, GrayF32 deriv2y,
+											 GrayF32 deriv2xx, GrayF32 deriv2yy, GrayF32 deriv2xy,
+											 GrayF32 du, GrayF32 dv,
+											 GrayF32 psiData, GrayF32 psiGradient) {
+		BoofConcurrency.loopBlocks(0,image1.height,(y0,y1)->
+				computePsiDataPsiGradient(image1, image2, deriv1x, deriv1y, deriv2x, deriv2y,
+						deriv2xx, deriv2yy, deriv2xy, du, dv, psiData, psiGradient, y0, y1));
+	}
+
+	@Override
+	protected float iterationSor(GrayF32 image1, GrayF32 deriv1X, GrayF32 deriv1Y) {
+		if( rowErrors.length < image1.height )
+			rowErrors = new float[image1.height];
+
+		final int width = image1.width;
+		final int height = image1.height;
+		final int stride = image1.stride;
+
+		for (int y = 0; y < height; y++) {
+			rowErrors[y] = 0;
+		}
+
+		// pixels with the same color are never 4-connected neighbors
+		for (int color = 0; color < 2; color++) {
+			final int passColor = color;
+			BoofConcurrency.loopBlocks(0,height,(y0,y1)->{
+				for (int y = y0; y < y1; y++) {
+					float error = 0;
+					boolean borderRow = y == 0 || y == height-1;
+					for (int x = (passColor+y)%2; x < width; x += 2) {
+						if( borderRow || x == 0 || x == width-1 ) {
+							error += iterationSor(image1, deriv1X, deriv1Y,
+									s(x, y), s(x + 1, y), s(x - 1, y), s(x, y + 1), s(x, y - 1));
+						} else {
+							int i = y*width + x;
+							error += iterationSor(image1, deriv1X, deriv1Y, i, i + 1, i - 1, i + stride, i - stride);
+						}
+					}
+					rowErrors[y] += error;
+				}
+			});
+		}
+
+		float error = 0;
+		for (int y = 0; y < height; y++) {
+			error += rowErrors[y];
+		}
+		return error;
+	}
+}
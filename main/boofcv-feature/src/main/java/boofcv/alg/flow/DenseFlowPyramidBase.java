@@ -95,14 +95,25 @@ public abstract class DenseFlowPyramidBase<T extends ImageGray<T>> {
 	 */
 	protected void interpolateFlowScale(GrayF32 prev, GrayF32 curr) {
 		interp.setImage(prev);
+		interpolateFlowScale(interp, prev, curr, 0, curr.height);
+	}
 
+	/**
+	 * Interpolates the flow from the previous layer along the specified rows in the current layer.
+	 *
+	 * @param interp Interpolation which has already been set to 'prev'
+	 * @param y0 First row, inclusive
+	 * @param y1 Last row, exclusive
+	 */
+	protected void interpolateFlowScale(InterpolatePixelS<GrayF32> interp, GrayF32 prev, GrayF32 curr,
+										int y0 , int y1 ) {
 		float scaleX = (float)prev.width/(float)curr.width;
 		float scaleY = (float)prev.height/(float)curr.height;
 
 		float scale = (float)prev.width/(float)curr.width;
 
-		int indexCurr = 0;
-		for( int y = 0; y < curr.height; y++ ) {
+		int indexCurr = y0*curr.width;
+		for( int y = y0; y < y1; y++ ) {
 			float yy = y*scaleY;
 			for( int x = 0; x < curr.width; x++ ) {
 				float xx = x*scaleX;
@@ -123,7 +134,20 @@ public abstract class DenseFlowPyramidBase<T extends ImageGray<T>> {
 		interp.setBorder(FactoryImageBorder.single(BorderType.EXTENDED, before.getImageType().getImageClass()));
 		interp.setImage(before);
 
-		for( int y = 0; y < before.height; y++ ) {
+		warpImageTaylor(interp, before, flowX, flowY, after, 0, before.height);
+	}
+
+	/**
+	 * Warps the image along the specified rows
+	 *
+	 * @param interp Interpolation which has already been set to 'before'
+	 * @param y0 First row, inclusive
+	 * @param y1 Last row, exclusive
+	 */
+	protected void warpImageTaylor(InterpolatePixelS<GrayF32> interp,
+								   GrayF32 before, GrayF32 flowX , GrayF32 flowY , GrayF32 after,
+								   int y0 , int y1 ) {
+		for( int y = y0; y < y1; y++ ) {
 			int pixelIndex = y*before.width;
 			for (int x = 0; x < before.width; x++, pixelIndex++ ) {
 				float u = flowX.data[pixelIndex];
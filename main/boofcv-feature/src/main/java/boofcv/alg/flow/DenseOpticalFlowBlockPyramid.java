@@ -113,62 +113,10 @@ public abstract class DenseOpticalFlowBlockPyramid<T extends ImageGray<T>> {
 
 			flowCurrLayer.reshape(prev.width, prev.height);
 
-			int N = prev.width*prev.height;
-			if( scores.length < N )
-				scores = new float[N];
-			// mark all the scores as being very large so that if it has not been processed its score
-			// will be set inside of checkNeighbors.
-			Arrays.fill(scores,0,N,Float.MAX_VALUE);
-
-			int x1 = prev.width-regionRadius;
-			int y1 = prev.height-regionRadius;
-
 			if( i == numLayers-1 ) {
-				// the top most layer in the pyramid has no hint
-				for( int y = regionRadius; y < y1; y++ ) {
-					for( int x = regionRadius; x < x1; x++ ) {
-						extractTemplate(x,y,prev);
-						float score = findFlow(x,y,curr,tmp);
-
-						if( tmp.isValid() )
-							checkNeighbors(x,y,tmp, flowCurrLayer,score);
-						else
-							flowCurrLayer.unsafe_get(x, y).markInvalid();
-					}
-				}
+				processLayer(prev, curr, false, 1.0);
 			} else {
-				// for all the other layers use the hint of the previous layer to start its search
-				double scale = pyramidPrev.getScale(i+1)/pyramidPrev.getScale(i);
-				for( int y = regionRadius; y < y1; y++ ) {
-					for( int x = regionRadius; x < x1; x++ ) {
-						// grab the flow in higher level pyramid
-						ImageFlow.D p = flowPrevLayer.get((int)(x/scale),(int)(y/scale));
-						if( !p.isValid() )
-							continue;
-
-						// get the template around the current point in this layer
-						extractTemplate(x,y,prev);
-
-						// add the flow from the higher layer (adjusting for scale and rounding) as the start of
-						// this search
-						int deltaX = (int)(p.x*scale+0.5);
-						int deltaY = (int)(p.y*scale+0.5);
-
-						int startX = x + deltaX;
-						int startY = y + deltaY;
-
-						float score = findFlow(startX,startY,curr,tmp);
-
-						// find flow only does it relative to the starting point
-						tmp.x += deltaX;
-						tmp.y += deltaY;
-
-						if( tmp.isValid() )
-							checkNeighbors(x,y,tmp, flowCurrLayer,score);
-						else
-							flowCurrLayer.unsafe_get(x,y).markInvalid();
-					}
-				}
+				processLayer(prev, curr, true, pyramidPrev.getScale(i+1)/pyramidPrev.getScale(i));
 			}
 
 			// swap the flow images
@@ -178,6 +126,73 @@ public abstract class DenseOpticalFlowBlockPyramid<T extends ImageGray<T>> {
 		}
 	}
 
+	/**
+	 * Computes the flow for a single layer in the pyramid and writes the results into flowCurrLayer
+	 *
+	 * @param prev Previous image
+	 * @param curr Current image
+	 * @param useHint If true the flow in the previous layer is used as the initial estimate
+	 * @param scale Change in scale from the previous layer to this layer
+	 */
+	protected void processLayer( T prev , T curr , boolean useHint , double scale ) {
+		int N = prev.width*prev.height;
+		if( scores.length < N )
+			scores = new float[N];
+		// mark all the scores as being very large so that if it has not been processed its score
+		// will be set inside of checkNeighbors.
+		Arrays.fill(scores,0,N,Float.MAX_VALUE);
+
+		int x1 = prev.width-regionRadius;
+		int y1 = prev.height-regionRadius;
+
+		if( !useHint ) {
+			// the top most layer in the pyramid has no hint
+			for( int y = regionRadius; y < y1; y++ ) {
+				for( int x = regionRadius; x < x1; x++ ) {
+					extractTemplate(x,y,prev);
+					float score = findFlow(x,y,curr,tmp);
+
+					if( tmp.isValid() )
+						checkNeighbors(x,y,tmp, flowCurrLayer,score);
+					else
+						flowCurrLayer.unsafe_get(x, y).markInvalid();
+				}
+			}
+		} else {
+			// for all the other layers use the hint of the previous layer to start its search
+			for( int y = regionRadius; y < y1; y++ ) {
+				for( int x = regionRadius; x < x1; x++ ) {
+					// grab the flow in higher level pyramid
+					ImageFlow.D p = flowPrevLayer.get((int)(x/scale),(int)(y/scale));
+					if( !p.isValid() )
+						continue;
+
+					// get the template around the current point in this layer
+					extractTemplate(x,y,prev);
+
+					// add the flow from the higher layer (adjusting for scale and rounding) as the start of
+					// this search
+					int deltaX = (int)(p.x*scale+0.5);
+					int deltaY = (int)(p.y*scale+0.5);
+
+					int startX = x + deltaX;
+					int startY = y + deltaY;
+
+					float score = findFlow(startX,startY,curr,tmp);
+
+					// find flow only does it relative to the starting point
+					tmp.x += deltaX;
+					tmp.y += deltaY;
+
+					if( tmp.isValid() )
+						checkNeighbors(x,y,tmp, flowCurrLayer,score);
+					else
+						flowCurrLayer.unsafe_get(x,y).markInvalid();
+				}
+			}
+		}
+	}
+
 	/**
 	 * Performs an exhaustive search centered around (cx,cy) for the region in 'curr' which is the best
 	 * match for the template.  Results are written into 'flow'
@@ -260,6 +275,11 @@ public abstract class DenseOpticalFlowBlockPyramid<T extends ImageGray<T>> {
 	 */
 	protected abstract float computeError( int cx , int cy , T curr );
 
+	/**
+	 * Creates a new instance with the same configuration but its own internal work space
+	 */
+	public abstract DenseOpticalFlowBlockPyramid<T> copy();
+
 	/**
 	 * Returns the found optical flow
 	 */
@@ -276,6 +296,13 @@ public abstract class DenseOpticalFlowBlockPyramid<T extends ImageGray<T>> {
 			super(searchRadius, regionRadius, maxPerPixelError,GrayU8.class);
 		}
 
+		@Override
+		public U8 copy() {
+			U8 ret = new U8(searchRadius, regionRadius, 0);
+			ret.maxError = maxError;
+			return ret;
+		}
+
 		@Override
 		protected void extractTemplate( int cx , int cy , GrayU8 prev ) {
 			int index = 0;
@@ -312,6 +339,13 @@ public abstract class DenseOpticalFlowBlockPyramid<T extends ImageGray<T>> {
 			super(searchRadius, regionRadius, maxPerPixelError,GrayF32.class);
 		}
 
+		@Override
+		public F32 copy() {
+			F32 ret = new F32(searchRadius, regionRadius, 0);
+			ret.maxError = maxError;
+			return ret;
+		}
+
 		@Override
 		protected void extractTemplate( int cx , int cy , GrayF32 prev ) {
 			int index = 0;
@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.flow;
+
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.struct.flow.ImageFlow;
+import boofcv.struct.image.ImageGray;
+import org.ddogleg.struct.FastQueue;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * Concurrent implementation of {@link DenseOpticalFlowBlockPyramid}. Each layer is processed in two steps.
+ * First the flow for every region center is found, with the rows split between threads and each thread having
+ * its own copy of the algorithm. Then each pixel goes through all the regions it's inside of, in the same order
+ * as the single threaded version, and selects its flow using the same rules as
+ * {@link DenseOpticalFlowBlockPyramid#checkNeighbors}. Pixels don't depend on each other in the second step,
+ * so it's also split between threads by rows. Results are identical to the single threaded version.
+ * </p>
+ *
+ * @author Peter Abeles
+ */
+public class DenseOpticalFlowBlockPyramid_MT<T extends ImageGray<T>> extends DenseOpticalFlowBlockPyramid<T> {
+
+	// status of the flow found at a region center
+	private static final byte SKIPPED = 0;
+	private static final byte INVALID = 1;
+	private static final byte VALID = 2;
+
+	// algorithm which is used to extract templates and compute the error
+	protected DenseOpticalFlowBlockPyramid<T> alg;
+
+	// Each thread gets its own copy of the algorithm
+	FastQueue<DenseOpticalFlowBlockPyramid<T>> workers;
+
+	// flow, score, and status for each region center
+	protected ImageFlow centerFlow = new ImageFlow(1,1);
+	protected float centerScores[] = new float[0];
+	protected byte centerStatus[] = new byte[0];
+
+	/**
+	 * Creates a concurrent version of the provided algorithm
+	 *
+	 * @param alg The single threaded algorithm. Copies of it are created for each thread.
+	 */
+	public DenseOpticalFlowBlockPyramid_MT( DenseOpticalFlowBlockPyramid<T> alg ) {
+		super(alg.searchRadius, alg.regionRadius, 0, alg.template.getImageType().getImageClass());
+		this.alg = alg;
+		this.maxError = alg.maxError;
+		this.template = alg.template;
+
+		workers = new FastQueue<>((Class)DenseOpticalFlowBlockPyramid.class, alg::copy);
+	}
+
+	@Override
+	protected void processLayer(T prev, T curr, boolean useHint, double scale) {
+		final int width = prev.width;
+		final int N = width*prev.height;
+		if( scores.length < N ) {
+			scores = new float[N];
+			centerScores = new float[N];
+			centerStatus = new byte[N];
+		}
+		centerFlow.reshape(width,prev.height);
+
+		final int x1 = width-regionRadius;
+		final int y1 = prev.height-regionRadius;
+		if( x1 <= regionRadius || y1 <= regionRadius ) {
+			// no regions fit inside the image so nothing is modified
+			Arrays.fill(scores,0,N,Float.MAX_VALUE);
+			return;
+		}
+
+		// Find the flow at every region center
+		BoofConcurrency.loopBlocks(regionRadius,y1,workers,(worker,y0,y1_)->{
+			for( int y = y0; y < y1_; y++ ) {
+				for( int x = regionRadius; x < x1; x++ ) {
+					int index = y*width + x;
+					ImageFlow.D flow = centerFlow.data[index];
+
+					if( useHint ) {
+						// grab the flow in higher level pyramid
+						ImageFlow.D p = flowPrevLayer.get((int)(x/scale),(int)(y/scale));
+						if( !p.isValid() ) {
+							centerStatus[index] = SKIPPED;
+							continue;
+						}
+
+						worker.extractTemplate(x,y,prev);
+
+						int deltaX = (int)(p.x*scale+0.5);
+						int deltaY = (int)(p.y*scale+0.5);
+
+						centerScores[index] = worker.findFlow(x+deltaX,y+deltaY,curr,flow);
+
+						// find flow only does it relative to the starting point
+						flow.x += deltaX;
+						flow.y += deltaY;
+					} else {
+						worker.extractTemplate(x,y,prev);
+						centerScores[index] = worker.findFlow(x,y,curr,flow);
+					}
+
+					centerStatus[index] = flow.isValid() ? VALID : INVALID;
+				}
+			}
+		});
+
+		// Select the flow for each pixel from all the regions which contain it
+		BoofConcurrency.loopBlocks(0,prev.height,(y0,y1_)->{
+			for( int y = y0; y < y1_; y++ ) {
+				int cy0 = Math.max(regionRadius,y-regionRadius);
+				int cy1 = Math.min(y1-1,y+regionRadius);
+				for( int x = 0; x < width; x++ ) {
+					int index = y*width + x;
+					int cx0 = Math.max(regionRadius,x-regionRadius);
+					int cx1 = Math.min(x1-1,x+regionRadius);
+
+					ImageFlow.D f = flowCurrLayer.data[index];
+					float s = Float.MAX_VALUE;
+
+					// visit the regions in the same order as the single threaded version
+					for( int cy = cy0; cy <= cy1; cy++ ) {
+						for( int cx = cx0; cx <= cx1; cx++ ) {
+							int indexCenter = cy*width + cx;
+							byte status = centerStatus[indexCenter];
+							if( status == VALID ) {
+								float score = centerScores[indexCenter];
+								ImageFlow.D flow = centerFlow.data[indexCenter];
+								if( s > score ) {
+									f.set(flow);
+									s = score;
+								} else if( s == score ) {
+									// Pick solution with the least motion when ambiguous
+									float m0 = f.x*f.x + f.y*f.y;
+									float m1 = flow.x*flow.x + flow.y*flow.y;
+									if( m1 < m0 ) {
+										f.set(flow);
+									}
+								}
+							} else if( status == INVALID && indexCenter == index ) {
+								f.markInvalid();
+							}
+						}
+					}
+					scores[index] = s;
+				}
+			}
+		});
+	}
+
+	@Override
+	protected void extractTemplate(int cx, int cy, T prev) {
+		alg.extractTemplate(cx, cy, prev);
+	}
+
+	@Override
+	protected float computeError(int cx, int cy, T curr) {
+		return alg.computeError(cx, cy, curr);
+	}
+
+	@Override
+	public DenseOpticalFlowBlockPyramid<T> copy() {
+		return new DenseOpticalFlowBlockPyramid_MT<>(alg.copy());
+	}
+}
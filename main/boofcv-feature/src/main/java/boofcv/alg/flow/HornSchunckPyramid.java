@@ -48,17 +48,17 @@ public class HornSchunckPyramid<T extends ImageGray<T>>
 		extends DenseFlowPyramidBase<T>
 {
 	// used to weight the error of image brightness and smoothness of velocity flow
-	private float alpha2;
+	protected float alpha2;
 
 	// relaxation parameter for SOR  0 < w < 2.  Recommended default is 1.9
-	private float SOR_RELAXATION;
+	protected float SOR_RELAXATION;
 
 	// number of warps for outer loop
-	private int numWarps;
+	protected int numWarps;
 	// maximum number of iterations in inner loop
-	private int maxInnerIterations;
+	protected int maxInnerIterations;
 	// convergence tolerance
-	private float convergeTolerance;
+	protected float convergeTolerance;
 
 	// computes the image gradient
 	private ImageGradient<GrayF32, GrayF32> gradient = FactoryDerivative.three(GrayF32.class, GrayF32.class);
@@ -172,16 +172,16 @@ public class HornSchunckPyramid<T extends ImageGray<T>>
 	 * Takes the flow from the previous lower resolution layer and uses it to initialize the flow
 	 * in the current layer.  Adjusts for change in image scale.
 	 */
-	protected void interpolateFlowScale(GrayF32 prev, GrayF32 curr) {
-		interp.setImage(prev);
-
+	@Override
+	protected void interpolateFlowScale(InterpolatePixelS<GrayF32> interp, GrayF32 prev, GrayF32 curr,
+										int y0 , int y1 ) {
 		float scaleX = (float)(prev.width-1)/(float)(curr.width-1)*0.999f;
 		float scaleY = (float)(prev.height-1)/(float)(curr.height-1)*0.999f;
 
 		float scale = (float)prev.width/(float)curr.width;
 
-		int indexCurr = 0;
-		for( int y = 0; y < curr.height; y++ ) {
+		int indexCurr = y0*curr.width;
+		for( int y = y0; y < y1; y++ ) {
 			for( int x = 0; x < curr.width; x++ ) {
 				curr.data[indexCurr++] = interp.get(x*scaleX,y*scaleY)/scale;
 			}
@@ -192,10 +192,17 @@ public class HornSchunckPyramid<T extends ImageGray<T>>
 	 * Takes the flow from the previous lower resolution layer and uses it to initialize the flow
 	 * in the current layer.  Adjusts for change in image scale.
 	 */
+	@Override
 	protected void warpImageTaylor(GrayF32 before, GrayF32 flowX , GrayF32 flowY , GrayF32 after) {
 		interp.setImage(before);
+		warpImageTaylor(interp, before, flowX, flowY, after, 0, before.height);
+	}
 
-		for( int y = 0; y < before.height; y++ ) {
+	@Override
+	protected void warpImageTaylor(InterpolatePixelS<GrayF32> interp,
+								   GrayF32 before, GrayF32 flowX , GrayF32 flowY , GrayF32 after,
+								   int y0 , int y1 ) {
+		for( int y = y0; y < y1; y++ ) {
 			int pixelIndex = y*before.width;
 			for (int x = 0; x < before.width; x++, pixelIndex++ ) {
 				float u = flowX.data[pixelIndex];
@@ -220,9 +227,6 @@ public class HornSchunckPyramid<T extends ImageGray<T>>
 	 */
 	protected void processLayer(GrayF32 image1 , GrayF32 image2 , GrayF32 derivX2 , GrayF32 derivY2) {
 
-		float w = SOR_RELAXATION;
-		float uf,vf;
-
 		// outer Taylor expansion iterations
 		for( int warp = 0; warp < numWarps; warp++ ) {
 
@@ -237,62 +241,81 @@ public class HornSchunckPyramid<T extends ImageGray<T>>
 			int iter = 0;
 
 			do {
-				// inner SOR iteration.
-				error = 0;
+				error = iterationSor(image1);
+			} while( error > convergeTolerance*image1.width*image1.height && ++iter < maxInnerIterations);
+		}
+	}
 
-				// inner portion
-				for( int y = 1; y < image1.height-1; y++ ) {
-					int pixelIndex = y*image1.width+1;
-					for (int x = 1; x < image1.width-1; x++, pixelIndex++ ) {
-						// could speed this up a bit more by precomputing the constant portion before the do-while loop
-						float ui = initFlowX.data[pixelIndex];
-						float vi = initFlowY.data[pixelIndex];
+	/**
+	 * Performs a single SOR iteration across the entire image
+	 *
+	 * @return sum of the squared change in flow
+	 */
+	protected float iterationSor(GrayF32 image1) {
+		float error = 0;
+
+		// inner portion
+		for( int y = 1; y < image1.height-1; y++ ) {
+			int pixelIndex = y*image1.width+1;
+			for (int x = 1; x < image1.width-1; x++, pixelIndex++ ) {
+				error += iterationSorInner(image1,x,y,pixelIndex);
+			}
+		}
 
-						float u = flowX.data[pixelIndex];
-						float v = flowY.data[pixelIndex];
+		// border regions require special treatment
+		int pixelIndex0 = 0;
+		int pixelIndex1 = (image1.height-1)*image1.width;
+		for (int x = 0; x < image1.width; x++ ) {
+			error += iterationSorSafe(image1,x,0,pixelIndex0++);
+			error += iterationSorSafe(image1,x,image1.height-1,pixelIndex1++);
+		}
 
-						float I1 = image1.data[pixelIndex];
-						float I2 = warpImage2.data[pixelIndex];
+		pixelIndex0 = image1.width;
+		pixelIndex1 = image1.width + image1.width-1;
+		for( int y = 1; y < image1.height-1; y++ ) {
+			error += iterationSorSafe(image1,0,y,pixelIndex0);
+			error += iterationSorSafe(image1,image1.width-1,y,pixelIndex1);
 
-						float I2x = warpDeriv2X.data[pixelIndex];
-						float I2y = warpDeriv2Y.data[pixelIndex];
+			pixelIndex0 += image1.width;
+			pixelIndex1 += image1.width;
+		}
 
-						float AU = A(x,y,flowX);
-						float AV = A(x,y,flowY);
+		return error;
+	}
 
-						flowX.data[pixelIndex] = uf = (1-w)*u + w*((I1-I2+I2x*ui - I2y*(v-vi))*I2x + alpha2*AU)/(I2x*I2x + alpha2);
-						flowY.data[pixelIndex] = vf = (1-w)*v + w*((I1-I2+I2y*vi - I2x*(uf-ui))*I2y + alpha2*AV)/(I2y*I2y + alpha2);
+	/**
+	 * SOR iteration for inner pixels
+	 */
+	protected float iterationSorInner(GrayF32 image1, int x, int y, int pixelIndex) {
+		float w = SOR_RELAXATION;
 
-						error += (uf - u)*(uf - u) + (vf - v)*(vf - v);
-					}
-				}
+		float uf,vf;
+		// could speed this up a bit more by precomputing the constant portion before the do-while loop
+		float ui = initFlowX.data[pixelIndex];
+		float vi = initFlowY.data[pixelIndex];
 
-				// border regions require special treatment
-				int pixelIndex0 = 0;
-				int pixelIndex1 = (image1.height-1)*image1.width;
-				for (int x = 0; x < image1.width; x++ ) {
-					error += iterationSorSafe(image1,x,0,pixelIndex0++);
-					error += iterationSorSafe(image1,x,image1.height-1,pixelIndex1++);
-				}
+		float u = flowX.data[pixelIndex];
+		float v = flowY.data[pixelIndex];
+
+		float I1 = image1.data[pixelIndex];
+		float I2 = warpImage2.data[pixelIndex];
 
-				pixelIndex0 = image1.width;
-				 pixelIndex1 = image1.width + image1.width-1;
-				for( int y = 1; y < image1.height-1; y++ ) {
-					error += iterationSorSafe(image1,0,y,pixelIndex0);
-					error += iterationSorSafe(image1,image1.width-1,y,pixelIndex1);
+		float I2x = warpDeriv2X.data[pixelIndex];
+		float I2y = warpDeriv2Y.data[pixelIndex];
 
-					pixelIndex0 += image1.width;
-					pixelIndex1 += image1.width;
-				}
+		float AU = A(x,y,flowX);
+		float AV = A(x,y,flowY);
 
-			} while( error > convergeTolerance*image1.width*image1.height && ++iter < maxInnerIterations);
-		}
+		flowX.data[pixelIndex] = uf = (1-w)*u + w*((I1-I2+I2x*ui - I2y*(v-vi))*I2x + alpha2*AU)/(I2x*I2x + alpha2);
+		flowY.data[pixelIndex] = vf = (1-w)*v + w*((I1-I2+I2y*vi - I2x*(uf-ui))*I2y + alpha2*AV)/(I2y*I2y + alpha2);
+
+		return (uf - u)*(uf - u) + (vf - v)*(vf - v);
 	}
 
 	/**
 	 * SOR iteration for border pixels
 	 */
-	private float iterationSorSafe(GrayF32 image1, int x, int y, int pixelIndex) {
+	protected float iterationSorSafe(GrayF32 image1, int x, int y, int pixelIndex) {
 		float w = SOR_RELAXATION;
 
 		float uf;
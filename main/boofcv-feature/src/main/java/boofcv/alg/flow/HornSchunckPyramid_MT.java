@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.flow;
+
+import boofcv.alg.interpolate.InterpolatePixelS;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.core.image.border.FactoryImageBorder;
+import boofcv.factory.flow.ConfigHornSchunckPyramid;
+import boofcv.struct.border.BorderType;
+import boofcv.struct.image.GrayF32;
+import boofcv.struct.image.ImageGray;
+import org.ddogleg.struct.FastQueue;
+
+/**
+ * <p>
+ * Concurrent implementation of {@link HornSchunckPyramid}. Warping and interpolation between layers are split
+ * between threads by rows, with each thread having its own interpolation.
+ * </p>
+ *
+ * <p>
+ * The SOR update for a pixel depends on the current value of its 8 neighbors. Instead of raster order the pixels
+ * are updated in four passes based on if their x and y coordinates are even or odd. No two pixels in the same
+ * pass are neighbors, so a pass can be split between threads and the result doesn't depend on the number of
+ * threads. The visiting order is different from the single threaded version so the flow will be slightly
+ * different, but it converges to the same solution.
+ * </p>
+ *
+ * @author Peter Abeles
+ */
+public class HornSchunckPyramid_MT<T extends ImageGray<T>> extends HornSchunckPyramid<T> {
+
+	// Each thread gets its own interpolation
+	FastQueue<InterpolatePixelS<GrayF32>> interpolators;
+
+	// SOR error along each row. Summed in order so that the result doesn't depend on the number of threads
+	float[] rowErrors = new float[0];
+
+	public HornSchunckPyramid_MT(ConfigHornSchunckPyramid config, InterpolatePixelS<GrayF32> interp) {
+		super(config, interp);
+
+		interpolators = new FastQueue<>((Class)InterpolatePixelS.class, ()->{
+			InterpolatePixelS<GrayF32> copy = interp.copy();
+			copy.setBorder(FactoryImageBorder.single(BorderType.EXTENDED, GrayF32.class));
+			return copy;
+		});
+	}
+
+	@Override
+	protected void interpolateFlowScale(GrayF32 prev, GrayF32 curr) {
+		BoofConcurrency.loopBlocks(0,curr.height,interpolators,(interp,y0,y1)->{
+			interp.setImage(prev);
+			interpolateFlowScale(interp, prev, curr, y0, y1);
+		});
+	}
+
+	@Override
+	protected void warpImageTaylor(GrayF32 before, GrayF32 flowX, GrayF32 flowY, GrayF32 after) {
+		BoofConcurrency.loopBlocks(0,before.height,interpolators,(interp,y0,y1)->{
+			interp.setImage(before);
+			warpImageTaylor(interp, before, flowX, flowY, after, y0, y1);
+		});
+	}
+
+	@Override
+	protected float iterationSor(GrayF32 image1) {
+		if( rowErrors.length < image1.height )
+			rowErrors = new float[image1.height];
+
+		final int width = image1.width;
+		final int height = image1.height;
+
+		for (int y = 0; y < height; y++) {
+			rowErrors[y] = 0;
+		}
+
+		// pixels in the same pass are never 8-connected neighbors
+		for (int offsetY = 0; offsetY < 2; offsetY++) {
+			final int passY = offsetY;
+			int numRows = (height-passY+1)/2;
+			for (int offsetX = 0; offsetX < 2; offsetX++) {
+				final int passX = offsetX;
+				BoofConcurrency.loopBlocks(0,numRows,(i0,i1)->{
+					for (int i = i0; i < i1; i++) {
+						int y = passY + 2*i;
+						float error = 0;
+						boolean borderRow = y == 0 || y == height-1;
+						for (int x = passX; x < width; x += 2) {
+							int pixelIndex = y*width + x;
+							if( borderRow || x == 0 || x == width-1 )
+								error += iterationSorSafe(image1,x,y,pixelIndex);
+							else
+								error += iterationSorInner(image1,x,y,pixelIndex);
+						}
+						rowErrors[y] += error;
+					}
+				});
+			}
+		}
+
+		float error = 0;
+		for (int y = 0; y < height; y++) {
+			error += rowErrors[y];
+		}
+		return error;
+	}
+}
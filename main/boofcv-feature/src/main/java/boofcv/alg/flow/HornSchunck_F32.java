@@ -149,28 +149,40 @@ public class HornSchunck_F32 extends HornSchunck<GrayF32,GrayF32> {
 	protected void findFlow(GrayF32 derivX , GrayF32 derivY ,
 							GrayF32 derivT , ImageFlow output) {
 
-		int N = output.width*output.height;
-
 		for( int iter = 0; iter < numIterations; iter++ ) {
 
 			borderAverageFlow(output,averageFlow);
 			innerAverageFlow(output,averageFlow);
 
-			for( int i = 0; i < N; i++ ) {
-				float dx = derivX.data[i];
-				float dy = derivY.data[i];
-				float dt = derivT.data[i];
-
-				ImageFlow.D aveFlow = averageFlow.data[i];
-
-				float u = aveFlow.x;
-				float v = aveFlow.y;
+			updateFlow(derivX, derivY, derivT, output, 0, output.height);
+		}
+	}
 
-				ImageFlow.D flow = output.data[i];
-				float r = (dx*u + dy*v + dt)/(alpha2 + dx*dx + dy*dy);
-				flow.x = u - dx*r;
-				flow.y = v - dy*r;
-			}
+	/**
+	 * Updates the flow estimate using the average flow along the specified rows
+	 *
+	 * @param y0 First row, inclusive
+	 * @param y1 Last row, exclusive
+	 */
+	protected void updateFlow(GrayF32 derivX , GrayF32 derivY ,
+							  GrayF32 derivT , ImageFlow output , int y0 , int y1 ) {
+		int i0 = y0*output.width;
+		int i1 = y1*output.width;
+
+		for( int i = i0; i < i1; i++ ) {
+			float dx = derivX.data[i];
+			float dy = derivY.data[i];
+			float dt = derivT.data[i];
+
+			ImageFlow.D aveFlow = averageFlow.data[i];
+
+			float u = aveFlow.x;
+			float v = aveFlow.y;
+
+			ImageFlow.D flow = output.data[i];
+			float r = (dx*u + dy*v + dt)/(alpha2 + dx*dx + dy*dy);
+			flow.x = u - dx*r;
+			flow.y = v - dy*r;
 		}
 	}
 }
@@ -151,28 +151,40 @@ public class HornSchunck_U8 extends HornSchunck<GrayU8,GrayS16> {
 	protected void findFlow(GrayS16 derivX , GrayS16 derivY ,
 							GrayS16 derivT , ImageFlow output) {
 
-		int N = output.width*output.height;
-
 		for( int iter = 0; iter < numIterations; iter++ ) {
 
 			borderAverageFlow(output,averageFlow);
 			innerAverageFlow(output,averageFlow);
 
-			for( int i = 0; i < N; i++ ) {
-				float dx = derivX.data[i];
-				float dy = derivY.data[i];
-				float dt = derivT.data[i];
-
-				ImageFlow.D aveFlow = averageFlow.data[i];
-
-				float u = aveFlow.x;
-				float v = aveFlow.y;
+			updateFlow(derivX, derivY, derivT, output, 0, output.height);
+		}
+	}
 
-				ImageFlow.D flow = output.data[i];
-				float r = (dx*u + dy*v + dt)/(alpha2 + dx*dx + dy*dy);
-				flow.x = u - dx*r;
-				flow.y = v - dy*r;
-			}
+	/**
+	 * Updates the flow estimate using the average flow along the specified rows
+	 *
+	 * @param y0 First row, inclusive
+	 * @param y1 Last row, exclusive
+	 */
+	protected void updateFlow(GrayS16 derivX , GrayS16 derivY ,
+							  GrayS16 derivT , ImageFlow output , int y0 , int y1 ) {
+		int i0 = y0*output.width;
+		int i1 = y1*output.width;
+
+		for( int i = i0; i < i1; i++ ) {
+			float dx = derivX.data[i];
+			float dy = derivY.data[i];
+			float dt = derivT.data[i];
+
+			ImageFlow.D aveFlow = averageFlow.data[i];
+
+			float u = aveFlow.x;
+			float v = aveFlow.y;
+
+			ImageFlow.D flow = output.data[i];
+			float r = (dx*u + dy*v + dt)/(alpha2 + dx*dx + dy*dy);
+			flow.x = u - dx*r;
+			flow.y = v - dy*r;
 		}
 	}
 }
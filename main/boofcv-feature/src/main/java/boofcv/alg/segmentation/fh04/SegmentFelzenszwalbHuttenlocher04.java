@@ -29,6 +29,9 @@ import org.ddogleg.struct.FastQueue;
 import org.ddogleg.struct.GrowQueue_F32;
 import org.ddogleg.struct.GrowQueue_I32;
 
+import java.util.Arrays;
+import java.util.Comparator;
+
 /**
  * <p>
  * Implementation of Felzenszwalb-Huttenlocher [1] image segmentation algorithm. It is fast and uses a graph based
@@ -94,7 +97,9 @@ public class SegmentFelzenszwalbHuttenlocher04<T extends ImageBase<T>> {
 	private FhEdgeWeights<T> computeWeights;
 
 	private QuickSortObj_F32 sorter = new QuickSortObj_F32();
-	private ApproximateSort_F32 sorterApprox = null;
+	protected ApproximateSort_F32 sorterApprox = null;
+	// If true then edges with the same weight are sorted by the index of their pixels
+	protected boolean deterministic = false;
 	// storage for edges so that they can be recycled on the next call
 	protected FastQueue<Edge> edges = new FastQueue<>(Edge.class, true);
 	// list of edges which were not matched to anything.  used to merge small regions
@@ -132,6 +137,19 @@ public class SegmentFelzenszwalbHuttenlocher04<T extends ImageBase<T>> {
 		sorterApprox = new ApproximateSort_F32(numBins);
 	}
 
+	/**
+	 * If true then edges with the same weight are sorted by the index of the pixels they connect. This makes
+	 * the output independent of the order the edges were computed in, at the cost of a slower sort. Ignored
+	 * if the approximate sort is used.
+	 */
+	public void setDeterministic( boolean deterministic ) {
+		this.deterministic = deterministic;
+	}
+
+	public boolean isDeterministic() {
+		return deterministic;
+	}
+
 	/**
 	 * Segments the image.  Each region in the output image is given a unique ID.  To find out what the ID
 	 * of each region is call {@link #getRegionId()}.  To get a list of number of pixels in each region call
@@ -149,7 +167,7 @@ public class SegmentFelzenszwalbHuttenlocher04<T extends ImageBase<T>> {
 
 		// compute edges weights
 //		long time0 = System.currentTimeMillis();
-		computeWeights.process(input, edges);
+		computeEdgeWeights(input);
 //		long time1 = System.currentTimeMillis();
 
 //		System.out.println("Edge weights time " + (time1 - time0));
@@ -184,19 +202,35 @@ public class SegmentFelzenszwalbHuttenlocher04<T extends ImageBase<T>> {
 	}
 
 	/**
-	 * Follows the merge procedure output in [1].  Two regions are merged together if the edge linking them
-	 * has a weight which is &le; the minimum of the heaviest edges in the two regions.
+	 * Computes the weight of every edge in the graph
 	 */
-	protected void mergeRegions() {
+	protected void computeEdgeWeights( T input ) {
+		computeWeights.process(input, edges);
+	}
 
-		// sort edges
-//		long time0 = System.currentTimeMillis();
+	/**
+	 * Sorts the edges from smallest to largest weight
+	 */
+	protected void sortEdges() {
 		if( sorterApprox != null ) {
 			sorterApprox.computeRange(edges.data,0,edges.size);
 			sorterApprox.sortObject(edges.data,0,edges.size);
+		} else if( deterministic ) {
+			Arrays.sort(edges.data,0,edges.size,EDGE_ORDER);
 		} else {
 			sorter.sort(edges.data,edges.size);
 		}
+	}
+
+	/**
+	 * Follows the merge procedure output in [1].  Two regions are merged together if the edge linking them
+	 * has a weight which is &le; the minimum of the heaviest edges in the two regions.
+	 */
+	protected void mergeRegions() {
+
+		// sort edges
+//		long time0 = System.currentTimeMillis();
+		sortEdges();
 //		long time1 = System.currentTimeMillis();
 
 //		System.out.println("Sort time " + (time1 - time0));
@@ -333,6 +367,23 @@ public class SegmentFelzenszwalbHuttenlocher04<T extends ImageBase<T>> {
 		return computeWeights.getInputType();
 	}
 
+	public FhEdgeWeights<T> getComputeWeights() {
+		return computeWeights;
+	}
+
+	/**
+	 * Orders edges by weight then by the index of the two pixels. Used when deterministic.
+	 */
+	protected static final Comparator<Edge> EDGE_ORDER = (a, b) -> {
+		int c = Float.compare(a.sortValue,b.sortValue);
+		if( c != 0 )
+			return c;
+		c = Integer.compare(a.indexA,b.indexA);
+		if( c != 0 )
+			return c;
+		return Integer.compare(a.indexB,b.indexB);
+	};
+
 	/**
 	 * Describes the relationship between to adjacent pixels in the image.
 	 *
@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.segmentation.fh04;
+
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.struct.image.ImageBase;
+import org.ddogleg.struct.Factory;
+import org.ddogleg.struct.FastQueue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <p>
+ * Concurrent version of {@link SegmentFelzenszwalbHuttenlocher04}. Edge weights are computed in horizontal
+ * strips, one per thread, and the edges are then sorted using a parallel merge sort. The merge step
+ * is inherently sequential and is not changed.
+ * </p>
+ *
+ * <p>
+ * Strips overlap by one row so that edges which cross the boundary between two strips are computed once. Edges
+ * are combined in the same order as the strips. If {@link #setDeterministic(boolean) deterministic} is true
+ * then the output is identical to the single threaded version, independent of the number of threads.
+ * If the approximate sort is used then the sort is done with a single thread.
+ * </p>
+ *
+ * @author Peter Abeles
+ */
+public class SegmentFelzenszwalbHuttenlocher04_MT<T extends ImageBase<T>>
+		extends SegmentFelzenszwalbHuttenlocher04<T>
+{
+	// Edges computed inside each strip
+	FastQueue<Strip> strips;
+	// strips sorted by their first row
+	List<Strip> sorted = new ArrayList<>();
+
+	// work space for merge sort
+	Edge[] work = new Edge[0];
+
+	/**
+	 * Specifies tuning parameter
+	 *
+	 * @param k Tuning parameter.  Larger regions are preferred for larger values of K.  Try 300
+	 * @param minimumSize Regions smaller than this are merged into larger regions
+	 * @param factoryWeights Creates a new instance of the function used to compute edge weights for each thread
+	 */
+	public SegmentFelzenszwalbHuttenlocher04_MT(float k, int minimumSize, Factory<FhEdgeWeights<T>> factoryWeights) {
+		super(k, minimumSize, factoryWeights.newInstance());
+		strips = new FastQueue<>((Class)Strip.class, () -> new Strip(factoryWeights.newInstance()));
+	}
+
+	@Override
+	protected void computeEdgeWeights( T input ) {
+		final int width = input.width;
+		final int height = input.height;
+
+		BoofConcurrency.loopBlocks(0,height,strips,(strip,y0,y1)->{
+			strip.y0 = y0;
+			strip.y1 = y1;
+			strip.edges.reset();
+
+			// include the first row of the next strip so that edges crossing the boundary are computed
+			int extendedY1 = Math.min(height,y1+1);
+			strip.input = input.subimage(0,y0,width,extendedY1,strip.input);
+			strip.weights.process(strip.input,strip.edges);
+
+			// Edges entirely inside the extra row belong to the next strip. Offset indexes to the full image
+			final int lastRow = y1 < height ? (y1-y0)*width : Integer.MAX_VALUE;
+			final int offset = y0*width;
+			int total = 0;
+			for (int i = 0; i < strip.edges.size; i++) {
+				Edge e = strip.edges.data[i];
+				if( e.indexA >= lastRow && e.indexB >= lastRow )
+					continue;
+				Edge d = strip.edges.data[total++];
+				d.sortValue = e.sortValue;
+				d.indexA = e.indexA + offset;
+				d.indexB = e.indexB + offset;
+			}
+			strip.edges.size = total;
+		});
+
+		sorted.clear();
+		for (int i = 0; i < strips.size; i++) {
+			sorted.add(strips.get(i));
+		}
+		sorted.sort((a,b)->Integer.compare(a.y0,b.y0));
+
+		// combine the edges together
+		int total = 0;
+		for (int i = 0; i < sorted.size(); i++) {
+			Strip s = sorted.get(i);
+			s.offset = total;
+			total += s.edges.size;
+		}
+		edges.resize(total);
+
+		BoofConcurrency.loopFor(0,sorted.size(),i->{
+			Strip s = sorted.get(i);
+			for (int j = 0; j < s.edges.size; j++) {
+				Edge src = s.edges.data[j];
+				Edge dst = edges.data[s.offset+j];
+				dst.sortValue = src.sortValue;
+				dst.indexA = src.indexA;
+				dst.indexB = src.indexB;
+			}
+		});
+	}
+
+	/**
+	 * Each thread sorts a block of edges and then the sorted blocks are merged together, in parallel,
+	 * until only one is left.
+	 */
+	@Override
+	protected void sortEdges() {
+		final int N = edges.size;
+		final int numRuns = Math.min(BoofConcurrency.getMaxThreads(),Math.max(1,N/1000));
+		if( sorterApprox != null || numRuns <= 1 ) {
+			super.sortEdges();
+			return;
+		}
+
+		final Edge[] data = edges.data;
+		if( work.length < N )
+			work = new Edge[N];
+
+		// boundaries of each sorted run
+		final int[] bounds = new int[numRuns+1];
+		for (int i = 0; i <= numRuns; i++) {
+			bounds[i] = (int)((long)N*i/numRuns);
+		}
+
+		BoofConcurrency.loopFor(0,numRuns,i->Arrays.sort(data,bounds[i],bounds[i+1],EDGE_ORDER));
+
+		Edge[] src = data;
+		Edge[] dst = work;
+		for (int step = 1; step < numRuns; step *= 2) {
+			final int length = step;
+			final Edge[] _src = src, _dst = dst;
+			BoofConcurrency.loopFor(0,(numRuns+2*length-1)/(2*length),pair->{
+				int i0 = bounds[pair*2*length];
+				int i1 = bounds[Math.min(numRuns,(pair*2+1)*length)];
+				int i2 = bounds[Math.min(numRuns,(pair*2+2)*length)];
+				merge(_src,i0,i1,i2,_dst);
+			});
+			src = dst;
+			dst = _src;
+		}
+
+		if( src != data )
+			System.arraycopy(src,0,data,0,N);
+	}
+
+	/**
+	 * Merges two sorted ranges [i0,i1) and [i1,i2) in src into dst
+	 */
+	static void merge( Edge[] src , int i0 , int i1 , int i2 , Edge[] dst ) {
+		int a = i0, b = i1, out = i0;
+		while( a < i1 && b < i2 ) {
+			if( EDGE_ORDER.compare(src[b],src[a]) < 0 )
+				dst[out++] = src[b++];
+			else
+				dst[out++] = src[a++];
+		}
+		while( a < i1 )
+			dst[out++] = src[a++];
+		while( b < i2 )
+			dst[out++] = src[b++];
+	}
+
+	/**
+	 * Edges computed inside a strip of rows
+	 */
+	class Strip {
+		FhEdgeWeights<T> weights;
+		FastQueue<Edge> edges = new FastQueue<>(Edge.class, true);
+		T input;
+		// rows in the strip and location of its edges in the combined list
+		int y0, y1, offset;
+
+		public Strip(FhEdgeWeights<T> weights) {
+			this.weights = weights;
+		}
+	}
+}
@@ -165,7 +165,30 @@ public abstract class SegmentMeanShiftSearch<T extends ImageBase<T>>
 	 *
 	 * @param image Input image
 	 */
-	public abstract void process( T image );
+	public void process( T image ) {
+		initialize(image);
+		searchRows(0,image.height);
+	}
+
+	/**
+	 * Initializes data structures for processing the image. All pixels are marked as not having a mode.
+	 *
+	 * @param image Input image
+	 */
+	public abstract void initialize( T image );
+
+	/**
+	 * Performs mean-shift on every pixel inside the rows. Modes are added in the order they are encountered.
+	 *
+	 * @param y0 First row, inclusive
+	 * @param y1 Last row, exclusive
+	 */
+	public abstract void searchRows( int y0 , int y1 );
+
+	/**
+	 * Creates a new instance with the same configuration. Used to create a search for each thread.
+	 */
+	public abstract SegmentMeanShiftSearch<T> copy();
 
 	/**
 	 * Returns the Euclidean distance squared between the two vectors
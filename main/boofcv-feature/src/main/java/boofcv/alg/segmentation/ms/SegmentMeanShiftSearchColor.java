@@ -68,13 +68,8 @@ public class SegmentMeanShiftSearchColor<T extends ImageMultiBand<T>> extends Se
 		modeColor = new ColorQueue_F32(numBands);
 	}
 
-	/**
-	 * Performs mean-shift clustering on the input image
-	 *
-	 * @param image Input image
-	 */
 	@Override
-	public void process( T image ) {
+	public void initialize( T image ) {
 		// initialize data structures
 		this.image = image;
 		this.stopRequested = false;
@@ -92,9 +87,13 @@ public class SegmentMeanShiftSearchColor<T extends ImageMultiBand<T>> extends Se
 		// mark all pixels are not being a mode
 		ImageMiscOps.fill(quickMode,-1);
 
+	}
+
+	@Override
+	public void searchRows( int y0 , int y1 ) {
 		// use mean shift to find the peak of each pixel in the image
-		int indexImg = 0;
-		for( int y = 0; y < image.height && !stopRequested; y++ ) {
+		int indexImg = y0*image.width;
+		for( int y = y0; y < y1 && !stopRequested; y++ ) {
 			for( int x = 0; x < image.width; x++ , indexImg++ ) {
 				if( pixelToMode.data[indexImg] != -1 ) {
 					int peakIndex = pixelToMode.data[indexImg];
@@ -149,6 +148,13 @@ public class SegmentMeanShiftSearchColor<T extends ImageMultiBand<T>> extends Se
 		return imageType;
 	}
 
+	@Override
+	public SegmentMeanShiftSearchColor<T> copy() {
+		SegmentMeanShiftSearchColor<T> ret = new SegmentMeanShiftSearchColor<>(maxIterations,convergenceTol,interpolate.copy(),radiusX,radiusY,0,fast,imageType);
+		ret.maxColorDistanceSq = maxColorDistanceSq;
+		return ret;
+	}
+
 	/**
 	 * Uses mean-shift to find the peak.  Returns the peak as an index in the image data array.
 	 *
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boofcv.alg.segmentation.ms;
+
+import boofcv.alg.misc.ImageMiscOps;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.struct.feature.ColorQueue_F32;
+import boofcv.struct.image.ImageBase;
+import boofcv.struct.image.ImageType;
+import georegression.struct.point.Point2D_I32;
+import org.ddogleg.struct.FastQueue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>
+ * Concurrent version of {@link SegmentMeanShiftSearch}. The image is split up into blocks of rows and each
+ * block is searched by its own copy of the search algorithm. The modes found in each block are then merged
+ * together in the same order that the single threaded algorithm would have found them.
+ * </p>
+ *
+ * <p>
+ * If the 'fast' approximation is off then the output is identical to the single threaded version. If it's on
+ * then trajectories are only shared between pixels in the same block, so the output will be slightly
+ * different and depend on how the image was divided up.
+ * </p>
+ *
+ * @author Peter Abeles
+ */
+public class SegmentMeanShiftSearch_MT<T extends ImageBase<T>> extends SegmentMeanShiftSearch<T> {
+
+	// Algorithm which is copied to create a search for each block
+	SegmentMeanShiftSearch<T> alg;
+
+	// Search for each block of rows
+	FastQueue<Block> blocks;
+	// blocks sorted by their first row
+	List<Block> sorted = new ArrayList<>();
+
+	public SegmentMeanShiftSearch_MT( SegmentMeanShiftSearch<T> alg ) {
+		super(alg.maxIterations,alg.convergenceTol,alg.radiusX,alg.radiusY,0,alg.fast);
+		this.alg = alg;
+		this.maxColorDistanceSq = alg.maxColorDistanceSq;
+		this.modeColor = new ColorQueue_F32(alg.getImageType().getNumBands());
+		this.blocks = new FastQueue<>((Class)Block.class, () -> new Block(alg.copy()));
+	}
+
+	@Override
+	public void initialize( T image ) {
+		this.image = image;
+		this.stopRequested = false;
+
+		modeLocation.reset();
+		modeColor.reset();
+		modeMemberCount.reset();
+
+		pixelToMode.reshape(image.width, image.height);
+		quickMode.reshape(image.width, image.height);
+		ImageMiscOps.fill(quickMode,-1);
+	}
+
+	@Override
+	public void searchRows( int y0 , int y1 ) {
+		BoofConcurrency.loopBlocks(y0,y1,blocks,(block,blockY0,blockY1)->{
+			block.y0 = blockY0;
+			block.y1 = blockY1;
+			block.search.initialize(image);
+			if( !stopRequested )
+				block.search.searchRows(blockY0,blockY1);
+		});
+		if( stopRequested )
+			return;
+
+		sorted.clear();
+		for (int i = 0; i < blocks.size; i++) {
+			sorted.add(blocks.get(i));
+		}
+		sorted.sort((a,b)->Integer.compare(a.y0,b.y0));
+
+		for (int i = 0; i < sorted.size(); i++) {
+			mergeBlock(sorted.get(i));
+		}
+	}
+
+	/**
+	 * Converts the modes in the block into global modes. Modes are identified by their location. A new mode
+	 * is created the first time a location is encountered.
+	 */
+	void mergeBlock( Block block ) {
+		final SegmentMeanShiftSearch<T> search = block.search;
+		final int width = image.width;
+
+		for (int y = block.y0; y < block.y1; y++) {
+			int indexImg = y*width;
+			for (int x = 0; x < width; x++, indexImg++) {
+				int localIndex = search.pixelToMode.data[indexImg];
+				Point2D_I32 location = search.modeLocation.get(localIndex);
+				int modePixelIndex = location.y*width + location.x;
+
+				int modeIndex = quickMode.data[modePixelIndex];
+				if( modeIndex < 0 ) {
+					modeIndex = modeLocation.size();
+					modeLocation.grow().set(location.x,location.y);
+					float[] color = modeColor.grow();
+					System.arraycopy(search.modeColor.get(localIndex),0,color,0,color.length);
+					quickMode.data[modePixelIndex] = modeIndex;
+					modeMemberCount.add(0);
+				}
+
+				pixelToMode.data[indexImg] = modeIndex;
+				modeMemberCount.data[modeIndex]++;
+			}
+		}
+	}
+
+	@Override
+	public SegmentMeanShiftSearch<T> copy() {
+		return new SegmentMeanShiftSearch_MT<>(alg.copy());
+	}
+
+	@Override
+	public ImageType<T> getImageType() {
+		return alg.getImageType();
+	}
+
+	@Override
+	public void requestStop() {
+		super.requestStop();
+		for (int i = 0; i < blocks.size; i++) {
+			blocks.get(i).search.requestStop();
+		}
+	}
+
+	/**
+	 * Search and the rows it processed
+	 */
+	class Block {
+		SegmentMeanShiftSearch<T> search;
+		int y0, y1;
+
+		public Block(SegmentMeanShiftSearch<T> search) {
+			this.search = search;
+		}
+	}
+}
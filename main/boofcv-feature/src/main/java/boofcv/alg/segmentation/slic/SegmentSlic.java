@@ -21,6 +21,7 @@ package boofcv.alg.segmentation.slic;
 import boofcv.alg.segmentation.ComputeRegionMeanColor;
 import boofcv.alg.segmentation.ms.ClusterLabeledImage;
 import boofcv.alg.segmentation.ms.MergeSmallRegions;
+import boofcv.concurrency.BoofConcurrency;
 import boofcv.factory.segmentation.FactorySegmentationAlg;
 import boofcv.struct.ConnectRule;
 import boofcv.struct.feature.ColorQueue_F32;
@@ -56,6 +57,12 @@ import java.util.Arrays;
  * </p>
  *
  * <p>
+ * When concurrency is turned on the distance and label computations are split up by rows and the cluster update
+ * by clusters. The order of every floating point operation is unchanged, so the output is identical to the
+ * single threaded version.
+ * </p>
+ *
+ * <p>
  * [1] Radhakrishna Achanta, Appu Shaji, Kevin Smith, Aurelien Lucchi, Pascal Fua, and Sabine Süsstrunk,
  * SLIC Superpixels, EPFL Technical Report no. 149300, June 2010.
  * </p>
@@ -104,6 +111,8 @@ public abstract class SegmentSlic<T extends ImageBase<T>>
 	// storage for clusters and pixel information
 	protected FastQueue<Cluster> clusters;
 	protected FastQueue<Pixel> pixels = new FastQueue<>(Pixel.class, true);
+	// bounding box of pixels which reference each cluster. Used when concurrent
+	private FastQueue<ClusterBounds> boundsWorkspace = new FastQueue<>(ClusterBounds.class, ClusterBounds::new);
 
 	// type of input image
 	protected ImageType<T> imageType;
@@ -267,7 +276,23 @@ public abstract class SegmentSlic<T extends ImageBase<T>>
 	 * Computes how far away each cluster is from each pixel.  Expectation step.
 	 */
 	protected void computeClusterDistance() {
-		for( int i = 0; i < pixels.size; i++ ) {
+		if( BoofConcurrency.USE_CONCURRENT ) {
+			BoofConcurrency.loopBlocks(0,input.height,this::computeClusterDistance);
+		} else {
+			computeClusterDistance(0,input.height);
+		}
+	}
+
+	/**
+	 * Computes how far away each cluster is from each pixel inside the specified rows. Clusters are always
+	 * processed in the same order so the list of clusters for each pixel is the same no matter how
+	 * the rows are divided up.
+	 *
+	 * @param rowY0 First row, inclusive
+	 * @param rowY1 Last row, exclusive
+	 */
+	protected void computeClusterDistance( int rowY0 , int rowY1 ) {
+		for( int i = rowY0*input.width; i < rowY1*input.width; i++ ) {
 			pixels.data[i].reset();
 		}
 
@@ -282,9 +307,9 @@ public abstract class SegmentSlic<T extends ImageBase<T>>
 			int y0 = centerY - gridInterval; int y1 = centerY + gridInterval + 1;
 
 			if( x0 < 0 ) x0 = 0;
-			if( y0 < 0 ) y0 = 0;
+			if( y0 < rowY0 ) y0 = rowY0;
 			if( x1 > input.width ) x1 = input.width;
-			if( y1 > input.height ) y1 = input.height;
+			if( y1 > rowY1 ) y1 = rowY1;
 
 			for( int y = y0; y < y1; y++ ) {
 				int indexPixel = y*input.width + x0;
@@ -307,6 +332,11 @@ public abstract class SegmentSlic<T extends ImageBase<T>>
 	 * Update the value of each cluster using  Maximization step.
 	 */
 	protected void updateClusters() {
+		if( BoofConcurrency.USE_CONCURRENT ) {
+			updateClustersConcurrent();
+			return;
+		}
+
 		for( int i = 0; i < clusters.size; i++ ) {
 			clusters.data[i].reset();
 		}
@@ -336,6 +366,66 @@ public abstract class SegmentSlic<T extends ImageBase<T>>
 		}
 	}
 
+	/**
+	 * Concurrent version of {@link #updateClusters()}. First the weights of each pixel are computed and the
+	 * bounding box of the pixels which reference each cluster is found, split up by rows. Then each cluster
+	 * sums up the pixels inside its bounding box. Each cluster visits pixels in the same order as the single
+	 * threaded version, so the floating point sums are identical.
+	 */
+	protected void updateClustersConcurrent() {
+		final int N = clusters.size;
+		for( int i = 0; i < N; i++ ) {
+			clusters.data[i].index = i;
+		}
+
+		BoofConcurrency.loopBlocks(0,input.height,boundsWorkspace,(bounds,y0,y1)->{
+			bounds.reset(N);
+			for( int y = y0; y < y1; y++ ) {
+				int indexPixel = y*input.width;
+				for( int x = 0; x < input.width; x++ , indexPixel++ ) {
+					Pixel p = pixels.data[indexPixel];
+					p.computeWeights();
+					for( int i = 0; i < p.clusters.size; i++ ) {
+						bounds.add(p.clusters.data[i].cluster.index,x,y);
+					}
+				}
+			}
+		});
+
+		// combine the results from each block
+		final ClusterBounds bounds = boundsWorkspace.get(0);
+		for( int i = 1; i < boundsWorkspace.size; i++ ) {
+			bounds.add(boundsWorkspace.get(i),N);
+		}
+
+		BoofConcurrency.loopFor(0,N,i->{
+			Cluster c = clusters.data[i];
+			c.reset();
+
+			int x0 = bounds.data[i*4  ], y0 = bounds.data[i*4+1];
+			int x1 = bounds.data[i*4+2], y1 = bounds.data[i*4+3];
+
+			for( int y = y0; y <= y1 && !stopRequested; y++ ) {
+				int indexPixel = y*input.width + x0;
+				int indexInput = input.startIndex + y*input.stride + x0;
+				for( int x = x0; x <= x1; x++ , indexPixel++ , indexInput++ ) {
+					Pixel p = pixels.data[indexPixel];
+					for( int j = 0; j < p.clusters.size; j++ ) {
+						ClusterDistance d = p.clusters.data[j];
+						if( d.cluster != c )
+							continue;
+						c.x += x*d.distance;
+						c.y += y*d.distance;
+						c.totalWeight += d.distance;
+						addColor(c.color,indexInput,d.distance);
+						break;
+					}
+				}
+			}
+			c.update();
+		});
+	}
+
 	/**
 	 * Selects which region each pixel belongs to based on which cluster it is the closest to
 	 */
@@ -355,14 +445,42 @@ public abstract class SegmentSlic<T extends ImageBase<T>>
 		regionMemberCount.resize(clusters.size());
 		regionMemberCount.fill(0);
 
-		int indexPixel = 0;
+		// find the closest cluster to each pixel
+		if( BoofConcurrency.USE_CONCURRENT ) {
+			BoofConcurrency.loopBlocks(0,pixelToRegions.height,(y0,y1)->selectClosestCluster(pixelToRegions,y0,y1));
+		} else {
+			selectClosestCluster(pixelToRegions,0,pixelToRegions.height);
+		}
+
 		for( int y = 0; y < pixelToRegions.height; y++ ) {
 			int indexOutput = pixelToRegions.startIndex + y*pixelToRegions.stride;
-			for( int x =0; x < pixelToRegions.width; x++ , indexPixel++ , indexOutput++) {
-				Pixel p = pixels.data[indexPixel];
+			for( int x =0; x < pixelToRegions.width; x++ , indexOutput++) {
+				int best = pixelToRegions.data[indexOutput];
 
 				// It is possible for a pixel to be unassigned if all the means move too far away from it
 				// Default to a non-existant cluster if that's the case
+				if( best == -1 ) {
+					regionColor.grow();
+					best = regionMemberCount.size();
+					regionMemberCount.add(0);
+					pixelToRegions.data[indexOutput] = best;
+				}
+
+				regionMemberCount.data[best]++;
+			}
+		}
+	}
+
+	/**
+	 * Assigns each pixel in the rows to the cluster it is the closest to. -1 if it has no clusters
+	 */
+	private void selectClosestCluster( GrayS32 pixelToRegions , int y0 , int y1 ) {
+		for( int y = y0; y < y1; y++ ) {
+			int indexPixel = y*pixelToRegions.width;
+			int indexOutput = pixelToRegions.startIndex + y*pixelToRegions.stride;
+			for( int x =0; x < pixelToRegions.width; x++ , indexPixel++ , indexOutput++) {
+				Pixel p = pixels.data[indexPixel];
+
 				int best = -1;
 				float bestDistance = Float.MAX_VALUE;
 				// find the region/cluster which it is closest to
@@ -373,14 +491,8 @@ public abstract class SegmentSlic<T extends ImageBase<T>>
 						best = d.cluster.id;
 					}
 				}
-				if( best == -1 ) {
-					regionColor.grow();
-					best = regionMemberCount.size();
-					regionMemberCount.add(0);
-				}
 
 				pixelToRegions.data[indexOutput] = best;
-				regionMemberCount.data[best]++;
 			}
 		}
 	}
@@ -439,6 +551,39 @@ public abstract class SegmentSlic<T extends ImageBase<T>>
 		public float distance;
 	}
 
+	/**
+	 * Bounding box, inclusive, of the pixels which reference each cluster. Stored as (x0,y0,x1,y1)
+	 */
+	private static class ClusterBounds {
+		int[] data = new int[0];
+
+		void reset( int numClusters ) {
+			if( data.length < numClusters*4 )
+				data = new int[numClusters*4];
+			for( int i = 0; i < numClusters*4; i += 4 ) {
+				data[i  ] = data[i+1] = Integer.MAX_VALUE;
+				data[i+2] = data[i+3] = -1;
+			}
+		}
+
+		void add( int cluster , int x , int y ) {
+			int i = cluster*4;
+			if( x < data[i  ] ) data[i  ] = x;
+			if( y < data[i+1] ) data[i+1] = y;
+			if( x > data[i+2] ) data[i+2] = x;
+			if( y > data[i+3] ) data[i+3] = y;
+		}
+
+		void add( ClusterBounds src , int numClusters ) {
+			for( int i = 0; i < numClusters*4; i += 4 ) {
+				data[i  ] = Math.min(data[i  ],src.data[i  ]);
+				data[i+1] = Math.min(data[i+1],src.data[i+1]);
+				data[i+2] = Math.max(data[i+2],src.data[i+2]);
+				data[i+3] = Math.max(data[i+3],src.data[i+3]);
+			}
+		}
+	}
+
 	/**
 	 * The mean in k-means.  Point in image (x,y) and color space.
 	 */
@@ -446,6 +591,8 @@ public abstract class SegmentSlic<T extends ImageBase<T>>
 	{
 		// unique ID for the cluster
 		public int id;
+		// index of the cluster in the list. Only used internally
+		int index;
 
 		// location of the cluster in the image and color space
 		public float x;
@@ -47,16 +47,8 @@ public class DetectPolygonBinaryGrayRefine<T extends ImageGray<T>> {
 
 	AdjustPolygonForThresholdBias adjustForBias;
 
-	// Refines the edges using the contour alone
-	private RefinePolygonToContour refineContour;
-
-	// Refines the edges using the gray scale image
-	private RefinePolygonToGray<T> refineGray;
-
-	// Used to remove false positives
-	private EdgeIntensityPolygon<T> edgeIntensity;
-
-	private Polygon2D_F64 work = new Polygon2D_F64();
+	// Algorithms and storage used to refine polygons in the calling thread
+	RefineWork refineWork;
 
 	// useful for customization
 	AdjustBeforeRefineEdge functionAdjust;
@@ -82,15 +74,12 @@ public class DetectPolygonBinaryGrayRefine<T extends ImageGray<T>> {
 										 double minimumRefineEdgeIntensity ,
 										 boolean adjustForThresholdBias ) {
 		this.detector = detector;
-		this.refineContour = refineContour;
-		this.refineGray = refineGray;
 		this.minimumRefineEdgeIntensity = minimumRefineEdgeIntensity;
 		if( adjustForThresholdBias ) {
 			this.adjustForBias = new AdjustPolygonForThresholdBias();
 		}
 
-		this.edgeIntensity = new EdgeIntensityPolygon<>(1, 1.5, 15,
-				detector.getInputType());
+		this.refineWork = new RefineWork(refineContour, refineGray, adjustForBias);
 	}
 
 	/**
@@ -121,9 +110,7 @@ public class DetectPolygonBinaryGrayRefine<T extends ImageGray<T>> {
 								  @Nullable PixelTransform<Point2D_F32> undistToDist )
 	{
 		detector.setLensDistortion(width, height, distToUndist, undistToDist);
-		if( refineGray != null )
-			refineGray.setLensDistortion(width, height, distToUndist, undistToDist);
-		edgeIntensity.setTransform(undistToDist);
+		refineWork.setLensDistortion(width, height, distToUndist, undistToDist);
 	}
 
 	/**
@@ -131,9 +118,7 @@ public class DetectPolygonBinaryGrayRefine<T extends ImageGray<T>> {
 	 */
 	public void clearLensDistortion() {
 		detector.clearLensDistortion();
-		if( refineGray != null )
-			refineGray.clearLensDistortion();
-		edgeIntensity.setTransform(null);
+		refineWork.clearLensDistortion();
 	}
 
 	public void resetRuntimeProfiling() {
@@ -148,9 +133,7 @@ public class DetectPolygonBinaryGrayRefine<T extends ImageGray<T>> {
 	 */
 	public void process(T gray , GrayU8 binary ) {
 		detector.process(gray,binary);
-		if( refineGray != null )
-			refineGray.setImage(gray);
-		edgeIntensity.setImage(gray);
+		refineWork.setImage(gray);
 
 		long time0 = System.nanoTime();
 		FastQueue<DetectPolygonFromContour.Info> detections = detector.getFound();
@@ -182,6 +165,21 @@ public class DetectPolygonBinaryGrayRefine<T extends ImageGray<T>> {
 	 * @return true if successful or false if not
 	 */
 	public boolean refine( DetectPolygonFromContour.Info info ) {
+		return refine(refineWork, info);
+	}
+
+	/**
+	 * Refines the fit to the specified polygon using the provided work space. Only info is modified so polygons
+	 * can be refined in parallel if each thread has its own work space.
+	 *
+	 * @param w Algorithms and storage used to refine the polygon
+	 * @param info The polygon and related info
+	 * @return true if successful or false if not
+	 */
+	protected boolean refine( RefineWork w , DetectPolygonFromContour.Info info ) {
+		EdgeIntensityPolygon<T> edgeIntensity = w.edgeIntensity;
+		Polygon2D_F64 work = w.work;
+
 		double before,after;
 		if( edgeIntensity.computeEdge(info.polygon,!detector.isOutputClockwise()) ) {
 			before = edgeIntensity.getAverageOutside() - edgeIntensity.getAverageInside();
@@ -191,12 +189,12 @@ public class DetectPolygonBinaryGrayRefine<T extends ImageGray<T>> {
 
 		boolean success = false;
 
-		if( refineContour != null ) {
-			List<Point2D_I32> contour = detector.getContour(info);
-			refineContour.process(contour,info.splits,work);
+		if( w.refineContour != null ) {
+			detector.getContour(info, w.contour);
+			w.refineContour.process(w.contour.toList(),info.splits,work);
 
-			if( adjustForBias != null )
-				adjustForBias.process(work, detector.isOutputClockwise());
+			if( w.adjustForBias != null )
+				w.adjustForBias.process(work, detector.isOutputClockwise());
 
 			if( edgeIntensity.computeEdge(work,!detector.isOutputClockwise()) ) {
 				after = edgeIntensity.getAverageOutside() - edgeIntensity.getAverageInside();
@@ -211,12 +209,15 @@ public class DetectPolygonBinaryGrayRefine<T extends ImageGray<T>> {
 		}
 
 		if( functionAdjust != null ) {
-			functionAdjust.adjust(info, detector.isOutputClockwise());
+			// The user provided function isn't required to be thread safe
+			synchronized (functionAdjust) {
+				functionAdjust.adjust(info, detector.isOutputClockwise());
+			}
 		}
 
-		if( refineGray != null ) {
+		if( w.refineGray != null ) {
 			work.vertexes.resize(info.polygon.size());
-			if( refineGray.refine(info.polygon,work) ) {
+			if( w.refineGray.refine(info.polygon,work) ) {
 				if( edgeIntensity.computeEdge(work,!detector.isOutputClockwise()) ) {
 					after = edgeIntensity.getAverageOutside() - edgeIntensity.getAverageInside();
 
@@ -314,6 +315,54 @@ public class DetectPolygonBinaryGrayRefine<T extends ImageGray<T>> {
 		return milliAdjustBias.getAverage();
 	}
 
+	/**
+	 * Algorithms and storage used to refine a polygon. Each thread needs its own instance.
+	 */
+	protected class RefineWork {
+		// Refines the edges using the contour alone
+		public @Nullable RefinePolygonToContour refineContour;
+
+		// Refines the edges using the gray scale image
+		public @Nullable RefinePolygonToGray<T> refineGray;
+
+		public @Nullable AdjustPolygonForThresholdBias adjustForBias;
+
+		// Used to remove false positives
+		public EdgeIntensityPolygon<T> edgeIntensity;
+
+		public Polygon2D_F64 work = new Polygon2D_F64();
+		public FastQueue<Point2D_I32> contour = new FastQueue<>(Point2D_I32.class,true);
+
+		public RefineWork( @Nullable RefinePolygonToContour refineContour,
+						   @Nullable RefinePolygonToGray<T> refineGray,
+						   @Nullable AdjustPolygonForThresholdBias adjustForBias ) {
+			this.refineContour = refineContour;
+			this.refineGray = refineGray;
+			this.adjustForBias = adjustForBias;
+			this.edgeIntensity = new EdgeIntensityPolygon<>(1, 1.5, 15, detector.getInputType());
+		}
+
+		public void setImage( T gray ) {
+			if( refineGray != null )
+				refineGray.setImage(gray);
+			edgeIntensity.setImage(gray);
+		}
+
+		public void setLensDistortion( int width , int height ,
+									   @Nullable PixelTransform<Point2D_F32> distToUndist ,
+									   @Nullable PixelTransform<Point2D_F32> undistToDist ) {
+			if( refineGray != null )
+				refineGray.setLensDistortion(width, height, distToUndist, undistToDist);
+			edgeIntensity.setTransform(undistToDist);
+		}
+
+		public void clearLensDistortion() {
+			if( refineGray != null )
+				refineGray.clearLensDistortion();
+			edgeIntensity.setTransform(null);
+		}
+	}
+
 	public interface AdjustBeforeRefineEdge {
 		void adjust( DetectPolygonFromContour.Info info , boolean clockwise );
 	}
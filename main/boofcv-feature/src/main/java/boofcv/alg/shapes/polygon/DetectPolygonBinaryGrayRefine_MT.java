@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.shapes.polygon;
+
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.struct.distort.PixelTransform;
+import boofcv.struct.image.GrayU8;
+import boofcv.struct.image.ImageGray;
+import georegression.struct.point.Point2D_F32;
+import org.ddogleg.struct.Factory;
+import org.ddogleg.struct.FastQueue;
+
+import javax.annotation.Nullable;
+import java.util.List;
+
+/**
+ * Concurrent version of {@link DetectPolygonBinaryGrayRefine}. Polygons are fit to contours using
+ * {@link DetectPolygonFromContour_MT}, if that's what was passed in, and {@link #refineAll()} splits the
+ * polygons between threads. Each thread has its own refinement algorithms. Results are identical to
+ * the single threaded version.
+ *
+ * @author Peter Abeles
+ */
+public class DetectPolygonBinaryGrayRefine_MT<T extends ImageGray<T>> extends DetectPolygonBinaryGrayRefine<T> {
+
+	// Creates a gray scale refinement algorithm for each thread. null if there is no gray refinement
+	private @Nullable Factory<RefinePolygonToGray<T>> factoryRefineGray;
+	private boolean useRefineContour;
+
+	// storage for each thread
+	private FastQueue<ThreadWork> workspaces;
+
+	// The most recently processed image
+	private T gray;
+
+	// Lens distortion. Each time it's changed the version is incremented so threads know to update their copy
+	private int width, height;
+	private @Nullable PixelTransform<Point2D_F32> distToUndist, undistToDist;
+	private int lensVersion = 0;
+
+	/**
+	 * Configures the polygon detector. See {@link DetectPolygonBinaryGrayRefine} for a description of the
+	 * other parameters.
+	 *
+	 * @param refineContour If true the polygon will be refined using its contour
+	 * @param factoryRefineGray Creates a new instance of the gray scale refinement algorithm. One is needed
+	 *                          for each thread. If null then there will be no gray scale refinement.
+	 */
+	public DetectPolygonBinaryGrayRefine_MT(DetectPolygonFromContour<T> detector,
+											boolean refineContour,
+											@Nullable Factory<RefinePolygonToGray<T>> factoryRefineGray,
+											double minimumRefineEdgeIntensity,
+											boolean adjustForThresholdBias) {
+		super(detector, refineContour ? new RefinePolygonToContour() : null,
+				factoryRefineGray == null ? null : factoryRefineGray.newInstance(),
+				minimumRefineEdgeIntensity, adjustForThresholdBias);
+
+		this.useRefineContour = refineContour;
+		this.factoryRefineGray = factoryRefineGray;
+		this.workspaces = new FastQueue<>((Class)ThreadWork.class, ThreadWork::new);
+	}
+
+	@Override
+	public void setLensDistortion(int width, int height,
+								  @Nullable PixelTransform<Point2D_F32> distToUndist,
+								  @Nullable PixelTransform<Point2D_F32> undistToDist) {
+		super.setLensDistortion(width, height, distToUndist, undistToDist);
+		this.width = width;
+		this.height = height;
+		this.distToUndist = distToUndist;
+		this.undistToDist = undistToDist;
+		lensVersion++;
+	}
+
+	@Override
+	public void clearLensDistortion() {
+		super.clearLensDistortion();
+		this.distToUndist = null;
+		this.undistToDist = null;
+		lensVersion++;
+	}
+
+	@Override
+	public void process(T gray, GrayU8 binary) {
+		super.process(gray, binary);
+		this.gray = gray;
+	}
+
+	@Override
+	public void refineAll() {
+		List<DetectPolygonFromContour.Info> detections = detector.getFound().toList();
+
+		BoofConcurrency.loopBlocks(0,detections.size(),workspaces,(work,idx0,idx1)->{
+			work.initialize();
+			for (int i = idx0; i < idx1; i++) {
+				refine(work,detections.get(i));
+			}
+		});
+	}
+
+	/**
+	 * Work space for a single thread
+	 */
+	private class ThreadWork extends RefineWork {
+		int lensVersion = -1;
+
+		public ThreadWork() {
+			super(useRefineContour ? new RefinePolygonToContour() : null,
+					factoryRefineGray == null ? null : factoryRefineGray.newInstance(),
+					DetectPolygonBinaryGrayRefine_MT.this.adjustForBias == null ? null : new AdjustPolygonForThresholdBias());
+		}
+
+		public void initialize() {
+			setImage(gray);
+
+			// transforms are not necessarily thread safe so each thread gets its own copy
+			int version = DetectPolygonBinaryGrayRefine_MT.this.lensVersion;
+			if( lensVersion != version ) {
+				lensVersion = version;
+				if( distToUndist == null || undistToDist == null ) {
+					clearLensDistortion();
+				} else {
+					setLensDistortion(width, height, distToUndist.copyConcurrent(), undistToDist.copyConcurrent());
+				}
+			}
+		}
+	}
+}
@@ -82,11 +82,10 @@ public class DetectPolygonFromContour<T extends ImageGray<T>> {
 	int imageWidth,imageHeight; // input image shape
 
 	// finds the initial polygon around a target candidate
-	private PointsToPolyline contourToPolyline;
-	private GrowQueue_I32 splits = new GrowQueue_I32();
+	protected PointsToPolyline contourToPolyline;
 
 	// Used to prune false positives
-	private ContourEdgeIntensity<T> contourEdgeIntensity;
+	protected ContourEdgeIntensity<T> contourEdgeIntensity;
 
 	// extera information for found shapes
 	FastQueue<Info> foundInfo = new FastQueue<>(Info.class, true);
@@ -94,16 +93,11 @@ public class DetectPolygonFromContour<T extends ImageGray<T>> {
 	// true if points touching the border are NOT pruned
 	private boolean canTouchBorder;
 
-	// work space for initial polygon
-	private Polygon2D_F64 polygonWork = new Polygon2D_F64(); // undistorted pixel coordinate
-	private Polygon2D_F64 polygonDistorted = new Polygon2D_F64(); // distorted pixel coordinates;
-
 	// should the order of the polygon be on clockwise order on output?
 	private boolean outputClockwise;
 
 	// transforms which can be used to handle lens distortion
 	protected PixelTransform<Point2D_F32> distToUndist, undistToDist;
-	protected Point2D_F32 distortedPoint = new Point2D_F32();
 
 	private boolean verbose = false;
 
@@ -111,20 +105,16 @@ public class DetectPolygonFromContour<T extends ImageGray<T>> {
 	double contourEdgeThreshold;
 
 	// helper used to customize low level behaviors internally
-	private PolygonHelper helper;
-
-	// storage space for contour in undistorted pixels
-	private FastQueue<Point2D_I32> undistorted = new FastQueue<>(Point2D_I32.class,true);
+	protected PolygonHelper helper;
 
 	// type of input gray scale image it can process
 	private Class<T> inputType;
 
-	// indicates which corners touch the border
-	private GrowQueue_B borderCorners = new GrowQueue_B();
+	// work space for fitting polygons to contours
+	WorkSpace work;
 
 	// temporary storage for a contour
 	private FastQueue<Point2D_I32> contourTmp = new FastQueue<>(Point2D_I32.class,true);
-	List<Point2D_I32> polygonPixel = new ArrayList<>();
 
 	// times for internal profiling
 	MovingAverage milliContour = new MovingAverage(0.8);
@@ -167,7 +157,7 @@ public class DetectPolygonFromContour<T extends ImageGray<T>> {
 			this.contourEdgeIntensity = new ContourEdgeIntensity<>(30, 1, tangentEdgeIntensity, inputType);
 		}
 
-		polygonWork = new Polygon2D_F64(1);
+		work = new WorkSpace(contourToPolyline, contourEdgeIntensity);
 	}
 
 	/**
@@ -189,6 +179,8 @@ public class DetectPolygonFromContour<T extends ImageGray<T>> {
 
 		this.distToUndist = distToUndist;
 		this.undistToDist = undistToDist;
+		if( work != null )
+			work.distToUndist = distToUndist;
 	}
 
 	public void resetRuntimeProfiling() {
@@ -202,6 +194,8 @@ public class DetectPolygonFromContour<T extends ImageGray<T>> {
 	public void clearLensDistortion() {
 		this.distToUndist = null;
 		this.undistToDist = null;
+		if( work != null )
+			work.distToUndist = null;
 	}
 
 	/**
@@ -280,146 +274,161 @@ public class DetectPolygonFromContour<T extends ImageGray<T>> {
 	 * Finds blobs in the binary image.  Then looks for blobs that meet size and shape requirements.  See code
 	 * below for the requirements.  Those that remain are considered to be target candidates.
 	 */
-	private void findCandidateShapes() {
+	protected void findCandidateShapes() {
 
 		// find blobs where all 4 edges are lines
 		List<ContourPacked> blobs = contourFinder.getContours();
 		for (int i = 0; i < blobs.size(); i++) {
-			ContourPacked c = blobs.get(i);
-
-			contourTmp.reset();
-			contourFinder.loadContour(c.externalIndex,contourTmp);
-			if( contourTmp.size() >= minimumContour) {
-				float edgeInside=-1,edgeOutside=-1;
-
-//				System.out.println("----- candidate "+contourTmp.size()+"  "+contourTmp.get(0));
-
-				// ignore shapes which touch the image border
-				boolean touchesBorder = touchesBorder(contourTmp.toList());
-				if( !canTouchBorder && touchesBorder ) {
-					if( verbose ) System.out.println("rejected polygon, touched border");
-					continue;
-				}
-
-				if( helper != null )
-					if( !helper.filterContour(contourTmp.toList(),touchesBorder,true) )
-						continue;
-
-				// filter out contours which are noise
-				if( contourEdgeIntensity != null ) {
-					contourEdgeIntensity.process(contourTmp.toList(),true);
-					edgeInside = contourEdgeIntensity.getInsideAverage();
-					edgeOutside = contourEdgeIntensity.getOutsideAverage();
-
-					// take the ABS because CCW/CW isn't known yet
-					if( Math.abs(edgeOutside-edgeInside) < contourEdgeThreshold ) {
-						if( verbose ) System.out.println("rejected polygon. contour edge intensity");
-						continue;
-					}
-				}
-
-				// remove lens distortion
-				List<Point2D_I32> undistorted;
-				if( distToUndist != null ) {
-					undistorted = this.undistorted.toList();
-					removeDistortionFromContour(contourTmp.toList(),this.undistorted);
-					if( helper != null )
-						if( !helper.filterContour(this.undistorted.toList(),touchesBorder,false) )
-							continue;
-				} else {
-					undistorted = contourTmp.toList();
-				}
-
-				if( helper != null ) {
-					helper.configureBeforePolyline(contourToPolyline,touchesBorder);
-				}
-
-				// Find the initial approximate fit of a polygon to the contour
-				if( !contourToPolyline.process(undistorted,splits) ) {
-					if( verbose ) System.out.println("rejected polygon initial fit failed. contour size = "+contourTmp.size());
-					continue;
-				}
-
-				// determine the polygon's orientation
-				polygonPixel.clear();
-				for (int j = 0; j < splits.size; j++) {
-					polygonPixel.add(undistorted.get(splits.get(j)));
-				}
-
-				boolean isCCW = UtilPolygons2D_I32.isCCW(polygonPixel);
-
-				// Now that the orientation is known it can check to see if it's actually trying to fit to a
-				// white blob instead of a black blob
-				if( contourEdgeIntensity != null ) {
-					// before it assumed it was CCW
-					if( !isCCW ) {
-						float tmp = edgeInside;
-						edgeInside = edgeOutside;
-						edgeOutside = tmp;
-					}
-
-					if( edgeInside > edgeOutside ) {
-						if( verbose ) System.out.println("White blob. Rejected");
-						continue;
-					}
-				}
-
-				// see if it should be flipped so that the polygon has the correct orientation
-				if( outputClockwise == isCCW ) {
-					flip(splits.data,splits.size);
-				}
-
-				// convert the format of the initial crude polygon
-				polygonWork.vertexes.resize(splits.size());
-				polygonDistorted.vertexes.resize(splits.size());
-				for (int j = 0; j < splits.size(); j++) {
-					Point2D_I32 p = undistorted.get( splits.get(j) );
-					Point2D_I32 q = contourTmp.get( splits.get(j));
-					polygonWork.get(j).set(p.x,p.y);
-					polygonDistorted.get(j).set(q.x,q.y);
-				}
-
-				if( touchesBorder ) {
-					determineCornersOnBorder(polygonDistorted, borderCorners);
-				} else {
-					borderCorners.resize(0);
-				}
-
-				if( helper != null ) {
-					if( !helper.filterPixelPolygon(polygonWork,polygonDistorted,borderCorners,touchesBorder) ) {
-						if( verbose ) System.out.println("rejected by helper.filterPixelPolygon()");
-						continue;
-					}
-				}
-
-				// make sure it's big enough
-				double area = Area2D_F64.polygonSimple(polygonWork);
-
-				if( area < minimumArea ) {
-					if( verbose ) System.out.println("Rejected area");
-					continue;
-				}
-
-				// Get the storage for a new polygon. This is recycled and has already been cleaned up
-				Info info = foundInfo.grow();
-
-				if( distToUndist != null ) {
-					// changed the save points in the packed contour list with undistorted coordinates
-					contourFinder.writeContour(c.externalIndex,undistorted);
-				}
-
-				// save results
-				info.splits.setTo(splits);
-				info.contourTouchesBorder = touchesBorder;
-				info.external = true;
-				info.edgeInside = edgeInside;
-				info.edgeOutside = edgeOutside;
-				info.contour = c;
-				info.polygon.set(polygonWork);
-				info.polygonDistorted.set(polygonDistorted);
-				info.borderCorners.setTo(borderCorners);
+			// Get the storage for a new polygon. This is recycled and has already been cleaned up
+			Info info = foundInfo.grow();
+			if( !processContour(work, blobs.get(i), info) )
+				foundInfo.removeTail();
+		}
+	}
+
+	/**
+	 * Fits a polygon to the external contour of a single blob and checks to see if it meets all the requirements.
+	 * Nothing outside of the work space and info is modified, with the exception of the contour's points
+	 * being overwritten with undistorted coordinates, so different blobs can be processed at the same time.
+	 *
+	 * @param ws (Input) Work space
+	 * @param c (Input) The blob's contour
+	 * @param info (Output) Description of the polygon. Only modified if true is returned.
+	 * @return true if a polygon was found
+	 */
+	protected boolean processContour( WorkSpace ws , ContourPacked c , Info info ) {
+		ws.contour.reset();
+		contourFinder.loadContour(c.externalIndex,ws.contour);
+		if( ws.contour.size() < minimumContour)
+			return false;
+
+		float edgeInside=-1,edgeOutside=-1;
+
+//			System.out.println("----- candidate "+ws.contour.size()+"  "+ws.contour.get(0));
+
+		// ignore shapes which touch the image border
+		boolean touchesBorder = touchesBorder(ws.contour.toList());
+		if( !canTouchBorder && touchesBorder ) {
+			if( verbose ) System.out.println("rejected polygon, touched border");
+			return false;
+		}
+
+		if( helper != null )
+			if( !helper.filterContour(ws.contour.toList(),touchesBorder,true) )
+				return false;
+
+		// filter out contours which are noise
+		if( ws.contourEdgeIntensity != null ) {
+			ws.contourEdgeIntensity.process(ws.contour.toList(),true);
+			edgeInside = ws.contourEdgeIntensity.getInsideAverage();
+			edgeOutside = ws.contourEdgeIntensity.getOutsideAverage();
+
+			// take the ABS because CCW/CW isn't known yet
+			if( Math.abs(edgeOutside-edgeInside) < contourEdgeThreshold ) {
+				if( verbose ) System.out.println("rejected polygon. contour edge intensity");
+				return false;
+			}
+		}
+
+		// remove lens distortion
+		List<Point2D_I32> undistorted;
+		if( ws.distToUndist != null ) {
+			undistorted = ws.undistorted.toList();
+			removeDistortionFromContour(ws,ws.contour.toList());
+			if( helper != null )
+				if( !helper.filterContour(ws.undistorted.toList(),touchesBorder,false) )
+					return false;
+		} else {
+			undistorted = ws.contour.toList();
+		}
+
+		if( helper != null ) {
+			helper.configureBeforePolyline(ws.contourToPolyline,touchesBorder);
+		}
+
+		// Find the initial approximate fit of a polygon to the contour
+		if( !ws.contourToPolyline.process(undistorted,ws.splits) ) {
+			if( verbose ) System.out.println("rejected polygon initial fit failed. contour size = "+ws.contour.size());
+			return false;
+		}
+
+		// determine the polygon's orientation
+		ws.polygonPixel.clear();
+		for (int j = 0; j < ws.splits.size; j++) {
+			ws.polygonPixel.add(undistorted.get(ws.splits.get(j)));
+		}
+
+		boolean isCCW = UtilPolygons2D_I32.isCCW(ws.polygonPixel);
+
+		// Now that the orientation is known it can check to see if it's actually trying to fit to a
+		// white blob instead of a black blob
+		if( ws.contourEdgeIntensity != null ) {
+			// before it assumed it was CCW
+			if( !isCCW ) {
+				float tmp = edgeInside;
+				edgeInside = edgeOutside;
+				edgeOutside = tmp;
+			}
+
+			if( edgeInside > edgeOutside ) {
+				if( verbose ) System.out.println("White blob. Rejected");
+				return false;
 			}
 		}
+
+		// see if it should be flipped so that the polygon has the correct orientation
+		if( outputClockwise == isCCW ) {
+			flip(ws.splits.data,ws.splits.size);
+		}
+
+		// convert the format of the initial crude polygon
+		ws.polygonWork.vertexes.resize(ws.splits.size());
+		ws.polygonDistorted.vertexes.resize(ws.splits.size());
+		for (int j = 0; j < ws.splits.size(); j++) {
+			Point2D_I32 p = undistorted.get( ws.splits.get(j) );
+			Point2D_I32 q = ws.contour.get( ws.splits.get(j));
+			ws.polygonWork.get(j).set(p.x,p.y);
+			ws.polygonDistorted.get(j).set(q.x,q.y);
+		}
+
+		if( touchesBorder ) {
+			determineCornersOnBorder(ws.polygonDistorted, ws.borderCorners);
+		} else {
+			ws.borderCorners.resize(0);
+		}
+
+		if( helper != null ) {
+			if( !helper.filterPixelPolygon(ws.polygonWork,ws.polygonDistorted,ws.borderCorners,touchesBorder) ) {
+				if( verbose ) System.out.println("rejected by helper.filterPixelPolygon()");
+				return false;
+			}
+		}
+
+		// make sure it's big enough
+		double area = Area2D_F64.polygonSimple(ws.polygonWork);
+
+		if( area < minimumArea ) {
+			if( verbose ) System.out.println("Rejected area");
+			return false;
+		}
+
+		if( ws.distToUndist != null ) {
+			// changed the save points in the packed contour list with undistorted coordinates
+			contourFinder.writeContour(c.externalIndex,undistorted);
+		}
+
+		// save results
+		info.splits.setTo(ws.splits);
+		info.contourTouchesBorder = touchesBorder;
+		info.external = true;
+		info.edgeInside = edgeInside;
+		info.edgeOutside = edgeOutside;
+		info.contour = c;
+		info.polygon.set(ws.polygonWork);
+		info.polygonDistorted.set(ws.polygonDistorted);
+		info.borderCorners.setTo(ws.borderCorners);
+
+		return true;
 	}
 
 	// TODO move into ddogleg? primitive flip  <--- I think this is specific to polygons
@@ -460,6 +469,18 @@ public class DetectPolygonFromContour<T extends ImageGray<T>> {
 		return contourTmp.toList();
 	}
 
+	/**
+	 * Loads the undistorted contour for a shape into the provided storage. Safe to call from multiple threads
+	 * as long as each thread has its own storage.
+	 *
+	 * @param info Which shape
+	 * @param storage (Output) List of points in the contour
+	 */
+	public void getContour( Info info , FastQueue<Point2D_I32> storage ) {
+		storage.reset();
+		contourFinder.loadContour(info.contour.externalIndex,storage);
+	}
+
 //	/**
 //	 * Check to see if corners are touching the image border
 //	 * @param polygon Refined polygon
@@ -496,7 +517,9 @@ public class DetectPolygonFromContour<T extends ImageGray<T>> {
 	/**
 	 * Removes lens distortion from the found contour
 	 */
-	private void removeDistortionFromContour(List<Point2D_I32> distorted , FastQueue<Point2D_I32> undistorted  ) {
+	private void removeDistortionFromContour( WorkSpace ws , List<Point2D_I32> distorted ) {
+		FastQueue<Point2D_I32> undistorted = ws.undistorted;
+		Point2D_F32 distortedPoint = ws.distortedPoint;
 		undistorted.reset();
 
 		for (int j = 0; j < distorted.size(); j++) {
@@ -504,7 +527,7 @@ public class DetectPolygonFromContour<T extends ImageGray<T>> {
 			Point2D_I32 p = distorted.get(j);
 			Point2D_I32 q = undistorted.grow();
 
-			distToUndist.compute(p.x,p.y,distortedPoint);
+			ws.distToUndist.compute(p.x,p.y,distortedPoint);
 
 			// round to minimize error
 			q.x = Math.round(distortedPoint.x);
@@ -671,5 +694,52 @@ public class DetectPolygonFromContour<T extends ImageGray<T>> {
 			polygonDistorted.vertexes.reset();
 			contour = null;
 		}
+
+		public void setTo( Info src ) {
+			external = src.external;
+			edgeInside = src.edgeInside;
+			edgeOutside = src.edgeOutside;
+			contourTouchesBorder = src.contourTouchesBorder;
+			borderCorners.setTo(src.borderCorners);
+			polygon.set(src.polygon);
+			polygonDistorted.set(src.polygonDistorted);
+			splits.setTo(src.splits);
+			contour = src.contour;
+		}
+	}
+
+	/**
+	 * Storage and algorithms used to fit a polygon to a contour. One is needed for each thread.
+	 */
+	protected class WorkSpace {
+		// finds the initial polygon around a target candidate
+		public PointsToPolyline contourToPolyline;
+		public GrowQueue_I32 splits = new GrowQueue_I32();
+
+		// Used to prune false positives. Can be null
+		public ContourEdgeIntensity<T> contourEdgeIntensity;
+
+		// Transform from distorted to undistorted pixels. Can be null
+		public PixelTransform<Point2D_F32> distToUndist;
+		public Point2D_F32 distortedPoint = new Point2D_F32();
+
+		// work space for initial polygon
+		public Polygon2D_F64 polygonWork = new Polygon2D_F64(1); // undistorted pixel coordinate
+		public Polygon2D_F64 polygonDistorted = new Polygon2D_F64(); // distorted pixel coordinates;
+
+		// storage space for contour in undistorted pixels
+		public FastQueue<Point2D_I32> undistorted = new FastQueue<>(Point2D_I32.class,true);
+
+		// indicates which corners touch the border
+		public GrowQueue_B borderCorners = new GrowQueue_B();
+
+		// temporary storage for a contour
+		public FastQueue<Point2D_I32> contour = new FastQueue<>(Point2D_I32.class,true);
+		public List<Point2D_I32> polygonPixel = new ArrayList<>();
+
+		public WorkSpace( PointsToPolyline contourToPolyline, ContourEdgeIntensity<T> contourEdgeIntensity ) {
+			this.contourToPolyline = contourToPolyline;
+			this.contourEdgeIntensity = contourEdgeIntensity;
+		}
 	}
 }
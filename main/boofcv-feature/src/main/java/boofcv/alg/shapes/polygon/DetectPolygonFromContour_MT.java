@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.shapes.polygon;
+
+import boofcv.abst.filter.binary.BinaryContourFinder;
+import boofcv.abst.shapes.polyline.PointsToPolyline;
+import boofcv.alg.filter.binary.ContourPacked;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.struct.ConfigLength;
+import boofcv.struct.distort.PixelTransform;
+import boofcv.struct.image.GrayU8;
+import boofcv.struct.image.ImageGray;
+import georegression.struct.point.Point2D_F32;
+import org.ddogleg.struct.Factory;
+import org.ddogleg.struct.FastQueue;
+import org.ddogleg.struct.GrowQueue_B;
+
+import java.util.List;
+
+/**
+ * Concurrent version of {@link DetectPolygonFromContour}. Contours are split between threads and each thread has
+ * its own polyline fitter and edge intensity checker. Results are returned in the same order as the single
+ * threaded version.
+ *
+ * <p>
+ * The {@link PolygonHelper}, if one is specified, is called from multiple threads and must not modify
+ * its internal state while processing a contour.
+ * </p>
+ *
+ * @author Peter Abeles
+ */
+public class DetectPolygonFromContour_MT<T extends ImageGray<T>> extends DetectPolygonFromContour<T> {
+
+	// Creates a new polyline fitter for each thread
+	private Factory<PointsToPolyline> factoryPolyline;
+
+	// Used to create a new contour edge intensity for each thread
+	private double tangentEdgeIntensity;
+
+	// storage for each thread
+	private FastQueue<ThreadWork> workspaces;
+
+	// Results for every contour. This ensures the output order is the same as the single threaded version
+	private FastQueue<Info> candidates = new FastQueue<>(Info.class,true);
+	private GrowQueue_B accepted = new GrowQueue_B();
+
+	// The image currently being processed
+	private T gray;
+
+	/**
+	 * Configures the detector. See {@link DetectPolygonFromContour} for a description of the parameters.
+	 *
+	 * @param factoryPolyline Creates a new instance of the polyline fitter. One is needed for each thread.
+	 */
+	public DetectPolygonFromContour_MT(Factory<PointsToPolyline> factoryPolyline,
+									   ConfigLength minimumContour,
+									   boolean outputClockwise,
+									   boolean touchBorder,
+									   double contourEdgeThreshold,
+									   double tangentEdgeIntensity,
+									   BinaryContourFinder contourFinder,
+									   Class<T> inputType) {
+		super(factoryPolyline.newInstance(), minimumContour, outputClockwise, touchBorder,
+				contourEdgeThreshold, tangentEdgeIntensity, contourFinder, inputType);
+
+		this.factoryPolyline = factoryPolyline;
+		this.tangentEdgeIntensity = tangentEdgeIntensity;
+		this.workspaces = new FastQueue<>((Class)ThreadWork.class, ThreadWork::new);
+	}
+
+	@Override
+	public void process(T gray, GrayU8 binary) {
+		this.gray = gray;
+		super.process(gray, binary);
+		this.gray = null;
+	}
+
+	@Override
+	protected void findCandidateShapes() {
+		List<ContourPacked> blobs = getContourFinder().getContours();
+
+		candidates.resize(blobs.size());
+		accepted.resize(blobs.size());
+
+		BoofConcurrency.loopBlocks(0,blobs.size(),workspaces,(ws,idx0,idx1)->{
+			ws.initialize();
+			for (int i = idx0; i < idx1; i++) {
+				accepted.data[i] = processContour(ws, blobs.get(i), candidates.get(i));
+			}
+		});
+
+		// Save the results in the same order as the single threaded algorithm
+		for (int i = 0; i < blobs.size(); i++) {
+			if( accepted.data[i] ) {
+				foundInfo.grow().setTo(candidates.get(i));
+			}
+		}
+	}
+
+	/**
+	 * Work space for a single thread. Before being used its settings are synchronized with the main thread's
+	 */
+	private class ThreadWork extends WorkSpace {
+		// The transform distToUndist was copied from
+		PixelTransform<Point2D_F32> distToUndistSrc;
+
+		public ThreadWork() {
+			super(factoryPolyline.newInstance(), null);
+			if( DetectPolygonFromContour_MT.this.contourEdgeIntensity != null )
+				contourEdgeIntensity = new ContourEdgeIntensity<>(30, 1, tangentEdgeIntensity, getInputType());
+		}
+
+		public void initialize() {
+			contourToPolyline.setConvex(DetectPolygonFromContour_MT.this.contourToPolyline.isConvex());
+			contourToPolyline.setMinimumSides(getMinimumSides());
+			contourToPolyline.setMaximumSides(getMaximumSides());
+
+			if( contourEdgeIntensity != null )
+				contourEdgeIntensity.setImage(gray);
+
+			// transforms are not necessarily thread safe so each thread gets its own copy
+			if( distToUndistSrc != getDistToUndist() ) {
+				distToUndistSrc = getDistToUndist();
+				distToUndist = distToUndistSrc == null ? null : distToUndistSrc.copyConcurrent();
+			}
+		}
+	}
+}
@@ -45,9 +45,57 @@ public class ConfigAssociateNearestNeighbor implements Configuration {
 	 */
 	public double maxErrorThreshold = Double.MAX_VALUE;
 
+	/**
+	 * Which nearest neighbor search is used by {@link FactoryAssociation#nearestNeighbor}. Ignored by factory
+	 * methods which specify the search.
+	 */
+	public Search search = Search.RANDOM_FOREST;
+
+	/**
+	 * Maximum number of nodes examined by a best-bin-first search in a K-D tree or forest. Controls speed and
+	 * accuracy. If &le; 0 and the search is a single K-D tree then the search is exact.
+	 */
+	public int maxNodesSearched = 500;
+
+	/**
+	 * Number of trees in a random forest. Try 10 and tune.
+	 */
+	public int numTrees = 10;
+
+	/**
+	 * Number of elements with the largest variance which are randomly selected from when splitting a node
+	 * in a random forest. Must be less than the descriptor's dimension.
+	 */
+	public int numConsiderSplit = 5;
+
+	/**
+	 * Seed used by the random number generator when building a random forest
+	 */
+	public long randomSeed = 0xDEADBEEF;
+
 	@Override
 	public void checkValidity() {
 		if( scoreRatioThreshold <= 0 )
 			throw new IllegalArgumentException("Ratio must be more than zero");
 	}
+
+	/**
+	 * Nearest neighbor search algorithms for descriptors which are composed of floating point numbers
+	 */
+	public enum Search {
+		/**
+		 * Compares against every feature. Exact but slow.
+		 */
+		EXHAUSTIVE,
+		/**
+		 * Single K-D tree. Exact if maxNodesSearched &le; 0, otherwise approximate using a best-bin-first search.
+		 * Tends to degrade into an exhaustive search for descriptors with many elements.
+		 */
+		KD_TREE,
+		/**
+		 * Multiple randomized K-D trees which are searched together using best-bin-first. Approximate, but
+		 * much faster than a single tree for descriptors with many elements, e.g. SURF and SIFT.
+		 */
+		RANDOM_FOREST
+	}
 }
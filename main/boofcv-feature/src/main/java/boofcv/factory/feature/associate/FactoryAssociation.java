@@ -19,12 +19,15 @@
 package boofcv.factory.feature.associate;
 
 import boofcv.abst.feature.associate.*;
+import boofcv.alg.descriptor.KdTreeTuple_F32;
 import boofcv.alg.descriptor.KdTreeTuple_F64;
+import boofcv.alg.descriptor.NearestNeighborMultiIndex_B;
 import boofcv.alg.feature.associate.*;
 import boofcv.concurrency.BoofConcurrency;
 import boofcv.struct.feature.*;
 import org.ddogleg.nn.FactoryNearestNeighbor;
 import org.ddogleg.nn.NearestNeighbor;
+import org.ddogleg.nn.alg.KdTreeDistance;
 
 import javax.annotation.Nullable;
 
@@ -78,7 +81,7 @@ public class FactoryAssociation {
 	 */
 	public static AssociateDescription<TupleDesc_F64> kdtree( @Nullable ConfigAssociateNearestNeighbor configNN ,
 															  int dimension, int maxNodesSearched ) {
-		NearestNeighbor nn = FactoryNearestNeighbor.kdtree(new KdTreeTuple_F64(dimension),maxNodesSearched);
+		NearestNeighbor<TupleDesc_F64> nn = FactoryNearestNeighbor.kdtree(new KdTreeTuple_F64(dimension),maxNodesSearched);
 
 		return associateNearestNeighbor(configNN,nn);
 	}
@@ -104,23 +107,106 @@ public class FactoryAssociation {
 																	  int numTrees ,
 																	  int numConsiderSplit ,
 																	  long randomSeed) {
-		NearestNeighbor nn = FactoryNearestNeighbor.kdRandomForest(
+		NearestNeighbor<TupleDesc_F64> nn = FactoryNearestNeighbor.kdRandomForest(
 				new KdTreeTuple_F64(dimension),
 				maxNodesSearched,numTrees,numConsiderSplit,randomSeed);
 
 		return associateNearestNeighbor(configNN,nn);
 	}
 
-	public static AssociateNearestNeighbor<TupleDesc_F64>
+	/**
+	 * Association using a nearest neighbor search over descriptors composed of floating point numbers. Which
+	 * search is used and how it's tuned is specified in the configuration. For large descriptors, e.g. SURF and
+	 * SIFT, a random forest with a bounded number of nodes searched is much faster than an exact search at the
+	 * cost of a small loss in recall.
+	 *
+	 * @see AssociateNearestNeighbor_ST
+	 * @see ConfigAssociateNearestNeighbor.Search
+	 *
+	 * @param configNN Configuration for the search and association. If null then defaults are used.
+	 * @param tupleType Type of descriptor. {@link TupleDesc_F32} or {@link TupleDesc_F64}
+	 * @param dimension Number of elements in the feature vector
+	 * @return Association using nearest neighbor search
+	 */
+	public static <D> AssociateNearestNeighbor<D> nearestNeighbor( @Nullable ConfigAssociateNearestNeighbor configNN ,
+																   Class<D> tupleType , int dimension ) {
+		if( configNN == null )
+			configNN = new ConfigAssociateNearestNeighbor();
+
+		KdTreeDistance<D> distance;
+		if( tupleType == TupleDesc_F64.class ) {
+			distance = (KdTreeDistance)new KdTreeTuple_F64(dimension);
+		} else if( tupleType == TupleDesc_F32.class ) {
+			distance = (KdTreeDistance)new KdTreeTuple_F32(dimension);
+		} else {
+			throw new IllegalArgumentException("Unsupported descriptor type "+tupleType.getSimpleName());
+		}
+
+		NearestNeighbor<D> nn;
+		switch( configNN.search ) {
+			case EXHAUSTIVE:
+				nn = FactoryNearestNeighbor.exhaustive(distance);
+				break;
+
+			case KD_TREE:
+				if( configNN.maxNodesSearched <= 0 )
+					nn = FactoryNearestNeighbor.kdtree(distance);
+				else
+					nn = FactoryNearestNeighbor.kdtree(distance,configNN.maxNodesSearched);
+				break;
+
+			case RANDOM_FOREST:
+				if( configNN.maxNodesSearched <= 0 )
+					throw new IllegalArgumentException("maxNodesSearched must be more than zero for a forest");
+				if( configNN.numTrees <= 0 )
+					throw new IllegalArgumentException("numTrees must be more than zero");
+				if( configNN.numConsiderSplit <= 0 )
+					throw new IllegalArgumentException("numConsiderSplit must be more than zero");
+				nn = FactoryNearestNeighbor.kdRandomForest(distance,configNN.maxNodesSearched,
+						configNN.numTrees,Math.min(dimension,configNN.numConsiderSplit),configNN.randomSeed);
+				break;
+
+			default:
+				throw new IllegalArgumentException("Unknown search "+configNN.search);
+		}
+
+		return associateNearestNeighbor(configNN,nn);
+	}
+
+	/**
+	 * Approximate association for binary descriptors using multi-index hashing. Much faster than a greedy
+	 * search when there are a large number of features. Hamming distance isn't squared, so if the configuration
+	 * is null then {@link ConfigAssociateNearestNeighbor#distanceIsSquared} will be false.
+	 *
+	 * @see AssociateNearestNeighbor_ST
+	 * @see NearestNeighborMultiIndex_B
+	 *
+	 * @param numTables Number of hash tables the descriptor is split into. If &le; 0 then it's selected
+	 *                  automatically from the number of features.
+	 * @param maxRadius Maximum radius each table is searched at. Controls speed and accuracy. Try 1.
+	 * @return Association using approximate nearest neighbor
+	 */
+	public static AssociateDescription<TupleDesc_B> multiIndexHashing( @Nullable ConfigAssociateNearestNeighbor configNN ,
+																	   int numTables , int maxRadius ) {
+		if( configNN == null ) {
+			configNN = new ConfigAssociateNearestNeighbor();
+			configNN.distanceIsSquared = false;
+		}
+		NearestNeighbor<TupleDesc_B> nn = new NearestNeighborMultiIndex_B(numTables,maxRadius);
+
+		return associateNearestNeighbor(configNN,nn);
+	}
+
+	public static <D> AssociateNearestNeighbor<D>
 	associateNearestNeighbor( @Nullable ConfigAssociateNearestNeighbor config ,
-							  NearestNeighbor nn )
+							  NearestNeighbor<D> nn )
 	{
 		if( config == null )
 			config = new ConfigAssociateNearestNeighbor();
 
 		config.checkValidity();
 
-		AssociateNearestNeighbor<TupleDesc_F64> assoc;
+		AssociateNearestNeighbor<D> assoc;
 		if( BoofConcurrency.USE_CONCURRENT ) {
 			assoc = new AssociateNearestNeighbor_MT<>(nn);
 		} else {
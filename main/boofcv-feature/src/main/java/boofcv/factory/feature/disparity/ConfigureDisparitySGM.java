@@ -18,8 +18,91 @@
 
 package boofcv.factory.feature.disparity;
 
+import boofcv.alg.feature.disparity.sgm.SgmStereoDisparity;
+
 /**
+ * Configuration for {@link SgmStereoDisparity Semi Global Matching}
+ *
  * @author Peter Abeles
  */
 public class ConfigureDisparitySGM {
+	/**
+	 * Minimum disparity that it will check. Must be &ge; 0 and &lt; maxDisparity
+	 */
+	public int minDisparity=0;
+	/**
+	 * Maximum disparity that it will calculate. The difference between max and min can't be more than 254,
+	 * since the disparity image is U8 and 255 is reserved for invalid pixels.
+	 */
+	public int maxDisparity=100;
+	/**
+	 * Number of paths the cost is aggregated along. More paths will produce a smoother result but be slower.
+	 */
+	public Paths paths = Paths.P8;
+	/**
+	 * Penalty for a change in disparity of one between adjacent pixels
+	 */
+	public int penaltySmallChange = 200;
+	/**
+	 * Penalty for a change in disparity of more than one between adjacent pixels. Can't be so large
+	 * that the aggregated cost overflows a 16-bit integer
+	 */
+	public int penaltyLargeChange = 2000;
+	/**
+	 * Tolerance for how difference the left to right associated values can be. &lt; 0 to disable
+	 */
+	public int validateRtoL=1;
+	/**
+	 * Tolerance for how similar optimal disparity is to other disparities.  Closer to zero is more tolerant.
+	 * &le; 0 to disable
+	 */
+	public double texture = 0.15;
+	/**
+	 * Maximum allowed aggregated cost. &le; 0 to disable
+	 */
+	public int maxError = -1;
+	/**
+	 * If subpixel should be used to find disparity or not. If on then output image needs to me GrayF32. If false
+	 * then GrayU8
+	 */
+	public boolean subpixel = true;
+	/**
+	 * How the cost is computed for each pixel
+	 */
+	public DisparitySgmError errorType = DisparitySgmError.CENSUS;
+	/**
+	 * Radius of the dense block used by the Census Transform. 1 to 3
+	 */
+	public int censusRadius = 2;
+	/**
+	 * Number of times mutual information is updated. Only used with {@link DisparitySgmError#MUTUAL_INFORMATION}
+	 */
+	public int miIterations = 2;
+	/**
+	 * Number of rows in each band when processing the image in horizontal bands to bound memory. If &le; 0 the
+	 * entire image is processed at once.
+	 */
+	public int bandHeight = 0;
+	/**
+	 * Number of rows above and below each band which are also aggregated. Larger values reduce artifacts along
+	 * the band's border at the cost of more computations
+	 */
+	public int bandOverlap = 32;
+
+	/**
+	 * Number of paths that the cost is aggregated along
+	 */
+	public enum Paths {
+		P1(1), P2(2), P4(4), P8(8), P16(16);
+
+		final int count;
+
+		Paths(int count) {
+			this.count = count;
+		}
+
+		public int getCount() {
+			return count;
+		}
+	}
 }
@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.factory.feature.disparity;
+
+/**
+ * Different cost functions for Semi Global Matching
+ *
+ * @author Peter Abeles
+ */
+public enum DisparitySgmError {
+	/**
+	 * Absolute value of the difference between the two pixels
+	 */
+	ABSOLUTE_DIFFERENCE,
+	/**
+	 * Hamming distance between census transformed pixels. Can handle affine changes in lighting between the two
+	 * images.
+	 *
+	 * @see boofcv.alg.transform.census.CensusTransform
+	 */
+	CENSUS,
+	/**
+	 * Mutual Information. Can handle complex changes in lighting between the two images.
+	 *
+	 * @see boofcv.alg.feature.disparity.sgm.StereoMutualInformation
+	 */
+	MUTUAL_INFORMATION
+}
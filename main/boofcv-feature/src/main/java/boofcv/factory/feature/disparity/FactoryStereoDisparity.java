@@ -31,6 +31,7 @@ import boofcv.alg.feature.disparity.blockmatch.impl.ImplDisparityScoreBMBestFive
 import boofcv.alg.feature.disparity.blockmatch.impl.ImplDisparityScoreBMBestFive_S32;
 import boofcv.alg.feature.disparity.blockmatch.impl.ImplDisparityScoreBM_F32;
 import boofcv.alg.feature.disparity.blockmatch.impl.ImplDisparityScoreBM_S32;
+import boofcv.alg.feature.disparity.sgm.*;
 import boofcv.core.image.GeneralizedImageOps;
 import boofcv.factory.transform.census.FactoryCensusTransform;
 import boofcv.struct.image.*;
@@ -190,6 +191,84 @@ public class FactoryStereoDisparity {
 		}
 	}
 
+	/**
+	 * Creates a Semi Global Matching (SGM) stereo disparity algorithm. The cost can be computed using the
+	 * absolute difference, census, or mutual information.
+	 *
+	 * @see SgmStereoDisparity
+	 *
+	 * @param config Configuration. If null the default will be used.
+	 * @param imageType Type of input image
+	 * @param dispType Type of disparity image. GrayF32 if subpixel is on, otherwise GrayU8
+	 * @return SGM disparity algorithm
+	 */
+	public static <T extends ImageGray<T>, DI extends ImageGray<DI>> StereoDisparity<T,DI>
+	sgm(@Nullable ConfigureDisparitySGM config , Class<T> imageType , Class<DI> dispType ) {
+		if( config == null )
+			config = new ConfigureDisparitySGM();
+
+		if( config.subpixel ) {
+			if( dispType != GrayF32.class )
+				throw new IllegalArgumentException("With subpixel on, disparity image must be GrayF32");
+		} else {
+			if( dispType != GrayU8.class )
+				throw new IllegalArgumentException("With subpixel off, disparity image must be GrayU8");
+		}
+
+		SgmDisparitySelector selector = new SgmDisparitySelector();
+		selector.setRightToLeftTolerance(config.validateRtoL);
+		selector.setTextureThreshold(config.texture);
+		selector.setMaxError(config.maxError);
+
+		SgmStereoDisparity sgm;
+		FilterImageInterface censusTran = null;
+		switch( config.errorType ) {
+			case ABSOLUTE_DIFFERENCE: {
+				if( imageType != GrayU8.class )
+					throw new IllegalArgumentException("Absolute difference only supports GrayU8 input");
+				sgm = new SgmStereoDisparity(new SgmCostAbsoluteDifference.U8(),selector);
+			} break;
+
+			case CENSUS: {
+				censusTran = FactoryCensusTransform.blockDense(config.censusRadius,imageType);
+				Class censusType = censusTran.getOutputType().getImageClass();
+				// number of bits is the number of pixels in the block minus the center
+				int width = config.censusRadius*2+1;
+				int bits = width*width-1;
+				SgmDisparityCost cost;
+				if (censusType == GrayU8.class) {
+					cost = new SgmCostHamming.U8(bits);
+				} else if (censusType == GrayS32.class) {
+					cost = new SgmCostHamming.S32(bits);
+				} else if (censusType == GrayS64.class) {
+					cost = new SgmCostHamming.S64(bits);
+				} else {
+					throw new IllegalArgumentException("Unsupported image type");
+				}
+				sgm = new SgmStereoDisparity(cost,selector);
+			} break;
+
+			case MUTUAL_INFORMATION: {
+				if( imageType != GrayU8.class )
+					throw new IllegalArgumentException("Mutual information only supports GrayU8 input");
+				SgmStereoDisparityMI alg = new SgmStereoDisparityMI(
+						new SgmMutualInformation(new StereoMutualInformation()),selector);
+				alg.setIterations(config.miIterations);
+				sgm = alg;
+			} break;
+
+			default:
+				throw new IllegalArgumentException("Unsupported error type "+config.errorType);
+		}
+
+		sgm.getAggregation().configure(config.paths.getCount(),config.penaltySmallChange,config.penaltyLargeChange);
+		sgm.configure(config.minDisparity,config.maxDisparity-config.minDisparity);
+		sgm.setSubpixel(config.subpixel);
+		sgm.setBands(config.bandHeight,config.bandOverlap);
+
+		return new WrapDisparitySgm(sgm,censusTran,ImageType.single(imageType));
+	}
+
 	public static <T extends ImageGray<T>> BlockRowScore createScoreRowSad(Class<T> imageType) {
 		BlockRowScore rowScore;
 		if (imageType == GrayU8.class) {
@@ -45,6 +45,13 @@ public class ConfigFh04 {
 	 */
 	public int approximateSortBins = 0;
 
+	/**
+	 * If true then edges with the same weight are sorted by the index of the pixels they connect.  The output
+	 * is then independent of the order edges are computed in, e.g. the same for any number of threads.  Ignored
+	 * if the approximate sort is used.
+	 */
+	public boolean deterministic = false;
+
 	public ConfigFh04() {
 	}
 
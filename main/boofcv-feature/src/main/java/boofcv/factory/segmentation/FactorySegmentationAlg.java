@@ -24,10 +24,12 @@ import boofcv.alg.interpolate.InterpolationType;
 import boofcv.alg.segmentation.ComputeRegionMeanColor;
 import boofcv.alg.segmentation.fh04.FhEdgeWeights;
 import boofcv.alg.segmentation.fh04.SegmentFelzenszwalbHuttenlocher04;
+import boofcv.alg.segmentation.fh04.SegmentFelzenszwalbHuttenlocher04_MT;
 import boofcv.alg.segmentation.fh04.impl.*;
 import boofcv.alg.segmentation.ms.*;
 import boofcv.alg.segmentation.slic.*;
 import boofcv.alg.segmentation.watershed.WatershedVincentSoille1991;
+import boofcv.concurrency.BoofConcurrency;
 import boofcv.factory.interpolate.FactoryInterpolation;
 import boofcv.struct.ConnectRule;
 import boofcv.struct.border.BorderType;
@@ -105,6 +107,10 @@ public class FactorySegmentationAlg {
 					spacialRadius,spacialRadius,colorRadius,config.fast,imageType);
 		}
 
+		if( BoofConcurrency.USE_CONCURRENT ) {
+			search = new SegmentMeanShiftSearch_MT<>(search);
+		}
+
 		ComputeRegionMeanColor<T> regionColor = regionMeanColor(imageType);
 		MergeRegionMeanShift merge = new MergeRegionMeanShift(spacialRadius/2+1,Math.max(1,colorRadius/2));
 
@@ -160,10 +166,16 @@ public class FactorySegmentationAlg {
 		if( config == null )
 			config = new ConfigFh04();
 
-		FhEdgeWeights<T> edgeWeights = weightsFelzenszwalb04(config.connectRule,imageType);
-
-		SegmentFelzenszwalbHuttenlocher04<T> alg =
-				new SegmentFelzenszwalbHuttenlocher04<>(config.K, config.minimumRegionSize, edgeWeights);
+		SegmentFelzenszwalbHuttenlocher04<T> alg;
+		if( BoofConcurrency.USE_CONCURRENT ) {
+			final ConnectRule rule = config.connectRule;
+			alg = new SegmentFelzenszwalbHuttenlocher04_MT<>(config.K, config.minimumRegionSize,
+					()->weightsFelzenszwalb04(rule,imageType));
+		} else {
+			FhEdgeWeights<T> edgeWeights = weightsFelzenszwalb04(config.connectRule,imageType);
+			alg = new SegmentFelzenszwalbHuttenlocher04<>(config.K, config.minimumRegionSize, edgeWeights);
+		}
+		alg.setDeterministic(config.deterministic);
 
 		if( config.approximateSortBins > 0 ) {
 			alg.configureApproximateSort(config.approximateSortBins);
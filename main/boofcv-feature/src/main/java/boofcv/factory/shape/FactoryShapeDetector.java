@@ -19,12 +19,14 @@
 package boofcv.factory.shape;
 
 import boofcv.abst.filter.binary.BinaryContourFinder;
+import boofcv.abst.shapes.polyline.ConfigPolyline;
 import boofcv.abst.shapes.polyline.PointsToPolyline;
 import boofcv.alg.shapes.ellipse.BinaryEllipseDetector;
 import boofcv.alg.shapes.ellipse.BinaryEllipseDetectorPixel;
 import boofcv.alg.shapes.ellipse.EdgeIntensityEllipse;
 import boofcv.alg.shapes.ellipse.SnapToEllipseEdge;
 import boofcv.alg.shapes.polygon.*;
+import boofcv.concurrency.BoofConcurrency;
 import boofcv.factory.filter.binary.FactoryBinaryContourFinder;
 import boofcv.struct.image.ImageGray;
 
@@ -92,13 +94,21 @@ public class FactoryShapeDetector {
 	{
 		config.checkValidity();
 
+		DetectPolygonFromContour<T> detector = polygonContour(config.detector,imageType);
+
+		if( BoofConcurrency.USE_CONCURRENT ) {
+			ConfigRefinePolygonLineToImage configGray = config.refineGray;
+			return new DetectPolygonBinaryGrayRefine_MT<>(detector,config.refineContour,
+					configGray != null ? ()->refinePolygon(configGray,imageType) : null,
+					config.minimumRefineEdgeIntensity,
+					config.adjustForThresholdBias);
+		}
+
 		RefinePolygonToContour refineContour = config.refineContour ? new RefinePolygonToContour() : null;
 
 		RefinePolygonToGray<T> refineGray = config.refineGray != null ?
 				refinePolygon(config.refineGray,imageType) : null;
 
-		DetectPolygonFromContour<T> detector = polygonContour(config.detector,imageType);
-
 		return new DetectPolygonBinaryGrayRefine<>(detector,refineContour,refineGray,
 				config.minimumRefineEdgeIntensity,
 				config.adjustForThresholdBias);
@@ -109,12 +119,20 @@ public class FactoryShapeDetector {
 	{
 		config.checkValidity();
 
-		PointsToPolyline contourToPolygon =
-				FactoryPointsToPolyline.create(config.contourToPoly);
-
 		BinaryContourFinder contour = FactoryBinaryContourFinder.linearExternal();
 		contour.setConnectRule(config.contourRule);
 
+		if( BoofConcurrency.USE_CONCURRENT ) {
+			ConfigPolyline configPolyline = config.contourToPoly;
+			return new DetectPolygonFromContour_MT<>(()->FactoryPointsToPolyline.create(configPolyline),
+					config.minimumContour,
+					config.clockwise, config.canTouchBorder,
+					config.minimumEdgeIntensity, config.tangentEdgeIntensity,contour, imageType);
+		}
+
+		PointsToPolyline contourToPolygon =
+				FactoryPointsToPolyline.create(config.contourToPoly);
+
 		return new DetectPolygonFromContour<>(contourToPolygon,
 				config.minimumContour,
 				config.clockwise, config.canTouchBorder,
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.abst.feature.disparity;
+
+import boofcv.alg.misc.ImageMiscOps;
+import boofcv.factory.feature.disparity.ConfigureDisparitySGM;
+import boofcv.factory.feature.disparity.DisparitySgmError;
+import boofcv.factory.feature.disparity.FactoryStereoDisparity;
+import boofcv.struct.image.GrayF32;
+import boofcv.struct.image.GrayU8;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Peter Abeles
+ */
+class TestWrapDisparitySgm {
+	Random rand = new Random(234);
+
+	int width = 80, height = 60;
+	int trueD = 7;
+
+	GrayU8 left = new GrayU8(width,height);
+	GrayU8 right = new GrayU8(width,height);
+
+	TestWrapDisparitySgm() {
+		ImageMiscOps.fillUniform(left,rand,0,255);
+		ImageMiscOps.fillUniform(right,rand,0,255);
+		for (int y = 0; y < height; y++) {
+			for (int x = trueD; x < width; x++) {
+				right.set(x-trueD,y,left.get(x,y));
+			}
+		}
+	}
+
+	/**
+	 * Create it using every error type and see if it finds the correct solution
+	 */
+	@Test
+	void allErrorTypes() {
+		for( DisparitySgmError error : DisparitySgmError.values() ) {
+			ConfigureDisparitySGM config = new ConfigureDisparitySGM();
+			config.minDisparity = 0;
+			config.maxDisparity = 20;
+			config.errorType = error;
+			config.subpixel = false;
+
+			StereoDisparity<GrayU8,GrayU8> alg = FactoryStereoDisparity.sgm(config,GrayU8.class,GrayU8.class);
+			alg.process(left,right);
+
+			GrayU8 found = alg.getDisparity();
+			assertEquals(GrayU8.class,alg.getDisparityType());
+			assertEquals(20,alg.getMaxDisparity());
+
+			int correct = 0, total = 0;
+			for (int y = 0; y < height; y++) {
+				for (int x = trueD+3; x < width-3; x++) {
+					total++;
+					if( found.get(x,y) == trueD )
+						correct++;
+				}
+			}
+			assertTrue(correct/(double)total > 0.9, error+" "+correct/(double)total);
+		}
+	}
+
+	@Test
+	void subpixel() {
+		ConfigureDisparitySGM config = new ConfigureDisparitySGM();
+		config.maxDisparity = 20;
+		config.subpixel = true;
+
+		StereoDisparity<GrayU8,GrayF32> alg = FactoryStereoDisparity.sgm(config,GrayU8.class,GrayF32.class);
+		alg.process(left,right);
+
+		assertEquals(GrayF32.class,alg.getDisparityType());
+		assertEquals(trueD,alg.getDisparity().get(40,30),0.5);
+	}
+}
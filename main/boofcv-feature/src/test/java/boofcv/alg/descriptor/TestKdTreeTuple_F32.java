@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.descriptor;
+
+import boofcv.struct.feature.TupleDesc_F32;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author Peter Abeles
+ */
+class TestKdTreeTuple_F32 {
+
+	@Test
+	void distance() {
+		KdTreeTuple_F32 alg = new KdTreeTuple_F32(3);
+
+		TupleDesc_F32 a = create(1,2,3);
+		TupleDesc_F32 b = create(2,4,0);
+
+		assertEquals(1+4+9,alg.distance(a,b),1e-6);
+		assertEquals(0,alg.distance(a,a),1e-6);
+	}
+
+	@Test
+	void valueAt() {
+		KdTreeTuple_F32 alg = new KdTreeTuple_F32(3);
+
+		TupleDesc_F32 a = create(1,2,3);
+		for (int i = 0; i < 3; i++) {
+			assertEquals(i+1,alg.valueAt(a,i),1e-6);
+		}
+	}
+
+	@Test
+	void length() {
+		assertEquals(5,new KdTreeTuple_F32(5).length());
+	}
+
+	private static TupleDesc_F32 create( float ...values ) {
+		TupleDesc_F32 desc = new TupleDesc_F32(values.length);
+		System.arraycopy(values,0,desc.value,0,values.length);
+		return desc;
+	}
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boofcv.alg.descriptor;
+
+import boofcv.struct.feature.TupleDesc_B;
+import org.ddogleg.nn.NearestNeighbor;
+import org.ddogleg.nn.NnData;
+import org.ddogleg.struct.FastQueue;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Peter Abeles
+ */
+public class TestNearestNeighborMultiIndex_B {
+
+	Random rand = new Random(234);
+
+	/**
+	 * If the radius is large enough to enumerate every value then it should be identical to a brute force search
+	 */
+	@Test
+	public void compareToBruteForce_exhaustive() {
+		List<TupleDesc_B> points = createPoints(200,70);
+
+		// 7 tables with 10-bits each, which will all be fully searched
+		NearestNeighborMultiIndex_B alg = new NearestNeighborMultiIndex_B(7,10);
+		alg.setPoints(points,true);
+		NearestNeighbor.Search<TupleDesc_B> search = alg.createSearch();
+
+		NnData<TupleDesc_B> result = new NnData<>();
+		FastQueue<NnData<TupleDesc_B>> results = new FastQueue(NnData.class,true);
+		for (int trial = 0; trial < 30; trial++) {
+			TupleDesc_B query = random(70);
+
+			assertTrue(search.findNearest(query,-1,result));
+			int[] expected = bruteForce(points,query,-1,1);
+			assertEquals(expected[0],result.index);
+			assertSame(points.get(expected[0]),result.point);
+			assertEquals(DescriptorDistance.hamming(query,result.point),result.distance,1e-8);
+
+			search.findNearest(query,-1,3,results);
+			expected = bruteForce(points,query,-1,3);
+			assertEquals(3,results.size);
+			for (int i = 0; i < 3; i++) {
+				assertEquals(expected[i],results.get(i).index);
+			}
+
+			// the max distance should be respected
+			int maxDistance = (int)results.get(1).distance;
+			search.findNearest(query,maxDistance,5,results);
+			expected = bruteForce(points,query,maxDistance,5);
+			assertEquals(expected.length,results.size);
+			for (int i = 0; i < expected.length; i++) {
+				assertEquals(expected[i],results.get(i).index);
+			}
+		}
+	}
+
+	/**
+	 * With a small radius all neighbors inside the guaranteed distance must be found
+	 */
+	@Test
+	public void approximate_nearNeighbors() {
+		int numBits = 256;
+		List<TupleDesc_B> points = createPoints(1000,numBits);
+
+		NearestNeighborMultiIndex_B alg = new NearestNeighborMultiIndex_B(-1,1);
+		alg.setPoints(points,true);
+		NearestNeighbor.Search<TupleDesc_B> search = alg.createSearch();
+
+		// anything within this distance is guaranteed to be found
+		int guaranteed = alg.getNumTables()*2-1;
+		assertTrue(guaranteed > 0);
+
+		NnData<TupleDesc_B> result = new NnData<>();
+		for (int trial = 0; trial < 50; trial++) {
+			TupleDesc_B query = points.get(rand.nextInt(points.size())).copy();
+			int flips = rand.nextInt(guaranteed+1);
+			for (int i = 0; i < flips; i++) {
+				int bit = rand.nextInt(numBits);
+				query.data[bit/32] ^= 1 << (bit%32);
+			}
+
+			int[] expected = bruteForce(points,query,guaranteed,1);
+			assertEquals(1,expected.length);
+			assertTrue(search.findNearest(query,-1,result));
+			assertEquals(expected[0],result.index);
+		}
+	}
+
+	/**
+	 * Ties should select the point with the lowest index
+	 */
+	@Test
+	public void ties() {
+		List<TupleDesc_B> points = createPoints(20,64);
+		points.set(5,points.get(12).copy());
+		points.set(17,points.get(12).copy());
+
+		NearestNeighborMultiIndex_B alg = new NearestNeighborMultiIndex_B(4,1);
+		alg.setPoints(points,true);
+		NearestNeighbor.Search<TupleDesc_B> search = alg.createSearch();
+
+		FastQueue<NnData<TupleDesc_B>> results = new FastQueue(NnData.class,true);
+		search.findNearest(points.get(17),-1,3,results);
+		assertEquals(3,results.size);
+		assertEquals(5,results.get(0).index);
+		assertEquals(12,results.get(1).index);
+		assertEquals(17,results.get(2).index);
+		for (int i = 0; i < 3; i++) {
+			assertEquals(0,results.get(i).distance,1e-8);
+		}
+	}
+
+	/**
+	 * Substrings should cover every bit without overlapping and respect the maximum length
+	 */
+	@Test
+	public void selectSubstrings() {
+		NearestNeighborMultiIndex_B alg = new NearestNeighborMultiIndex_B(-1,1);
+		alg.numBits = 256;
+		for (int N : new int[]{1,10,1000,100000,10000000}) {
+			alg.selectSubstrings(N);
+			int total = 0;
+			for (int i = 0; i < alg.numTables; i++) {
+				assertEquals(total,alg.substringBit0[i]);
+				assertTrue(alg.substringLength[i] <= NearestNeighborMultiIndex_B.MAX_SUBSTRING_BITS);
+				assertTrue(alg.substringLength[i] > 0);
+				total += alg.substringLength[i];
+			}
+			assertEquals(256,total);
+		}
+
+		// too few tables
+		alg = new NearestNeighborMultiIndex_B(2,1);
+		alg.numBits = 256;
+		NearestNeighborMultiIndex_B _alg = alg;
+		assertThrows(IllegalArgumentException.class,()->_alg.selectSubstrings(100));
+	}
+
+	@Test
+	public void substring() {
+		TupleDesc_B desc = random(96);
+		for (int bit0 = 0; bit0 < 80; bit0 += 3) {
+			int length = 1+bit0%16;
+			int found = NearestNeighborMultiIndex_B.substring(desc.data,bit0,length);
+			for (int i = 0; i < length; i++) {
+				assertEquals(desc.isBitTrue(bit0+i),((found >> i) & 1) == 1);
+			}
+			assertEquals(0,found >>> length);
+		}
+	}
+
+	@Test
+	public void noPoints() {
+		NearestNeighborMultiIndex_B alg = new NearestNeighborMultiIndex_B(-1,1);
+		alg.setPoints(new ArrayList<>(),true);
+		NearestNeighbor.Search<TupleDesc_B> search = alg.createSearch();
+		assertFalse(search.findNearest(random(64),-1,new NnData<>()));
+	}
+
+	/**
+	 * Returns the index of the k-closest points sorted by distance then index
+	 */
+	private static int[] bruteForce( List<TupleDesc_B> points , TupleDesc_B query , int maxDistance , int k ) {
+		List<int[]> found = new ArrayList<>();
+		for (int i = 0; i < points.size(); i++) {
+			int d = DescriptorDistance.hamming(points.get(i),query);
+			if( maxDistance < 0 || d <= maxDistance )
+				found.add(new int[]{d,i});
+		}
+		found.sort((a,b)-> a[0] != b[0] ? Integer.compare(a[0],b[0]) : Integer.compare(a[1],b[1]));
+		int[] ret = new int[Math.min(k,found.size())];
+		for (int i = 0; i < ret.length; i++) {
+			ret[i] = found.get(i)[1];
+		}
+		return ret;
+	}
+
+	private List<TupleDesc_B> createPoints( int N , int numBits ) {
+		List<TupleDesc_B> points = new ArrayList<>();
+		for (int i = 0; i < N; i++) {
+			points.add(random(numBits));
+		}
+		return points;
+	}
+
+	private TupleDesc_B random( int numBits ) {
+		TupleDesc_B desc = new TupleDesc_B(numBits);
+		for (int i = 0; i < numBits; i++) {
+			if( rand.nextBoolean() )
+				desc.data[i/32] |= 1 << (i%32);
+		}
+		return desc;
+	}
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.feature.detdesc;
+
+import boofcv.abst.feature.detect.extract.ConfigExtract;
+import boofcv.abst.feature.detect.extract.NonMaxLimiter;
+import boofcv.abst.feature.detect.extract.NonMaxSuppression;
+import boofcv.alg.feature.describe.DescribePointSift;
+import boofcv.alg.feature.detect.interest.SiftScaleSpace;
+import boofcv.alg.feature.orientation.OrientationHistogramSift;
+import boofcv.alg.misc.GImageMiscOps;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.factory.feature.detect.extract.FactoryFeatureExtractor;
+import boofcv.struct.feature.BrightFeature;
+import boofcv.struct.feature.ScalePoint;
+import boofcv.struct.image.GrayF32;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Peter Abeles
+ */
+class TestCompleteSift_MT {
+
+	Random rand = new Random(234);
+
+	/**
+	 * Given the same local extremes the output should be identical to the single threaded version
+	 */
+	@Test
+	void compareToSingle() {
+		GrayF32 image = new GrayF32(300,290);
+		GImageMiscOps.fillUniform(image,rand,0,200);
+
+		CompleteSift single = new CompleteSift(new SiftScaleSpace(-1,4,3,1.6),10,createLimiter(),
+				new OrientationHistogramSift<>(36,1.5,GrayF32.class),
+				new DescribePointSift<>(4,4,8,1.5,0.5,0.2,GrayF32.class));
+		CompleteSift concurrent = new CompleteSift_MT(new SiftScaleSpace(-1,4,3,1.6),10,createLimiter(),
+				new OrientationHistogramSift<>(36,1.5,GrayF32.class),
+				new DescribePointSift<>(4,4,8,1.5,0.5,0.2,GrayF32.class));
+
+		// process twice to make sure the work space is reset correctly
+		for (int trial = 0; trial < 2; trial++) {
+			single.process(image);
+			concurrent.process(image);
+
+			assertTrue(single.getLocations().size > 10);
+			assertEquals(single.getLocations().size, concurrent.getLocations().size);
+			assertEquals(single.getDetections().size, concurrent.getDetections().size);
+
+			for (int i = 0; i < single.getLocations().size; i++) {
+				ScalePoint a = single.getLocations().get(i);
+				ScalePoint b = concurrent.getLocations().get(i);
+				assertEquals(a.x, b.x, 0.0);
+				assertEquals(a.y, b.y, 0.0);
+				assertEquals(a.scale, b.scale, 0.0);
+				assertEquals(a.white, b.white);
+
+				assertEquals(single.getOrientations().get(i), concurrent.getOrientations().get(i), 0.0);
+
+				BrightFeature descA = single.getDescriptions().get(i);
+				BrightFeature descB = concurrent.getDescriptions().get(i);
+				assertEquals(descA.white, descB.white);
+				for (int j = 0; j < descA.size(); j++) {
+					assertEquals(descA.value[j], descB.value[j], 0.0);
+				}
+			}
+		}
+	}
+
+	/**
+	 * The order of the local extremes found by the concurrent non-maximum suppression can change, so
+	 * the single threaded version is used by both.
+	 */
+	private NonMaxLimiter createLimiter() {
+		boolean original = BoofConcurrency.USE_CONCURRENT;
+		BoofConcurrency.USE_CONCURRENT = false;
+		NonMaxSuppression nonmax = FactoryFeatureExtractor.nonmax(new ConfigExtract(1,0,1,true,true,true));
+		BoofConcurrency.USE_CONCURRENT = original;
+		return new NonMaxLimiter(nonmax,300);
+	}
+}
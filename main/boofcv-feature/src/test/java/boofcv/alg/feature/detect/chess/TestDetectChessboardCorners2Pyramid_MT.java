@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.feature.detect.chess;
+
+import boofcv.struct.image.GrayF32;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares the concurrent implementation against the single thread version
+ *
+ * @author Peter Abeles
+ */
+class TestDetectChessboardCorners2Pyramid_MT {
+
+	Random rand = new Random(234);
+
+	@Test
+	void comparePyramid() {
+		DetectChessboardCorners2Pyramid<GrayF32> single = new DetectChessboardCorners2Pyramid<>(GrayF32.class);
+		DetectChessboardCorners2Pyramid_MT<GrayF32> multi = new DetectChessboardCorners2Pyramid_MT<>(GrayF32.class);
+		single.setPyramidTopSize(50);
+		multi.setPyramidTopSize(50);
+
+		// settings should be passed on to the detectors in each level
+		single.getDetector().setNonmaxRadius(2);
+		multi.getDetector().setNonmaxRadius(2);
+
+		for (int trial = 0; trial < 3; trial++) {
+			GrayF32 image = TestDetectChessboardCorners2_MT.renderChessboard(rand,trial*0.3);
+
+			single.process(image);
+			multi.process(image);
+
+			assertTrue(single.getNumberOfLevels() > 1);
+			assertEquals(single.getNumberOfLevels(),multi.getNumberOfLevels());
+			assertTrue(single.getCorners().size > 0);
+			TestDetectChessboardCorners2_MT.compare(single.getCorners().toList(),multi.getCorners().toList());
+		}
+	}
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.feature.detect.chess;
+
+import boofcv.abst.distort.FDistort;
+import boofcv.alg.misc.ImageMiscOps;
+import boofcv.struct.image.GrayF32;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares the concurrent implementation against the single thread version
+ *
+ * @author Peter Abeles
+ */
+class TestDetectChessboardCorners2_MT {
+
+	Random rand = new Random(234);
+
+	@Test
+	void compareToSingle() {
+		DetectChessboardCorners2<GrayF32> single = new DetectChessboardCorners2<>(GrayF32.class);
+		DetectChessboardCorners2_MT<GrayF32> multi = new DetectChessboardCorners2_MT<>(GrayF32.class);
+
+		for (int trial = 0; trial < 3; trial++) {
+			GrayF32 image = renderChessboard(rand,trial*0.3);
+
+			single.process(image);
+			multi.process(image);
+
+			assertTrue(single.getCorners().size() > 0);
+			compare(single.getCorners(),multi.getCorners());
+		}
+	}
+
+	/**
+	 * Settings which change how each corner is processed should be used by every thread
+	 */
+	@Test
+	void compareToSingle_settings() {
+		DetectChessboardCorners2<GrayF32> single = new DetectChessboardCorners2<>(GrayF32.class);
+		DetectChessboardCorners2_MT<GrayF32> multi = new DetectChessboardCorners2_MT<>(GrayF32.class);
+		single.useMeanShift = false;
+		multi.useMeanShift = false;
+		single.setNonmaxRadius(2);
+		multi.setNonmaxRadius(2);
+
+		GrayF32 image = renderChessboard(rand,0.4);
+
+		single.process(image);
+		multi.process(image);
+
+		assertTrue(single.getCorners().size() > 0);
+		compare(single.getCorners(),multi.getCorners());
+	}
+
+	/**
+	 * Renders a rotated chessboard with noise
+	 */
+	static GrayF32 renderChessboard( Random rand , double angle ) {
+		int w = 40;
+		GrayF32 original = new GrayF32(500,450);
+		ImageMiscOps.fill(original,200);
+		for (int row = 0; row < 7; row++) {
+			for (int col = 0; col < 8; col++) {
+				if( (row+col)%2 == 0 )
+					ImageMiscOps.fillRectangle(original,20,80+col*w,60+row*w,w,w);
+			}
+		}
+
+		GrayF32 rotated = original.createSameShape();
+		new FDistort(original,rotated).rotate(angle).apply();
+		ImageMiscOps.addGaussian(rotated,rand,2.0,0,255);
+		return rotated;
+	}
+
+	static void compare( List<ChessboardCorner> expected , List<ChessboardCorner> found ) {
+		assertEquals(expected.size(),found.size());
+		for (int i = 0; i < expected.size(); i++) {
+			ChessboardCorner a = expected.get(i);
+			ChessboardCorner b = found.get(i);
+			assertEquals(a.x,b.x);
+			assertEquals(a.y,b.y);
+			assertEquals(a.orientation,b.orientation);
+			assertEquals(a.intensity,b.intensity);
+			assertEquals(a.edgeIntensity,b.edgeIntensity);
+			assertEquals(a.constrast,b.constrast);
+			assertEquals(a.first,b.first);
+			assertEquals(a.levelMax,b.levelMax);
+			assertEquals(a.level1,b.level1);
+			assertEquals(a.level2,b.level2);
+		}
+	}
+}
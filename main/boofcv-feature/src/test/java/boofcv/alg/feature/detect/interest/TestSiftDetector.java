@@ -106,7 +106,7 @@ public class TestSiftDetector {
 		alg.pixelScaleToInput = 2.0;
 		alg.sigmaLower = 4; alg.sigmaTarget = 5; alg.sigmaUpper = 6;
 		alg.dogLower = lower; alg.dogTarget = current; alg.dogUpper = upper;
-		alg.derivXX.setImage(current); alg.derivXY.setImage(current); alg.derivYY.setImage(current);
+		alg.hessian.setImage(current);
 
 		for( float sign :  new float[]{-1,1} ) {
 			alg.detections.reset();
@@ -134,7 +134,7 @@ public class TestSiftDetector {
 		alg.pixelScaleToInput = 2.0;
 		alg.sigmaLower = 4; alg.sigmaTarget = 5; alg.sigmaUpper = 6;
 		alg.dogLower = lower; alg.dogTarget = current; alg.dogUpper = upper;
-		alg.derivXX.setImage(current); alg.derivXY.setImage(current); alg.derivYY.setImage(current);
+		alg.hessian.setImage(current);
 
 		int x = 15,y = 16;
 		for( float sign :  new float[]{-1,1} ) {
@@ -180,9 +180,7 @@ public class TestSiftDetector {
 
 		SiftDetector alg = createDetector();
 
-		alg.derivXX.setImage(input);
-		alg.derivXY.setImage(input);
-		alg.derivYY.setImage(input);
+		alg.hessian.setImage(input);
 
 		assertTrue(alg.isEdge(50,50));
 
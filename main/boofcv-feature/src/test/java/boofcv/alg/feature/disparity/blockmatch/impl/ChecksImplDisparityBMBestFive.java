@@ -181,14 +181,19 @@ public abstract class ChecksImplDisparityBMBestFive<I extends ImageGray<I>, DI e
 		BoofConcurrency.USE_CONCURRENT = false;
 		DisparityBlockMatchBestFive<I, DI> alg = createAlg(minDisparity,maxDisparity,radiusX,radiusY,scoreRow,compDisp);
 		alg.process(left,right,expected);
-		BoofConcurrency.USE_CONCURRENT = true;
-		alg = createAlg(minDisparity,maxDisparity,radiusX,radiusY,scoreRow,compDisp);
-		alg.process(left,right,found);
-
-//		((GrayU8)expected).print();
-//		System.out.println();
-//		((GrayU8)found).print();
 
-		BoofTesting.assertEquals(found, expected, 1);
+		// the result must be identical no matter how the rows are split between threads
+		int defaultThreads = BoofConcurrency.getMaxThreads();
+		try {
+			for( int threads : new int[]{2,3,7} ) {
+				BoofConcurrency.setMaxThreads(threads);
+				alg = createAlg(minDisparity,maxDisparity,radiusX,radiusY,scoreRow,compDisp);
+				alg.process(left,right,found);
+
+				BoofTesting.assertEquals(found, expected, 0);
+			}
+		} finally {
+			BoofConcurrency.setMaxThreads(defaultThreads);
+		}
 	}
 }
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.feature.disparity.sgm;
+
+import boofcv.alg.misc.ImageMiscOps;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.struct.image.GrayU16;
+import boofcv.struct.image.GrayU8;
+import boofcv.struct.image.Planar;
+import boofcv.testing.BoofTesting;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author Peter Abeles
+ */
+class TestSgmCostAbsoluteDifference {
+	Random rand = new Random(234);
+
+	int width = 30, height = 20;
+	int minD = 3, rangeD = 10;
+
+	/**
+	 * Compute the cost at every pixel by hand and compare
+	 */
+	@Test
+	void compareToManual() {
+		BoofConcurrency.USE_CONCURRENT = false;
+		GrayU8 left = new GrayU8(width,height);
+		GrayU8 right = new GrayU8(width,height);
+		ImageMiscOps.fillUniform(left,rand,0,256);
+		ImageMiscOps.fillUniform(right,rand,0,256);
+
+		SgmCostAbsoluteDifference.U8 alg = new SgmCostAbsoluteDifference.U8();
+		alg.configure(minD,rangeD);
+
+		Planar<GrayU16> cost = new Planar<>(GrayU16.class,1,1,1);
+		alg.process(left,right,cost);
+
+		assertEquals(rangeD,cost.width);
+		assertEquals(width,cost.height);
+		assertEquals(height,cost.getNumBands());
+
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				for (int d = 0; d < rangeD; d++) {
+					int xr = x - minD - d;
+					int expected;
+					if( xr < 0 )
+						expected = SgmDisparityCost.MAX_COST;
+					else
+						expected = SgmDisparityCost.MAX_COST*Math.abs(left.get(x,y)-right.get(xr,y))/255;
+					assertEquals(expected,cost.getBand(y).get(d,x));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Sub-images are used when processing bands. Make sure they are handled correctly
+	 */
+	@Test
+	void subimage() {
+		BoofConcurrency.USE_CONCURRENT = false;
+		GrayU8 left = new GrayU8(width,height);
+		GrayU8 right = new GrayU8(width,height);
+		ImageMiscOps.fillUniform(left,rand,0,256);
+		ImageMiscOps.fillUniform(right,rand,0,256);
+
+		SgmCostAbsoluteDifference.U8 alg = new SgmCostAbsoluteDifference.U8();
+		alg.configure(minD,rangeD);
+
+		Planar<GrayU16> expected = new Planar<>(GrayU16.class,1,1,1);
+		Planar<GrayU16> found = new Planar<>(GrayU16.class,1,1,1);
+		alg.process(left,right,expected);
+		alg.process(BoofTesting.createSubImageOf(left),BoofTesting.createSubImageOf(right),found);
+
+		BoofTesting.assertEquals(expected,found,0);
+
+		// concurrent should produce the same results
+		BoofConcurrency.USE_CONCURRENT = true;
+		alg.process(left,right,found);
+		BoofTesting.assertEquals(expected,found,0);
+	}
+}
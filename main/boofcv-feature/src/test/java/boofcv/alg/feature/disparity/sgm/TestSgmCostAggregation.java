@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.feature.disparity.sgm;
+
+import boofcv.alg.misc.GImageMiscOps;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.struct.image.GrayU16;
+import boofcv.struct.image.Planar;
+import boofcv.testing.BoofTesting;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author Peter Abeles
+ */
+class TestSgmCostAggregation {
+
+	Random rand = new Random(234);
+
+	int width = 20, height = 15, rangeD = 10;
+
+	/**
+	 * Compare a single path against a brute force implementation of the recursive equation
+	 */
+	@Test
+	void singlePath_compareToNaive() {
+		BoofConcurrency.USE_CONCURRENT = false;
+		Planar<GrayU16> cost = createCost();
+
+		SgmCostAggregation alg = new SgmCostAggregation();
+		alg.configure(1,20,150);
+		alg.process(cost);
+
+		Planar<GrayU16> aggregated = alg.getAggregated();
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				for (int d = 0; d < rangeD; d++) {
+					int expected = naivePathCost(cost,x,y,d,20,150);
+					assertEquals(expected, aggregated.getBand(y).get(d,x));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Definition of the cost along the path going in the positive x direction. Recomputes the path
+	 * from the start every time.
+	 */
+	private int naivePathCost( Planar<GrayU16> cost , int x , int y , int d , int penalty1 , int penalty2 ) {
+		int[] prev = new int[rangeD];
+		for (int i = 0; i < rangeD; i++) {
+			prev[i] = cost.getBand(y).get(i,0);
+		}
+		for (int col = 1; col <= x; col++) {
+			int minPrev = Integer.MAX_VALUE;
+			for (int i = 0; i < rangeD; i++) {
+				minPrev = Math.min(minPrev,prev[i]);
+			}
+			int[] curr = new int[rangeD];
+			for (int i = 0; i < rangeD; i++) {
+				int best = Math.min(prev[i],minPrev+penalty2);
+				if( i > 0 )
+					best = Math.min(best,prev[i-1]+penalty1);
+				if( i < rangeD-1 )
+					best = Math.min(best,prev[i+1]+penalty1);
+				curr[i] = cost.getBand(y).get(i,col) + best - minPrev;
+			}
+			prev = curr;
+		}
+		return prev[d];
+	}
+
+	/**
+	 * Every pixel should be visited exactly once for each direction
+	 */
+	@Test
+	void selectPathStarts_allPixelsOnce() {
+		SgmCostAggregation alg = new SgmCostAggregation();
+		alg.lengthX = width;
+		alg.lengthY = height;
+
+		for (int[] dir : SgmCostAggregation.DIRECTIONS) {
+			int dx = dir[0], dy = dir[1];
+			alg.selectPathStarts(dx,dy);
+			int[] visits = new int[width*height];
+			for (int i = 0; i < alg.starts.size; i++) {
+				int x = alg.starts.get(i)%width;
+				int y = alg.starts.get(i)/width;
+				while( x >= 0 && x < width && y >= 0 && y < height ) {
+					visits[y*width+x]++;
+					x += dx; y += dy;
+				}
+			}
+			for (int i = 0; i < visits.length; i++) {
+				assertEquals(1,visits[i]);
+			}
+		}
+	}
+
+	/**
+	 * The concurrent and single threaded versions should produce identical results
+	 */
+	@Test
+	void compareConcurrent() {
+		Planar<GrayU16> cost = createCost();
+
+		for( int paths : new int[]{1,2,4,8,16}) {
+			SgmCostAggregation alg = new SgmCostAggregation();
+			alg.configure(paths,100,1000);
+
+			BoofConcurrency.USE_CONCURRENT = false;
+			alg.process(cost);
+			Planar<GrayU16> expected = alg.getAggregated().clone();
+
+			BoofConcurrency.USE_CONCURRENT = true;
+			alg.process(cost);
+
+			BoofTesting.assertEquals(expected,alg.getAggregated(),0);
+		}
+	}
+
+	private Planar<GrayU16> createCost() {
+		Planar<GrayU16> cost = new Planar<>(GrayU16.class,rangeD,width,height);
+		GImageMiscOps.fillUniform(cost,rand,0,SgmDisparityCost.MAX_COST);
+		return cost;
+	}
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.feature.disparity.sgm;
+
+import boofcv.alg.descriptor.DescriptorDistance;
+import boofcv.alg.misc.ImageMiscOps;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.struct.image.GrayS32;
+import boofcv.struct.image.GrayU16;
+import boofcv.struct.image.Planar;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author Peter Abeles
+ */
+class TestSgmCostHamming {
+	Random rand = new Random(234);
+
+	int width = 30, height = 20;
+	int minD = 0, rangeD = 10;
+
+	@Test
+	void compareToManual_S32() {
+		BoofConcurrency.USE_CONCURRENT = false;
+		GrayS32 left = new GrayS32(width,height);
+		GrayS32 right = new GrayS32(width,height);
+		ImageMiscOps.fillUniform(left,rand,0,1 << 24);
+		ImageMiscOps.fillUniform(right,rand,0,1 << 24);
+
+		SgmCostHamming.S32 alg = new SgmCostHamming.S32(24);
+		alg.configure(minD,rangeD);
+
+		Planar<GrayU16> cost = new Planar<>(GrayU16.class,1,1,1);
+		alg.process(left,right,cost);
+
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				for (int d = 0; d < rangeD; d++) {
+					int xr = x - minD - d;
+					int expected;
+					if( xr < 0 )
+						expected = SgmDisparityCost.MAX_COST;
+					else
+						expected = SgmDisparityCost.MAX_COST*DescriptorDistance.hamming(left.get(x,y)^right.get(xr,y))/24;
+					assertEquals(expected,cost.getBand(y).get(d,x));
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.feature.disparity.sgm;
+
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.struct.image.GrayF32;
+import boofcv.struct.image.GrayU16;
+import boofcv.struct.image.GrayU8;
+import boofcv.struct.image.Planar;
+import boofcv.testing.BoofTesting;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Peter Abeles
+ */
+class TestSgmDisparitySelector {
+
+	int width = 30, height = 8, rangeD = 10;
+
+	/**
+	 * Every pixel has the same true disparity. See if it's found
+	 */
+	@Test
+	void constantDisparity() {
+		BoofConcurrency.USE_CONCURRENT = false;
+		int minD = 2, trueD = 4;
+		Planar<GrayU16> aggregated = createConstant(minD, trueD);
+
+		SgmDisparitySelector alg = new SgmDisparitySelector();
+		alg.configure(minD,rangeD);
+		alg.setTextureThreshold(0);
+
+		GrayU8 disparity = new GrayU8(width,height);
+		alg.select(aggregated,disparity,null);
+
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				int found = disparity.get(x,y);
+				if( x < minD )
+					assertEquals(alg.getInvalidDisparity(),found);
+				else if( x < minD+trueD )
+					// can't be matched to the correct pixel
+					assertTrue(found == alg.getInvalidDisparity() || found <= x-minD);
+				else
+					assertEquals(trueD,disparity.get(x,y));
+			}
+		}
+	}
+
+	/**
+	 * See if the right to left check will invalidate a pixel
+	 */
+	@Test
+	void rightToLeft() {
+		BoofConcurrency.USE_CONCURRENT = false;
+		int minD = 0, trueD = 4;
+		Planar<GrayU16> aggregated = createConstant(minD, trueD);
+
+		// Make (x=15,d=2) the best for (x=15) but from the right image pixel 13 it's worse than
+		// (x=18,d=5)
+		aggregated.getBand(3).set(2,15,90);
+		aggregated.getBand(3).set(5,18,1);
+
+		SgmDisparitySelector alg = new SgmDisparitySelector();
+		alg.configure(minD,rangeD);
+		alg.setTextureThreshold(0);
+		alg.setRightToLeftTolerance(0);
+
+		GrayU8 disparity = new GrayU8(width,height);
+		alg.select(aggregated,disparity,null);
+		assertEquals(trueD,disparity.get(16,3));
+		assertEquals(5,disparity.get(18,3));
+		assertEquals(alg.getInvalidDisparity(),disparity.get(15,3));
+
+		// turn off the check and it should be selected
+		alg.setRightToLeftTolerance(-1);
+		alg.select(aggregated,disparity,null);
+		assertEquals(2,disparity.get(15,3));
+	}
+
+	/**
+	 * Sub-pixel should be pulled towards the side with the lower cost
+	 */
+	@Test
+	void subpixel() {
+		BoofConcurrency.USE_CONCURRENT = false;
+		int minD = 0, trueD = 4;
+		Planar<GrayU16> aggregated = createConstant(minD, trueD);
+		aggregated.getBand(2).set(trueD+1,20,120);
+
+		SgmDisparitySelector alg = new SgmDisparitySelector();
+		alg.configure(minD,rangeD);
+		alg.setTextureThreshold(0);
+		alg.setRightToLeftTolerance(-1);
+
+		GrayU8 disparity = new GrayU8(width,height);
+		GrayF32 subpixel = new GrayF32(width,height);
+		alg.select(aggregated,disparity,subpixel);
+
+		assertEquals(trueD,subpixel.get(21,2), 1e-4f);
+		assertTrue(subpixel.get(20,2) > trueD && subpixel.get(20,2) < trueD+0.5f);
+	}
+
+	@Test
+	void compareConcurrent() {
+		Planar<GrayU16> aggregated = createConstant(1, 3);
+		// add some noise so that some pixels are rejected
+		aggregated.getBand(2).set(2,20,1);
+		aggregated.getBand(5).set(5,12,1);
+
+		SgmDisparitySelector alg = new SgmDisparitySelector();
+		alg.configure(1,rangeD);
+
+		GrayU8 expected = new GrayU8(width,height);
+		GrayU8 found = new GrayU8(width,height);
+
+		BoofConcurrency.USE_CONCURRENT = false;
+		alg.select(aggregated,expected,null);
+		BoofConcurrency.USE_CONCURRENT = true;
+		alg.select(aggregated,found,null);
+
+		BoofTesting.assertEquals(expected,found,0);
+	}
+
+	private Planar<GrayU16> createConstant(int minD, int trueD) {
+		Planar<GrayU16> aggregated = new Planar<>(GrayU16.class,rangeD,width,height);
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				for (int d = 0; d < rangeD; d++) {
+					aggregated.getBand(y).set(d,x,100+Math.abs(d-trueD)*50);
+				}
+			}
+		}
+		return aggregated;
+	}
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.feature.disparity.sgm;
+
+import boofcv.alg.misc.ImageMiscOps;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.struct.image.GrayU8;
+import boofcv.testing.BoofTesting;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Peter Abeles
+ */
+class TestSgmStereoDisparity {
+
+	Random rand = new Random(234);
+
+	int width = 80, height = 60;
+	int minD = 2, rangeD = 20, trueD = 9;
+
+	GrayU8 left = new GrayU8(width,height);
+	GrayU8 right = new GrayU8(width,height);
+
+	TestSgmStereoDisparity() {
+		// the right image is the left image shifted by the true disparity
+		ImageMiscOps.fillUniform(left,rand,0,255);
+		ImageMiscOps.fillUniform(right,rand,0,255);
+		for (int y = 0; y < height; y++) {
+			for (int x = trueD; x < width; x++) {
+				right.set(x-trueD,y,left.get(x,y));
+			}
+		}
+	}
+
+	/**
+	 * The disparity is constant so it should be found almost everywhere
+	 */
+	@Test
+	void constantDisparity() {
+		BoofConcurrency.USE_CONCURRENT = false;
+		SgmStereoDisparity<GrayU8> alg = createAlg();
+		alg.process(left,right);
+
+		assertTrue(fractionCorrect(alg.getDisparity()) > 0.95);
+	}
+
+	/**
+	 * Processing in bands should still find the correct disparity
+	 */
+	@Test
+	void bands() {
+		BoofConcurrency.USE_CONCURRENT = false;
+		SgmStereoDisparity<GrayU8> alg = createAlg();
+		alg.setBands(13,5);
+		alg.process(left,right);
+
+		assertTrue(fractionCorrect(alg.getDisparity()) > 0.95);
+
+		// if the overlap is large enough that every band is the entire image it should be identical
+		SgmStereoDisparity<GrayU8> full = createAlg();
+		full.process(left,right);
+		alg.setBands(20,height);
+		alg.process(left,right);
+		BoofTesting.assertEquals(full.getDisparity(),alg.getDisparity(),0);
+	}
+
+	@Test
+	void subpixel() {
+		BoofConcurrency.USE_CONCURRENT = false;
+		SgmStereoDisparity<GrayU8> alg = createAlg();
+		alg.setSubpixel(true);
+		alg.process(left,right);
+
+		// Should be the same as the integer disparity within 0.5 pixels
+		BoofTesting.assertEquals(alg.getDisparity(),alg.getDisparitySubpixel(),0.5);
+	}
+
+	@Test
+	void compareConcurrent() {
+		SgmStereoDisparity<GrayU8> alg = createAlg();
+		alg.setBands(17,5);
+
+		BoofConcurrency.USE_CONCURRENT = false;
+		alg.process(left,right);
+		GrayU8 expected = alg.getDisparity().clone();
+
+		BoofConcurrency.USE_CONCURRENT = true;
+		alg.process(left,right);
+
+		BoofTesting.assertEquals(expected,alg.getDisparity(),0);
+	}
+
+	private SgmStereoDisparity<GrayU8> createAlg() {
+		SgmStereoDisparity<GrayU8> alg = new SgmStereoDisparity<>(
+				new SgmCostAbsoluteDifference.U8(),new SgmDisparitySelector());
+		alg.getAggregation().configure(8,200,2000);
+		alg.configure(minD,rangeD);
+		return alg;
+	}
+
+	private double fractionCorrect( GrayU8 disparity ) {
+		int total = 0, correct = 0;
+		for (int y = 0; y < height; y++) {
+			for (int x = trueD; x < width; x++) {
+				total++;
+				if( disparity.get(x,y) == trueD-minD )
+					correct++;
+			}
+		}
+		return correct/(double)total;
+	}
+}
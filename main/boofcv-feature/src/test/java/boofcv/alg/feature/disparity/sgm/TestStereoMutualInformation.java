@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.feature.disparity.sgm;
+
+import boofcv.alg.misc.ImageMiscOps;
+import boofcv.struct.image.GrayU8;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Peter Abeles
+ */
+class TestStereoMutualInformation {
+	Random rand = new Random(234);
+
+	/**
+	 * Two identical images with zero disparity. Matching intensities should have the lowest cost
+	 */
+	@Test
+	void identicalImages() {
+		GrayU8 left = new GrayU8(60,50);
+		ImageMiscOps.fillUniform(left,rand,0,256);
+		GrayU8 right = left.clone();
+		GrayU8 disparity = new GrayU8(60,50);
+
+		StereoMutualInformation alg = new StereoMutualInformation();
+		alg.configureHistogram(255,32);
+		alg.process(left,right,0,disparity,255);
+
+		checkDiagonalIsBest(alg);
+	}
+
+	/**
+	 * The right image is the inverse of the left. MI should handle that
+	 */
+	@Test
+	void inverseIntensity() {
+		GrayU8 left = new GrayU8(60,50);
+		ImageMiscOps.fillUniform(left,rand,0,256);
+		GrayU8 right = left.createSameShape();
+		for (int i = 0; i < left.data.length; i++) {
+			right.data[i] = (byte)(255-(left.data[i]&0xFF));
+		}
+		GrayU8 disparity = new GrayU8(60,50);
+
+		StereoMutualInformation alg = new StereoMutualInformation();
+		alg.configureHistogram(255,32);
+		alg.process(left,right,0,disparity,255);
+
+		for (int i = 0; i < 256; i += 8) {
+			int best = alg.costScaled(i,255-i);
+			for (int j = 0; j < 256; j += 8) {
+				if( Math.abs((255-j)-i) > 32 )
+					assertTrue(best < alg.costScaled(i,j));
+			}
+		}
+	}
+
+	@Test
+	void diagonalHistogram() {
+		StereoMutualInformation alg = new StereoMutualInformation();
+		alg.configureHistogram(255,32);
+		alg.diagonalHistogram();
+		checkDiagonalIsBest(alg);
+	}
+
+	private void checkDiagonalIsBest( StereoMutualInformation alg ) {
+		for (int i = 0; i < 256; i += 8) {
+			int best = alg.costScaled(i,i);
+			for (int j = 0; j < 256; j += 8) {
+				if( Math.abs(j-i) > 32 )
+					assertTrue(best < alg.costScaled(i,j));
+			}
+			assertTrue(best >= 0 && best <= SgmDisparityCost.MAX_COST);
+		}
+		assertEquals(32,alg.getIntensityBins());
+	}
+}
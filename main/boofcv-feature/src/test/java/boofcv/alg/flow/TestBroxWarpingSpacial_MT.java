@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.flow;
+
+import boofcv.alg.interpolate.InterpolatePixelS;
+import boofcv.alg.misc.ImageMiscOps;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.concurrency.ConcurrencyScope;
+import boofcv.factory.interpolate.FactoryInterpolation;
+import boofcv.struct.border.BorderType;
+import boofcv.struct.image.GrayF32;
+import boofcv.struct.pyramid.PyramidFloat;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author Peter Abeles
+ */
+public class TestBroxWarpingSpacial_MT {
+
+	int width = 30;
+	int height = 40;
+
+	PyramidFloat<GrayF32> pyr1 = UtilDenseOpticalFlow.standardPyramid(width,height,0.7,0,5,12,GrayF32.class);
+	PyramidFloat<GrayF32> pyr2 = UtilDenseOpticalFlow.standardPyramid(width,height,0.7,0,5,12,GrayF32.class);
+
+	public TestBroxWarpingSpacial_MT() {
+		GrayF32 original1 = new GrayF32(width,height);
+		GrayF32 original2 = new GrayF32(width,height);
+
+		ImageMiscOps.fillRectangle(original1,40,10,0,10,height);
+		ImageMiscOps.fillRectangle(original2,40,15,0,10,height);
+
+		pyr1.process(original1);
+		pyr2.process(original2);
+	}
+
+	/**
+	 * The pixels are visited in a different order so the results will be slightly different from the
+	 * single threaded version, but it should converge to about the same solution inside the moving rectangle
+	 */
+	@Test
+	public void compareToSingle() {
+		BroxWarpingSpacial<GrayF32> single = new BroxWarpingSpacial<>(new ConfigBroxWarping(),createInterpolate());
+		BroxWarpingSpacial<GrayF32> concurrent = new BroxWarpingSpacial_MT<>(new ConfigBroxWarping(),createInterpolate());
+
+		single.process(pyr1,pyr2);
+		concurrent.process(pyr1,pyr2);
+
+		for( int y = 0; y < height; y++ ) {
+			for( int x = 10; x < 20; x++ ) {
+				assertEquals(single.getFlowX().get(x,y),concurrent.getFlowX().get(x,y),0.1f);
+				assertEquals(single.getFlowY().get(x,y),concurrent.getFlowY().get(x,y),0.1f);
+			}
+		}
+	}
+
+	/**
+	 * The results should not depend on the number of threads
+	 */
+	@Test
+	public void independentOfThreads() {
+		BroxWarpingSpacial<GrayF32> expected = new BroxWarpingSpacial_MT<>(new ConfigBroxWarping(),createInterpolate());
+		BroxWarpingSpacial<GrayF32> found = new BroxWarpingSpacial_MT<>(new ConfigBroxWarping(),createInterpolate());
+
+		try( ConcurrencyScope ignored = BoofConcurrency.openScope(1) ) {
+			expected.process(pyr1,pyr2);
+		}
+		found.process(pyr1,pyr2);
+
+		for( int y = 0; y < height; y++ ) {
+			for( int x = 0; x < width; x++ ) {
+				assertEquals(expected.getFlowX().get(x,y),found.getFlowX().get(x,y),0.0f);
+				assertEquals(expected.getFlowY().get(x,y),found.getFlowY().get(x,y),0.0f);
+			}
+		}
+	}
+
+	private InterpolatePixelS<GrayF32> createInterpolate() {
+		return FactoryInterpolation.bilinearPixelS(GrayF32.class, BorderType.EXTENDED);
+	}
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.flow;
+
+import boofcv.alg.misc.GImageMiscOps;
+import boofcv.factory.transform.pyramid.FactoryPyramid;
+import boofcv.struct.flow.ImageFlow;
+import boofcv.struct.image.GrayU8;
+import boofcv.struct.image.ImageType;
+import boofcv.struct.pyramid.ImagePyramid;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Peter Abeles
+ */
+public class TestDenseOpticalFlowBlockPyramid_MT extends ChecksDenseOpticalFlowBlockPyramid<GrayU8> {
+
+	public TestDenseOpticalFlowBlockPyramid_MT() {
+		super(GrayU8.class);
+	}
+
+	@Override
+	public DenseOpticalFlowBlockPyramid<GrayU8> createAlg(int searchRadius, int regionRadius, int maxPerPixelError) {
+		return new DenseOpticalFlowBlockPyramid_MT<>(
+				new DenseOpticalFlowBlockPyramid.U8(searchRadius,regionRadius,maxPerPixelError));
+	}
+
+	/**
+	 * Results should be identical to the single threaded version. The error is limited so that some of the
+	 * flow is invalid and there are ties in the score.
+	 */
+	@Test
+	public void compareToSingle() {
+		GrayU8 image1 = new GrayU8(70,60);
+		GrayU8 image2 = new GrayU8(70,60);
+		GImageMiscOps.fillUniform(image1,rand,0,200);
+		GImageMiscOps.fillUniform(image2,rand,0,4);
+		GImageMiscOps.fillRectangle(image2,100,20,20,15,10);
+		GImageMiscOps.addUniform(image2,rand,0,2);
+		image2.subimage(0,0,35,59).setTo(image1.subimage(2,1,37,60));
+
+		ImagePyramid<GrayU8> pyramid1 = FactoryPyramid.discreteGaussian(
+				new int[]{1,2,4},0,2,false, ImageType.single(GrayU8.class));
+		ImagePyramid<GrayU8> pyramid2 = FactoryPyramid.discreteGaussian(
+				new int[]{1,2,4},0,2,false, ImageType.single(GrayU8.class));
+		pyramid1.process(image1);
+		pyramid2.process(image2);
+
+		DenseOpticalFlowBlockPyramid<GrayU8> single = new DenseOpticalFlowBlockPyramid.U8(3,2,8);
+		DenseOpticalFlowBlockPyramid<GrayU8> concurrent = createAlg(3,2,8);
+
+		// process it twice so that the flow from the previous call is left in the work space
+		for( int trial = 0; trial < 2; trial++ ) {
+			single.process(pyramid1,pyramid2);
+			concurrent.process(pyramid1,pyramid2);
+
+			ImageFlow expected = single.getOpticalFlow();
+			ImageFlow found = concurrent.getOpticalFlow();
+
+			int totalInvalid = 0;
+			for( int i = 0; i < expected.data.length; i++ ) {
+				assertEquals(expected.data[i].isValid(), found.data[i].isValid());
+				if( !expected.data[i].isValid() ) {
+					totalInvalid++;
+					continue;
+				}
+				assertEquals(expected.data[i].x, found.data[i].x, 0.0f);
+				assertEquals(expected.data[i].y, found.data[i].y, 0.0f);
+			}
+			assertTrue(totalInvalid > 0 && totalInvalid < expected.data.length/2);
+		}
+	}
+}
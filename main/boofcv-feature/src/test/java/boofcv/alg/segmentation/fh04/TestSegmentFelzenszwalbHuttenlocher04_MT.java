@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.segmentation.fh04;
+
+import boofcv.alg.misc.GImageMiscOps;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.factory.segmentation.ConfigFh04;
+import boofcv.factory.segmentation.FactorySegmentationAlg;
+import boofcv.struct.ConnectRule;
+import boofcv.struct.image.*;
+import boofcv.testing.BoofTesting;
+import org.ddogleg.struct.GrowQueue_I32;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Peter Abeles
+ */
+public class TestSegmentFelzenszwalbHuttenlocher04_MT {
+
+	Random rand = new Random(234);
+
+	@Test
+	public void compare_U8() {
+		for( ConnectRule rule : new ConnectRule[]{ConnectRule.FOUR,ConnectRule.EIGHT}) {
+			compareToSingleThread(rule, ImageType.single(GrayU8.class));
+		}
+	}
+
+	@Test
+	public void compare_PLF32() {
+		for( ConnectRule rule : new ConnectRule[]{ConnectRule.FOUR,ConnectRule.EIGHT}) {
+			compareToSingleThread(rule, ImageType.pl(3,GrayF32.class));
+		}
+	}
+
+	/**
+	 * Edges should be sorted by weight and ties broken by pixel index
+	 */
+	@Test
+	public void sortEdges() {
+		SegmentFelzenszwalbHuttenlocher04_MT<GrayU8> alg = new SegmentFelzenszwalbHuttenlocher04_MT<>(300,20,
+				()->FactorySegmentationAlg.weightsFelzenszwalb04(ConnectRule.FOUR,ImageType.single(GrayU8.class)));
+		alg.setDeterministic(true);
+
+		for (int i = 0; i < 5000; i++) {
+			SegmentFelzenszwalbHuttenlocher04.Edge e = alg.edges.grow();
+			e.sortValue = rand.nextInt(20);
+			e.indexA = rand.nextInt(100);
+			e.indexB = rand.nextInt(100);
+		}
+
+		alg.sortEdges();
+
+		assertEquals(5000,alg.edges.size);
+		for (int i = 1; i < alg.edges.size; i++) {
+			assertTrue(SegmentFelzenszwalbHuttenlocher04.EDGE_ORDER.compare(alg.edges.get(i-1),alg.edges.get(i)) <= 0);
+		}
+	}
+
+	/**
+	 * The factory should pass the deterministic flag along to the concurrent implementation
+	 */
+	@Test
+	public void factory_deterministic() {
+		boolean previous = BoofConcurrency.USE_CONCURRENT;
+		try {
+			BoofConcurrency.USE_CONCURRENT = true;
+			ConfigFh04 config = new ConfigFh04();
+			config.deterministic = true;
+
+			SegmentFelzenszwalbHuttenlocher04<GrayU8> alg =
+					FactorySegmentationAlg.fh04(config,ImageType.single(GrayU8.class));
+			assertTrue(alg instanceof SegmentFelzenszwalbHuttenlocher04_MT);
+			assertTrue(alg.isDeterministic());
+
+			config.deterministic = false;
+			alg = FactorySegmentationAlg.fh04(config,ImageType.single(GrayU8.class));
+			assertFalse(alg.isDeterministic());
+		} finally {
+			BoofConcurrency.USE_CONCURRENT = previous;
+		}
+	}
+
+	private <T extends ImageBase<T>> void compareToSingleThread( ConnectRule rule , ImageType<T> imageType ) {
+		T image = imageType.createImage(60,45);
+		// few unique values so that there are lots of edges with the same weight
+		GImageMiscOps.fillUniform(image, rand, 0, 10);
+
+		SegmentFelzenszwalbHuttenlocher04<T> single = new SegmentFelzenszwalbHuttenlocher04<>(300,20,
+				FactorySegmentationAlg.weightsFelzenszwalb04(rule,imageType));
+		single.setDeterministic(true);
+		SegmentFelzenszwalbHuttenlocher04_MT<T> multi = new SegmentFelzenszwalbHuttenlocher04_MT<>(300,20,
+				()->FactorySegmentationAlg.weightsFelzenszwalb04(rule,imageType));
+		multi.setDeterministic(true);
+
+		GrayS32 expected = new GrayS32(image.width,image.height);
+		GrayS32 found = new GrayS32(image.width,image.height);
+
+		single.process(image,expected);
+		multi.process(image,found);
+
+		assertEquals(single.edges.size,multi.edges.size);
+		BoofTesting.assertEquals(expected,found,0);
+
+		GrowQueue_I32 sizesA = single.getRegionSizes();
+		GrowQueue_I32 sizesB = multi.getRegionSizes();
+		assertEquals(sizesA.size,sizesB.size);
+		for (int i = 0; i < sizesA.size; i++) {
+			assertEquals(sizesA.get(i),sizesB.get(i));
+		}
+	}
+}
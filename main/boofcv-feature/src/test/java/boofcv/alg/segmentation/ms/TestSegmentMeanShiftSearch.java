@@ -69,6 +69,17 @@ public class TestSegmentMeanShiftSearch {
 		@Override
 		public void process(ImageBase image) {}
 
+		@Override
+		public void initialize(ImageBase image) {}
+
+		@Override
+		public void searchRows(int y0, int y1) {}
+
+		@Override
+		public SegmentMeanShiftSearch copy() {
+			return null;
+		}
+
 		@Override
 		public ImageType getImageType() {
 			return null;
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boofcv.alg.segmentation.ms;
+
+import boofcv.alg.interpolate.InterpolatePixelMB;
+import boofcv.alg.interpolate.InterpolatePixelS;
+import boofcv.alg.interpolate.InterpolationType;
+import boofcv.alg.misc.GImageMiscOps;
+import boofcv.factory.interpolate.FactoryInterpolation;
+import boofcv.struct.border.BorderType;
+import boofcv.struct.image.GrayF32;
+import boofcv.struct.image.ImageBase;
+import boofcv.struct.image.ImageType;
+import boofcv.struct.image.Planar;
+import boofcv.testing.BoofTesting;
+import org.ddogleg.struct.GrowQueue_I32;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author Peter Abeles
+ */
+public class TestSegmentMeanShiftSearch_MT {
+
+	Random rand = new Random(234);
+
+	@Test
+	public void compare_gray() {
+		InterpolatePixelS<GrayF32> interp = FactoryInterpolation.bilinearPixelS(GrayF32.class, BorderType.EXTENDED);
+		SegmentMeanShiftSearchGray<GrayF32> alg =
+				new SegmentMeanShiftSearchGray<>(30,0.05f,interp,2,2,100, false);
+
+		GrayF32 image = new GrayF32(40,35);
+		GImageMiscOps.fillUniform(image, rand, 0, 256);
+
+		compareToSingleThread(alg,image);
+	}
+
+	@Test
+	public void compare_color() {
+		ImageType<Planar<GrayF32>> imageType = ImageType.pl(2,GrayF32.class);
+		InterpolatePixelMB<Planar<GrayF32>> interp =
+				FactoryInterpolation.createPixelMB(0,255, InterpolationType.BILINEAR, BorderType.EXTENDED,imageType);
+		SegmentMeanShiftSearchColor<Planar<GrayF32>> alg =
+				new SegmentMeanShiftSearchColor<>(30,0.05f,interp,2,2,100, false, imageType);
+
+		Planar<GrayF32> image = imageType.createImage(40,35);
+		GImageMiscOps.fillUniform(image, rand, 0, 256);
+
+		compareToSingleThread(alg,image);
+	}
+
+	/**
+	 * With the fast approximation the results can be different, but it should still be a valid segmentation
+	 */
+	@Test
+	public void fast() {
+		InterpolatePixelS<GrayF32> interp = FactoryInterpolation.bilinearPixelS(GrayF32.class, BorderType.EXTENDED);
+		SegmentMeanShiftSearchGray<GrayF32> alg =
+				new SegmentMeanShiftSearchGray<>(30,0.05f,interp,2,2,100, true);
+
+		GrayF32 image = new GrayF32(40,35);
+		GImageMiscOps.fillUniform(image, rand, 0, 256);
+
+		SegmentMeanShiftSearch_MT<GrayF32> algMT = new SegmentMeanShiftSearch_MT<>(alg);
+		algMT.process(image);
+
+		GrowQueue_I32 counts = algMT.getRegionMemberCount();
+		assertEquals(counts.size,algMT.getModeLocation().size);
+		assertEquals(counts.size,algMT.getModeColor().size);
+
+		// every pixel should be assigned to a mode and the counts should match
+		int[] found = new int[counts.size];
+		for (int y = 0; y < image.height; y++) {
+			for (int x = 0; x < image.width; x++) {
+				found[algMT.getPixelToRegion().get(x,y)]++;
+			}
+		}
+		for (int i = 0; i < counts.size; i++) {
+			assertEquals(counts.get(i),found[i]);
+		}
+	}
+
+	private <T extends ImageBase<T>> void compareToSingleThread( SegmentMeanShiftSearch<T> alg , T image ) {
+		SegmentMeanShiftSearch_MT<T> algMT = new SegmentMeanShiftSearch_MT<>(alg.copy());
+
+		alg.process(image);
+		algMT.process(image);
+
+		BoofTesting.assertEquals(alg.getPixelToRegion(),algMT.getPixelToRegion(),0);
+		assertEquals(alg.getModeLocation().size,algMT.getModeLocation().size);
+		for (int i = 0; i < alg.getModeLocation().size; i++) {
+			assertEquals(alg.getModeLocation().get(i).x,algMT.getModeLocation().get(i).x);
+			assertEquals(alg.getModeLocation().get(i).y,algMT.getModeLocation().get(i).y);
+			assertEquals(alg.getRegionMemberCount().get(i),algMT.getRegionMemberCount().get(i));
+			float[] expected = alg.getModeColor().get(i);
+			float[] found = algMT.getModeColor().get(i);
+			for (int band = 0; band < expected.length; band++) {
+				assertEquals(expected[band],found[band],0);
+			}
+		}
+	}
+}
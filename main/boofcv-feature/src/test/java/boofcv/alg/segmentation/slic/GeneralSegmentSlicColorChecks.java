@@ -20,12 +20,14 @@ package boofcv.alg.segmentation.slic;
 
 import boofcv.alg.misc.GImageMiscOps;
 import boofcv.alg.segmentation.ImageSegmentationOps;
+import boofcv.concurrency.BoofConcurrency;
 import boofcv.core.image.GeneralizedImageOps;
 import boofcv.struct.ConnectRule;
 import boofcv.struct.feature.ColorQueue_F32;
 import boofcv.struct.image.GrayS32;
 import boofcv.struct.image.ImageBase;
 import boofcv.struct.image.ImageType;
+import boofcv.testing.BoofTesting;
 import org.ddogleg.struct.FastQueue;
 import org.ddogleg.struct.GrowQueue_I32;
 import org.junit.jupiter.api.Test;
@@ -75,6 +77,44 @@ public abstract class GeneralSegmentSlicColorChecks<T extends ImageBase<T>> {
 		}
 	}
 
+	/**
+	 * Concurrent and single threaded should produce identical results
+	 */
+	@Test
+	public void compareConcurrent() {
+		T input = imageType.createImage(60,50);
+		GImageMiscOps.fillUniform(input, rand, 0, 200);
+		GImageMiscOps.fillRectangle(input, 100, 10, 5, 25, 30);
+
+		boolean original = BoofConcurrency.USE_CONCURRENT;
+		try {
+			BoofConcurrency.USE_CONCURRENT = false;
+			SegmentSlic<T> algST = createAlg(20,200,10, ConnectRule.EIGHT );
+			GrayS32 expected = new GrayS32(60,50);
+			algST.process(input,expected);
+
+			BoofConcurrency.USE_CONCURRENT = true;
+			SegmentSlic<T> algMT = createAlg(20,200,10, ConnectRule.EIGHT );
+			GrayS32 found = new GrayS32(60,50);
+			algMT.process(input,found);
+
+			BoofTesting.assertEquals(expected,found,0);
+			assertEquals(algST.getClusters().size,algMT.getClusters().size);
+			for (int i = 0; i < algST.getClusters().size; i++) {
+				SegmentSlic.Cluster a = algST.getClusters().get(i);
+				SegmentSlic.Cluster b = algMT.getClusters().get(i);
+				assertEquals(a.x,b.x,0);
+				assertEquals(a.y,b.y,0);
+				for (int band = 0; band < a.color.length; band++) {
+					assertEquals(a.color[band],b.color[band],0);
+				}
+			}
+			assertEquals(algST.getRegionMemberCount().size,algMT.getRegionMemberCount().size);
+		} finally {
+			BoofConcurrency.USE_CONCURRENT = original;
+		}
+	}
+
 	@Test
 	public void setColor() {
 		T input = imageType.createImage(30,40);
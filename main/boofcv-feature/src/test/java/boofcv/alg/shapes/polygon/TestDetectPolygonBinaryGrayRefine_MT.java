@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.shapes.polygon;
+
+import boofcv.abst.filter.binary.InputToBinary;
+import boofcv.factory.filter.binary.FactoryThresholdBinary;
+import boofcv.factory.shape.ConfigPolygonDetector;
+import boofcv.factory.shape.FactoryShapeDetector;
+import boofcv.struct.image.GrayU8;
+import boofcv.struct.image.ImageGray;
+import georegression.struct.shapes.Polygon2D_F64;
+import georegression.struct.shapes.Rectangle2D_I32;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Peter Abeles
+ */
+class TestDetectPolygonBinaryGrayRefine_MT extends CommonFitPolygonChecks {
+
+	GrayU8 binary = new GrayU8(1,1);
+
+	/**
+	 * Detect and refine a lot of shapes. Results should be identical to the single threaded version
+	 */
+	@Test
+	void compareToSingleThread() {
+		for (int y = 10; y+25 < height-40; y += 35) {
+			for (int x = 10; x+25 < width-40; x += 35) {
+				rectangles.add(new Rectangle2D_I32(x,y,x+20+rand.nextInt(6),y+20+rand.nextInt(6)));
+			}
+		}
+		transform.set(1.1, 0.2, 0.12, 1.05, 5.2, 2.3);
+
+		for( Class imageType : imageTypes ) {
+			renderDistortedRectangles(true,imageType);
+			compare(imageType);
+		}
+	}
+
+	private <T extends ImageGray<T>> void compare( Class<T> imageType ) {
+		ConfigPolygonDetector config = new ConfigPolygonDetector(4,4);
+		config.refineContour = true;
+
+		DetectPolygonFromContour<T> detector = FactoryShapeDetector.polygonContour(config.detector,imageType);
+		DetectPolygonBinaryGrayRefine<T> expected = new DetectPolygonBinaryGrayRefine<>(detector,
+				new RefinePolygonToContour(), FactoryShapeDetector.refinePolygon(config.refineGray,imageType),
+				config.minimumRefineEdgeIntensity, config.adjustForThresholdBias);
+
+		detector = FactoryShapeDetector.polygonContour(config.detector,imageType);
+		DetectPolygonBinaryGrayRefine<T> found = new DetectPolygonBinaryGrayRefine_MT<>(detector,
+				true, ()->FactoryShapeDetector.refinePolygon(config.refineGray,imageType),
+				config.minimumRefineEdgeIntensity, config.adjustForThresholdBias);
+
+		InputToBinary inputToBinary = FactoryThresholdBinary.globalFixed(100, true, imageType);
+		binary.reshape(width,height);
+		inputToBinary.process(image,binary);
+
+		expected.process((T)image,binary);
+		expected.refineAll();
+		found.process((T)image,binary);
+		found.refineAll();
+
+		List<DetectPolygonFromContour.Info> listE = expected.getPolygonInfo();
+		List<DetectPolygonFromContour.Info> listF = found.getPolygonInfo();
+
+		assertTrue(listE.size() > rectangles.size()/2);
+		assertEquals(listE.size(),listF.size());
+		for (int i = 0; i < listE.size(); i++) {
+			DetectPolygonFromContour.Info a = listE.get(i);
+			DetectPolygonFromContour.Info b = listF.get(i);
+
+			assertEquals(a.edgeInside,b.edgeInside);
+			assertEquals(a.edgeOutside,b.edgeOutside);
+
+			Polygon2D_F64 pa = a.polygon, pb = b.polygon;
+			assertEquals(pa.size(),pb.size());
+			for (int j = 0; j < pa.size(); j++) {
+				assertEquals(0.0,pa.get(j).distance(pb.get(j)));
+			}
+		}
+	}
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.shapes.polygon;
+
+import boofcv.abst.filter.binary.BinaryContourFinder;
+import boofcv.abst.filter.binary.InputToBinary;
+import boofcv.alg.distort.PixelTransformAffine_F32;
+import boofcv.factory.filter.binary.FactoryBinaryContourFinder;
+import boofcv.factory.filter.binary.FactoryThresholdBinary;
+import boofcv.factory.shape.ConfigPolygonFromContour;
+import boofcv.factory.shape.FactoryPointsToPolyline;
+import boofcv.struct.image.GrayU8;
+import boofcv.struct.image.ImageGray;
+import georegression.struct.affine.Affine2D_F32;
+import georegression.struct.shapes.Polygon2D_F64;
+import georegression.struct.shapes.Rectangle2D_I32;
+import org.ddogleg.struct.FastQueue;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Peter Abeles
+ */
+class TestDetectPolygonFromContour_MT extends CommonFitPolygonChecks {
+
+	GrayU8 binary = new GrayU8(1,1);
+
+	TestDetectPolygonFromContour_MT() {
+		this.fittingToBinaryImage = true;
+	}
+
+	/**
+	 * Render a lot of shapes and see if it produces the same results as the single threaded version
+	 */
+	@Test
+	void compareToSingleThread() {
+		addGridOfRectangles();
+		transform.set(1.1, 0.2, 0.12, 1.05, 5.2, 2.3);
+
+		for( Class imageType : imageTypes ) {
+			renderDistortedRectangles(true,imageType);
+			compare(imageType,false);
+		}
+	}
+
+	/**
+	 * Each thread needs its own copy of the lens distortion
+	 */
+	@Test
+	void compareToSingleThread_lens() {
+		addGridOfRectangles();
+
+		for( Class imageType : imageTypes ) {
+			renderDistortedRectangles(true,imageType);
+			compare(imageType,true);
+		}
+	}
+
+	private void addGridOfRectangles() {
+		for (int y = 10; y+25 < height-40; y += 35) {
+			for (int x = 10; x+25 < width-40; x += 35) {
+				rectangles.add(new Rectangle2D_I32(x,y,x+20+rand.nextInt(6),y+20+rand.nextInt(6)));
+			}
+		}
+	}
+
+	private <T extends ImageGray<T>> void compare( Class<T> imageType , boolean lens ) {
+		DetectPolygonFromContour<T> expected = create(imageType,false);
+		DetectPolygonFromContour<T> found = create(imageType,true);
+
+		if( lens ) {
+			Affine2D_F32 a = new Affine2D_F32(0.95f,0,0,0.95f,1,2);
+			for( DetectPolygonFromContour<T> alg : new DetectPolygonFromContour[]{expected,found}) {
+				alg.setLensDistortion(width,height,
+						new PixelTransformAffine_F32(a), new PixelTransformAffine_F32(a.invert(null)));
+			}
+		}
+
+		InputToBinary inputToBinary = FactoryThresholdBinary.globalFixed(100, true, imageType);
+		binary.reshape(width,height);
+		inputToBinary.process(image,binary);
+
+		expected.process((T)image,binary);
+		// process twice to make sure it handles the second image correctly
+		found.process((T)image,binary);
+		found.process((T)image,binary);
+
+		FastQueue<DetectPolygonFromContour.Info> listE = expected.getFound();
+		FastQueue<DetectPolygonFromContour.Info> listF = found.getFound();
+
+		assertTrue(listE.size > rectangles.size()/2);
+		assertEquals(listE.size,listF.size);
+		for (int i = 0; i < listE.size; i++) {
+			DetectPolygonFromContour.Info a = listE.get(i);
+			DetectPolygonFromContour.Info b = listF.get(i);
+
+			assertEquals(a.contour.id,b.contour.id);
+			assertEquals(a.edgeInside,b.edgeInside);
+			assertEquals(a.edgeOutside,b.edgeOutside);
+			assertEquals(a.contourTouchesBorder,b.contourTouchesBorder);
+			assertEquals(a.splits.size,b.splits.size);
+			assertEquals(a.borderCorners.size,b.borderCorners.size);
+			assertPolygonEquals(a.polygon,b.polygon);
+			assertPolygonEquals(a.polygonDistorted,b.polygonDistorted);
+		}
+	}
+
+	private static void assertPolygonEquals( Polygon2D_F64 a , Polygon2D_F64 b ) {
+		assertEquals(a.size(),b.size());
+		for (int i = 0; i < a.size(); i++) {
+			assertEquals(0.0,a.get(i).distance(b.get(i)));
+		}
+	}
+
+	private <T extends ImageGray<T>> DetectPolygonFromContour<T> create( Class<T> imageType , boolean concurrent ) {
+		ConfigPolygonFromContour config = new ConfigPolygonFromContour(4,4);
+
+		BinaryContourFinder contour = FactoryBinaryContourFinder.linearExternal();
+		contour.setConnectRule(config.contourRule);
+
+		if( concurrent ) {
+			return new DetectPolygonFromContour_MT<>(()->FactoryPointsToPolyline.create(config.contourToPoly),
+					config.minimumContour, config.clockwise, config.canTouchBorder,
+					config.minimumEdgeIntensity, config.tangentEdgeIntensity, contour, imageType);
+		} else {
+			return new DetectPolygonFromContour<>(FactoryPointsToPolyline.create(config.contourToPoly),
+					config.minimumContour, config.clockwise, config.canTouchBorder,
+					config.minimumEdgeIntensity, config.tangentEdgeIntensity, contour, imageType);
+		}
+	}
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.factory.feature.associate;
+
+import boofcv.alg.feature.associate.AssociateNearestNeighbor;
+import boofcv.struct.feature.AssociatedIndex;
+import boofcv.struct.feature.TupleDesc_B;
+import boofcv.struct.feature.TupleDesc_F32;
+import boofcv.struct.feature.TupleDesc_F64;
+import org.ddogleg.struct.FastQueue;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Peter Abeles
+ */
+class TestFactoryAssociation {
+
+	Random rand = new Random(234);
+	int dimension = 10;
+	int numFeatures = 30;
+
+	/**
+	 * Every combination of descriptor type and search should find the correct matches when the destination is
+	 * a shuffled and slightly perturbed copy of the source
+	 */
+	@Test
+	void nearestNeighbor() {
+		for( ConfigAssociateNearestNeighbor.Search search : ConfigAssociateNearestNeighbor.Search.values() ) {
+			ConfigAssociateNearestNeighbor config = new ConfigAssociateNearestNeighbor();
+			config.search = search;
+
+			nearestNeighbor_F64(config);
+			nearestNeighbor_F32(config);
+		}
+	}
+
+	private void nearestNeighbor_F64( ConfigAssociateNearestNeighbor config ) {
+		int[] permutation = createPermutation();
+		FastQueue<TupleDesc_F64> src = new FastQueue<>(TupleDesc_F64.class,()->new TupleDesc_F64(dimension));
+		FastQueue<TupleDesc_F64> dst = new FastQueue<>(TupleDesc_F64.class,()->new TupleDesc_F64(dimension));
+		for (int i = 0; i < numFeatures; i++) {
+			TupleDesc_F64 d = src.grow();
+			for (int j = 0; j < dimension; j++) {
+				d.value[j] = rand.nextDouble()*10;
+			}
+		}
+		for (int i = 0; i < numFeatures; i++) {
+			TupleDesc_F64 d = dst.grow();
+			for (int j = 0; j < dimension; j++) {
+				d.value[j] = src.get(permutation[i]).value[j] + rand.nextGaussian()*0.01;
+			}
+		}
+
+		AssociateNearestNeighbor<TupleDesc_F64> alg =
+				FactoryAssociation.nearestNeighbor(config,TupleDesc_F64.class,dimension);
+		alg.setSource(src);
+		alg.setDestination(dst);
+		alg.associate();
+		checkMatches(alg.getMatches(),permutation);
+	}
+
+	private void nearestNeighbor_F32( ConfigAssociateNearestNeighbor config ) {
+		int[] permutation = createPermutation();
+		FastQueue<TupleDesc_F32> src = new FastQueue<>(TupleDesc_F32.class,()->new TupleDesc_F32(dimension));
+		FastQueue<TupleDesc_F32> dst = new FastQueue<>(TupleDesc_F32.class,()->new TupleDesc_F32(dimension));
+		for (int i = 0; i < numFeatures; i++) {
+			TupleDesc_F32 d = src.grow();
+			for (int j = 0; j < dimension; j++) {
+				d.value[j] = rand.nextFloat()*10;
+			}
+		}
+		for (int i = 0; i < numFeatures; i++) {
+			TupleDesc_F32 d = dst.grow();
+			for (int j = 0; j < dimension; j++) {
+				d.value[j] = src.get(permutation[i]).value[j] + (float)rand.nextGaussian()*0.01f;
+			}
+		}
+
+		AssociateNearestNeighbor<TupleDesc_F32> alg =
+				FactoryAssociation.nearestNeighbor(config,TupleDesc_F32.class,dimension);
+		alg.setSource(src);
+		alg.setDestination(dst);
+		alg.associate();
+		checkMatches(alg.getMatches(),permutation);
+	}
+
+	/**
+	 * Forest specific parameters are only checked when a forest is requested
+	 */
+	@Test
+	void nearestNeighbor_validity() {
+		ConfigAssociateNearestNeighbor config = new ConfigAssociateNearestNeighbor();
+		config.maxNodesSearched = 0;
+		assertThrows(IllegalArgumentException.class,
+				()->FactoryAssociation.nearestNeighbor(config,TupleDesc_F64.class,dimension));
+
+		// exact search with a single tree
+		config.search = ConfigAssociateNearestNeighbor.Search.KD_TREE;
+		assertNotNull(FactoryAssociation.nearestNeighbor(config,TupleDesc_F64.class,dimension));
+		config.search = ConfigAssociateNearestNeighbor.Search.EXHAUSTIVE;
+		assertNotNull(FactoryAssociation.nearestNeighbor(config,TupleDesc_F32.class,dimension));
+
+		// the search is specified by the factory and the forest settings should be ignored
+		config.search = ConfigAssociateNearestNeighbor.Search.RANDOM_FOREST;
+		config.numTrees = 0;
+		assertNotNull(FactoryAssociation.kdtree(config,dimension,50));
+
+		assertThrows(IllegalArgumentException.class,
+				()->FactoryAssociation.nearestNeighbor(null,TupleDesc_B.class,dimension));
+	}
+
+	private void checkMatches( FastQueue<AssociatedIndex> matches , int[] permutation ) {
+		assertEquals(numFeatures,matches.size);
+		for (int i = 0; i < matches.size; i++) {
+			AssociatedIndex m = matches.get(i);
+			assertEquals(m.src,permutation[m.dst]);
+		}
+	}
+
+	private int[] createPermutation() {
+		int[] permutation = new int[numFeatures];
+		for (int i = 0; i < numFeatures; i++) {
+			permutation[i] = i;
+		}
+		for (int i = numFeatures-1; i > 0; i--) {
+			int j = rand.nextInt(i+1);
+			int tmp = permutation[i];
+			permutation[i] = permutation[j];
+			permutation[j] = tmp;
+		}
+		return permutation;
+	}
+}
@@ -27,6 +27,7 @@ import boofcv.struct.QueueCorner;
 import boofcv.struct.image.ImageGray;
 import boofcv.struct.pyramid.PyramidDiscrete;
 import georegression.struct.point.Point2D_I16;
+import org.ddogleg.struct.GrowQueue_B;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -69,6 +70,14 @@ public class PointTrackerKltPyramid<I extends ImageGray<I>,D extends ImageGray<D
 
 	// the tracker
 	protected PyramidKltTracker<I, D> tracker;
+	// interpolation used to create the tracker
+	protected InterpolateRectangle<I> interpInput;
+	protected InterpolateRectangle<D> interpDeriv;
+
+	// indicates which of the active tracks were successfully tracked
+	protected GrowQueue_B trackSuccess = new GrowQueue_B();
+	// features which are being considered for spawning
+	protected List<PyramidKltFeature> candidates = new ArrayList<>();
 
 	// selects point features
 	private GeneralFeatureDetector<I, D> detector;
@@ -104,6 +113,8 @@ public class PointTrackerKltPyramid<I extends ImageGray<I>,D extends ImageGray<D
 		this.gradient = gradient;
 		this.basePyramid = pyramid;
 		this.derivType = derivType;
+		this.interpInput = interpInput;
+		this.interpDeriv = interpDeriv;
 
 		KltTracker<I, D> klt = new KltTracker<>(interpInput, interpDeriv, config);
 		tracker = new PyramidKltTracker<>(klt);
@@ -186,6 +197,7 @@ public class PointTrackerKltPyramid<I extends ImageGray<I>,D extends ImageGray<D
 		while( unused.size() < found.size() )
 			addTrackToUnused();
 
+		candidates.clear();
 		for (int i = 0; i < found.size() && !unused.isEmpty(); i++) {
 			Point2D_I16 pt = found.get(i);
 
@@ -193,8 +205,13 @@ public class PointTrackerKltPyramid<I extends ImageGray<I>,D extends ImageGray<D
 			PyramidKltFeature t = unused.remove(unused.size() - 1);
 			t.x = pt.x * scaleBottom;
 			t.y = pt.y * scaleBottom;
+			candidates.add(t);
+		}
 
-			tracker.setDescription(t);
+		describeSpawned(candidates);
+
+		for (int i = 0; i < candidates.size(); i++) {
+			PyramidKltFeature t = candidates.get(i);
 
 			// set up point description
 			PointTrack p = t.getCookie();
@@ -212,6 +229,16 @@ public class PointTrackerKltPyramid<I extends ImageGray<I>,D extends ImageGray<D
 		}
 	}
 
+	/**
+	 * Computes the description of each newly spawned feature. The description of each feature is
+	 * independent of all the others.
+	 */
+	protected void describeSpawned( List<PyramidKltFeature> candidates ) {
+		for (int i = 0; i < candidates.size(); i++) {
+			tracker.setDescription(candidates.get(i));
+		}
+	}
+
 	/**
 	 * Returns true if a new track can be spawned here.  Intended to be overloaded
 	 */
@@ -239,29 +266,52 @@ public class PointTrackerKltPyramid<I extends ImageGray<I>,D extends ImageGray<D
 		PyramidOps.gradient(basePyramid, gradient, derivX,derivY);
 
 		// track features
-		tracker.setImage(basePyramid,derivX,derivY);
-		for( int i = 0; i < active.size(); ) {
-			PyramidKltFeature t = active.get(i);
-			KltTrackFault ret = tracker.track(t);
-
-			boolean success = false;
-
-			if( ret == KltTrackFault.SUCCESS ) {
-				// discard a track if its center drifts outside the image.
-				if( image.isInBounds((int)t.x,(int)t.y) && tracker.setDescription(t) ) {
-					PointTrack p = t.getCookie();
-					p.set(t.x,t.y);
-					i++;
-					success = true;
-				}
-			}
+		trackSuccess.resize(active.size());
+		trackActive();
 
-			if( !success ) {
-				active.remove(i);
+		// remove tracks which failed while preserving the order of the others
+		int numActive = 0;
+		for( int i = 0; i < active.size(); i++ ) {
+			PyramidKltFeature t = active.get(i);
+			if( trackSuccess.data[i] ) {
+				active.set(numActive++,t);
+			} else {
 				dropped.add( t );
 				unused.add( t );
 			}
 		}
+		active.subList(numActive,active.size()).clear();
+	}
+
+	/**
+	 * Tracks all the active features and marks which ones were successfully tracked in {@link #trackSuccess}.
+	 * Each feature is tracked independently of all the others.
+	 */
+	protected void trackActive() {
+		tracker.setImage(basePyramid,derivX,derivY);
+		for( int i = 0; i < active.size(); i++ ) {
+			trackSuccess.data[i] = trackFeature(tracker,active.get(i));
+		}
+	}
+
+	/**
+	 * Tracks a single feature and updates its description
+	 *
+	 * @param tracker The tracker used. Must have its image already set.
+	 * @param t The feature being tracked
+	 * @return true if successful or false if it should be dropped
+	 */
+	protected boolean trackFeature( PyramidKltTracker<I,D> tracker , PyramidKltFeature t ) {
+		if( tracker.track(t) != KltTrackFault.SUCCESS )
+			return false;
+
+		// discard a track if its center drifts outside the image.
+		if( !input.isInBounds((int)t.x,(int)t.y) || !tracker.setDescription(t) )
+			return false;
+
+		PointTrack p = t.getCookie();
+		p.set(t.x,t.y);
+		return true;
 	}
 
 	protected void declareOutput() {
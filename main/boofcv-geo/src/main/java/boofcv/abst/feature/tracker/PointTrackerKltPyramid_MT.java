@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.abst.feature.tracker;
+
+import boofcv.abst.filter.derivative.ImageGradient;
+import boofcv.alg.feature.detect.interest.GeneralFeatureDetector;
+import boofcv.alg.interpolate.InterpolateRectangle;
+import boofcv.alg.tracker.klt.KltConfig;
+import boofcv.alg.tracker.klt.KltTracker;
+import boofcv.alg.tracker.klt.PyramidKltFeature;
+import boofcv.alg.tracker.klt.PyramidKltTracker;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.struct.image.ImageGray;
+import boofcv.struct.pyramid.PyramidDiscrete;
+import org.ddogleg.struct.FastQueue;
+
+import java.util.List;
+
+/**
+ * Concurrent implementation of {@link PointTrackerKltPyramid}. Each feature is tracked independently, so
+ * the active features are split between the threads and each thread has its own copy of the KLT tracker.
+ * Spawned features have their descriptions computed the same way. Results are identical to the single
+ * threaded version. If {@link #tracker} is replaced then it can't be copied and is used in a single thread.
+ *
+ * @author Peter Abeles
+ */
+public class PointTrackerKltPyramid_MT<I extends ImageGray<I>,D extends ImageGray<D>>
+		extends PointTrackerKltPyramid<I,D>
+{
+	// a copy of the tracker for each thread
+	@SuppressWarnings("unchecked")
+	private final FastQueue<TrackerCopy> workspace = new FastQueue<>((Class)TrackerCopy.class, TrackerCopy::new);
+	// the tracker which was created in the constructor. The copies are equivalent to it
+	private final PyramidKltTracker<I,D> originalTracker;
+
+	/**
+	 * @see PointTrackerKltPyramid#PointTrackerKltPyramid
+	 */
+	public PointTrackerKltPyramid_MT(KltConfig config,
+									 int templateRadius ,
+									 PyramidDiscrete<I> pyramid,
+									 GeneralFeatureDetector<I, D> detector,
+									 ImageGradient<I, D> gradient,
+									 InterpolateRectangle<I> interpInput,
+									 InterpolateRectangle<D> interpDeriv,
+									 Class<D> derivType ) {
+		super(config, templateRadius, pyramid, detector, gradient, interpInput, interpDeriv, derivType);
+		originalTracker = tracker;
+	}
+
+	@Override
+	protected void trackActive() {
+		if( tracker != originalTracker ) {
+			super.trackActive();
+			return;
+		}
+
+		// tracker is used by addTrack()
+		tracker.setImage(basePyramid,derivX,derivY);
+
+		BoofConcurrency.loopBlocks(0,active.size(),workspace,(work,idx0,idx1)->{
+			work.tracker.setImage(basePyramid,derivX,derivY);
+			for (int i = idx0; i < idx1; i++) {
+				trackSuccess.data[i] = trackFeature(work.tracker,active.get(i));
+			}
+		});
+	}
+
+	@Override
+	protected void describeSpawned(List<PyramidKltFeature> candidates) {
+		if( tracker != originalTracker ) {
+			super.describeSpawned(candidates);
+			return;
+		}
+
+		BoofConcurrency.loopBlocks(0,candidates.size(),workspace,(work,idx0,idx1)->{
+			work.tracker.setImage(basePyramid,derivX,derivY);
+			for (int i = idx0; i < idx1; i++) {
+				work.tracker.setDescription(candidates.get(i));
+			}
+		});
+	}
+
+	/**
+	 * Tracker with its own interpolation and internal work space so that it can be used in a thread
+	 */
+	private class TrackerCopy {
+		PyramidKltTracker<I,D> tracker = new PyramidKltTracker<>(
+				new KltTracker<>(interpInput.copy(), interpDeriv.copy(), config));
+	}
+}
@@ -24,9 +24,16 @@ import boofcv.factory.distort.FactoryDistort;
 import boofcv.factory.interpolate.FactoryInterpolation;
 import boofcv.struct.border.BorderType;
 import boofcv.struct.calib.CameraPinhole;
+import boofcv.struct.calib.CameraPinholeBrown;
+import boofcv.struct.distort.PixelTransform;
 import boofcv.struct.distort.Point2Transform2_F32;
 import boofcv.struct.image.ImageBase;
 import boofcv.struct.image.ImageType;
+import georegression.struct.point.Point2D_F32;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Operations for manipulating lens distortion which do not have F32 and F64 equivalents.
@@ -56,6 +63,24 @@ public class LensDistortionOps {
 										D desired,
 										D modified,
 										ImageType<T> imageType)
+	{
+		return changeCameraModel(type,borderType,original,desired,modified,imageType,null);
+	}
+
+	/**
+	 * Same as {@link #changeCameraModel(AdjustmentType, BorderType, CameraPinhole, CameraPinhole, CameraPinhole, ImageType)}
+	 * but the distortion table can be looked up in a cache. Distortions created with the same cache and camera
+	 * models will share the same read only table instead of each computing and storing their own.
+	 *
+	 * @param cache (Optional) Cache of distortion tables. If null a new table is computed.
+	 */
+	public static <T extends ImageBase<T>,O extends CameraPinhole, D extends CameraPinhole>
+	ImageDistort<T,T> changeCameraModel(AdjustmentType type, BorderType borderType,
+										O original,
+										D desired,
+										D modified,
+										ImageType<T> imageType,
+										@Nullable RemapTableCache cache )
 	{
 		Class bandType = imageType.getImageClass();
 		boolean skip = borderType == BorderType.SKIP;
@@ -68,11 +93,42 @@ public class LensDistortionOps {
 
 		Point2Transform2_F32 undistToDist = LensDistortionOps_F32.transformChangeModel(type, original, desired, true, modified);
 
-		ImageDistort<T,T> distort = FactoryDistort.distort(true, interp, imageType);
+		PixelTransform<Point2D_F32> undistToDistPixel = new PointToPixelTransform_F32(undistToDist);
 
-		distort.setModel(new PointToPixelTransform_F32(undistToDist));
+		ImageDistort<T,T> distort;
+		if( cache == null ) {
+			distort = FactoryDistort.distort(true, interp, imageType);
+			distort.setModel(undistToDistPixel);
+		} else {
+			List<Object> key = new ArrayList<>();
+			key.add(type);
+			addCacheKey(original,key);
+			addCacheKey(desired,key);
+			RemapTable_F32 table = cache.lookup(key,desired.width,desired.height,()->undistToDistPixel);
+			distort = FactoryDistort.distort(table, undistToDistPixel, interp, imageType);
+		}
 		distort.setRenderAll(!skip );
 
 		return distort;
 	}
+
+	/**
+	 * Adds all the parameters which describe the camera model to the key
+	 */
+	private static void addCacheKey( CameraPinhole model , List<Object> key ) {
+		key.add(model.getClass());
+		key.add(model.width);key.add(model.height);
+		key.add(model.fx);key.add(model.fy);key.add(model.skew);
+		key.add(model.cx);key.add(model.cy);
+		if( model instanceof CameraPinholeBrown ) {
+			CameraPinholeBrown brown = (CameraPinholeBrown)model;
+			key.add(brown.radial == null ? 0 : brown.radial.length);
+			if( brown.radial != null ) {
+				for( double r : brown.radial ) {
+					key.add(r);
+				}
+			}
+			key.add(brown.t1);key.add(brown.t2);
+		}
+	}
 }
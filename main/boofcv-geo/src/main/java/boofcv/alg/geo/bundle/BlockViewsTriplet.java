@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.geo.bundle;
+
+import org.ddogleg.struct.FastQueue;
+import org.ejml.data.DMatrixSparseTriplet;
+
+/**
+ * Storage for the sparse Jacobian of a contiguous block of views. Used by concurrent Jacobians where each
+ * thread writes into its own triplet matrices.
+ *
+ * @author Peter Abeles
+ */
+class BlockViewsTriplet {
+	// first view in the block
+	int viewIdx0;
+	// left and right side of the Jacobian for observations in this block
+	DMatrixSparseTriplet left = new DMatrixSparseTriplet(1,1,1);
+	DMatrixSparseTriplet right = new DMatrixSparseTriplet(1,1,1);
+
+	/**
+	 * Prepares the block for processing views starting at viewIdx0
+	 */
+	void initialize( int viewIdx0 , int numRows , int numColsLeft , int numColsRight ) {
+		this.viewIdx0 = viewIdx0;
+		left.reshape(numRows,numColsLeft);
+		right.reshape(numRows,numColsRight);
+	}
+
+	/**
+	 * Adds the elements in each block to the output in order of the first view in the block. This ensures
+	 * the elements are in the same order as when all the views are processed sequentially.
+	 */
+	static void merge( FastQueue<? extends BlockViewsTriplet> blocks ,
+					   DMatrixSparseTriplet left , DMatrixSparseTriplet right ) {
+		int totalLeft = 0, totalRight = 0;
+		for (int i = 0; i < blocks.size; i++) {
+			totalLeft += blocks.get(i).left.nz_length;
+			totalRight += blocks.get(i).right.nz_length;
+		}
+		left.reshape(left.numRows,left.numCols,totalLeft);
+		right.reshape(right.numRows,right.numCols,totalRight);
+
+		// the order blocks are stored in isn't the same as the order of views
+		for (int viewIdx = -1;;) {
+			BlockViewsTriplet next = null;
+			for (int i = 0; i < blocks.size; i++) {
+				BlockViewsTriplet b = blocks.get(i);
+				if( b.viewIdx0 > viewIdx && (next == null || b.viewIdx0 < next.viewIdx0) )
+					next = b;
+			}
+			if( next == null )
+				break;
+			viewIdx = next.viewIdx0;
+			append(next.left,left);
+			append(next.right,right);
+		}
+	}
+
+	static void append( DMatrixSparseTriplet src , DMatrixSparseTriplet dst ) {
+		for (int i = 0; i < src.nz_length; i++) {
+			int row = src.nz_rowcol.data[i*2];
+			int col = src.nz_rowcol.data[i*2+1];
+			dst.addItem(row,col,src.nz_value.data[i]);
+		}
+	}
+}
@@ -47,29 +47,21 @@ public class BundleAdjustmentMetricResidualFunction
 		implements BundleAdjustmentSchur_DSCC.FunctionResiduals<SceneStructureMetric>
 
 {
-	private SceneStructureMetric structure;
-	private SceneObservations observations;
-
-	// feature location in world coordinates
-	private Point3D_F64 worldPt = new Point3D_F64();
+	protected SceneStructureMetric structure;
+	protected SceneObservations observations;
 
 	// number of parameters being optimised
 	private int numParameters;
 	// number of observations.  2 for each point in each view
 	private int numObservations;
-
-	// local variable which stores the predicted location of the feature in the camera frame
-	private Point3D_F64 cameraPt = new Point3D_F64();
-
-	// Storage for rendered output
-	private Point2D_F64 predictedPixel = new Point2D_F64();
-	private PointIndex2D_F64 observedPixel = new PointIndex2D_F64();
+	// index of the first observation in each view
+	private int viewObservationIndexes[];
 
 	// Used to write the "unknown" paramters into the scene
 	CodecSceneStructureMetric codec = new CodecSceneStructureMetric();
 
-	Point3D_F64 p3 = new Point3D_F64();
-	Point4D_F64 p4 = new Point4D_F64();
+	// Storage used when processing views in a single thread
+	private Workspace workspace = new Workspace();
 
 	/**
 	 * Specifies the scenes structure and observed feature locations
@@ -84,6 +76,15 @@ public class BundleAdjustmentMetricResidualFunction
 		numObservations = observations.getObservationCount();
 		numParameters = structure.getParameterCount();
 		structure.assignIDsToRigidPoints();
+
+		// pre-compute the first observation in each view so that views can be processed independently
+		viewObservationIndexes = new int[structure.views.size];
+		for (int i = 0, index = 0; i < structure.views.size; i++) {
+			viewObservationIndexes[i] = index;
+			index += observations.views.get(i).size();
+			if( observations.hasRigid() )
+				index += observations.viewsRigid.get(i).size();
+		}
 	}
 
 	@Override
@@ -102,19 +103,38 @@ public class BundleAdjustmentMetricResidualFunction
 		// write the current parameters into the scene's structure
 		codec.decode(input,structure);
 
+		projectAllViews(output);
+	}
+
+	/**
+	 * Computes the residuals for observations in every view. The scene's structure must already be up to date.
+	 */
+	protected void projectAllViews( double[] output ) {
+		projectViews(workspace,output,0,structure.views.size);
+	}
+
+	/**
+	 * Computes the residuals for observations in the specified range of views
+	 *
+	 * @param w Storage for the views being processed
+	 * @param viewIdx0 First view, inclusive
+	 * @param viewIdx1 Last view, exclusive
+	 */
+	protected void projectViews( Workspace w , double[] output , int viewIdx0 , int viewIdx1 ) {
 		// Project the general scene now
 		if( structure.homogenous )
-			project4(output);
+			project4(w,output,viewIdx0,viewIdx1);
 		else
-			project3(output);
+			project3(w,output,viewIdx0,viewIdx1);
 	}
 
 	/**
 	 * projection from 3D coordinates
 	 */
-	private void project3(double[] output) {
-		int observationIndex = 0;
-		for( int viewIndex = 0; viewIndex < structure.views.size; viewIndex++ ) {
+	private void project3(Workspace w, double[] output, int viewIdx0, int viewIdx1) {
+		final PointIndex2D_F64 observedPixel = w.observedPixel;
+		for( int viewIndex = viewIdx0; viewIndex < viewIdx1; viewIndex++ ) {
+			int observationIndex = viewObservationIndexes[viewIndex];
 			SceneStructureMetric.View view = structure.views.get(viewIndex);
 			SceneStructureMetric.Camera camera = structure.cameras.get(view.camera);
 
@@ -124,15 +144,15 @@ public class BundleAdjustmentMetricResidualFunction
 				for (int i = 0; i < obsView.size(); i++) {
 					obsView.get(i, observedPixel);
 					SceneStructureMetric.Point worldPt = structure.points.data[observedPixel.index];
-					worldPt.get(p3);
+					worldPt.get(w.p3);
 
-					SePointOps_F64.transform(view.worldToView, p3, cameraPt);
+					SePointOps_F64.transform(view.worldToView, w.p3, w.cameraPt);
 
-					camera.model.project(cameraPt.x, cameraPt.y, cameraPt.z, predictedPixel);
+					camera.model.project(w.cameraPt.x, w.cameraPt.y, w.cameraPt.z, w.predictedPixel);
 
 					int outputIndex = observationIndex * 2;
-					output[outputIndex] = predictedPixel.x - observedPixel.x;
-					output[outputIndex + 1] = predictedPixel.y - observedPixel.y;
+					output[outputIndex] = w.predictedPixel.x - observedPixel.x;
+					output[outputIndex + 1] = w.predictedPixel.y - observedPixel.y;
 					observationIndex++;
 				}
 			}
@@ -152,18 +172,18 @@ public class BundleAdjustmentMetricResidualFunction
 
 					// Load the 3D location of point on the rigid body
 					SceneStructureMetric.Point objectPt = rigid.points[pointIndex];
-					objectPt.get(p3);
+					objectPt.get(w.p3);
 
 					// Tranform to world frame and from world to camera
-					SePointOps_F64.transform(rigid.objectToWorld,p3, worldPt);
-					SePointOps_F64.transform(view.worldToView,worldPt, cameraPt);
+					SePointOps_F64.transform(rigid.objectToWorld,w.p3, w.worldPt);
+					SePointOps_F64.transform(view.worldToView,w.worldPt, w.cameraPt);
 
 					// Project and compute residual
-					camera.model.project(cameraPt.x, cameraPt.y, cameraPt.z, predictedPixel);
+					camera.model.project(w.cameraPt.x, w.cameraPt.y, w.cameraPt.z, w.predictedPixel);
 
 					int outputIndex = observationIndex*2;
-					output[outputIndex  ] = predictedPixel.x - observedPixel.x;
-					output[outputIndex+1] = predictedPixel.y - observedPixel.y;
+					output[outputIndex  ] = w.predictedPixel.x - observedPixel.x;
+					output[outputIndex+1] = w.predictedPixel.y - observedPixel.y;
 					observationIndex++;
 				}
 			}
@@ -173,9 +193,10 @@ public class BundleAdjustmentMetricResidualFunction
 	/**
 	 * projection from homogenous coordinates
 	 */
-	private void project4(double[] output) {
-		int observationIndex = 0;
-		for( int viewIndex = 0; viewIndex < structure.views.size; viewIndex++ ) {
+	private void project4(Workspace w, double[] output, int viewIdx0, int viewIdx1) {
+		final PointIndex2D_F64 observedPixel = w.observedPixel;
+		for( int viewIndex = viewIdx0; viewIndex < viewIdx1; viewIndex++ ) {
+			int observationIndex = viewObservationIndexes[viewIndex];
 			SceneStructureMetric.View view = structure.views.get(viewIndex);
 			SceneStructureMetric.Camera camera = structure.cameras.get(view.camera);
 
@@ -186,15 +207,15 @@ public class BundleAdjustmentMetricResidualFunction
 				for (int i = 0; i < obsView.size(); i++) {
 					obsView.get(i, observedPixel);
 					SceneStructureMetric.Point worldPt = structure.points.data[observedPixel.index];
-					worldPt.get(p4);
+					worldPt.get(w.p4);
 
-					SePointOps_F64.transform(view.worldToView, p4, cameraPt);
+					SePointOps_F64.transform(view.worldToView, w.p4, w.cameraPt);
 
-					camera.model.project(cameraPt.x, cameraPt.y, cameraPt.z, predictedPixel);
+					camera.model.project(w.cameraPt.x, w.cameraPt.y, w.cameraPt.z, w.predictedPixel);
 
 					int outputIndex = observationIndex * 2;
-					output[outputIndex] = predictedPixel.x - observedPixel.x;
-					output[outputIndex + 1] = predictedPixel.y - observedPixel.y;
+					output[outputIndex] = w.predictedPixel.x - observedPixel.x;
+					output[outputIndex + 1] = w.predictedPixel.y - observedPixel.y;
 					observationIndex++;
 				}
 			}
@@ -215,21 +236,38 @@ public class BundleAdjustmentMetricResidualFunction
 
 					// Load the 3D location of point on the rigid body
 					SceneStructureMetric.Point objectPt = rigid.points[pointIndex];
-					objectPt.get(p4);
+					objectPt.get(w.p4);
 
 					// Tranform to world frame and from world to camera
-					SePointOps_F64.transform(rigid.objectToWorld,p4, worldPt);
-					SePointOps_F64.transform(view.worldToView,worldPt, cameraPt);
+					SePointOps_F64.transform(rigid.objectToWorld,w.p4, w.worldPt);
+					SePointOps_F64.transform(view.worldToView,w.worldPt, w.cameraPt);
 
-					camera.model.project(cameraPt.x, cameraPt.y, cameraPt.z, predictedPixel);
+					camera.model.project(w.cameraPt.x, w.cameraPt.y, w.cameraPt.z, w.predictedPixel);
 
 					int outputIndex = observationIndex*2;
-					output[outputIndex  ] = predictedPixel.x - observedPixel.x;
-					output[outputIndex+1] = predictedPixel.y - observedPixel.y;
+					output[outputIndex  ] = w.predictedPixel.x - observedPixel.x;
+					output[outputIndex+1] = w.predictedPixel.y - observedPixel.y;
 					observationIndex++;
 				}
 			}
 		}
 	}
 
+	/**
+	 * Storage which is modified while processing views
+	 */
+	protected static class Workspace {
+		// feature location in world coordinates
+		Point3D_F64 worldPt = new Point3D_F64();
+
+		// local variable which stores the predicted location of the feature in the camera frame
+		Point3D_F64 cameraPt = new Point3D_F64();
+
+		// Storage for rendered output
+		Point2D_F64 predictedPixel = new Point2D_F64();
+		PointIndex2D_F64 observedPixel = new PointIndex2D_F64();
+
+		Point3D_F64 p3 = new Point3D_F64();
+		Point4D_F64 p4 = new Point4D_F64();
+	}
 }
@@ -37,13 +37,18 @@ import org.ejml.dense.row.CommonOps_DDRM;
  * Computes the Jacobian for bundle adjustment with a Schur implementation. This is the base class
  * for specific types of matrices
  *
+ * <p>
+ * Views are processed independently of each other. All the storage which is modified while processing a view
+ * is contained inside of {@link Workspace} so that concurrent implementations can process several views at once.
+ * </p>
+ *
  * @author Peter Abeles
  */
 public abstract class BundleAdjustmentMetricSchurJacobian<M extends DMatrix>
 		implements BundleAdjustmentSchur.Jacobian<SceneStructureMetric,M>
 {
-	private SceneStructureMetric structure;
-	private SceneObservations observations;
+	protected SceneStructureMetric structure;
+	protected SceneObservations observations;
 
 	// number of views with parameters that are going to be adjusted
 	private int numViewsUnknown;
@@ -55,22 +60,9 @@ public abstract class BundleAdjustmentMetricSchurJacobian<M extends DMatrix>
 	// length of a 3D point. 3 = regular, 4 = homogenous
 	private int lengthPoint;
 
-	// used to compute the Jacobian of a rotation matrix
-	private JacobianSo3 jacSO3 = new JacobianSo3Rodrigues();
-	private Se3_F64 worldToView = new Se3_F64();
-
 	// jacobians for rigid objects
 	private JacobianSo3[] jacRigidS03;
 
-	// feature location in world coordinates
-	private Point3D_F64 worldPt3 = new Point3D_F64();
-	private Point4D_F64 worldPt4 = new Point4D_F64();
-	// feature location in rigid body coordinates
-	private Point3D_F64 rigidPt3 = new Point3D_F64();
-	private Point4D_F64 rigidPt4 = new Point4D_F64();
-	// feature location in camera coordinates
-	private Point3D_F64 cameraPt = new Point3D_F64();
-
 	// Number of parameters to describe SE3 (rotation + translation)
 	private int lengthSE3;
 	// first index for rigid body parameters
@@ -84,18 +76,13 @@ public abstract class BundleAdjustmentMetricSchurJacobian<M extends DMatrix>
 	private int viewParameterIndexes[];
 	// first index in input/parameters vector for each camera. Right side
 	private int cameraParameterIndexes[];
+	// index of the first observation in each view
+	private int viewObservationIndexes[];
+	// size of the largest camera's intrinsic parameters
+	private int largestCameraSize;
 
-	// Jacobian matrix index of x and y partial
-	private int jacRowX,jacRowY;
-
-	// Storage for gradients
-	private double pointGradX[] = new double[3];
-	private double pointGradY[] = new double[3];
-	private double calibGradX[] = null;
-	private double calibGradY[] = null;
-
-	// work space for R2*R1
-	DMatrixRMaj RR = new DMatrixRMaj(3,3);
+	// storage used by the single threaded implementation
+	private Workspace workspace = new Workspace();
 
 	@Override
 	public void configure(SceneStructureMetric structure , SceneObservations observations ) {
@@ -109,7 +96,7 @@ public abstract class BundleAdjustmentMetricSchurJacobian<M extends DMatrix>
 		}
 
 		// 3 for translation + orientation parameterization
-		lengthSE3 = 3+jacSO3.getParameterLength();
+		lengthSE3 = 3+workspace.jacSO3.getParameterLength();
 
 		//----- Pre-Compute location of parameters for different structures
 		numRigidUnknown = structure.getUnknownRigidCount();
@@ -141,9 +128,18 @@ public abstract class BundleAdjustmentMetricSchurJacobian<M extends DMatrix>
 			}
 		}
 
+		// pre-compute the first observation in each view so that views can be processed independently
+		viewObservationIndexes = new int[structure.views.size];
+		for (int i = 0, index = 0; i < structure.views.size; i++) {
+			viewObservationIndexes[i] = index;
+			index += observations.views.get(i).size();
+			if( observations.hasRigid() )
+				index += observations.viewsRigid.get(i).size();
+		}
+
 		// Create a lookup table for each camera. Camera ID to location in parameter vector
 		cameraParameterIndexes = new int[structure.cameras.size];
-		int largestCameraSize = 0;
+		largestCameraSize = 0;
 		for (int i = 0, index = 0; i < structure.cameras.size; i++) {
 			if( !structure.cameras.get(i).known ) {
 				cameraParameterIndexes[i] = index;
@@ -152,9 +148,6 @@ public abstract class BundleAdjustmentMetricSchurJacobian<M extends DMatrix>
 				index += count;
 			}
 		}
-
-		calibGradX = new double[largestCameraSize];
-		calibGradY = new double[largestCameraSize];
 	}
 
 	@Override
@@ -167,7 +160,7 @@ public abstract class BundleAdjustmentMetricSchurJacobian<M extends DMatrix>
 		return observations.getObservationCount()*2;
 	}
 
-	private int computeGeneralPoints(DMatrix leftPoint, DMatrix rightView,
+	private int computeGeneralPoints(Workspace w, DMatrix leftPoint, DMatrix rightView,
 									 double[] input, int observationIndex, int viewIndex,
 									 SceneStructureMetric.View view, SceneStructureMetric.Camera camera,
 									 int cameraParamStartIndex) {
@@ -178,43 +171,43 @@ public abstract class BundleAdjustmentMetricSchurJacobian<M extends DMatrix>
 			int columnOfPointInJac = featureIndex*lengthPoint;
 
 			if( structure.isHomogenous() ) {
-				worldPt4.x = input[columnOfPointInJac];
-				worldPt4.y = input[columnOfPointInJac + 1];
-				worldPt4.z = input[columnOfPointInJac + 2];
-				worldPt4.w = input[columnOfPointInJac + 3];
+				w.worldPt4.x = input[columnOfPointInJac];
+				w.worldPt4.y = input[columnOfPointInJac + 1];
+				w.worldPt4.z = input[columnOfPointInJac + 2];
+				w.worldPt4.w = input[columnOfPointInJac + 3];
 
-				SePointOps_F64.transform(worldToView, worldPt4, cameraPt);
+				SePointOps_F64.transform(w.worldToView, w.worldPt4, w.cameraPt);
 			} else {
-				worldPt3.x = input[columnOfPointInJac];
-				worldPt3.y = input[columnOfPointInJac + 1];
-				worldPt3.z = input[columnOfPointInJac + 2];
+				w.worldPt3.x = input[columnOfPointInJac];
+				w.worldPt3.y = input[columnOfPointInJac + 1];
+				w.worldPt3.z = input[columnOfPointInJac + 2];
 
-				SePointOps_F64.transform(worldToView, worldPt3, cameraPt);
+				SePointOps_F64.transform(w.worldToView, w.worldPt3, w.cameraPt);
 			}
 
-			jacRowX = observationIndex*2;
-			jacRowY = jacRowX+1;
+			w.jacRowX = observationIndex*2;
+			w.jacRowY = w.jacRowX+1;
 
 			//============ Partial of camera parameters
 			if( !camera.known ) {
 				int N = camera.model.getIntrinsicCount();
-				camera.model.jacobian(cameraPt.x, cameraPt.y, cameraPt.z,
-						pointGradX, pointGradY, true, calibGradX, calibGradY);
+				camera.model.jacobian(w.cameraPt.x, w.cameraPt.y, w.cameraPt.z,
+						w.pointGradX, w.pointGradY, true, w.calibGradX, w.calibGradY);
 
 				int location = indexLastView-indexFirstView+cameraParamStartIndex;
 				for (int j = 0; j < N; j++) {
-					set(rightView,jacRowX,location+j,calibGradX[j]);
-					set(rightView,jacRowY,location+j,calibGradY[j]);
+					set(rightView,w.jacRowX,location+j,w.calibGradX[j]);
+					set(rightView,w.jacRowY,location+j,w.calibGradY[j]);
 				}
 			} else {
-				camera.model.jacobian(cameraPt.x, cameraPt.y, cameraPt.z, pointGradX, pointGradY,
+				camera.model.jacobian(w.cameraPt.x, w.cameraPt.y, w.cameraPt.z, w.pointGradX, w.pointGradY,
 						false, null, null);
 			}
 			//============ Partial of worldPt
 			if( structure.isHomogenous() ) {
-				partialPointH(leftPoint,rightView,viewIndex, view, columnOfPointInJac);
+				partialPointH(w,leftPoint,rightView,viewIndex, view, columnOfPointInJac);
 			} else {
-				partialPoint3(leftPoint,rightView,viewIndex, view, columnOfPointInJac);
+				partialPoint3(w,leftPoint,rightView,viewIndex, view, columnOfPointInJac);
 			}
 
 			observationIndex++;
@@ -240,6 +233,15 @@ public abstract class BundleAdjustmentMetricSchurJacobian<M extends DMatrix>
 		leftPoint.zero();
 		rightView.zero();
 
+		decodeShared(input);
+		processAllViews(input,leftPoint,rightView);
+	}
+
+	/**
+	 * Decodes parameters which are shared by multiple views. Rigid bodies and camera intrinsics. After
+	 * this has been called views can be processed in any order.
+	 */
+	protected void decodeShared( double[] input ) {
 		// parse parameters for rigid bodies. the translation + rotation is the same for all views
 		for (int rigidIndex = 0; rigidIndex < structure.rigids.size; rigidIndex++) {
 			if( !structure.rigids.get(rigidIndex).known ) {
@@ -247,37 +249,62 @@ public abstract class BundleAdjustmentMetricSchurJacobian<M extends DMatrix>
 			}
 		}
 
-		int observationIndex = 0;
-		// first decode the transformation
-		for( int viewIndex = 0; viewIndex < structure.views.size; viewIndex++ ) {
+		// cameras can be shared by multiple views
+		for (int cameraIndex = 0; cameraIndex < structure.cameras.size; cameraIndex++) {
+			SceneStructureMetric.Camera camera = structure.cameras.data[cameraIndex];
+			if( !camera.known ) {
+				camera.model.setIntrinsic(input,indexLastView+cameraParameterIndexes[cameraIndex]);
+			}
+		}
+	}
+
+	/**
+	 * Computes the Jacobian for observations in every view. {@link #decodeShared} must be called first.
+	 */
+	protected void processAllViews( double[] input, DMatrix leftPoint, DMatrix rightView ) {
+		processViews(workspace,input,leftPoint,rightView,0,structure.views.size);
+	}
+
+	/**
+	 * Computes the Jacobian for observations in the specified range of views. {@link #decodeShared} must
+	 * be called first.
+	 *
+	 * @param w Storage for the views being processed
+	 * @param viewIdx0 First view, inclusive
+	 * @param viewIdx1 Last view, exclusive
+	 */
+	protected void processViews( Workspace w , double[] input, DMatrix leftPoint, DMatrix rightView,
+								 int viewIdx0 , int viewIdx1 ) {
+		w.checkSize(largestCameraSize);
+
+		for( int viewIndex = viewIdx0; viewIndex < viewIdx1; viewIndex++ ) {
 			SceneStructureMetric.View view = structure.views.data[viewIndex];
 			SceneStructureMetric.Camera camera = structure.cameras.data[view.camera];
 
+			// first decode the transformation
 			if( !view.known ) {
 				int paramIndex = viewParameterIndexes[viewIndex]+indexFirstView;
-				jacSO3.setParameters(input,paramIndex);
-				paramIndex += jacSO3.getParameterLength();
+				w.jacSO3.setParameters(input,paramIndex);
+				paramIndex += w.jacSO3.getParameterLength();
 
-				worldToView.T.x = input[paramIndex];
-				worldToView.T.y = input[paramIndex+1];
-				worldToView.T.z = input[paramIndex+2];
+				w.worldToView.T.x = input[paramIndex];
+				w.worldToView.T.y = input[paramIndex+1];
+				w.worldToView.T.z = input[paramIndex+2];
 
-				worldToView.getR().set(jacSO3.getRotationMatrix());
+				w.worldToView.getR().set(w.jacSO3.getRotationMatrix());
 			} else {
-				worldToView.set(view.worldToView);
+				w.worldToView.set(view.worldToView);
 			}
 			int cameraParamStartIndex = cameraParameterIndexes[view.camera];
-			if( !camera.known ) {
-				camera.model.setIntrinsic(input,indexLastView+cameraParamStartIndex);
-			}
 
-			observationIndex = computeGeneralPoints(leftPoint,rightView, input, observationIndex, viewIndex, view, camera, cameraParamStartIndex);
+			int observationIndex = viewObservationIndexes[viewIndex];
+			observationIndex = computeGeneralPoints(w,leftPoint,rightView, input, observationIndex, viewIndex, view, camera, cameraParamStartIndex);
 			if( observations.hasRigid() )
-				observationIndex = computeRigidPoints(leftPoint,rightView,observationIndex, viewIndex, view, camera, cameraParamStartIndex);
+				computeRigidPoints(w,leftPoint,rightView,observationIndex, viewIndex, view, camera, cameraParamStartIndex);
 		}
 	}
 
-	private int computeRigidPoints(DMatrix leftPoint, DMatrix rightView,
+	private int computeRigidPoints(Workspace w, DMatrix leftPoint, DMatrix rightView,
 								   int observationIndex, int viewIndex,
 								   SceneStructureMetric.View view,
 								   SceneStructureMetric.Camera camera,
@@ -292,36 +319,36 @@ public abstract class BundleAdjustmentMetricSchurJacobian<M extends DMatrix>
 			int pointIndex = featureIndex-rigid.indexFirst; // index of point in rigid body
 
 			if( structure.isHomogenous() ) {
-				rigid.getPoint(pointIndex,rigidPt4);
-				SePointOps_F64.transform(rigid.objectToWorld, rigidPt4, worldPt3);
+				rigid.getPoint(pointIndex,w.rigidPt4);
+				SePointOps_F64.transform(rigid.objectToWorld, w.rigidPt4, w.worldPt3);
 			} else {
-				rigid.getPoint(pointIndex,rigidPt3);
-				SePointOps_F64.transform(rigid.objectToWorld, rigidPt3, worldPt3);
+				rigid.getPoint(pointIndex,w.rigidPt3);
+				SePointOps_F64.transform(rigid.objectToWorld, w.rigidPt3, w.worldPt3);
 			}
-			SePointOps_F64.transform(worldToView, worldPt3, cameraPt);
+			SePointOps_F64.transform(w.worldToView, w.worldPt3, w.cameraPt);
 
-			jacRowX = observationIndex*2;
-			jacRowY = jacRowX+1;
+			w.jacRowX = observationIndex*2;
+			w.jacRowY = w.jacRowX+1;
 
 			//============ Partial of camera parameters
 			if( !camera.known ) {
 				int N = camera.model.getIntrinsicCount();
-				camera.model.jacobian(cameraPt.x, cameraPt.y, cameraPt.z,
-						pointGradX, pointGradY, true, calibGradX, calibGradY);
+				camera.model.jacobian(w.cameraPt.x, w.cameraPt.y, w.cameraPt.z,
+						w.pointGradX, w.pointGradY, true, w.calibGradX, w.calibGradY);
 
 				int location = indexLastView-indexFirstView+cameraParamStartIndex;
 				for (int j = 0; j < N; j++) {
-					set(rightView,jacRowX,location+j,calibGradX[j]);
-					set(rightView,jacRowY,location+j,calibGradY[j]);
+					set(rightView,w.jacRowX,location+j,w.calibGradX[j]);
+					set(rightView,w.jacRowY,location+j,w.calibGradY[j]);
 				}
 			} else {
-				camera.model.jacobian(cameraPt.x, cameraPt.y, cameraPt.z, pointGradX, pointGradY,
+				camera.model.jacobian(w.cameraPt.x, w.cameraPt.y, w.cameraPt.z, w.pointGradX, w.pointGradY,
 						false, null, null);
 			}
 
 			//============ Partial of world to view
 			if( !view.known ) {
-				partialViewSE3(rightView, viewIndex, view, worldPt3.x, worldPt3.y, worldPt3.z, 1);
+				partialViewSE3(w, rightView, viewIndex, view, w.worldPt3.x, w.worldPt3.y, w.worldPt3.z, 1);
 			}
 
 			//============ Partial of body to world
@@ -332,9 +359,9 @@ public abstract class BundleAdjustmentMetricSchurJacobian<M extends DMatrix>
 			// partial T1 is R2*(@T1)
 			if( !rigid.known ) {
 				if( structure.isHomogenous() ) {
-					partialRigidSE3(leftPoint,rigidIndex, rigidPt4.x,rigidPt4.y,rigidPt4.z,rigidPt4.w);
+					partialRigidSE3(w,leftPoint,rigidIndex, w.rigidPt4.x,w.rigidPt4.y,w.rigidPt4.z,w.rigidPt4.w);
 				} else {
-					partialRigidSE3(leftPoint,rigidIndex, rigidPt3.x,rigidPt3.y,rigidPt3.z,1);
+					partialRigidSE3(w,leftPoint,rigidIndex, w.rigidPt3.x,w.rigidPt3.y,w.rigidPt3.z,1);
 				}
 			}
 
@@ -344,37 +371,41 @@ public abstract class BundleAdjustmentMetricSchurJacobian<M extends DMatrix>
 	}
 
 
-	private void partialPoint3(DMatrix leftPoint, DMatrix rightView,
+	private void partialPoint3(Workspace w, DMatrix leftPoint, DMatrix rightView,
 							   int viewIndex, SceneStructureMetric.View view, int columnOfPointInJac) {
 		// partial of (R*X + T) with respect to X is a 3 by 3 matrix
 		// This turns out to be just R
 		// grad F(G(X)) = 2 x 3 matrix which is then multiplied by R
-		addToJacobian(leftPoint,columnOfPointInJac,pointGradX,pointGradY,worldToView.R);
+		addToJacobian(w,leftPoint,columnOfPointInJac,w.pointGradX,w.pointGradY,w.worldToView.R);
 
-		partialViewSE3(rightView,viewIndex, view, worldPt3.x, worldPt3.y, worldPt3.z, 1);
+		partialViewSE3(w,rightView,viewIndex, view, w.worldPt3.x, w.worldPt3.y, w.worldPt3.z, 1);
 	}
 
-	private void partialPointH( DMatrix leftPoint, DMatrix rightView,
+	private void partialPointH( Workspace w, DMatrix leftPoint, DMatrix rightView,
 								int viewIndex, SceneStructureMetric.View view, int columnOfPointInJac) {
 		// partial of (R*[x,y,z]' + T*w) with respect to X=[x,y,z,w] is a 3 by 4 matrix, [R|T]
 		//
 		// grad F(G(X)) = 2 x 4 matrix which is then multiplied by R
-		addToJacobian(leftPoint,columnOfPointInJac,pointGradX,pointGradY,worldToView.R);
-		addToJacobian(leftPoint,columnOfPointInJac+3,pointGradX,pointGradY,worldToView.T);
+		addToJacobian(w,leftPoint,columnOfPointInJac,w.pointGradX,w.pointGradY,w.worldToView.R);
+		addToJacobian(w,leftPoint,columnOfPointInJac+3,w.pointGradX,w.pointGradY,w.worldToView.T);
 
-		partialViewSE3(rightView,viewIndex, view, worldPt4.x, worldPt4.y, worldPt4.z, worldPt4.w);
+		partialViewSE3(w,rightView,viewIndex, view, w.worldPt4.x, w.worldPt4.y, w.worldPt4.z, w.worldPt4.w);
 	}
 
-	private void partialViewSE3( DMatrix rightView,
+	private void partialViewSE3( Workspace w, DMatrix rightView,
 								 int viewIndex, SceneStructureMetric.View view,
 								 double X, double Y, double Z , double W) {
 		if( !view.known ) {
 			int col = viewParameterIndexes[viewIndex];
+			final double[] pointGradX = w.pointGradX;
+			final double[] pointGradY = w.pointGradY;
+			final int jacRowX = w.jacRowX;
+			final int jacRowY = w.jacRowY;
 
 			//============== Partial of view rotation parameters
-			final int N = jacSO3.getParameterLength();
-			for (int i = 0; i < jacSO3.getParameterLength(); i++) {
-				addToJacobian(rightView, col+i, pointGradX, pointGradY, jacSO3.getPartial(i), X,Y,Z);
+			final int N = w.jacSO3.getParameterLength();
+			for (int i = 0; i < N; i++) {
+				addToJacobian(w, rightView, col+i, pointGradX, pointGradY, w.jacSO3.getPartial(i), X,Y,Z);
 			}
 
 			//============== Partial of view translation parameters
@@ -384,29 +415,34 @@ public abstract class BundleAdjustmentMetricSchurJacobian<M extends DMatrix>
 		}
 	}
 
-	private void partialRigidSE3(DMatrix leftPoint, int rigidIndex,
+	private void partialRigidSE3(Workspace w, DMatrix leftPoint, int rigidIndex,
 								 double X, double Y, double Z , double W) {
 		int col = rigidParameterIndexes[rigidIndex]+indexFirstRigid;
+		final double[] pointGradX = w.pointGradX;
+		final double[] pointGradY = w.pointGradY;
+		final DMatrixRMaj R = w.worldToView.R;
+		final int jacRowX = w.jacRowX;
+		final int jacRowY = w.jacRowY;
 
 		JacobianSo3 jac = jacRigidS03[rigidIndex];
 
 		//============== Partial of view rotation parameters
 		final int N = jac.getParameterLength();
 		for (int i = 0; i < N; i++) {
-			CommonOps_DDRM.mult(worldToView.R,jac.getPartial(i),RR);
-			addToJacobian(leftPoint, col+i, pointGradX, pointGradY, RR, X,Y,Z);
+			CommonOps_DDRM.mult(R,jac.getPartial(i),w.RR);
+			addToJacobian(w, leftPoint, col+i, pointGradX, pointGradY, w.RR, X,Y,Z);
 		}
 
 		//============== Partial of view translation parameters
 		// Apply rotation matrix to gradX and gradY.
 		// RX = gradX'*R
-		double RX0 = worldToView.R.data[0]*pointGradX[0] + worldToView.R.data[3]*pointGradX[1] + worldToView.R.data[6]*pointGradX[2];
-		double RX1 = worldToView.R.data[1]*pointGradX[0] + worldToView.R.data[4]*pointGradX[1] + worldToView.R.data[7]*pointGradX[2];
-		double RX2 = worldToView.R.data[2]*pointGradX[0] + worldToView.R.data[5]*pointGradX[1] + worldToView.R.data[8]*pointGradX[2];
+		double RX0 = R.data[0]*pointGradX[0] + R.data[3]*pointGradX[1] + R.data[6]*pointGradX[2];
+		double RX1 = R.data[1]*pointGradX[0] + R.data[4]*pointGradX[1] + R.data[7]*pointGradX[2];
+		double RX2 = R.data[2]*pointGradX[0] + R.data[5]*pointGradX[1] + R.data[8]*pointGradX[2];
 		// RY = gradY'*R
-		double RY0 = worldToView.R.data[0]*pointGradY[0] + worldToView.R.data[3]*pointGradY[1] + worldToView.R.data[6]*pointGradY[2];
-		double RY1 = worldToView.R.data[1]*pointGradY[0] + worldToView.R.data[4]*pointGradY[1] + worldToView.R.data[7]*pointGradY[2];
-		double RY2 = worldToView.R.data[2]*pointGradY[0] + worldToView.R.data[5]*pointGradY[1] + worldToView.R.data[8]*pointGradY[2];
+		double RY0 = R.data[0]*pointGradY[0] + R.data[3]*pointGradY[1] + R.data[6]*pointGradY[2];
+		double RY1 = R.data[1]*pointGradY[0] + R.data[4]*pointGradY[1] + R.data[7]*pointGradY[2];
+		double RY2 = R.data[2]*pointGradY[0] + R.data[5]*pointGradY[1] + R.data[8]*pointGradY[2];
 
 		set(leftPoint,jacRowX,col+N  , RX0*W); set(leftPoint,jacRowY,col+N  , RY0*W);
 		set(leftPoint,jacRowX,col+N+1, RX1*W); set(leftPoint,jacRowY,col+N+1, RY1*W);
@@ -416,35 +452,72 @@ public abstract class BundleAdjustmentMetricSchurJacobian<M extends DMatrix>
 	/**
 	 * J[rows,col:(col+3)] =  [a;b]*R
 	 */
-	private void addToJacobian(DMatrix tripplet, int col , double a[], double b[], DMatrixRMaj R ) {
-		set(tripplet,jacRowX,col+0,a[0]*R.data[0] + a[1]*R.data[3] + a[2]*R.data[6]);
-		set(tripplet,jacRowX,col+1,a[0]*R.data[1] + a[1]*R.data[4] + a[2]*R.data[7]);
-		set(tripplet,jacRowX,col+2,a[0]*R.data[2] + a[1]*R.data[5] + a[2]*R.data[8]);
-
-		set(tripplet,jacRowY,col+0,b[0]*R.data[0] + b[1]*R.data[3] + b[2]*R.data[6]);
-		set(tripplet,jacRowY,col+1,b[0]*R.data[1] + b[1]*R.data[4] + b[2]*R.data[7]);
-		set(tripplet,jacRowY,col+2,b[0]*R.data[2] + b[1]*R.data[5] + b[2]*R.data[8]);
+	private void addToJacobian(Workspace w, DMatrix tripplet, int col , double a[], double b[], DMatrixRMaj R ) {
+		set(tripplet,w.jacRowX,col+0,a[0]*R.data[0] + a[1]*R.data[3] + a[2]*R.data[6]);
+		set(tripplet,w.jacRowX,col+1,a[0]*R.data[1] + a[1]*R.data[4] + a[2]*R.data[7]);
+		set(tripplet,w.jacRowX,col+2,a[0]*R.data[2] + a[1]*R.data[5] + a[2]*R.data[8]);
+
+		set(tripplet,w.jacRowY,col+0,b[0]*R.data[0] + b[1]*R.data[3] + b[2]*R.data[6]);
+		set(tripplet,w.jacRowY,col+1,b[0]*R.data[1] + b[1]*R.data[4] + b[2]*R.data[7]);
+		set(tripplet,w.jacRowY,col+2,b[0]*R.data[2] + b[1]*R.data[5] + b[2]*R.data[8]);
 	}
 
-	private void addToJacobian(DMatrix tripplet, int col , double a[], double b[],
+	private void addToJacobian(Workspace w, DMatrix tripplet, int col , double a[], double b[],
 							   DMatrixRMaj R , double X, double Y, double Z  ) {
 
 		double x = R.data[0]*X + R.data[1]*Y + R.data[2]*Z;
 		double y = R.data[3]*X + R.data[4]*Y + R.data[5]*Z;
 		double z = R.data[6]*X + R.data[7]*Y + R.data[8]*Z;
 
-		set(tripplet,jacRowX,col,a[0]*x + a[1]*y + a[2]*z);
-		set(tripplet,jacRowY,col,b[0]*x + b[1]*y + b[2]*z);
+		set(tripplet,w.jacRowX,col,a[0]*x + a[1]*y + a[2]*z);
+		set(tripplet,w.jacRowY,col,b[0]*x + b[1]*y + b[2]*z);
 	}
 
 
-	private void addToJacobian(DMatrix tripplet, int col , double a[], double b[], Vector3D_F64 X  ) {
-		set(tripplet,jacRowX,col,a[0]*X.x + a[1]*X.y + a[2]*X.z);
-		set(tripplet,jacRowY,col,b[0]*X.x + b[1]*X.y + b[2]*X.z);
+	private void addToJacobian(Workspace w, DMatrix tripplet, int col , double a[], double b[], Vector3D_F64 X  ) {
+		set(tripplet,w.jacRowX,col,a[0]*X.x + a[1]*X.y + a[2]*X.z);
+		set(tripplet,w.jacRowY,col,b[0]*X.x + b[1]*X.y + b[2]*X.z);
 	}
 
 	/**
 	 * Abstract interface for settings the value of a matrix without knowing the type of matrix
 	 */
 	protected abstract void set( DMatrix matrix, int row , int col , double value );
+
+	/**
+	 * Storage which is modified while the Jacobian for a view is being computed.
+	 */
+	protected static class Workspace {
+		// used to compute the Jacobian of a rotation matrix
+		JacobianSo3 jacSO3 = new JacobianSo3Rodrigues();
+		Se3_F64 worldToView = new Se3_F64();
+
+		// feature location in world coordinates
+		Point3D_F64 worldPt3 = new Point3D_F64();
+		Point4D_F64 worldPt4 = new Point4D_F64();
+		// feature location in rigid body coordinates
+		Point3D_F64 rigidPt3 = new Point3D_F64();
+		Point4D_F64 rigidPt4 = new Point4D_F64();
+		// feature location in camera coordinates
+		Point3D_F64 cameraPt = new Point3D_F64();
+
+		// Jacobian matrix index of x and y partial
+		int jacRowX,jacRowY;
+
+		// Storage for gradients
+		double pointGradX[] = new double[3];
+		double pointGradY[] = new double[3];
+		double calibGradX[] = new double[0];
+		double calibGradY[] = new double[0];
+
+		// work space for R2*R1
+		DMatrixRMaj RR = new DMatrixRMaj(3,3);
+
+		void checkSize( int largestCameraSize ) {
+			if( calibGradX.length < largestCameraSize ) {
+				calibGradX = new double[largestCameraSize];
+				calibGradY = new double[largestCameraSize];
+			}
+		}
+	}
 }
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.geo.bundle;
+
+import boofcv.concurrency.BoofConcurrency;
+import org.ddogleg.struct.FastQueue;
+import org.ejml.data.DMatrix;
+import org.ejml.data.DMatrixSparseTriplet;
+
+/**
+ * Concurrent implementation of {@link BundleAdjustmentMetricSchurJacobian_DSCC}. Views are split between the
+ * threads and each thread writes into its own triplet matrices. The triplets are then merged in order
+ * of view before being converted into the compressed format, so the output is identical to the single
+ * threaded version.
+ *
+ * @author Peter Abeles
+ */
+public class BundleAdjustmentMetricSchurJacobian_DSCC_MT extends BundleAdjustmentMetricSchurJacobian_DSCC {
+
+	private FastQueue<BlockViews> blocks = new FastQueue<>(BlockViews.class, BlockViews::new);
+
+	@Override
+	protected void processAllViews(double[] input, DMatrix leftPoint, DMatrix rightView) {
+		final int numRows = leftPoint.getNumRows();
+		final int numColsLeft = leftPoint.getNumCols();
+		final int numColsRight = rightView.getNumCols();
+
+		blocks.reset(); // loopBlocks won't touch blocks if there are no views
+		BoofConcurrency.loopBlocks(0,structure.views.size,blocks,(b,idx0,idx1)->{
+			b.initialize(idx0,numRows,numColsLeft,numColsRight);
+			processViews(b.workspace,input,b.left,b.right,idx0,idx1);
+		});
+
+		BlockViewsTriplet.merge(blocks,(DMatrixSparseTriplet)leftPoint,(DMatrixSparseTriplet)rightView);
+	}
+
+	private static class BlockViews extends BlockViewsTriplet {
+		Workspace workspace = new Workspace();
+	}
+}
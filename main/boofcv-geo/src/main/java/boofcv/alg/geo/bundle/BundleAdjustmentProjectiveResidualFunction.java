@@ -44,28 +44,21 @@ import georegression.struct.point.Point4D_F64;
 public class BundleAdjustmentProjectiveResidualFunction
 	implements BundleAdjustmentSchur_DSCC.FunctionResiduals<SceneStructureProjective>
 {
-	private SceneStructureProjective structure;
-	private SceneObservations observations;
+	protected SceneStructureProjective structure;
+	protected SceneObservations observations;
 
 	// number of parameters being optimised
 	private int numParameters;
 	// number of observations.  2 for each point in each view
 	private int numObservations;
-
-
-	// Storage for rendered output
-	private Point2D_F64 predictedPixel = new Point2D_F64();
-	private PointIndex2D_F64 observedPixel = new PointIndex2D_F64();
+	// index of the first observation in each view
+	private int viewObservationIndexes[];
 
 	// Used to write the "unknown" paramters into the scene
 	private CodecSceneStructureProjective codec = new CodecSceneStructureProjective();
 
-	// Point in world frame
-	private Point3D_F64 p3 = new Point3D_F64();
-	private Point4D_F64 p4 = new Point4D_F64();
-
-	// Pixel in homogenous image coordinate
-	private Point3D_F64 pix = new Point3D_F64();
+	// Storage used when processing views in a single thread
+	private Workspace workspace = new Workspace();
 
 	/**
 	 * Specifies the scenes structure and observed feature locations
@@ -79,6 +72,13 @@ public class BundleAdjustmentProjectiveResidualFunction
 
 		numObservations = observations.getObservationCount();
 		numParameters = structure.getParameterCount();
+
+		// pre-compute the first observation in each view so that views can be processed independently
+		viewObservationIndexes = new int[structure.views.size];
+		for (int i = 0, index = 0; i < structure.views.size; i++) {
+			viewObservationIndexes[i] = index;
+			index += observations.views.get(i).size();
+		}
 	}
 
 	@Override
@@ -97,18 +97,37 @@ public class BundleAdjustmentProjectiveResidualFunction
 		// write the current parameters into the scene's structure
 		codec.decode(input,structure);
 
+		projectAllViews(output);
+	}
+
+	/**
+	 * Computes the residuals for observations in every view. The scene's structure must already be up to date.
+	 */
+	protected void projectAllViews( double[] output ) {
+		projectViews(workspace,output,0,structure.views.size);
+	}
+
+	/**
+	 * Computes the residuals for observations in the specified range of views
+	 *
+	 * @param w Storage for the views being processed
+	 * @param viewIdx0 First view, inclusive
+	 * @param viewIdx1 Last view, exclusive
+	 */
+	protected void projectViews( Workspace w , double[] output , int viewIdx0 , int viewIdx1 ) {
 		if( structure.homogenous )
-			project4(output);
+			project4(w,output,viewIdx0,viewIdx1);
 		else
-			project3(output);
+			project3(w,output,viewIdx0,viewIdx1);
 	}
 
 	/**
 	 * projection from 3D coordinates
 	 */
-	private void project3(double[] output) {
-		int observationIndex = 0;
-		for( int viewIndex = 0; viewIndex < structure.views.size; viewIndex++ ) {
+	private void project3(Workspace w, double[] output, int viewIdx0, int viewIdx1) {
+		final PointIndex2D_F64 observedPixel = w.observedPixel;
+		for( int viewIndex = viewIdx0; viewIndex < viewIdx1; viewIndex++ ) {
+			int observationIndex = viewObservationIndexes[viewIndex];
 			SceneStructureProjective.View view = structure.views.data[viewIndex];
 			SceneObservations.View obsView = observations.views.data[viewIndex];
 			SceneStructureCommon.Camera camera = structure.cameras.get(view.camera);
@@ -116,18 +135,18 @@ public class BundleAdjustmentProjectiveResidualFunction
 			for (int i = 0; i < obsView.size(); i++) {
 				obsView.get(i,observedPixel);
 				SceneStructureMetric.Point worldPt = structure.points.data[observedPixel.index];
-				worldPt.get(p3);
+				worldPt.get(w.p3);
 
 				// Apply projective camera to point in world coordinates
-				PerspectiveOps.renderPixel(view.worldToView,p3,pix);
+				PerspectiveOps.renderPixel(view.worldToView,w.p3,w.pix);
 
 				// Apply camera model to pixel in homogenous coordinates
-				camera.model.project(pix.x,pix.y,pix.z,predictedPixel);
+				camera.model.project(w.pix.x,w.pix.y,w.pix.z,w.predictedPixel);
 
 				// Save results
 				int outputIndex = observationIndex*2;
-				output[outputIndex  ] = predictedPixel.x - observedPixel.x;
-				output[outputIndex+1] = predictedPixel.y - observedPixel.y;
+				output[outputIndex  ] = w.predictedPixel.x - observedPixel.x;
+				output[outputIndex+1] = w.predictedPixel.y - observedPixel.y;
 				observationIndex++;
 			}
 		}
@@ -136,9 +155,10 @@ public class BundleAdjustmentProjectiveResidualFunction
 	/**
 	 * projection from homogenous coordinates
 	 */
-	private void project4(double[] output) {
-		int observationIndex = 0;
-		for( int viewIndex = 0; viewIndex < structure.views.size; viewIndex++ ) {
+	private void project4(Workspace w, double[] output, int viewIdx0, int viewIdx1) {
+		final PointIndex2D_F64 observedPixel = w.observedPixel;
+		for( int viewIndex = viewIdx0; viewIndex < viewIdx1; viewIndex++ ) {
+			int observationIndex = viewObservationIndexes[viewIndex];
 			SceneStructureProjective.View view = structure.views.data[viewIndex];
 			SceneObservations.View obsView = observations.views.data[viewIndex];
 			SceneStructureCommon.Camera camera = structure.cameras.get(view.camera);
@@ -146,20 +166,36 @@ public class BundleAdjustmentProjectiveResidualFunction
 			for (int i = 0; i < obsView.size(); i++) {
 				obsView.get(i,observedPixel);
 				SceneStructureMetric.Point worldPt = structure.points.data[observedPixel.index];
-				worldPt.get(p4);
+				worldPt.get(w.p4);
 
 				// Apply projective camera to point in world coordinates
-				PerspectiveOps.renderPixel(view.worldToView,p4,pix);
+				PerspectiveOps.renderPixel(view.worldToView,w.p4,w.pix);
 
 				// Apply camera model to pixel in homogenous coordinates
-				camera.model.project(pix.x,pix.y,pix.z,predictedPixel);
+				camera.model.project(w.pix.x,w.pix.y,w.pix.z,w.predictedPixel);
 
 				// Save results
 				int outputIndex = observationIndex*2;
-				output[outputIndex  ] = predictedPixel.x - observedPixel.x;
-				output[outputIndex+1] = predictedPixel.y - observedPixel.y;
+				output[outputIndex  ] = w.predictedPixel.x - observedPixel.x;
+				output[outputIndex+1] = w.predictedPixel.y - observedPixel.y;
 				observationIndex++;
 			}
 		}
 	}
+
+	/**
+	 * Storage which is modified while processing views
+	 */
+	protected static class Workspace {
+		// Storage for rendered output
+		Point2D_F64 predictedPixel = new Point2D_F64();
+		PointIndex2D_F64 observedPixel = new PointIndex2D_F64();
+
+		// Point in world frame
+		Point3D_F64 p3 = new Point3D_F64();
+		Point4D_F64 p4 = new Point4D_F64();
+
+		// Pixel in homogenous image coordinate
+		Point3D_F64 pix = new Point3D_F64();
+	}
 }
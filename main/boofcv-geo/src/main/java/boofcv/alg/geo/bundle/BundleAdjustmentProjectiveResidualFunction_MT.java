@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.geo.bundle;
+
+import boofcv.concurrency.BoofConcurrency;
+import org.ddogleg.struct.FastQueue;
+
+/**
+ * Concurrent implementation of {@link BundleAdjustmentProjectiveResidualFunction}. The scene is decoded once then
+ * views are split between the threads. Each view writes to its own rows in the output so the results are
+ * identical to the single threaded version.
+ *
+ * @author Peter Abeles
+ */
+public class BundleAdjustmentProjectiveResidualFunction_MT extends BundleAdjustmentProjectiveResidualFunction {
+
+	private FastQueue<Workspace> workspaces = new FastQueue<>(Workspace.class, Workspace::new);
+
+	@Override
+	protected void projectAllViews(double[] output) {
+		BoofConcurrency.loopBlocks(0,structure.views.size,workspaces,(w,idx0,idx1)->
+				projectViews(w,output,idx0,idx1));
+	}
+}
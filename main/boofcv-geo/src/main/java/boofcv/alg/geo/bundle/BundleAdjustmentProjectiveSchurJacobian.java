@@ -34,16 +34,18 @@ import javax.annotation.Nullable;
 /**
  * Computes the Jacobian for {@link BundleAdjustmentSchur} for generic matrices.
  *
+ * <p>
+ * Views are processed independently of each other. All the storage which is modified while processing a view
+ * is contained inside of {@link Workspace} so that concurrent implementations can process several views at once.
+ * </p>
+ *
  * @author Peter Abeles
  */
 public abstract class BundleAdjustmentProjectiveSchurJacobian<M extends DMatrix>
 		implements BundleAdjustmentSchur.Jacobian<SceneStructureProjective,M>
 {
-	private SceneStructureProjective structure;
-	private SceneObservations observations;
-
-	// work space for jacobian
-	private DMatrixRMaj worldToView = new DMatrixRMaj(3,4);
+	protected SceneStructureProjective structure;
+	protected SceneObservations observations;
 
 	// number of views with parameters that are going to be adjusted
 	private int numViewsUnknown;
@@ -54,12 +56,6 @@ public abstract class BundleAdjustmentProjectiveSchurJacobian<M extends DMatrix>
 	// length of a 3D point. 3 = regular, 4 = homogenous
 	private int lengthPoint;
 
-	// feature location in world coordinates
-	private Point4D_F64 worldPt = new Point4D_F64();
-
-	// Observed pixel in homogenous coordinates. X'=P*X
-	private Point3D_F64 pixelH = new Point3D_F64();
-
 	// index in parameters of the first point
 	private int indexFirstView;
 	private int indexLastView;
@@ -67,23 +63,13 @@ public abstract class BundleAdjustmentProjectiveSchurJacobian<M extends DMatrix>
 	private int viewParameterIndexes[];
 	// first index in input/parameters vector for each camera. Right side
 	private int cameraParameterIndexes[];
+	// index of the first observation in each view
+	private int viewObservationIndexes[];
+	// largest number of intrinsic parameters in a camera
+	private int largestCameraSize;
 
-	// Jacobian matrix index of x and y partial
-	private int jacRowX,jacRowY;
-
-	// Storage for gradients
-	private double worldGradX[] = new double[4];  // pixel homogeneous partial to world point homogeneous
-	private double worldGradY[] = new double[4];
-	private double worldGradZ[] = new double[4];
-	private double camGradX[] = new double[12];   // pixel homogeneous partial to camera matrix
-	private double camGradY[] = new double[12];
-	private double camGradZ[] = new double[12];
-	private double pixelhGradX[] = new double[3]; // 2D pixel partial to pixel homogeneous
-	private double pixelhGradY[] = new double[3];
-	private double intrGradX[] = null;            // 2D pixel partial to intrinsic camera parameters
-	private double intrGradY[] = null;
-	private double chainRuleX[] = new double[12]; // Storage for partial computed using chain rule
-	private double chainRuleY[] = new double[12];
+	// Storage used when processing views in a single thread
+	private Workspace workspace = new Workspace();
 
 	@Override
 	public void configure(SceneStructureProjective structure , SceneObservations observations ) {
@@ -91,7 +77,6 @@ public abstract class BundleAdjustmentProjectiveSchurJacobian<M extends DMatrix>
 		this.observations = observations;
 
 		if( !structure.isHomogenous() ) {
-			worldPt.w = 1;
 			lengthPoint = 3;
 		} else {
 			lengthPoint = 4;
@@ -112,9 +97,16 @@ public abstract class BundleAdjustmentProjectiveSchurJacobian<M extends DMatrix>
 			}
 		}
 
+		// pre-compute the first observation in each view so that views can be processed independently
+		viewObservationIndexes = new int[structure.views.size];
+		for (int i = 0, index = 0; i < structure.views.size; i++) {
+			viewObservationIndexes[i] = index;
+			index += observations.views.get(i).size();
+		}
+
 		// Create a lookup table for each camera. Camera ID to location in parameter vector
 		cameraParameterIndexes = new int[structure.cameras.size];
-		int largestCameraSize = 0;
+		largestCameraSize = 0;
 		for (int i = 0, index = 0; i < structure.cameras.size; i++) {
 			if( !structure.cameras.get(i).known ) {
 				cameraParameterIndexes[i] = index;
@@ -123,9 +115,6 @@ public abstract class BundleAdjustmentProjectiveSchurJacobian<M extends DMatrix>
 				index += count;
 			}
 		}
-
-		intrGradX = new double[largestCameraSize];
-		intrGradY = new double[largestCameraSize];
 	}
 
 	@Override
@@ -154,23 +143,47 @@ public abstract class BundleAdjustmentProjectiveSchurJacobian<M extends DMatrix>
 		leftPoint.zero();
 		rightView.zero();
 
-		int observationIndex = 0;
-		// first decode the transformation
-		for( int viewIndex = 0; viewIndex < structure.views.size; viewIndex++ ) {
+		processAllViews(input,leftPoint,rightView);
+	}
+
+	/**
+	 * Computes the Jacobian for observations in every view.
+	 */
+	protected void processAllViews( double[] input, DMatrix leftPoint, DMatrix rightView ) {
+		processViews(workspace,input,leftPoint,rightView,0,structure.views.size);
+	}
+
+	/**
+	 * Computes the Jacobian for observations in the specified range of views.
+	 *
+	 * @param w Storage for the views being processed
+	 * @param viewIdx0 First view, inclusive
+	 * @param viewIdx1 Last view, exclusive
+	 */
+	protected void processViews( Workspace w , double[] input, DMatrix leftPoint, DMatrix rightView,
+								 int viewIdx0 , int viewIdx1 ) {
+		w.checkSize(largestCameraSize);
+		final Point4D_F64 worldPt = w.worldPt;
+		if( !structure.isHomogenous() )
+			worldPt.w = 1;
+
+		for( int viewIndex = viewIdx0; viewIndex < viewIdx1; viewIndex++ ) {
 			SceneStructureProjective.View view = structure.views.data[viewIndex];
 			SceneStructureCommon.Camera camera = structure.cameras.data[view.camera];
 			int cameraParamStartIndex = cameraParameterIndexes[view.camera];
 
+			// first decode the transformation
 			if( !view.known ) {
 				int paramIndex = viewParameterIndexes[viewIndex]+indexFirstView;
 				for (int i = 0; i < 12; i++) {
-					worldToView.data[i] = input[paramIndex++];
+					w.worldToView.data[i] = input[paramIndex++];
 				}
 			} else {
-				worldToView.set(view.worldToView);
+				w.worldToView.set(view.worldToView);
 			}
 
 			SceneObservations.View obsView = observations.views.data[viewIndex];
+			int observationIndex = viewObservationIndexes[viewIndex];
 
 			for (int i = 0; i < obsView.size(); i++) {
 				int featureIndex = obsView.point.get(i);
@@ -184,72 +197,68 @@ public abstract class BundleAdjustmentProjectiveSchurJacobian<M extends DMatrix>
 				}
 
 				// X' = P*X
-				PerspectiveOps.renderPixel(worldToView,worldPt, pixelH);
+				PerspectiveOps.renderPixel(w.worldToView,worldPt, w.pixelH);
 
 				if (view.known) {
 					if( structure.isHomogenous())
 						partialCameraMatrixH(worldPt.x, worldPt.y, worldPt.z, worldPt.w,
-								worldToView, worldGradX, worldGradY, worldGradZ,null, null,null);
+								w.worldToView, w.worldGradX, w.worldGradY, w.worldGradZ,null, null,null);
 					else
 						partialCameraMatrix(worldPt.x, worldPt.y, worldPt.z,
-								worldToView, worldGradX, worldGradY, worldGradZ,null, null,null);
+								w.worldToView, w.worldGradX, w.worldGradY, w.worldGradZ,null, null,null);
 				} else {
 					if( structure.isHomogenous())
 						partialCameraMatrixH(worldPt.x, worldPt.y, worldPt.z, worldPt.w,
-								worldToView, worldGradX, worldGradY, worldGradZ, camGradX, camGradY, camGradZ);
+								w.worldToView, w.worldGradX, w.worldGradY, w.worldGradZ, w.camGradX, w.camGradY, w.camGradZ);
 					else
 						partialCameraMatrix(worldPt.x, worldPt.y, worldPt.z,
-								worldToView, worldGradX, worldGradY, worldGradZ,camGradX, camGradY, camGradZ);
+								w.worldToView, w.worldGradX, w.worldGradY, w.worldGradZ,w.camGradX, w.camGradY, w.camGradZ);
 				}
 
-				jacRowX = observationIndex*2;
-				jacRowY = jacRowX+1;
+				w.jacRowX = observationIndex*2;
+				w.jacRowY = w.jacRowX+1;
 
 				//============ Partial of camera parameters
 				if( !camera.known ) {
 					int N = camera.model.getIntrinsicCount();
-					camera.model.jacobian(pixelH.x, pixelH.y, pixelH.z,
-							pixelhGradX, pixelhGradY, true, intrGradX, intrGradY);
+					camera.model.jacobian(w.pixelH.x, w.pixelH.y, w.pixelH.z,
+							w.pixelhGradX, w.pixelhGradY, true, w.intrGradX, w.intrGradY);
 
 					int location = indexLastView-indexFirstView+cameraParamStartIndex;
 
 					// partial of residual (pixel) w.r.t. intrinsic camera parameters
 					for (int j = 0; j < N; j++) {
-						set(rightView,jacRowX,location+j, intrGradX[j]);
-						set(rightView,jacRowY,location+j, intrGradY[j]);
+						set(rightView,w.jacRowX,location+j, w.intrGradX[j]);
+						set(rightView,w.jacRowY,location+j, w.intrGradY[j]);
 					}
 				} else {
-					camera.model.jacobian(pixelH.x, pixelH.y, pixelH.z, pixelhGradX, pixelhGradY,
+					camera.model.jacobian(w.pixelH.x, w.pixelH.y, w.pixelH.z, w.pixelhGradX, w.pixelhGradY,
 							false, null, null);
 				}
 
 				//============ Partial of worldPt
 				// partial of residual (pixel) w.r.t. world point X
 				for (int j = 0; j < lengthPoint; j++) {
-					chainRuleX[j] = pixelhGradX[0]*worldGradX[j] + pixelhGradX[1]*worldGradY[j] + pixelhGradX[2]*worldGradZ[j];
-					chainRuleY[j] = pixelhGradY[0]*worldGradX[j] + pixelhGradY[1]*worldGradY[j] + pixelhGradY[2]*worldGradZ[j];
+					w.chainRuleX[j] = w.pixelhGradX[0]*w.worldGradX[j] + w.pixelhGradX[1]*w.worldGradY[j] + w.pixelhGradX[2]*w.worldGradZ[j];
+					w.chainRuleY[j] = w.pixelhGradY[0]*w.worldGradX[j] + w.pixelhGradY[1]*w.worldGradY[j] + w.pixelhGradY[2]*w.worldGradZ[j];
 				}
-				addToJacobian(leftPoint,columnOfPointInJac,lengthPoint, chainRuleX, chainRuleY);
+				addToJacobian(w,leftPoint,columnOfPointInJac,lengthPoint, w.chainRuleX, w.chainRuleY);
 
 				if( !view.known ) {
 					// partial of residual (pixel) w.r.t. camera matrix P
 					for (int j = 0; j < 12; j++) {
-						chainRuleX[j] = pixelhGradX[0]*camGradX[j] +  pixelhGradX[1]*camGradY[j] + pixelhGradX[2]*camGradZ[j];
-						chainRuleY[j] = pixelhGradY[0]*camGradX[j] +  pixelhGradY[1]*camGradY[j] + pixelhGradY[2]*camGradZ[j];
+						w.chainRuleX[j] = w.pixelhGradX[0]*w.camGradX[j] +  w.pixelhGradX[1]*w.camGradY[j] + w.pixelhGradX[2]*w.camGradZ[j];
+						w.chainRuleY[j] = w.pixelhGradY[0]*w.camGradX[j] +  w.pixelhGradY[1]*w.camGradY[j] + w.pixelhGradY[2]*w.camGradZ[j];
 					}
 
 					// partial of x' = (1/z)*P*X with respect to P is a 2 by 12 matrix
 					int col = viewParameterIndexes[viewIndex];
-					addToJacobian(rightView,col,12,chainRuleX,chainRuleY);
+					addToJacobian(w,rightView,col,12,w.chainRuleX,w.chainRuleY);
 				}
 
 				observationIndex++;
 			}
 		}
-
-//		left.print();
-//		right.print();
-//		System.out.println("Asdads");
 	}
 
 
@@ -338,10 +347,10 @@ public abstract class BundleAdjustmentProjectiveSchurJacobian<M extends DMatrix>
 		camGradZ[8] = X; camGradZ[9] = Y; camGradZ[10] = Z; camGradZ[11] = W;
 	}
 
-	private void addToJacobian(DMatrix tripplet, int col , int length, double a[], double b[]) {
+	private void addToJacobian(Workspace w, DMatrix tripplet, int col , int length, double a[], double b[]) {
 		for (int i = 0; i < length; i++) {
-			set(tripplet,jacRowX,col+i,a[i]);
-			set(tripplet,jacRowY,col+i,b[i]);
+			set(tripplet,w.jacRowX,col+i,a[i]);
+			set(tripplet,w.jacRowY,col+i,b[i]);
 		}
 	}
 
@@ -350,4 +359,41 @@ public abstract class BundleAdjustmentProjectiveSchurJacobian<M extends DMatrix>
 	 */
 	protected abstract void set( DMatrix matrix, int row , int col , double value );
 
+	/**
+	 * Storage which is modified while processing views
+	 */
+	protected static class Workspace {
+		// work space for jacobian
+		DMatrixRMaj worldToView = new DMatrixRMaj(3,4);
+
+		// feature location in world coordinates
+		Point4D_F64 worldPt = new Point4D_F64();
+
+		// Observed pixel in homogenous coordinates. X'=P*X
+		Point3D_F64 pixelH = new Point3D_F64();
+
+		// Jacobian matrix index of x and y partial
+		int jacRowX,jacRowY;
+
+		// Storage for gradients
+		double worldGradX[] = new double[4];  // pixel homogeneous partial to world point homogeneous
+		double worldGradY[] = new double[4];
+		double worldGradZ[] = new double[4];
+		double camGradX[] = new double[12];   // pixel homogeneous partial to camera matrix
+		double camGradY[] = new double[12];
+		double camGradZ[] = new double[12];
+		double pixelhGradX[] = new double[3]; // 2D pixel partial to pixel homogeneous
+		double pixelhGradY[] = new double[3];
+		double intrGradX[] = new double[0];   // 2D pixel partial to intrinsic camera parameters
+		double intrGradY[] = new double[0];
+		double chainRuleX[] = new double[12]; // Storage for partial computed using chain rule
+		double chainRuleY[] = new double[12];
+
+		void checkSize( int largestCameraSize ) {
+			if( intrGradX.length < largestCameraSize ) {
+				intrGradX = new double[largestCameraSize];
+				intrGradY = new double[largestCameraSize];
+			}
+		}
+	}
 }
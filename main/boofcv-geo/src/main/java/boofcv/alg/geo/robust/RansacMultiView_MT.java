@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boofcv.alg.geo.robust;
+
+import boofcv.alg.geo.DistanceFromModelMultiView;
+import boofcv.struct.calib.CameraPinhole;
+import org.ddogleg.fitting.modelset.DistanceFromModel;
+import org.ddogleg.fitting.modelset.ModelGenerator;
+import org.ddogleg.fitting.modelset.ModelManager;
+import org.ddogleg.struct.Factory;
+
+/**
+ * Extension of {@link Ransac_MT} for multiple calibrated camera views. The intrinsic parameters of each view
+ * are saved and passed on to every thread's distance function. Input point will be in normalized image coordinates
+ *
+ * @author Peter Abeles
+ */
+public class RansacMultiView_MT<Model,Point> extends Ransac_MT<Model,Point>
+		implements ModelMatcherMultiview<Model,Point>
+{
+	// intrinsic parameters for each view. null if a view hasn't been specified yet
+	private CameraPinhole[] intrinsics;
+
+	public RansacMultiView_MT(long randSeed,
+							  ModelManager<Model> modelManager,
+							  Factory<ModelGenerator<Model,Point>> factoryGenerator,
+							  Factory<DistanceFromModelMultiView<Model,Point>> factoryDistance,
+							  int maxIterations, double thresholdFit)
+	{
+		super(randSeed, modelManager, factoryGenerator, factoryDistance::newInstance, maxIterations, thresholdFit);
+		intrinsics = new CameraPinhole[getNumberOfViews()];
+	}
+
+	@Override
+	protected DistanceFromModel<Model,Point> createDistance() {
+		DistanceFromModelMultiView<Model,Point> d = (DistanceFromModelMultiView<Model,Point>)super.createDistance();
+		// this function is called by the parent's constructor before intrinsics is declared
+		if( intrinsics != null ) {
+			for (int view = 0; view < intrinsics.length; view++) {
+				if( intrinsics[view] != null )
+					d.setIntrinsic(view, intrinsics[view]);
+			}
+		}
+		return d;
+	}
+
+	@Override
+	public void setIntrinsic( int view , CameraPinhole intrinsic ) {
+		intrinsics[view] = new CameraPinhole(intrinsic);
+
+		((DistanceFromModelMultiView<Model,Point>)distance).setIntrinsic(view,intrinsic);
+		// every worker which has been declared, including ones which are not currently in use
+		for (int i = 0; i < workers.data.length; i++) {
+			Worker w = workers.data[i];
+			if( w != null )
+				((DistanceFromModelMultiView<Model,Point>)w.distance).setIntrinsic(view,intrinsic);
+		}
+	}
+
+	@Override
+	public int getNumberOfViews() {
+		return ((DistanceFromModelMultiView<Model,Point>)distance).getNumberOfViews();
+	}
+}
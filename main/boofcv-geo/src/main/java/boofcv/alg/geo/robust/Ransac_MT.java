@@ -0,0 +1,416 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boofcv.alg.geo.robust;
+
+import boofcv.concurrency.BoofConcurrency;
+import org.ddogleg.fitting.modelset.DistanceFromModel;
+import org.ddogleg.fitting.modelset.ModelGenerator;
+import org.ddogleg.fitting.modelset.ModelManager;
+import org.ddogleg.fitting.modelset.ModelMatcher;
+import org.ddogleg.struct.Factory;
+import org.ddogleg.struct.FastQueue;
+import org.ddogleg.struct.GrowQueue_I32;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ * Concurrent implementation of RANSAC. Hypotheses are generated and scored in parallel, with each thread
+ * owning its own copy of the {@link ModelGenerator} and {@link DistanceFromModel}, which are created using the
+ * provided factories. The random number generator is seeded at the start of every iteration with a hash of the
+ * seed and the iteration's index, which makes the selected model independent of the number of threads.
+ * </p>
+ *
+ * <p>
+ * When more than one hypothesis has the largest number of inliers, the one from the earliest iteration is
+ * selected. Once a model has been selected its inlier set is computed again in the calling thread. If a hypothesis
+ * with every point as an inlier is found then later iterations are skipped, but earlier ones are still considered.
+ * </p>
+ *
+ * <p>
+ * Bailout: Scoring of a hypothesis stops once it can no longer have more inliers than the best hypothesis any
+ * thread has found so far. This only skips hypotheses which can't be selected, so the results are unchanged.
+ * </p>
+ *
+ * <p>
+ * Ordered Sampling: If the input points are sorted from best to worst, e.g. by association score, then
+ * PROSAC [1] style sampling can be turned on. Early hypotheses are generated from a small pool of the best points
+ * and the pool grows until it includes every point. T_N in PROSAC is set to the maximum number of iterations.
+ * </p>
+ *
+ * <p>[1] Chum, Ondrej, and Jiri Matas. "Matching with PROSAC-progressive sample consensus."
+ * CVPR 2005. Vol. 1. IEEE, 2005.</p>
+ *
+ * @author Peter Abeles
+ */
+public class Ransac_MT<Model,Point> implements ModelMatcher<Model,Point> {
+
+	// used to create and copy models
+	protected ModelManager<Model> modelManager;
+
+	// creates the generator and distance function for each thread
+	protected Factory<ModelGenerator<Model,Point>> factoryGenerator;
+	protected Factory<DistanceFromModel<Model,Point>> factoryDistance;
+
+	// storage for each thread
+	protected FastQueue<Worker> workers;
+
+	// seed used to create the random number generator for each iteration
+	protected long randSeed;
+	// maximum number of hypotheses which are considered
+	protected int maxIterations;
+	// a point is an inlier if its distance from the model is less than this threshold
+	protected double thresholdFit;
+
+	// the number of points needed to generate a model
+	protected int minimumSize;
+
+	// If true then scoring of a hypothesis stops once it can't beat the best hypothesis
+	protected boolean bailout = true;
+	// If true then PROSAC style sampling is used. Input must be sorted from best to worst
+	protected boolean orderedSampling = false;
+	// number of points which can be sampled at each iteration when orderedSampling is true
+	protected GrowQueue_I32 poolSize = new GrowQueue_I32();
+	// largest number of inliers found by any thread so far
+	protected AtomicInteger sharedBestInliers = new AtomicInteger();
+	// earliest iteration which found a hypothesis with every point as an inlier
+	protected AtomicInteger firstAllInliers = new AtomicInteger();
+
+	// the best model which was found and its inliers
+	protected Model bestModel;
+	protected List<Point> matchSet = new ArrayList<>();
+	protected GrowQueue_I32 matchToInput = new GrowQueue_I32();
+	// number of points in the input data set
+	protected int totalPoints;
+
+	// used in the calling thread to find the inlier set of the best model
+	protected DistanceFromModel<Model,Point> distance;
+
+	/**
+	 * Specifies internal algorithms and parameters
+	 *
+	 * @param randSeed Seed for the random number generator
+	 * @param modelManager Used to create and copy models
+	 * @param factoryGenerator Creates a model generator for each thread
+	 * @param factoryDistance Creates a distance function for each thread
+	 * @param maxIterations Maximum number of iterations
+	 * @param thresholdFit A point is an inlier if its distance from the model is less than this threshold
+	 */
+	public Ransac_MT(long randSeed,
+					 ModelManager<Model> modelManager,
+					 Factory<ModelGenerator<Model,Point>> factoryGenerator,
+					 Factory<DistanceFromModel<Model,Point>> factoryDistance,
+					 int maxIterations, double thresholdFit) {
+		this.randSeed = randSeed;
+		this.modelManager = modelManager;
+		this.factoryGenerator = factoryGenerator;
+		this.factoryDistance = factoryDistance;
+		this.maxIterations = maxIterations;
+		this.thresholdFit = thresholdFit;
+
+		bestModel = modelManager.createModelInstance();
+		discardWorkers();
+	}
+
+	/**
+	 * Discards the generator and distance function owned by each thread. New ones will be created using the
+	 * factories the next time process is called. Call this if the configuration the factories use has changed.
+	 */
+	public void discardWorkers() {
+		workers = new FastQueue<>((Class)Worker.class, Worker::new);
+		distance = createDistance();
+		minimumSize = factoryGenerator.newInstance().getMinimumPoints();
+	}
+
+	@Override
+	public boolean process(List<Point> dataSet) {
+		matchSet.clear();
+		matchToInput.reset();
+		totalPoints = dataSet.size();
+
+		if( dataSet.size() < minimumSize )
+			return false;
+
+		if( orderedSampling )
+			computePoolSize(dataSet.size());
+		sharedBestInliers.set(0);
+		firstAllInliers.set(Integer.MAX_VALUE);
+
+		if( BoofConcurrency.USE_CONCURRENT ) {
+			BoofConcurrency.loopBlocks(0, maxIterations, workers, (worker, idx0, idx1) ->
+					worker.process(dataSet, idx0, idx1));
+		} else {
+			workers.resize(1);
+			workers.get(0).process(dataSet,0,maxIterations);
+		}
+
+		// select the best hypothesis. Ties go to the earliest iteration so that the results don't depend on
+		// how the iterations were split between threads
+		Worker best = null;
+		for (int i = 0; i < workers.size; i++) {
+			Worker w = workers.get(i);
+			if( w.bestIteration < 0 )
+				continue;
+			if( best == null || w.bestInliers > best.bestInliers ||
+					(w.bestInliers == best.bestInliers && w.bestIteration < best.bestIteration) )
+				best = w;
+		}
+
+		if( best == null )
+			return false;
+
+		modelManager.copyModel(best.bestModel,bestModel);
+
+		// find the inlier set for the best model
+		distance.setModel(bestModel);
+		for (int i = 0; i < dataSet.size(); i++) {
+			Point p = dataSet.get(i);
+			if( distance.computeDistance(p) < thresholdFit ) {
+				matchSet.add(p);
+				matchToInput.add(i);
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Computes the number of points which can be sampled at each iteration using the growth function from PROSAC.
+	 * T_N, the number of iterations until all points are used, is set to the maximum number of iterations.
+	 */
+	protected void computePoolSize( int N ) {
+		final int m = minimumSize;
+		poolSize.resize(maxIterations);
+
+		// expected number of samples drawn from the first n points, out of T_N total
+		double Tn = maxIterations;
+		for (int i = 0; i < m; i++) {
+			Tn *= (m-i)/(double)(N-i);
+		}
+		int n = m;
+		int Tprime = 1;
+		for (int t = 0; t < maxIterations; t++) {
+			// the growth function can lag behind when there are many points, so the final iteration uses all of them
+			while( (t+1 > Tprime || t+1 == maxIterations) && n < N ) {
+				double Tn1 = Tn*(n+1)/(n+1-m);
+				Tprime += (int)Math.ceil(Tn1-Tn);
+				Tn = Tn1;
+				n++;
+			}
+			poolSize.data[t] = n;
+		}
+	}
+
+	/**
+	 * Computes the seed used by the random number generator at the specified iteration. The iteration is mixed
+	 * into the seed using the SplitMix64 finalizer, since seeds which differ by a small amount produce
+	 * correlated sequences in {@link Random}.
+	 */
+	protected static long iterationSeed( long randSeed , int iteration ) {
+		long z = randSeed + (iteration+1L)*0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30))*0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27))*0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * Creates a distance function. Used by each thread and when selecting the inlier set.
+	 */
+	protected DistanceFromModel<Model,Point> createDistance() {
+		return factoryDistance.newInstance();
+	}
+
+	@Override
+	public Model getModelParameters() {
+		return bestModel;
+	}
+
+	@Override
+	public List<Point> getMatchSet() {
+		return matchSet;
+	}
+
+	@Override
+	public int getInputIndex(int matchIndex) {
+		return matchToInput.get(matchIndex);
+	}
+
+	/**
+	 * Number of points which are not in the inlier set. Lower values are better.
+	 */
+	@Override
+	public double getFitQuality() {
+		return totalPoints-matchSet.size();
+	}
+
+	@Override
+	public int getMinimumSize() {
+		return minimumSize;
+	}
+
+	@Override
+	public Class<Point> getPointType() {
+		return distance.getPointType();
+	}
+
+	@Override
+	public Class<Model> getModelType() {
+		return distance.getModelType();
+	}
+
+	public int getMaxIterations() {
+		return maxIterations;
+	}
+
+	public void setMaxIterations(int maxIterations) {
+		this.maxIterations = maxIterations;
+	}
+
+	public double getThresholdFit() {
+		return thresholdFit;
+	}
+
+	public void setThresholdFit(double thresholdFit) {
+		this.thresholdFit = thresholdFit;
+	}
+
+	public boolean isBailout() {
+		return bailout;
+	}
+
+	/**
+	 * If true then scoring of a hypothesis stops once it can't have more inliers than the best hypothesis.
+	 */
+	public void setBailout(boolean bailout) {
+		this.bailout = bailout;
+	}
+
+	public boolean isOrderedSampling() {
+		return orderedSampling;
+	}
+
+	/**
+	 * If true then PROSAC style sampling is used and the input points must be sorted from best to worst.
+	 */
+	public void setOrderedSampling(boolean orderedSampling) {
+		this.orderedSampling = orderedSampling;
+	}
+
+	/**
+	 * Generator, distance function, and storage owned by a single thread
+	 */
+	protected class Worker {
+		ModelGenerator<Model,Point> generator = factoryGenerator.newInstance();
+		DistanceFromModel<Model,Point> distance = createDistance();
+		Random rand = new Random();
+
+		// indexes of the points in the sample and the sampled points
+		GrowQueue_I32 selected = new GrowQueue_I32();
+		List<Point> sample = new ArrayList<>();
+
+		Model hypothesis = modelManager.createModelInstance();
+
+		// best hypothesis which this thread has seen
+		Model bestModel = modelManager.createModelInstance();
+		int bestInliers;
+		int bestIteration;
+
+		/**
+		 * Generates and scores the hypotheses for a range of iterations
+		 */
+		void process( List<Point> dataSet , int iteration0 , int iteration1 ) {
+			bestInliers = -1;
+			bestIteration = -1;
+			for (int iteration = iteration0; iteration < iteration1; iteration++) {
+				// a perfect hypothesis has already been found and this one can't be selected over it
+				if( iteration > firstAllInliers.get() )
+					break;
+				process(dataSet, iteration);
+			}
+		}
+
+		/**
+		 * Generates and scores the hypothesis for a single iteration
+		 */
+		void process( List<Point> dataSet , int iteration ) {
+			selectSample(dataSet, iteration);
+
+			if( !generator.generate(sample,hypothesis) )
+				return;
+
+			// iterations are processed in increasing order so a tie with this thread's best can't be better
+			// while a tie with another thread's best might be
+			int target = bailout ? Math.max(bestInliers+1,sharedBestInliers.get()) : 0;
+
+			final int N = dataSet.size();
+			distance.setModel(hypothesis);
+			int inliers = 0;
+			for (int i = 0; i < N; i++) {
+				if( distance.computeDistance(dataSet.get(i)) < thresholdFit )
+					inliers++;
+				else if( inliers + N-i-1 < target )
+					return;
+			}
+
+			if( inliers > bestInliers ) {
+				bestInliers = inliers;
+				bestIteration = iteration;
+				modelManager.copyModel(hypothesis,bestModel);
+				sharedBestInliers.accumulateAndGet(inliers,Math::max);
+				if( inliers == N )
+					firstAllInliers.accumulateAndGet(iteration,Math::min);
+			}
+		}
+
+		/**
+		 * Selects the sample for the specified iteration
+		 */
+		void selectSample( List<Point> dataSet , int iteration ) {
+			rand.setSeed(iterationSeed(randSeed,iteration));
+			if( orderedSampling )
+				randomSample(dataSet, poolSize.data[iteration]);
+			else
+				randomSample(dataSet, dataSet.size());
+		}
+
+		/**
+		 * Randomly selects the minimum number of unique points from the first 'pool' points. If the pool
+		 * doesn't include every point then the last point in the pool is always selected, as is done in PROSAC.
+		 */
+		void randomSample( List<Point> dataSet , int pool ) {
+			final int N = generator.getMinimumPoints();
+			selected.reset();
+			sample.clear();
+			if( pool < dataSet.size() ) {
+				selected.add(pool-1);
+				sample.add(dataSet.get(pool-1));
+				pool -= 1;
+			}
+			while( selected.size < N ) {
+				int index = rand.nextInt(pool);
+				if( selected.indexOf(index) >= 0 )
+					continue;
+				selected.add(index);
+				sample.add(dataSet.get(index));
+			}
+		}
+	}
+}
@@ -38,6 +38,15 @@ public class ConfigRansac implements Configuration {
 	 * Inlier threshold.
 	 */
 	public double inlierThreshold;
+	/**
+	 * If true then factories will use the concurrent implementation {@link boofcv.alg.geo.robust.Ransac_MT}.
+	 */
+	public boolean concurrent = false;
+	/**
+	 * If true then the input points are assumed to be sorted from best to worst and PROSAC style sampling is used.
+	 * Only supported by {@link boofcv.alg.geo.robust.Ransac_MT}, so {@link #concurrent} must also be true.
+	 */
+	public boolean orderedSampling = false;
 
 	public ConfigRansac(int maxIterations, double inlierThreshold) {
 		this.maxIterations = maxIterations;
@@ -49,6 +58,7 @@ public class ConfigRansac implements Configuration {
 
 	@Override
 	public void checkValidity() {
-
+		if( orderedSampling && !concurrent )
+			throw new IllegalArgumentException("orderedSampling requires concurrent to be true");
 	}
 }
@@ -123,6 +123,17 @@ public class FactoryMultiViewRobust {
 		// convert from pixels to pixels squared
 		double threshold = ransac.inlierThreshold*ransac.inlierThreshold;
 
+		if( useRansacMT(ransac) ) {
+			final EnumPNP which = pnp.which;
+			final int epnpIterations = pnp.epnpIterations;
+			final int numResolve = pnp.numResolve;
+			RansacMultiView_MT<Se3_F64,Point2D3D> alg = new RansacMultiView_MT<>(ransac.randSeed, manager,
+					()->new EstimatorToGenerator<>(FactoryMultiView.pnp_1(which, epnpIterations, numResolve)),
+					PnPDistanceReprojectionSq::new, ransac.maxIterations, threshold);
+			alg.setOrderedSampling(ransac.orderedSampling);
+			return alg;
+		}
+
 		return new RansacMultiView<>(ransac.randSeed, manager, generator, distance, ransac.maxIterations, threshold);
 	}
 
@@ -236,6 +247,20 @@ public class FactoryMultiViewRobust {
 
 		double ransacTOL = ransac.inlierThreshold * ransac.inlierThreshold * 2.0;
 
+		if( useRansacMT(ransac) ) {
+			final EnumEssential which = essential.which;
+			final int numResolve = essential.numResolve;
+			RansacMultiView_MT<Se3_F64,AssociatedPair> alg = new RansacMultiView_MT<>(ransac.randSeed, manager,
+					()->new Se3FromEssentialGenerator(FactoryMultiView.essential_1(which, numResolve),
+							FactoryMultiView.triangulate2ViewMetric(
+									new ConfigTriangulation(ConfigTriangulation.Type.GEOMETRIC))),
+					()->new DistanceSe3SymmetricSq(FactoryMultiView.triangulate2ViewMetric(
+							new ConfigTriangulation(ConfigTriangulation.Type.GEOMETRIC))),
+					ransac.maxIterations, ransacTOL);
+			alg.setOrderedSampling(ransac.orderedSampling);
+			return alg;
+		}
+
 		return new RansacMultiView<>(ransac.randSeed, manager, generateEpipolarMotion, distanceSe3,
 				ransac.maxIterations, ransacTOL);
 	}
@@ -265,6 +290,16 @@ public class FactoryMultiViewRobust {
 				new DistanceMultiView_EssentialSampson();
 		double ransacTOL = ransac.inlierThreshold * ransac.inlierThreshold;
 
+		if( useRansacMT(ransac) ) {
+			final EnumEssential which = essential.which;
+			final int numResolve = essential.numResolve;
+			RansacMultiView_MT<DMatrixRMaj,AssociatedPair> alg = new RansacMultiView_MT<>(ransac.randSeed, managerE,
+					()->new GenerateEpipolarMatrix(FactoryMultiView.essential_1(which, numResolve)),
+					DistanceMultiView_EssentialSampson::new, ransac.maxIterations, ransacTOL);
+			alg.setOrderedSampling(ransac.orderedSampling);
+			return alg;
+		}
+
 		return new RansacMultiView<>(ransac.randSeed, managerE, generateE, errorMetric,
 				ransac.maxIterations, ransacTOL);
 	}
@@ -300,6 +335,20 @@ public class FactoryMultiViewRobust {
 
 		double ransacTOL = ransac.inlierThreshold * ransac.inlierThreshold;
 
+		if( useRansacMT(ransac) ) {
+			final EnumFundamental which = fundamental.which;
+			final int numResolve = fundamental.numResolve;
+			final ConfigFundamental.ErrorModel errorModel = fundamental.errorModel;
+			Ransac_MT<DMatrixRMaj,AssociatedPair> alg = new Ransac_MT<>(ransac.randSeed, managerF,
+					()->new GenerateEpipolarMatrix(FactoryMultiView.fundamental_1(which, numResolve)),
+					()->errorModel == ConfigFundamental.ErrorModel.SAMPSON ?
+							new DistanceFromModelResidual<>(new FundamentalResidualSampson()) :
+							new DistanceFundamentalGeometric(),
+					ransac.maxIterations, ransacTOL);
+			alg.setOrderedSampling(ransac.orderedSampling);
+			return alg;
+		}
+
 		return new Ransac<>(ransac.randSeed, managerF, generateF, errorMetric, ransac.maxIterations, ransacTOL);
 	}
 
@@ -349,7 +398,7 @@ public class FactoryMultiViewRobust {
 	 * @param ransac Parameters for RANSAC.  Can't be null.
 	 * @return Homography estimator
 	 */
-	public static Ransac<Homography2D_F64,AssociatedPair>
+	public static ModelMatcher<Homography2D_F64,AssociatedPair>
 	homographyRansac( @Nullable ConfigHomography homography , @Nonnull ConfigRansac ransac )
 	{
 		if( homography == null )
@@ -361,6 +410,15 @@ public class FactoryMultiViewRobust {
 
 		double ransacTol = ransac.inlierThreshold*ransac.inlierThreshold;
 
+		if( useRansacMT(ransac) ) {
+			final boolean normalize = homography.normalize;
+			Ransac_MT<Homography2D_F64,AssociatedPair> alg = new Ransac_MT<>(ransac.randSeed, manager,
+					()->new GenerateHomographyLinear(normalize), DistanceHomographySq::new,
+					ransac.maxIterations, ransacTol);
+			alg.setOrderedSampling(ransac.orderedSampling);
+			return alg;
+		}
+
 		return new Ransac<>(ransac.randSeed, manager, modelFitter, distance, ransac.maxIterations, ransacTol);
 	}
 
@@ -396,7 +454,7 @@ public class FactoryMultiViewRobust {
 	 * @param ransac Configuration for RANSAC
 	 * @return RANSAC
 	 */
-	public static Ransac<TrifocalTensor, AssociatedTriple>
+	public static ModelMatcher<TrifocalTensor, AssociatedTriple>
 	trifocalRansac( @Nullable ConfigTrifocal trifocal ,
 					@Nullable ConfigTrifocalError error,
 					@Nonnull ConfigRansac ransac ) {
@@ -408,29 +466,55 @@ public class FactoryMultiViewRobust {
 		trifocal.checkValidity();
 
 		double ransacTol;
-		DistanceFromModel<TrifocalTensor,AssociatedTriple> distance;
 
 		switch( error.model) {
-			case REPROJECTION: {
-				ransacTol = 3.0*ransac.inlierThreshold*ransac.inlierThreshold;
-				distance = new DistanceTrifocalReprojectionSq();
-			} break;
+			case REPROJECTION:
 			case REPROJECTION_REFINE:
 				ransacTol = 3.0*ransac.inlierThreshold*ransac.inlierThreshold;
-				distance = new DistanceTrifocalReprojectionSq(error.converge.gtol,error.converge.maxIterations);
 				break;
 			case POINT_TRANSFER:
 				ransacTol = 2.0*ransac.inlierThreshold*ransac.inlierThreshold;
-				distance = new DistanceTrifocalTransferSq();
 				break;
 			default:
 				throw new IllegalArgumentException("Unknown error model "+error.model);
 		}
+		DistanceFromModel<TrifocalTensor,AssociatedTriple> distance = createTrifocalDistance(error);
 
 		Estimate1ofTrifocalTensor estimator = FactoryMultiView.trifocal_1(trifocal);
 		ModelManager<TrifocalTensor> manager = new ManagerTrifocalTensor();
 		ModelGenerator<TrifocalTensor,AssociatedTriple> generator = new GenerateTrifocalTensor(estimator);
 
+		if( useRansacMT(ransac) ) {
+			final ConfigTrifocal configTrifocal = trifocal;
+			final ConfigTrifocalError configError = error;
+			Ransac_MT<TrifocalTensor,AssociatedTriple> alg = new Ransac_MT<>(ransac.randSeed, manager,
+					()->new GenerateTrifocalTensor(FactoryMultiView.trifocal_1(configTrifocal)),
+					()->createTrifocalDistance(configError), ransac.maxIterations, ransacTol);
+			alg.setOrderedSampling(ransac.orderedSampling);
+			return alg;
+		}
+
 		return new Ransac<>(ransac.randSeed, manager, generator, distance, ransac.maxIterations, ransacTol);
 	}
+
+	private static DistanceFromModel<TrifocalTensor,AssociatedTriple> createTrifocalDistance( ConfigTrifocalError error ) {
+		switch( error.model) {
+			case REPROJECTION:
+				return new DistanceTrifocalReprojectionSq();
+			case REPROJECTION_REFINE:
+				return new DistanceTrifocalReprojectionSq(error.converge.gtol,error.converge.maxIterations);
+			case POINT_TRANSFER:
+				return new DistanceTrifocalTransferSq();
+			default:
+				throw new IllegalArgumentException("Unknown error model "+error.model);
+		}
+	}
+
+	/**
+	 * The concurrent implementation is only used if it has been explicitly requested
+	 */
+	private static boolean useRansacMT( ConfigRansac ransac ) {
+		ransac.checkValidity();
+		return ransac.concurrent;
+	}
 }
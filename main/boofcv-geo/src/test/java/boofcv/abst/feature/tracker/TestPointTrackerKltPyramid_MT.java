@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.abst.feature.tracker;
+
+import boofcv.abst.feature.detect.interest.ConfigGeneralDetector;
+import boofcv.alg.misc.ImageMiscOps;
+import boofcv.alg.tracker.klt.PkltConfig;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.factory.feature.tracker.FactoryPointTracker;
+import boofcv.struct.image.GrayF32;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Peter Abeles
+ */
+class TestPointTrackerKltPyramid_MT extends StandardPointTracker<GrayF32> {
+
+	boolean previousConcurrent;
+
+	TestPointTrackerKltPyramid_MT() {
+		super(false, true);
+	}
+
+	@BeforeEach
+	void turnOnConcurrency() {
+		previousConcurrent = BoofConcurrency.USE_CONCURRENT;
+		BoofConcurrency.USE_CONCURRENT = true;
+	}
+
+	@AfterEach
+	void restoreConcurrency() {
+		BoofConcurrency.USE_CONCURRENT = previousConcurrent;
+	}
+
+	@Override
+	public PointTracker<GrayF32> createTracker() {
+		return FactoryPointTracker.klt(new PkltConfig(), new ConfigGeneralDetector(200, 3, 1000, 0, true),
+				GrayF32.class, GrayF32.class);
+	}
+
+	/**
+	 * The single threaded and concurrent trackers should produce identical tracks
+	 */
+	@Test
+	void compare() {
+		BoofConcurrency.USE_CONCURRENT = false;
+		PointTracker<GrayF32> trackerA = createTracker();
+		BoofConcurrency.USE_CONCURRENT = true;
+		PointTracker<GrayF32> trackerB = createTracker();
+
+		assertTrue(trackerB instanceof PointTrackerKltPyramid_MT);
+
+		GrayF32 image = new GrayF32(320,240);
+		ImageMiscOps.fillUniform(image, rand, 0, 100);
+
+		for (int frame = 0; frame < 4; frame++) {
+			trackerA.process(image);
+			trackerB.process(image);
+
+			compare(trackerA.getActiveTracks(null), trackerB.getActiveTracks(null));
+			compare(trackerA.getDroppedTracks(null), trackerB.getDroppedTracks(null));
+
+			trackerA.spawnTracks();
+			trackerB.spawnTracks();
+
+			compare(trackerA.getNewTracks(null), trackerB.getNewTracks(null));
+			assertTrue(trackerA.getActiveTracks(null).size() > 50);
+
+			// by adding a little bit of noise the features should move slightly and some will be dropped
+			ImageMiscOps.addUniform(image,rand,0,20);
+		}
+	}
+
+	private void compare( List<PointTrack> listA , List<PointTrack> listB ) {
+		assertEquals(listA.size(), listB.size());
+		for (int i = 0; i < listA.size(); i++) {
+			PointTrack a = listA.get(i);
+			PointTrack b = listB.get(i);
+
+			assertEquals(a.featureId, b.featureId);
+			assertEquals(a.x, b.x, 0.0);
+			assertEquals(a.y, b.y, 0.0);
+		}
+	}
+}
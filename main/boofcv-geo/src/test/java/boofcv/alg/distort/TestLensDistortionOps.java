@@ -19,14 +19,18 @@
 package boofcv.alg.distort;
 
 import boofcv.alg.interpolate.impl.ImplBilinearPixel_U8;
+import boofcv.alg.misc.ImageMiscOps;
 import boofcv.struct.border.BorderType;
 import boofcv.struct.calib.CameraPinhole;
 import boofcv.struct.calib.CameraPinholeBrown;
 import boofcv.struct.image.GrayU8;
 import boofcv.struct.image.ImageType;
+import boofcv.testing.BoofTesting;
 import org.junit.jupiter.api.Test;
 
-import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
 
 /**
  * @author Peter Abeles
@@ -58,4 +62,42 @@ class TestLensDistortionOps {
 			}
 		}
 	}
+
+	/**
+	 * Distortions with the same models should share the same table when a cache is used
+	 */
+	@Test
+	void changeCameraModel_cache() {
+		CameraPinholeBrown original = new CameraPinholeBrown(200,200,0,200,200,400,400).fsetRadial(0.01,-0.001);
+		CameraPinhole desired = new CameraPinholeBrown(300,300,0,200,200,400,400);
+		CameraPinholeBrown other = new CameraPinholeBrown(200,200,0,200,200,400,400).fsetRadial(0.02,-0.001);
+
+		RemapTableCache cache = new RemapTableCache();
+		ImageType<GrayU8> imageType = ImageType.single(GrayU8.class);
+
+		ImageDistortCache_SB a = (ImageDistortCache_SB)LensDistortionOps.changeCameraModel(
+				AdjustmentType.FULL_VIEW, BorderType.ZERO,original,desired,null,imageType,cache);
+		ImageDistortCache_SB b = (ImageDistortCache_SB)LensDistortionOps.changeCameraModel(
+				AdjustmentType.FULL_VIEW, BorderType.ZERO,original,desired,null,imageType,cache);
+		ImageDistortCache_SB c = (ImageDistortCache_SB)LensDistortionOps.changeCameraModel(
+				AdjustmentType.FULL_VIEW, BorderType.ZERO,other,desired,null,imageType,cache);
+		ImageDistortCache_SB d = (ImageDistortCache_SB)LensDistortionOps.changeCameraModel(
+				AdjustmentType.EXPAND, BorderType.ZERO,original,desired,null,imageType,cache);
+
+		assertSame(a.getTable(),b.getTable());
+		assertNotSame(a.getTable(),c.getTable());
+		assertNotSame(a.getTable(),d.getTable());
+		assertEquals(3,cache.size());
+
+		// Output should be the same as when no cache is used
+		GrayU8 input = new GrayU8(400,400);
+		ImageMiscOps.fillUniform(input,new Random(234),0,200);
+		GrayU8 expected = input.createSameShape();
+		GrayU8 found = input.createSameShape();
+
+		LensDistortionOps.changeCameraModel(AdjustmentType.FULL_VIEW, BorderType.ZERO,original,desired,null,imageType).
+				apply(input,expected);
+		b.apply(input,found);
+		BoofTesting.assertEquals(expected,found,0);
+	}
 }
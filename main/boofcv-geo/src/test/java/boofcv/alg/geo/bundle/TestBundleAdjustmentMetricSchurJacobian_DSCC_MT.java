@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.geo.bundle;
+
+import boofcv.abst.geo.bundle.SceneObservations;
+import boofcv.abst.geo.bundle.SceneStructureMetric;
+import org.ejml.data.DMatrixSparseCSC;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static boofcv.alg.geo.bundle.TestBundleAdjustmentMetricResidualFunction.createObservations;
+import static boofcv.alg.geo.bundle.TestCodecSceneStructureMetric.createScene;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author Peter Abeles
+ */
+class TestBundleAdjustmentMetricSchurJacobian_DSCC_MT {
+	Random rand = new Random(48854);
+
+	/**
+	 * The concurrent implementation should produce exactly the same matrices
+	 */
+	@Test
+	void compareToSingleThread() {
+		compareToSingleThread(true,false);
+		compareToSingleThread(false,false);
+		compareToSingleThread(true,true);
+		compareToSingleThread(false,true);
+	}
+
+	void compareToSingleThread(boolean homogenous , boolean hasRigid) {
+		SceneStructureMetric structure = createScene(rand,homogenous, hasRigid);
+		SceneObservations observations = createObservations(rand,structure);
+
+		double param[] = new double[structure.getParameterCount()];
+		new CodecSceneStructureMetric().encode(structure,param);
+
+		BundleAdjustmentMetricSchurJacobian_DSCC single = new BundleAdjustmentMetricSchurJacobian_DSCC();
+		BundleAdjustmentMetricSchurJacobian_DSCC_MT multi = new BundleAdjustmentMetricSchurJacobian_DSCC_MT();
+		single.configure(structure,observations);
+		multi.configure(structure,observations);
+
+		DMatrixSparseCSC expectedLeft = new DMatrixSparseCSC(1,1), expectedRight = new DMatrixSparseCSC(1,1);
+		DMatrixSparseCSC foundLeft = new DMatrixSparseCSC(1,1), foundRight = new DMatrixSparseCSC(1,1);
+
+		single.process(param,expectedLeft,expectedRight);
+		// call it twice to make sure internal storage is correctly reset
+		multi.process(param,foundLeft,foundRight);
+		multi.process(param,foundLeft,foundRight);
+
+		checkIdentical(expectedLeft,foundLeft);
+		checkIdentical(expectedRight,foundRight);
+	}
+
+	static void checkIdentical( DMatrixSparseCSC expected , DMatrixSparseCSC found ) {
+		assertEquals(expected.numRows,found.numRows);
+		assertEquals(expected.numCols,found.numCols);
+		assertEquals(expected.nz_length,found.nz_length);
+		for (int col = 0; col <= expected.numCols; col++) {
+			assertEquals(expected.col_idx[col],found.col_idx[col]);
+		}
+		for (int i = 0; i < expected.nz_length; i++) {
+			assertEquals(expected.nz_rows[i],found.nz_rows[i]);
+			assertEquals(expected.nz_values[i],found.nz_values[i]);
+		}
+	}
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boofcv.alg.geo.robust;
+
+import boofcv.alg.geo.DistanceFromModelMultiView;
+import boofcv.struct.calib.CameraPinhole;
+import boofcv.struct.geo.AssociatedPair;
+import georegression.fitting.se.ModelManagerSe2_F64;
+import georegression.fitting.se.MotionSe2PointSVD_F64;
+import georegression.struct.se.Se2_F64;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * @author Peter Abeles
+ */
+class TestRansacMultiView_MT {
+	/**
+	 * Intrinsic parameters should be passed to every distance function, including ones created afterwards
+	 */
+	@Test
+	void setIntrinsic() {
+		RansacMultiView_MT<Se2_F64,AssociatedPair> alg = new RansacMultiView_MT<>(234, new ModelManagerSe2_F64(),
+				()->new GenerateSe2_AssociatedPair(new MotionSe2PointSVD_F64()),
+				Dummy::new, 20, 0.01);
+
+		assertEquals(2, alg.getNumberOfViews());
+		CameraPinhole intrinsic = new CameraPinhole(400,410,0,300,200,600,400);
+		alg.setIntrinsic(1, intrinsic);
+
+		checkDistance((Dummy)alg.distance, intrinsic);
+		for (int i = 0; i < alg.workers.data.length; i++) {
+			checkDistance((Dummy)alg.workers.data[i].distance, intrinsic);
+		}
+
+		// distance functions created after the intrinsic parameters were set
+		alg.discardWorkers();
+		checkDistance((Dummy)alg.distance, intrinsic);
+		checkDistance((Dummy)alg.createDistance(), intrinsic);
+	}
+
+	private void checkDistance( Dummy d , CameraPinhole expected ) {
+		assertNull(d.intrinsics[0]);
+		assertEquals(expected.fx, d.intrinsics[1].fx, 0.0);
+	}
+
+	static class Dummy implements DistanceFromModelMultiView<Se2_F64,AssociatedPair> {
+		DistanceSe2Sq alg = new DistanceSe2Sq();
+		CameraPinhole[] intrinsics = new CameraPinhole[2];
+
+		@Override public void setIntrinsic(int view, CameraPinhole intrinsic) { intrinsics[view] = intrinsic; }
+		@Override public int getNumberOfViews() { return 2; }
+		@Override public void setModel(Se2_F64 model) { alg.setModel(model); }
+		@Override public double computeDistance(AssociatedPair pt) { return alg.computeDistance(pt); }
+		@Override public void computeDistance(List<AssociatedPair> pts, double[] distance) { alg.computeDistance(pts,distance); }
+		@Override public Class<AssociatedPair> getPointType() { return AssociatedPair.class; }
+		@Override public Class<Se2_F64> getModelType() { return Se2_F64.class; }
+	}
+}
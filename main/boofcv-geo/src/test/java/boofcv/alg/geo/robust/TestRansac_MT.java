@@ -0,0 +1,246 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boofcv.alg.geo.robust;
+
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.concurrency.ConcurrencyScope;
+import boofcv.struct.geo.AssociatedPair;
+import georegression.fitting.se.ModelManagerSe2_F64;
+import georegression.fitting.se.MotionSe2PointSVD_F64;
+import georegression.struct.point.Point2D_F64;
+import georegression.struct.se.Se2_F64;
+import georegression.transform.se.SePointOps_F64;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Peter Abeles
+ */
+class TestRansac_MT {
+
+	Random rand = new Random(234);
+
+	Se2_F64 model = new Se2_F64(1.5,-0.5,0.4);
+	List<AssociatedPair> observations = new ArrayList<>();
+	int numInliers = 80;
+
+	TestRansac_MT() {
+		for (int i = 0; i < 100; i++) {
+			AssociatedPair p = new AssociatedPair();
+			p.p1.set(rand.nextGaussian()*5,rand.nextGaussian()*5);
+			if( i < numInliers ) {
+				SePointOps_F64.transform(model,p.p1,p.p2);
+			} else {
+				p.p2.set(rand.nextGaussian()*5,rand.nextGaussian()*5);
+			}
+			observations.add(p);
+		}
+	}
+
+	Ransac_MT<Se2_F64,AssociatedPair> create() {
+		return new Ransac_MT<>(234, new ModelManagerSe2_F64(),
+				()->new GenerateSe2_AssociatedPair(new MotionSe2PointSVD_F64()),
+				DistanceSe2Sq::new, 200, 0.01);
+	}
+
+	/**
+	 * Should find the model and all the inliers
+	 */
+	@Test
+	void perfectInliers() {
+		Ransac_MT<Se2_F64,AssociatedPair> alg = create();
+
+		assertTrue(alg.process(observations));
+
+		Se2_F64 found = alg.getModelParameters();
+		assertEquals(model.T.x, found.T.x, 1e-8);
+		assertEquals(model.T.y, found.T.y, 1e-8);
+		assertEquals(model.getYaw(), found.getYaw(), 1e-8);
+
+		assertEquals(numInliers, alg.getMatchSet().size());
+		assertEquals(observations.size()-numInliers, alg.getFitQuality(), 1e-8);
+		for (int i = 0; i < numInliers; i++) {
+			assertSame(observations.get(alg.getInputIndex(i)), alg.getMatchSet().get(i));
+			assertTrue(alg.getInputIndex(i) < numInliers);
+		}
+	}
+
+	/**
+	 * The number of threads should not change which model is selected
+	 */
+	@Test
+	void independentOfThreads() {
+		// add noise so that different hypotheses have different scores
+		for (int i = 0; i < numInliers; i++) {
+			Point2D_F64 p = observations.get(i).p2;
+			p.x += rand.nextGaussian()*0.05;
+			p.y += rand.nextGaussian()*0.05;
+		}
+
+		Ransac_MT<Se2_F64,AssociatedPair> expected = create();
+		Ransac_MT<Se2_F64,AssociatedPair> found = create();
+
+		try( ConcurrencyScope ignored = BoofConcurrency.openScope(1) ) {
+			assertTrue(expected.process(observations));
+		}
+		assertTrue(found.process(observations));
+
+		Se2_F64 a = expected.getModelParameters();
+		Se2_F64 b = found.getModelParameters();
+		assertEquals(a.T.x, b.T.x, 0.0);
+		assertEquals(a.T.y, b.T.y, 0.0);
+		assertEquals(a.getYaw(), b.getYaw(), 0.0);
+		assertEquals(expected.getMatchSet().size(), found.getMatchSet().size());
+	}
+
+	/**
+	 * Bailing out early should only skip hypotheses which can't be selected
+	 */
+	@Test
+	void bailoutSameResults() {
+		for (int i = 0; i < numInliers; i++) {
+			Point2D_F64 p = observations.get(i).p2;
+			p.x += rand.nextGaussian()*0.05;
+			p.y += rand.nextGaussian()*0.05;
+		}
+
+		Ransac_MT<Se2_F64,AssociatedPair> expected = create();
+		Ransac_MT<Se2_F64,AssociatedPair> found = create();
+		expected.setBailout(false);
+		found.setBailout(true);
+
+		assertTrue(expected.process(observations));
+		assertTrue(found.process(observations));
+
+		Se2_F64 a = expected.getModelParameters();
+		Se2_F64 b = found.getModelParameters();
+		assertEquals(a.T.x, b.T.x, 0.0);
+		assertEquals(a.T.y, b.T.y, 0.0);
+		assertEquals(a.getYaw(), b.getYaw(), 0.0);
+		assertEquals(expected.getMatchSet().size(), found.getMatchSet().size());
+	}
+
+	/**
+	 * Inliers are at the start of the list, so ordered sampling should find the model right away
+	 */
+	@Test
+	void orderedSampling() {
+		Ransac_MT<Se2_F64,AssociatedPair> alg = create();
+		alg.setOrderedSampling(true);
+		alg.setMaxIterations(3);
+
+		assertTrue(alg.process(observations));
+
+		Se2_F64 found = alg.getModelParameters();
+		assertEquals(model.T.x, found.T.x, 1e-8);
+		assertEquals(model.T.y, found.T.y, 1e-8);
+		assertEquals(model.getYaw(), found.getYaw(), 1e-8);
+		assertEquals(numInliers, alg.getMatchSet().size());
+	}
+
+	/**
+	 * The sampling pool should start at the minimum size, never shrink, and include every point at the end
+	 */
+	@Test
+	void computePoolSize() {
+		Ransac_MT<Se2_F64,AssociatedPair> alg = create();
+		alg.computePoolSize(observations.size());
+
+		assertEquals(alg.getMaxIterations(), alg.poolSize.size);
+		assertEquals(alg.getMinimumSize(), alg.poolSize.get(0));
+		for (int i = 1; i < alg.poolSize.size; i++) {
+			assertTrue(alg.poolSize.get(i) >= alg.poolSize.get(i-1));
+		}
+		assertEquals(observations.size(), alg.poolSize.get(alg.poolSize.size-1));
+	}
+
+	/**
+	 * Each iteration should draw a different minimal set, even though the seeds are derived from neighboring indexes
+	 */
+	@Test
+	void sampleDiversity() {
+		Ransac_MT<Se2_F64,AssociatedPair> alg = create();
+		Ransac_MT<Se2_F64,AssociatedPair>.Worker worker = alg.workers.grow();
+
+		Set<List<Integer>> found = new HashSet<>();
+		Set<Integer> steps = new HashSet<>();
+		List<Integer> previous = new ArrayList<>();
+		int previousFirst = -1;
+		for (int iteration = 0; iteration < alg.getMaxIterations(); iteration++) {
+			worker.selectSample(observations, iteration);
+			assertEquals(alg.getMinimumSize(), worker.selected.size);
+
+			List<Integer> set = new ArrayList<>();
+			for (int i = 0; i < worker.selected.size; i++) {
+				set.add(worker.selected.get(i));
+			}
+			// seeding with neighboring values makes the first index advance by one of only a few step sizes
+			if( previousFirst >= 0 )
+				steps.add(Math.floorMod(set.get(0)-previousFirst,observations.size()));
+			previousFirst = set.get(0);
+			Collections.sort(set);
+			assertNotEquals(previous, set);
+			found.add(set);
+			previous = set;
+		}
+		// a few duplicates are expected by chance, but not many
+		assertTrue(found.size() >= alg.getMaxIterations()*0.95);
+		assertTrue(steps.size() > observations.size()/2);
+	}
+
+	/**
+	 * Iterations after a hypothesis with every point as an inlier is found should be skipped without changing the
+	 * results
+	 */
+	@Test
+	void allInliersEarlyExit() {
+		observations = observations.subList(0,numInliers);
+
+		AtomicInteger count = new AtomicInteger();
+		int maxIterations = 1000;
+		Ransac_MT<Se2_F64,AssociatedPair> alg = new Ransac_MT<>(234, new ModelManagerSe2_F64(),
+				()->new GenerateSe2_AssociatedPair(new MotionSe2PointSVD_F64()) {
+					@Override
+					public boolean generate(List<AssociatedPair> dataSet, Se2_F64 output) {
+						count.incrementAndGet();
+						return super.generate(dataSet, output);
+					}
+				},
+				DistanceSe2Sq::new, maxIterations, 0.01);
+
+		assertTrue(alg.process(observations));
+		assertTrue(count.get() < maxIterations);
+		assertEquals(numInliers, alg.getMatchSet().size());
+		assertEquals(0, alg.firstAllInliers.get());
+
+		Se2_F64 found = alg.getModelParameters();
+		assertEquals(model.T.x, found.T.x, 1e-8);
+		assertEquals(model.T.y, found.T.y, 1e-8);
+		assertEquals(model.getYaw(), found.getYaw(), 1e-8);
+	}
+
+	@Test
+	void tooFewPoints() {
+		Ransac_MT<Se2_F64,AssociatedPair> alg = create();
+		assertFalse(alg.process(observations.subList(0,alg.getMinimumSize()-1)));
+	}
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.io.geo;
+
+import boofcv.abst.geo.bundle.BundleAdjustmentSchur;
+import boofcv.abst.geo.bundle.SceneObservations;
+import boofcv.abst.geo.bundle.SceneStructureMetric;
+import boofcv.alg.geo.bundle.*;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.io.UtilIO;
+import org.ejml.data.DMatrixSparseCSC;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the residual and Jacobian functions used by sparse metric bundle adjustment on a scene from the
+ * Bundle Adjustment in the Large (BAL) data set. The number of threads is varied to show how well the
+ * concurrent implementations scale. A single thread will use the non-concurrent implementations.
+ *
+ * @author Peter Abeles
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+@Fork(value=1)
+public class BenchmarkBundleAdjustmentFunctions {
+	@Param({"1","2","4","8"})
+	public int threads;
+
+	// Path to a BAL file
+	@Param({"sfm/problem-16-22106-pre.txt"})
+	public String file;
+
+	double[] parameters;
+	double[] residuals;
+	DMatrixSparseCSC left = new DMatrixSparseCSC(1,1);
+	DMatrixSparseCSC right = new DMatrixSparseCSC(1,1);
+
+	BundleAdjustmentSchur.FunctionResiduals<SceneStructureMetric> residual;
+	BundleAdjustmentSchur.Jacobian<SceneStructureMetric,DMatrixSparseCSC> jacobian;
+
+	@Setup
+	public void setup() throws IOException {
+		BoofConcurrency.setMaxThreads(threads);
+
+		CodecBundleAdjustmentInTheLarge parser = new CodecBundleAdjustmentInTheLarge();
+		parser.parse(new File(UtilIO.pathExample(file)));
+		SceneStructureMetric scene = parser.scene;
+		SceneObservations observations = parser.observations;
+
+		if( threads > 1 ) {
+			residual = new BundleAdjustmentMetricResidualFunction_MT();
+			jacobian = new BundleAdjustmentMetricSchurJacobian_DSCC_MT();
+		} else {
+			residual = new BundleAdjustmentMetricResidualFunction();
+			jacobian = new BundleAdjustmentMetricSchurJacobian_DSCC();
+		}
+		residual.configure(scene,observations);
+		jacobian.configure(scene,observations);
+
+		parameters = new double[scene.getParameterCount()];
+		new CodecSceneStructureMetric().encode(scene,parameters);
+		residuals = new double[residual.getNumOfOutputsM()];
+	}
+
+	@TearDown
+	public void teardown() {
+		// restore the default thread pool
+		BoofConcurrency.setMaxThreads(Runtime.getRuntime().availableProcessors());
+	}
+
+	@Benchmark
+	public void residuals() {
+		residual.process(parameters,residuals);
+	}
+
+	@Benchmark
+	public void jacobian() {
+		jacobian.process(parameters,left,right);
+	}
+}
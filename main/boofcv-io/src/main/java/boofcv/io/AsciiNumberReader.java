@@ -0,0 +1,273 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.io;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * <p>
+ * Reads white space separated numbers from a stream of ASCII characters. Bytes are read directly from the stream
+ * into an internal buffer and numbers are parsed from there without creating a String for each word, which makes
+ * it much faster than tokenizing lines when reading large data files.
+ * </p>
+ *
+ * <p>
+ * Decimal numbers with up to 15 significant digits and a small exponent are converted exactly. Anything else,
+ * e.g. more digits, "NaN", or hexadecimal, falls back on {@link Double#parseDouble}. Floats are computed from
+ * the same value and can differ from {@link Float#parseFloat} by one bit in rare cases.
+ * </p>
+ *
+ * @author Peter Abeles
+ */
+public class AsciiNumberReader {
+	// Powers of 10 which can be represented exactly by a double
+	private static final double[] POW10 = {
+			1e0,1e1,1e2,1e3,1e4,1e5,1e6,1e7,1e8,1e9,1e10,1e11,
+			1e12,1e13,1e14,1e15,1e16,1e17,1e18,1e19,1e20,1e21,1e22};
+	// Largest mantissa which can be represented exactly by a double
+	private static final long MAX_EXACT = 1L << 53;
+	// Number of digits in the mantissa which can be safely stored in a long
+	private static final int MAX_DIGITS = 18;
+
+	private InputStream input;
+
+	// Data read from the input stream
+	private byte[] buffer;
+	private int length;
+	private int index;
+
+	// Characters in the most recently read word
+	private char[] word = new char[64];
+	private int wordLength;
+
+	public AsciiNumberReader( int bufferSize ) {
+		this.buffer = new byte[bufferSize];
+	}
+
+	public AsciiNumberReader() {
+		this(1 << 16);
+	}
+
+	/**
+	 * Specifies the stream which numbers are read from. The stream isn't closed by this class.
+	 */
+	public void setInput( InputStream input ) {
+		this.input = input;
+		this.length = 0;
+		this.index = 0;
+	}
+
+	/**
+	 * Returns true if there's another word in the stream
+	 */
+	public boolean hasNext() throws IOException {
+		return skipWhiteSpace();
+	}
+
+	public int nextInt() throws IOException {
+		long value = nextLong();
+		if( value < Integer.MIN_VALUE || value > Integer.MAX_VALUE )
+			throw new NumberFormatException("Integer out of range: "+new String(word,0,wordLength));
+		return (int)value;
+	}
+
+	public long nextLong() throws IOException {
+		readWord();
+
+		int i = 0;
+		boolean negative = false;
+		if( word[0] == '-' ) {
+			negative = true;
+			i++;
+		} else if( word[0] == '+' ) {
+			i++;
+		}
+		if( i == wordLength )
+			throw new NumberFormatException("Not an integer: "+new String(word,0,wordLength));
+
+		long value = 0;
+		for (; i < wordLength; i++) {
+			int digit = word[i]-'0';
+			if( digit < 0 || digit > 9 || value > (Long.MAX_VALUE-digit)/10 )
+				throw new NumberFormatException("Not an integer: "+new String(word,0,wordLength));
+			value = value*10 + digit;
+		}
+		return negative ? -value : value;
+	}
+
+	public double nextDouble() throws IOException {
+		readWord();
+		return parseWord(false);
+	}
+
+	public float nextFloat() throws IOException {
+		readWord();
+		return (float)parseWord(true);
+	}
+
+	/**
+	 * Parses the current word as a decimal number
+	 *
+	 * @param approximate If true a value which has been rounded more than once is acceptable
+	 */
+	private double parseWord( boolean approximate ) {
+		int i = 0;
+		boolean negative = false;
+		if( word[0] == '-' ) {
+			negative = true;
+			i++;
+		} else if( word[0] == '+' ) {
+			i++;
+		}
+
+		long mantissa = 0;
+		int digits = 0;
+		int exponent = 0;
+		boolean truncated = false;
+		boolean foundDigit = false;
+
+		// integer part
+		for (; i < wordLength; i++) {
+			int digit = word[i]-'0';
+			if( digit < 0 || digit > 9 )
+				break;
+			foundDigit = true;
+			if( digits < MAX_DIGITS ) {
+				if( mantissa != 0 || digit != 0 ) {
+					mantissa = mantissa*10 + digit;
+					digits++;
+				}
+			} else {
+				exponent++;
+				truncated |= digit != 0;
+			}
+		}
+
+		// fractional part
+		if( i < wordLength && word[i] == '.' ) {
+			for (i++; i < wordLength; i++) {
+				int digit = word[i]-'0';
+				if( digit < 0 || digit > 9 )
+					break;
+				foundDigit = true;
+				if( digits < MAX_DIGITS ) {
+					if( mantissa != 0 || digit != 0 ) {
+						mantissa = mantissa*10 + digit;
+						digits++;
+					}
+					exponent--;
+				} else {
+					truncated |= digit != 0;
+				}
+			}
+		}
+
+		// exponent
+		if( foundDigit && i < wordLength && (word[i] == 'e' || word[i] == 'E') ) {
+			i++;
+			boolean negativeExp = false;
+			if( i < wordLength && (word[i] == '-' || word[i] == '+') ) {
+				negativeExp = word[i] == '-';
+				i++;
+			}
+			int start = i;
+			int value = 0;
+			for (; i < wordLength; i++) {
+				int digit = word[i]-'0';
+				if( digit < 0 || digit > 9 )
+					break;
+				// large values are handled by the fall back
+				if( value < 10000 )
+					value = value*10 + digit;
+			}
+			if( start == i )
+				foundDigit = false;
+			exponent += negativeExp ? -value : value;
+		}
+
+		if( foundDigit && i == wordLength ) {
+			if( mantissa == 0 )
+				return negative ? -0.0 : 0.0;
+
+			if( exponent >= -22 && exponent <= 22 && (approximate || (!truncated && mantissa <= MAX_EXACT)) ) {
+				double value = exponent >= 0 ? mantissa*POW10[exponent] : mantissa/POW10[-exponent];
+				return negative ? -value : value;
+			}
+		}
+
+		// Not a simple decimal number or can't be converted exactly
+		String s = new String(word,0,wordLength);
+		return approximate ? Float.parseFloat(s) : Double.parseDouble(s);
+	}
+
+	/**
+	 * Copies the next word into the word buffer
+	 */
+	private void readWord() throws IOException {
+		if( !skipWhiteSpace() )
+			throw new EOFException("Unexpected end of stream");
+
+		wordLength = 0;
+		while( true ) {
+			if( index == length && !fillBuffer() )
+				break;
+			int c = buffer[index] & 0xFF;
+			if( isWhiteSpace(c) )
+				break;
+			if( wordLength == word.length ) {
+				char[] tmp = new char[word.length*2];
+				System.arraycopy(word,0,tmp,0,wordLength);
+				word = tmp;
+			}
+			word[wordLength++] = (char)c;
+			index++;
+		}
+	}
+
+	/**
+	 * Skips over white space
+	 *
+	 * @return true if there are more characters, false if the end of the stream has been reached
+	 */
+	private boolean skipWhiteSpace() throws IOException {
+		while( true ) {
+			if( index == length && !fillBuffer() )
+				return false;
+			if( !isWhiteSpace(buffer[index] & 0xFF) )
+				return true;
+			index++;
+		}
+	}
+
+	private boolean fillBuffer() throws IOException {
+		length = input.read(buffer,0,buffer.length);
+		index = 0;
+		if( length <= 0 ) {
+			length = 0;
+			return false;
+		}
+		return true;
+	}
+
+	private static boolean isWhiteSpace( int c ) {
+		return c == ' ' || c == '\n' || c == '\r' || c == '\t' || c == '\f';
+	}
+}
@@ -22,36 +22,78 @@ import boofcv.abst.geo.bundle.SceneObservations;
 import boofcv.abst.geo.bundle.SceneObservations.View;
 import boofcv.abst.geo.bundle.SceneStructureMetric;
 import boofcv.alg.geo.bundle.cameras.BundlePinholeSnavely;
+import boofcv.io.AsciiNumberReader;
 import boofcv.io.UtilIO;
 import boofcv.struct.geo.PointIndex2D_F64;
 import georegression.geometry.ConvertRotation3D_F64;
-import georegression.struct.point.Point3D_F64;
 import georegression.struct.se.Se3_F64;
 import georegression.struct.so.Rodrigues_F64;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
 
 /**
- * Reading and writing data in the Bundle Adjustment in the Large format.
+ * <p>
+ * Reading and writing data in the Bundle Adjustment in the Large format. Text files are parsed by reading numbers
+ * directly from the stream using {@link AsciiNumberReader}.
+ * </p>
+ *
+ * <p>
+ * A binary format is also supported which is much faster to read and write and is intended for saving
+ * and restoring checkpoints. Values are saved exactly. All values are little endian and the file
+ * is read by memory mapping it. Layout:
+ * </p>
+ * <pre>
+ * int32    BINARY_MAGIC
+ * int32    BINARY_VERSION
+ * int32    number of views/cameras
+ * int32    number of points
+ * int32    number of observations
+ * int32    padding so that the arrays are 8-byte aligned
+ * float64  for each view: f, k1, k2, R (3x3 row-major), T (x,y,z)
+ * float64  for each point: x, y, z
+ * int32    for each view: number of observations
+ * int32    for each observation: point ID. Ordered by view
+ * float32  for each observation: pixel x, y. Ordered by view
+ * </pre>
  *
  * @author Peter Abeles
  */
 public class CodecBundleAdjustmentInTheLarge {
+    /** Identifies the binary format. "BALB" when read as ASCII */
+    public static final int BINARY_MAGIC = 0x424C4142;
+    /** Version of the binary format */
+    public static final int BINARY_VERSION = 1;
+    // size of the binary header in bytes
+    private static final int HEADER_BYTES = 24;
+    // number of doubles saved for each view
+    private static final int VIEW_LENGTH = 15;
+
     public SceneStructureMetric scene;
     public SceneObservations observations;
 
     public void parse( File file ) throws IOException {
         InputStream stream = UtilIO.openStream(file.getPath());
-        BufferedReader reader = new BufferedReader(new InputStreamReader(stream));
-
-        String words[] = reader.readLine().split("\\s+");
-
-        if( words.length != 3 )
-            throw new IOException("Unexpected number of words on first line");
+        if( stream == null )
+            throw new FileNotFoundException("Can't open "+file.getPath());
+
+        try {
+            AsciiNumberReader reader = new AsciiNumberReader();
+            reader.setInput(stream);
+            parse(reader);
+        } finally {
+            stream.close();
+        }
+    }
 
-        int numCameras = Integer.parseInt(words[0]);
-        int numPoints = Integer.parseInt(words[1]);
-        int numObservations = Integer.parseInt(words[2]);
+    private void parse( AsciiNumberReader reader ) throws IOException {
+        int numCameras = reader.nextInt();
+        int numPoints = reader.nextInt();
+        int numObservations = reader.nextInt();
 
         scene = new SceneStructureMetric(false);
         scene.initialize(numCameras,numCameras,numPoints);
@@ -59,13 +101,10 @@ public class CodecBundleAdjustmentInTheLarge {
         observations = new SceneObservations(numCameras);
 
         for (int i = 0; i < numObservations; i++) {
-            words = reader.readLine().split("\\s+");
-            if (words.length != 4)
-                throw new IOException("Unexpected number of words in obs");
-            int cameraID = Integer.parseInt(words[0]);
-            int pointID = Integer.parseInt(words[1]);
-            float pixelX = Float.parseFloat(words[2]);
-            float pixelY = Float.parseFloat(words[3]);
+            int cameraID = reader.nextInt();
+            int pointID = reader.nextInt();
+            float pixelX = reader.nextFloat();
+            float pixelY = reader.nextFloat();
 
             if( pointID >= numPoints ) {
                 throw new RuntimeException("Out of bounds pointID");
@@ -80,42 +119,45 @@ public class CodecBundleAdjustmentInTheLarge {
         Se3_F64 worldToCameraGL = new Se3_F64();
         Rodrigues_F64 rod = new Rodrigues_F64();
         for (int i = 0; i < numCameras; i++) {
-            rod.unitAxisRotation.x = Double.parseDouble(reader.readLine());
-            rod.unitAxisRotation.y = Double.parseDouble(reader.readLine());
-            rod.unitAxisRotation.z = Double.parseDouble(reader.readLine());
+            rod.unitAxisRotation.x = reader.nextDouble();
+            rod.unitAxisRotation.y = reader.nextDouble();
+            rod.unitAxisRotation.z = reader.nextDouble();
 
             rod.theta = rod.unitAxisRotation.norm();
             if( rod.theta != 0 )
                 rod.unitAxisRotation.divide(rod.theta);
 
-            worldToCameraGL.T.x = Double.parseDouble(reader.readLine());
-            worldToCameraGL.T.y = Double.parseDouble(reader.readLine());
-            worldToCameraGL.T.z = Double.parseDouble(reader.readLine());
+            worldToCameraGL.T.x = reader.nextDouble();
+            worldToCameraGL.T.y = reader.nextDouble();
+            worldToCameraGL.T.z = reader.nextDouble();
 
             ConvertRotation3D_F64.rodriguesToMatrix(rod,worldToCameraGL.R);
 
             BundlePinholeSnavely camera = new BundlePinholeSnavely();
 
-            camera.f = Double.parseDouble(reader.readLine());
-            camera.k1 = Double.parseDouble(reader.readLine());
-            camera.k2 = Double.parseDouble(reader.readLine());
+            camera.f = reader.nextDouble();
+            camera.k1 = reader.nextDouble();
+            camera.k2 = reader.nextDouble();
 
             scene.setCamera(i,false,camera);
             scene.setView(i,false,worldToCameraGL);
             scene.connectViewToCamera(i,i);
         }
 
-        Point3D_F64 P = new Point3D_F64();
         for (int i = 0; i < numPoints; i++) {
-            P.x = Float.parseFloat(reader.readLine());
-            P.y = Float.parseFloat(reader.readLine());
-            P.z = Float.parseFloat(reader.readLine());
-
-//            GeometryMath_F64.mult(glToCv.R,P,P);
+            float x = reader.nextFloat();
+            float y = reader.nextFloat();
+            float z = reader.nextFloat();
 
-            scene.setPoint(i,P.x,P.y,P.z);
+            scene.setPoint(i,x,y,z);
         }
 
+        connectPointsToViews();
+
+        observations.checkOneObservationPerView();
+    }
+
+    private void connectPointsToViews() {
         for (int i = 0; i < observations.views.size; i++) {
             View v = observations.getView(i);
 
@@ -123,9 +165,6 @@ public class CodecBundleAdjustmentInTheLarge {
                 scene.connectPointToView(v.getPointId(j),i);
             }
         }
-        reader.close();
-
-        observations.checkOneObservationPerView();
     }
 
     public void save( File file ) throws IOException {
@@ -166,6 +205,180 @@ public class CodecBundleAdjustmentInTheLarge {
         writer.close();
     }
 
+    /**
+     * Saves the scene and observations in the binary format. Only {@link BundlePinholeSnavely} cameras with one
+     * camera for each view are supported.
+     */
+    public void saveBinary( File file ) throws IOException {
+        int numViews = scene.views.size;
+        int numPoints = scene.points.size;
+        int numObservations = observations.getObservationCount();
+
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            FileChannel channel = out.getChannel();
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+
+            buffer.putInt(BINARY_MAGIC);
+            buffer.putInt(BINARY_VERSION);
+            buffer.putInt(numViews);
+            buffer.putInt(numPoints);
+            buffer.putInt(numObservations);
+            buffer.putInt(0);
+
+            for (int viewIdx = 0; viewIdx < numViews; viewIdx++) {
+                SceneStructureMetric.View view = scene.views.data[viewIdx];
+                if( view.camera != viewIdx )
+                    throw new IllegalArgumentException("Each view must have its own camera");
+                BundlePinholeSnavely camera = scene.cameras.get(view.camera).getModel();
+
+                ensureSpace(channel,buffer,VIEW_LENGTH*8);
+                buffer.putDouble(camera.f);
+                buffer.putDouble(camera.k1);
+                buffer.putDouble(camera.k2);
+                for (int i = 0; i < 9; i++) {
+                    buffer.putDouble(view.worldToView.R.data[i]);
+                }
+                buffer.putDouble(view.worldToView.T.x);
+                buffer.putDouble(view.worldToView.T.y);
+                buffer.putDouble(view.worldToView.T.z);
+            }
+
+            for (int pointIdx = 0; pointIdx < numPoints; pointIdx++) {
+                double[] coordinate = scene.points.data[pointIdx].coordinate;
+                ensureSpace(channel,buffer,3*8);
+                buffer.putDouble(coordinate[0]);
+                buffer.putDouble(coordinate[1]);
+                buffer.putDouble(coordinate[2]);
+            }
+
+            for (int viewIdx = 0; viewIdx < numViews; viewIdx++) {
+                ensureSpace(channel,buffer,4);
+                buffer.putInt(observations.views.data[viewIdx].size());
+            }
+            for (int viewIdx = 0; viewIdx < numViews; viewIdx++) {
+                SceneObservations.View view = observations.views.data[viewIdx];
+                for (int obsIdx = 0; obsIdx < view.size(); obsIdx++) {
+                    ensureSpace(channel,buffer,4);
+                    buffer.putInt(view.point.data[obsIdx]);
+                }
+            }
+            for (int viewIdx = 0; viewIdx < numViews; viewIdx++) {
+                SceneObservations.View view = observations.views.data[viewIdx];
+                for (int i = 0; i < view.observations.size; i++) {
+                    ensureSpace(channel,buffer,4);
+                    buffer.putFloat(view.observations.data[i]);
+                }
+            }
+
+            buffer.flip();
+            while( buffer.hasRemaining() )
+                channel.write(buffer);
+        }
+    }
+
+    /**
+     * Writes the buffer to the channel if it doesn't have enough space for the requested number of bytes
+     */
+    private static void ensureSpace( FileChannel channel , ByteBuffer buffer , int bytes ) throws IOException {
+        if( buffer.remaining() >= bytes )
+            return;
+        buffer.flip();
+        while( buffer.hasRemaining() )
+            channel.write(buffer);
+        buffer.clear();
+    }
+
+    /**
+     * Reads a scene and observations which were saved using {@link #saveBinary}.
+     */
+    public void parseBinary( File file ) throws IOException {
+        try (FileInputStream in = new FileInputStream(file)) {
+            FileChannel channel = in.getChannel();
+            if( channel.size() < HEADER_BYTES )
+                throw new IOException("File is too small to be a binary BAL file");
+            if( channel.size() > Integer.MAX_VALUE )
+                throw new IOException("Files larger than 2 GB are not supported");
+
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY,0,channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+            if( buffer.getInt() != BINARY_MAGIC )
+                throw new IOException("Not a binary BAL file");
+            int version = buffer.getInt();
+            if( version != BINARY_VERSION )
+                throw new IOException("Unsupported version "+version);
+
+            int numViews = buffer.getInt();
+            int numPoints = buffer.getInt();
+            int numObservations = buffer.getInt();
+            buffer.getInt(); // padding
+
+            long expected = HEADER_BYTES + (long)numViews*(VIEW_LENGTH*8+4) + numPoints*24L + numObservations*12L;
+            if( numViews < 0 || numPoints < 0 || numObservations < 0 || expected != channel.size() )
+                throw new IOException("Unexpected file size. Truncated or corrupted");
+
+            scene = new SceneStructureMetric(false);
+            scene.initialize(numViews,numViews,numPoints);
+            observations = new SceneObservations(numViews);
+
+            Se3_F64 worldToView = new Se3_F64();
+            for (int viewIdx = 0; viewIdx < numViews; viewIdx++) {
+                BundlePinholeSnavely camera = new BundlePinholeSnavely();
+                camera.f = buffer.getDouble();
+                camera.k1 = buffer.getDouble();
+                camera.k2 = buffer.getDouble();
+                for (int i = 0; i < 9; i++) {
+                    worldToView.R.data[i] = buffer.getDouble();
+                }
+                worldToView.T.x = buffer.getDouble();
+                worldToView.T.y = buffer.getDouble();
+                worldToView.T.z = buffer.getDouble();
+
+                scene.setCamera(viewIdx,false,camera);
+                scene.setView(viewIdx,false,worldToView);
+                scene.connectViewToCamera(viewIdx,viewIdx);
+            }
+
+            for (int pointIdx = 0; pointIdx < numPoints; pointIdx++) {
+                double x = buffer.getDouble();
+                double y = buffer.getDouble();
+                double z = buffer.getDouble();
+                scene.setPoint(pointIdx,x,y,z);
+            }
+
+            // the observations are read in bulk straight into each view's arrays
+            int offset = buffer.position();
+            IntBuffer counts = buffer.asIntBuffer();
+            buffer.position(offset+numViews*4);
+            IntBuffer points = buffer.asIntBuffer();
+            buffer.position(offset+(numViews+numObservations)*4);
+            FloatBuffer pixels = buffer.asFloatBuffer();
+
+            int total = 0;
+            for (int viewIdx = 0; viewIdx < numViews; viewIdx++) {
+                int count = counts.get();
+                total += count;
+                if( count < 0 || total > numObservations )
+                    throw new IOException("Observation counts don't match the header");
+
+                SceneObservations.View view = observations.views.data[viewIdx];
+                view.point.resize(count);
+                view.observations.resize(count*2);
+                points.get(view.point.data,0,count);
+                pixels.get(view.observations.data,0,count*2);
+
+                for (int i = 0; i < count; i++) {
+                    if( view.point.data[i] < 0 || view.point.data[i] >= numPoints )
+                        throw new IOException("Out of bounds pointID");
+                }
+            }
+            if( total != numObservations )
+                throw new IOException("Observation counts don't match the header");
+        }
+
+        connectPointsToViews();
+    }
+
     public static void main(String[] args) throws IOException {
         CodecBundleAdjustmentInTheLarge alg = new CodecBundleAdjustmentInTheLarge();
 
@@ -19,11 +19,13 @@
 package boofcv.io.video;
 
 import boofcv.io.image.SimpleImageSequence;
+import boofcv.io.wrapper.images.MjpegIndexedSequence;
 import boofcv.io.wrapper.images.MjpegStreamSequence;
 import boofcv.struct.image.ImageBase;
 import boofcv.struct.image.ImageType;
 
-import java.io.FileNotFoundException;
+import java.io.File;
+import java.io.IOException;
 
 /**
  * @author Peter Abeles
@@ -33,8 +35,11 @@ public class BoofMjpegVideo implements VideoInterface {
 	public <T extends ImageBase<T>> SimpleImageSequence<T> load(String fileName, ImageType<T> imageType) {
 
 		try {
+			// Files are indexed so that frames can be loaded when needed instead of all at once
+			if( new File(fileName).isFile() )
+				return new MjpegIndexedSequence<>(fileName,false,imageType);
 			return new MjpegStreamSequence(fileName,imageType);
-		} catch (FileNotFoundException e) {
+		} catch (IOException e) {
 			return null;
 		}
 	}
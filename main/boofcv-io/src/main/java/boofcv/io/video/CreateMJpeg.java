@@ -19,17 +19,80 @@
 package boofcv.io.video;
 
 
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
 import java.io.*;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
 /**
+ * Creates a MJPEG file by appending JPEG images one after another. Each frame is written to the output stream
+ * as soon as it's added so the video is never held in memory.
+ *
  * @author Peter Abeles
  */
-public class CreateMJpeg {
+public class CreateMJpeg implements Closeable {
 	private static byte buffer[] = new byte[ 10240 ];
 
+	// stream the video is written to
+	OutputStream out;
+	// storage used when copying images from a stream
+	byte[] copyBuffer = new byte[ 64*1024 ];
+	// number of frames which have been written
+	int totalFrames;
+
+	/**
+	 * Writes the video to the output stream
+	 */
+	public CreateMJpeg( OutputStream out ) {
+		this.out = out;
+	}
+
+	/**
+	 * Writes the video to the specified file
+	 */
+	public CreateMJpeg( File file ) throws IOException {
+		this(new BufferedOutputStream(new FileOutputStream(file)));
+	}
+
+	/**
+	 * Adds a compressed JPEG image
+	 */
+	public void addFrame( byte[] jpeg ) throws IOException {
+		out.write(jpeg);
+		totalFrames++;
+	}
+
+	/**
+	 * Copies a compressed JPEG image from the input stream until the end of the stream is reached
+	 */
+	public void addFrame( InputStream in ) throws IOException {
+		int length;
+		while( (length = in.read(copyBuffer)) != -1 ) {
+			out.write(copyBuffer,0,length);
+		}
+		totalFrames++;
+	}
+
+	/**
+	 * Compresses the image into a JPEG and adds it
+	 */
+	public void addFrame( BufferedImage image ) throws IOException {
+		if( !ImageIO.write(image,"jpg",out) )
+			throw new IOException("No JPEG writer available");
+		totalFrames++;
+	}
+
+	@Override
+	public void close() throws IOException {
+		out.close();
+	}
+
+	public int getTotalFrames() {
+		return totalFrames;
+	}
+
 	private static byte[] filterData( DataInputStream in ) throws IOException {
 		while( in.available() > 0 ) {
 			int header = in.read();
@@ -164,7 +227,7 @@ public class CreateMJpeg {
 
 		int i = -1;
 
-		DataOutputStream out = new DataOutputStream(new FileOutputStream(directory.getPath()+"/movie.mjpeg"));
+		CreateMJpeg video = new CreateMJpeg(new File(directory.getPath()+"/movie.mjpeg"));
 		for( String n : list ) {
 			i++;
 			if( !(i % 2 == 0) )
@@ -174,24 +237,10 @@ public class CreateMJpeg {
 //				continue;
 
 			System.out.println("Reading in: "+n);
-			DataInputStream in = new DataInputStream(new FileInputStream(n));
-
-//			while( true ) {
-//				byte data[] = filterData(in);
-//				if( data == null )
-//					break;
-//
-//				out.write(data);
-//			}
-
-			while( in.available() > 0 ) {
-				byte data[] = new byte[ in.available()];
-				in.read(data);
-				out.write(data);
+			try( InputStream in = new FileInputStream(n) ) {
+				video.addFrame(in);
 			}
-
-			in.close();
 		}
-		out.close();
+		video.close();
 	}
 }
@@ -22,9 +22,11 @@ import boofcv.io.UtilIO;
 import boofcv.io.image.SimpleImageSequence;
 import boofcv.io.wrapper.images.ImageStreamSequence;
 import boofcv.io.wrapper.images.JpegByteImageSequence;
+import boofcv.io.wrapper.images.MjpegIndexedSequence;
 import boofcv.struct.image.ImageBase;
 import boofcv.struct.image.ImageType;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
@@ -65,6 +67,9 @@ public class DynamicVideoInterface implements VideoInterface {
 			// Use built in movie readers for these file types
 			if( fileName.endsWith("mjpeg") || fileName.endsWith("MJPEG") ||
 					fileName.endsWith("mjpg") || fileName.endsWith("MJPG") ) {
+				// Local files are indexed and frames loaded when needed instead of reading the whole file
+				if( new File(fileName).isFile() )
+					return new MjpegIndexedSequence<>(fileName,false,imageType);
 				VideoMjpegCodec codec = new VideoMjpegCodec();
 				List<byte[]> data = codec.read(stream);
 				return new JpegByteImageSequence<>(imageType, data, false);
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.io.video;
+
+import org.ddogleg.struct.GrowQueue_I32;
+import org.ddogleg.struct.GrowQueue_I64;
+
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.util.List;
+
+import static boofcv.io.video.VideoMjpegCodec.EOI;
+import static boofcv.io.video.VideoMjpegCodec.SOI;
+
+/**
+ * Location of every JPEG frame inside of a MJPEG file. A frame starts at a start of image (SOI) marker and
+ * ends after the following end of image (EOI) marker. A frame without an EOI marker at the end of a file
+ * is ignored. The index can be saved to a sidecar file so that the file doesn't need to be scanned again.
+ *
+ * @author Peter Abeles
+ */
+public class MjpegFrameIndex {
+	// used to identify index files
+	private static final int MAGIC = 0x4D4A4958;
+	private static final int VERSION = 1;
+
+	/** Offset in bytes of the first byte in each frame */
+	public GrowQueue_I64 offsets = new GrowQueue_I64();
+	/** Number of bytes in each frame, including the SOI and EOI markers */
+	public GrowQueue_I32 lengths = new GrowQueue_I32();
+
+	/** Size of the indexed file in bytes */
+	public long fileLength;
+	/** Last modified time of the indexed file. Used to detect if an index is out of date */
+	public long lastModified;
+
+	/**
+	 * Finds all the frames by scanning for markers in the memory mapped file.
+	 *
+	 * @param segments The file split into consecutive memory mapped segments
+	 */
+	public void scan( List<MappedByteBuffer> segments ) {
+		offsets.reset();
+		lengths.reset();
+
+		boolean insideFrame = false;
+		boolean previousFF = false;
+		long start = 0;
+		long position = 0;
+		for (int segIdx = 0; segIdx < segments.size(); segIdx++) {
+			MappedByteBuffer segment = segments.get(segIdx);
+			int length = segment.limit();
+			for (int i = 0; i < length; i++, position++) {
+				byte b = segment.get(i);
+				if( previousFF ) {
+					if( !insideFrame && b == SOI ) {
+						insideFrame = true;
+						start = position-1;
+					} else if( insideFrame && b == EOI ) {
+						insideFrame = false;
+						long frameLength = position+1-start;
+						if( frameLength > Integer.MAX_VALUE )
+							throw new RuntimeException("Frame is too large");
+						offsets.add(start);
+						lengths.add((int)frameLength);
+					}
+				}
+				previousFF = b == (byte)0xFF;
+			}
+		}
+	}
+
+	/**
+	 * Number of frames in the index
+	 */
+	public int size() {
+		return offsets.size;
+	}
+
+	/**
+	 * Checks to see if the index was created for a file with the specified properties
+	 */
+	public boolean isValidFor( File file ) {
+		return fileLength == file.length() && lastModified == file.lastModified();
+	}
+
+	/**
+	 * Saves the index to a file
+	 */
+	public void save( File file ) throws IOException {
+		try( DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file))) ) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeLong(fileLength);
+			out.writeLong(lastModified);
+			out.writeInt(offsets.size);
+			for (int i = 0; i < offsets.size; i++) {
+				out.writeLong(offsets.data[i]);
+				out.writeInt(lengths.data[i]);
+			}
+		}
+	}
+
+	/**
+	 * Loads an index from a file
+	 *
+	 * @return true if it was successfully loaded or false if the file is not an index
+	 */
+	public boolean load( File file ) throws IOException {
+		try( DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file))) ) {
+			if( in.readInt() != MAGIC || in.readInt() != VERSION )
+				return false;
+			fileLength = in.readLong();
+			lastModified = in.readLong();
+			int N = in.readInt();
+			offsets.resize(N);
+			lengths.resize(N);
+			for (int i = 0; i < N; i++) {
+				offsets.data[i] = in.readLong();
+				lengths.data[i] = in.readInt();
+			}
+		} catch( EOFException e ) {
+			return false;
+		}
+		return true;
+	}
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.io.video;
+
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Provides random access to the JPEG frames inside of a MJPEG file without loading the whole file into memory.
+ * The file is memory mapped and scanned once to create a {@link MjpegFrameIndex}. After that any frame can be
+ * read by looking up its location. If requested the index is saved into a sidecar file, which has the same
+ * name as the MJPEG file plus {@link #SIDECAR_SUFFIX}, and is loaded the next time if the file hasn't changed.
+ * Failing to save the sidecar doesn't prevent the file from being read. Check {@link #getSidecarFailure()}
+ * to see if it was saved.
+ *
+ * @author Peter Abeles
+ */
+public class MjpegIndexedReader implements Closeable {
+	/** Suffix added to the video's file name to create the index's file name */
+	public static final String SIDECAR_SUFFIX = ".index";
+
+	// A single mapped buffer can't be larger than 2GB so the file is split into segments
+	static int SEGMENT_SIZE = 1 << 30;
+	final int segmentSize = SEGMENT_SIZE;
+
+	RandomAccessFile file;
+	FileChannel channel;
+	List<MappedByteBuffer> segments = new ArrayList<>();
+
+	MjpegFrameIndex index = new MjpegFrameIndex();
+
+	// Exception thrown while saving the sidecar file. null if it was saved or not requested
+	@Nullable IOException sidecarFailure;
+
+	/**
+	 * Opens the file and creates the index
+	 *
+	 * @param path Path to the MJPEG file
+	 * @param useSidecar If true the index will be loaded from or saved to a sidecar file
+	 */
+	public MjpegIndexedReader( File path , boolean useSidecar ) throws IOException {
+		file = new RandomAccessFile(path,"r");
+		channel = file.getChannel();
+		long length = channel.size();
+		for (long offset = 0; offset < length; offset += segmentSize) {
+			long size = Math.min(segmentSize,length-offset);
+			segments.add(channel.map(FileChannel.MapMode.READ_ONLY,offset,size));
+		}
+
+		File sidecar = new File(path.getPath()+SIDECAR_SUFFIX);
+		if( useSidecar && sidecar.isFile() ) {
+			if( index.load(sidecar) && index.isValidFor(path) )
+				return;
+		}
+
+		index.scan(segments);
+		index.fileLength = path.length();
+		index.lastModified = path.lastModified();
+
+		if( useSidecar ) {
+			try {
+				index.save(sidecar);
+			} catch( IOException e ) {
+				sidecarFailure = e;
+			}
+		}
+	}
+
+	/**
+	 * Number of frames in the file
+	 */
+	public int getTotalFrames() {
+		return index.size();
+	}
+
+	/**
+	 * Reads the compressed JPEG data for the specified frame
+	 */
+	public byte[] readFrame( int frame ) {
+		byte[] data = new byte[index.lengths.get(frame)];
+		long offset = index.offsets.get(frame);
+
+		// the frame might cross the boundary between two segments
+		int copied = 0;
+		while( copied < data.length ) {
+			ByteBuffer segment = segments.get((int)(offset/segmentSize)).duplicate();
+			segment.position((int)(offset%segmentSize));
+			int amount = Math.min(data.length-copied,segment.remaining());
+			segment.get(data,copied,amount);
+			copied += amount;
+			offset += amount;
+		}
+		return data;
+	}
+
+	/**
+	 * Returns a list view where each element is read from the file when requested
+	 */
+	public List<byte[]> toList() {
+		return new AbstractList<byte[]>() {
+			@Override
+			public byte[] get(int index) {
+				return readFrame(index);
+			}
+
+			@Override
+			public int size() {
+				return getTotalFrames();
+			}
+		};
+	}
+
+	@Override
+	public void close() throws IOException {
+		segments.clear();
+		channel.close();
+		file.close();
+	}
+
+	public MjpegFrameIndex getIndex() {
+		return index;
+	}
+
+	/**
+	 * If the index couldn't be saved to the sidecar file then this is the reason why
+	 *
+	 * @return The exception or null if there was no failure
+	 */
+	public @Nullable IOException getSidecarFailure() {
+		return sidecarFailure;
+	}
+}
@@ -61,7 +61,8 @@ public class JpegByteImageSequence<T extends ImageBase<T>> implements SimpleImag
 		this.loop = loop;
 
 		output = imageType.createImage(1,1);
-		loadNext();
+		if( !jpegData.isEmpty() )
+			loadNext();
 	}
 
 	public JpegByteImageSequence(Class<T> imageType, List<byte[]> jpegData, boolean loop) {
@@ -108,7 +109,7 @@ public class JpegByteImageSequence<T extends ImageBase<T>> implements SimpleImag
 		return output;
 	}
 
-	private void loadNext() {
+	void loadNext() {
 		try {
 			imageNext = ImageIO.read(new ByteArrayInputStream(jpegData.get(index)));
 		} catch (IOException e) {
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.io.wrapper.images;
+
+import boofcv.io.video.MjpegIndexedReader;
+import boofcv.struct.image.ImageBase;
+import boofcv.struct.image.ImageType;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Image sequence for MJPEG files which only loads frames when they are needed. Frames are located using
+ * {@link MjpegIndexedReader}, which allows the sequence to jump to any frame without decoding the
+ * frames before it.
+ *
+ * @author Peter Abeles
+ */
+public class MjpegIndexedSequence<T extends ImageBase<T>> extends JpegByteImageSequence<T> {
+
+	MjpegIndexedReader reader;
+
+	public MjpegIndexedSequence( MjpegIndexedReader reader , ImageType<T> imageType ) {
+		super(imageType, reader.toList(), false);
+		this.reader = reader;
+	}
+
+	/**
+	 * Opens the file and creates the frame index
+	 *
+	 * @param fileName Path to the MJPEG file
+	 * @param useSidecar If true the index will be loaded from or saved to a sidecar file
+	 */
+	public MjpegIndexedSequence( String fileName , boolean useSidecar , ImageType<T> imageType ) throws IOException {
+		this(new MjpegIndexedReader(new File(fileName),useSidecar),imageType);
+	}
+
+	/**
+	 * Changes which frame will be returned by the next call to {@link #next()}
+	 */
+	public void setFrame( int frame ) {
+		if( frame < 0 || frame >= jpegData.size() )
+			throw new IllegalArgumentException("Frame out of range. "+frame);
+		index = frame;
+		forward = true;
+		loadNext();
+	}
+
+	/**
+	 * Number of frames in the file
+	 */
+	public int getTotalFrames() {
+		return jpegData.size();
+	}
+
+	@Override
+	public void reset() {
+		super.reset();
+		if( !jpegData.isEmpty() )
+			loadNext();
+	}
+
+	@Override
+	public void close() {
+		try {
+			reader.close();
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	public MjpegIndexedReader getReader() {
+		return reader;
+	}
+}
@@ -0,0 +1,312 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.io.wrapper.images;
+
+import boofcv.io.image.SimpleImageSequence;
+import boofcv.struct.image.ImageBase;
+import boofcv.struct.image.ImageType;
+
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * <p>
+ * Wraps around any {@link SimpleImageSequence} and decodes frames ahead of time in a background thread. This
+ * way the time spent decoding images is hidden when processing each image takes longer than decoding it.
+ * Decoded frames are copied into a fixed pool of images which are recycled. The image returned by {@link #next()}
+ * is owned by this class and is valid until the next call to {@link #next()} or {@link #reset()}.
+ * </p>
+ *
+ * <p>
+ * The wrapped sequence is only accessed by the background thread while it's running and must not be
+ * used by anything else. Frames are decoded in a single thread since a sequence can only be read sequentially.
+ * The GUI image is not copied, so if the wrapped sequence recycles its GUI image it might have been modified
+ * by the time it's returned.
+ * </p>
+ *
+ * @author Peter Abeles
+ */
+public class ReadAheadImageSequence<T extends ImageBase<T>> implements SimpleImageSequence<T> {
+
+	// the sequence which is being read from
+	SimpleImageSequence<T> sequence;
+
+	// decoded frames which are waiting to be read, in order
+	BlockingQueue<Frame> decoded;
+	// frames which can be written to by the decoding thread
+	BlockingQueue<Frame> available = new LinkedBlockingQueue<>();
+	// special frame which tells the decoding thread to stop
+	final Frame stopSignal = new Frame();
+
+	// The next frame which will be returned. null if it hasn't been removed from the queue yet
+	Frame pending;
+	// The frame which was most recently returned
+	Frame current;
+
+	Thread thread;
+	volatile boolean stopRequested;
+
+	/**
+	 * Creates the read ahead sequence and starts decoding frames
+	 *
+	 * @param sequence The sequence which is to be read from
+	 * @param readAhead Number of frames which are decoded ahead of time. &ge; 1
+	 */
+	public ReadAheadImageSequence( SimpleImageSequence<T> sequence , int readAhead ) {
+		if( readAhead < 1 )
+			throw new IllegalArgumentException("readAhead must be at least 1");
+		this.sequence = sequence;
+
+		// One more frame than read ahead since the user owns the most recently returned frame
+		decoded = new ArrayBlockingQueue<>(readAhead+1);
+		for (int i = 0; i < readAhead+1; i++) {
+			Frame f = new Frame();
+			f.image = sequence.getImageType().createImage(1,1);
+			available.add(f);
+		}
+
+		startThread();
+	}
+
+	/**
+	 * Returns the next frame, blocking until it has been decoded.
+	 */
+	Frame peek() {
+		if( pending == null ) {
+			try {
+				pending = decoded.take();
+			} catch (InterruptedException e) {
+				throw new RuntimeException(e);
+			}
+			if( pending.exception != null ) {
+				Throwable e = pending.exception;
+				pending.exception = null;
+				pending.end = true;
+				if( e instanceof RuntimeException )
+					throw (RuntimeException)e;
+				if( e instanceof Error )
+					throw (Error)e;
+				throw new RuntimeException(e);
+			}
+		}
+		return pending;
+	}
+
+	@Override
+	public int getNextWidth() {
+		return peek().image.getWidth();
+	}
+
+	@Override
+	public int getNextHeight() {
+		return peek().image.getHeight();
+	}
+
+	@Override
+	public boolean hasNext() {
+		return !peek().end;
+	}
+
+	@Override
+	public T next() {
+		Frame f = peek();
+		if( f.end )
+			return null;
+		pending = null;
+
+		// The user is done with the previous image
+		if( current != null ) {
+			recycle(current);
+		}
+		current = f;
+		return f.image;
+	}
+
+	@Override
+	public <InternalImage> InternalImage getGuiImage() {
+		if( current == null )
+			return null;
+		return (InternalImage)current.gui;
+	}
+
+	@Override
+	public void close() {
+		stopThread();
+		sequence.close();
+	}
+
+	@Override
+	public int getFrameNumber() {
+		if( current == null )
+			return -1;
+		return current.frameNumber;
+	}
+
+	/**
+	 * Changes the looping behavior of the wrapped sequence. Frames which have already been decoded are not changed.
+	 * If a frame failed to decode and its exception hasn't been thrown yet, then it's kept and decoding isn't
+	 * resumed after it.
+	 */
+	@Override
+	public void setLoop(boolean loop) {
+		stopThread();
+		sequence.setLoop(loop);
+
+		// if the end had already been reached it might no longer be the end
+		if( pending != null && pending.end ) {
+			recycle(pending);
+			pending = null;
+		}
+		boolean failed = false;
+		Iterator<Frame> iter = decoded.iterator();
+		while( iter.hasNext() ) {
+			Frame f = iter.next();
+			if( f.exception != null ) {
+				failed = true;
+			} else if( f.end ) {
+				iter.remove();
+				recycle(f);
+			}
+		}
+		if( !failed )
+			startThread();
+	}
+
+	@Override
+	public ImageType<T> getImageType() {
+		return sequence.getImageType();
+	}
+
+	/**
+	 * Discards all the frames which have been decoded and starts reading from the start of the sequence.
+	 */
+	@Override
+	public void reset() {
+		stopThread();
+
+		if( pending != null ) {
+			recycle(pending);
+			pending = null;
+		}
+		if( current != null ) {
+			recycle(current);
+			current = null;
+		}
+		Frame f;
+		while( (f = decoded.poll()) != null ) {
+			recycle(f);
+		}
+
+		sequence.reset();
+		startThread();
+	}
+
+	private void recycle( Frame f ) {
+		f.gui = null;
+		f.end = false;
+		f.exception = null;
+		available.add(f);
+	}
+
+	private void startThread() {
+		stopRequested = false;
+		thread = new Thread(this::decodeFrames,"ReadAheadImageSequence");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Stops the decoding thread and waits for it to finish. Decoded frames are left in the queue.
+	 */
+	private void stopThread() {
+		if( thread == null )
+			return;
+		stopRequested = true;
+		available.add(stopSignal);
+		try {
+			thread.join();
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		}
+		available.remove(stopSignal);
+		thread = null;
+	}
+
+	/**
+	 * Decodes frames until the end of the sequence or until requested to stop
+	 */
+	private void decodeFrames() {
+		while( true ) {
+			Frame f;
+			try {
+				f = available.take();
+			} catch (InterruptedException e) {
+				return;
+			}
+			if( f == stopSignal || stopRequested ) {
+				if( f != stopSignal )
+					available.add(f);
+				return;
+			}
+
+			try {
+				if( !sequence.hasNext() ) {
+					f.end = true;
+				} else {
+					T image = sequence.next();
+					if( image == null ) {
+						f.end = true;
+					} else {
+						f.image.setTo(image);
+						f.gui = sequence.getGuiImage();
+						f.frameNumber = sequence.getFrameNumber();
+					}
+				}
+			} catch (Throwable e) {
+				// anything thrown must be passed on or the reading thread will wait forever
+				f.exception = e;
+				f.end = true;
+			}
+
+			// there is always space since the number of frames is the same as the queue's capacity
+			decoded.add(f);
+			if( f.end )
+				return;
+		}
+	}
+
+	public SimpleImageSequence<T> getSequence() {
+		return sequence;
+	}
+
+	/**
+	 * Storage for a decoded frame
+	 */
+	class Frame {
+		T image;
+		Object gui;
+		int frameNumber;
+		// true if this marks the end of the sequence
+		boolean end;
+		// exception thrown while decoding this frame
+		Throwable exception;
+	}
+}
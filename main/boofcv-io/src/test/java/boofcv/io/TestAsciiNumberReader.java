@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.io;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Peter Abeles
+ */
+class TestAsciiNumberReader {
+	Random rand = new Random(234);
+
+	@Test
+	void mixedTypes() throws IOException {
+		AsciiNumberReader alg = create("  12 -5\n\r\t+7  342.123 -233e-1 4.5E+2 .5 7. -0.0\n1e400 NaN 3000000000");
+
+		assertEquals(12,alg.nextInt());
+		assertEquals(-5,alg.nextInt());
+		assertEquals(7,alg.nextInt());
+		assertEquals(342.123,alg.nextDouble());
+		assertEquals(-233e-1,alg.nextDouble());
+		assertEquals(4.5e2f,alg.nextFloat());
+		assertEquals(0.5,alg.nextDouble());
+		assertEquals(7.0,alg.nextDouble());
+		assertEquals(Double.doubleToLongBits(-0.0),Double.doubleToLongBits(alg.nextDouble()));
+		assertEquals(Double.POSITIVE_INFINITY,alg.nextDouble());
+		assertTrue(Double.isNaN(alg.nextDouble()));
+		assertEquals(3000000000L,alg.nextLong());
+		assertFalse(alg.hasNext());
+		assertThrows(EOFException.class, alg::nextDouble);
+	}
+
+	/**
+	 * Compare against Java's parser for random numbers in different formats. Use a small buffer so that
+	 * numbers cross the buffer's boundary.
+	 */
+	@Test
+	void compareToJava() throws IOException {
+		String[] words = new String[5000];
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < words.length; i++) {
+			double value = rand.nextGaussian()*Math.pow(10,rand.nextInt(40)-20);
+			switch( i%4 ) {
+				case 0: words[i] = Double.toString(value); break;
+				case 1: words[i] = String.format("%.16e",value); break;
+				case 2: words[i] = String.format("%.6f",value); break;
+				default: words[i] = Float.toString((float)value); break;
+			}
+			text.append(words[i]).append(i%3==0 ? "\n" : " ");
+		}
+
+		AsciiNumberReader alg = new AsciiNumberReader(50);
+		alg.setInput(new ByteArrayInputStream(text.toString().getBytes(StandardCharsets.US_ASCII)));
+		for (String word : words) {
+			assertEquals(Double.parseDouble(word), alg.nextDouble(), word);
+		}
+
+		alg.setInput(new ByteArrayInputStream(text.toString().getBytes(StandardCharsets.US_ASCII)));
+		for (String word : words) {
+			assertEquals(Float.parseFloat(word), alg.nextFloat(), word);
+		}
+	}
+
+	@Test
+	void badInput() throws IOException {
+		assertThrows(NumberFormatException.class, ()->create("1.5").nextInt());
+		assertThrows(NumberFormatException.class, ()->create("3000000000").nextInt());
+		assertThrows(NumberFormatException.class, ()->create("-").nextInt());
+		assertThrows(NumberFormatException.class, ()->create("1.2.3").nextDouble());
+		assertThrows(NumberFormatException.class, ()->create("abc").nextDouble());
+		assertThrows(NumberFormatException.class, ()->create("1e").nextDouble());
+	}
+
+	/**
+	 * Words which are longer than the internal storage
+	 */
+	@Test
+	void longWord() throws IOException {
+		StringBuilder text = new StringBuilder("0.");
+		for (int i = 0; i < 200; i++) {
+			text.append('0');
+		}
+		text.append("15");
+		assertEquals(Double.parseDouble(text.toString()),create(text.toString()).nextDouble());
+	}
+
+	private static AsciiNumberReader create( String text ) {
+		AsciiNumberReader alg = new AsciiNumberReader();
+		alg.setInput(new ByteArrayInputStream(text.getBytes(StandardCharsets.US_ASCII)));
+		return alg;
+	}
+}
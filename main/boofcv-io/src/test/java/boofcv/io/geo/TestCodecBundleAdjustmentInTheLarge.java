@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.io.geo;
+
+import boofcv.abst.geo.bundle.SceneObservations;
+import boofcv.abst.geo.bundle.SceneStructureMetric;
+import boofcv.alg.geo.bundle.cameras.BundlePinholeSnavely;
+import georegression.struct.se.Se3_F64;
+import georegression.struct.se.SpecialEuclideanOps_F64;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author Peter Abeles
+ */
+class TestCodecBundleAdjustmentInTheLarge {
+	Random rand = new Random(234);
+
+	int numViews = 4;
+	int numPoints = 30;
+
+	@Test
+	void encode_decode_text() throws IOException {
+		CodecBundleAdjustmentInTheLarge alg = createRandom();
+
+		File temp = File.createTempFile("bal", ".txt");
+		try {
+			alg.save(temp);
+			CodecBundleAdjustmentInTheLarge found = new CodecBundleAdjustmentInTheLarge();
+			found.parse(temp);
+
+			// text is saved with limited precision
+			checkIdentical(alg,found,1e-6);
+		} finally {
+			temp.delete();
+		}
+	}
+
+	@Test
+	void encode_decode_binary() throws IOException {
+		CodecBundleAdjustmentInTheLarge alg = createRandom();
+
+		File temp = File.createTempFile("bal", ".bin");
+		try {
+			alg.saveBinary(temp);
+			CodecBundleAdjustmentInTheLarge found = new CodecBundleAdjustmentInTheLarge();
+			found.parseBinary(temp);
+
+			// should be a perfect copy
+			checkIdentical(alg,found,0.0);
+		} finally {
+			temp.delete();
+		}
+	}
+
+	/**
+	 * Make sure a text file isn't mistaken for a binary file
+	 */
+	@Test
+	void parseBinary_notBinary() throws IOException {
+		CodecBundleAdjustmentInTheLarge alg = createRandom();
+
+		File temp = File.createTempFile("bal", ".txt");
+		try {
+			alg.save(temp);
+			assertThrows(IOException.class, ()->new CodecBundleAdjustmentInTheLarge().parseBinary(temp));
+		} finally {
+			temp.delete();
+		}
+	}
+
+	private CodecBundleAdjustmentInTheLarge createRandom() {
+		CodecBundleAdjustmentInTheLarge alg = new CodecBundleAdjustmentInTheLarge();
+		alg.scene = new SceneStructureMetric(false);
+		alg.scene.initialize(numViews,numViews,numPoints);
+		alg.observations = new SceneObservations(numViews);
+
+		for (int i = 0; i < numViews; i++) {
+			BundlePinholeSnavely camera = new BundlePinholeSnavely();
+			camera.f = 400 + rand.nextDouble()*100;
+			camera.k1 = rand.nextGaussian()*1e-3;
+			camera.k2 = rand.nextGaussian()*1e-5;
+
+			Se3_F64 worldToView = SpecialEuclideanOps_F64.eulerXyz(
+					rand.nextGaussian(),rand.nextGaussian(),rand.nextGaussian(),
+					rand.nextGaussian()*0.1,rand.nextGaussian()*0.1,rand.nextGaussian()*0.1,null);
+
+			alg.scene.setCamera(i,false,camera);
+			alg.scene.setView(i,false,worldToView);
+			alg.scene.connectViewToCamera(i,i);
+		}
+
+		for (int i = 0; i < numPoints; i++) {
+			// text format saves points as floats
+			alg.scene.setPoint(i,(float)rand.nextGaussian(),(float)rand.nextGaussian(),(float)(rand.nextGaussian()-5));
+
+			for (int viewIdx = 0; viewIdx < numViews; viewIdx++) {
+				if( rand.nextBoolean() ) {
+					alg.observations.getView(viewIdx).add(i,rand.nextFloat()*600,rand.nextFloat()*400);
+					alg.scene.connectPointToView(i,viewIdx);
+				}
+			}
+		}
+		return alg;
+	}
+
+	private void checkIdentical( CodecBundleAdjustmentInTheLarge expected ,
+								 CodecBundleAdjustmentInTheLarge found , double tol ) {
+		assertEquals(expected.scene.views.size, found.scene.views.size);
+		assertEquals(expected.scene.points.size, found.scene.points.size);
+		assertEquals(expected.observations.views.size, found.observations.views.size);
+
+		for (int viewIdx = 0; viewIdx < numViews; viewIdx++) {
+			SceneStructureMetric.View e = expected.scene.views.get(viewIdx);
+			SceneStructureMetric.View f = found.scene.views.get(viewIdx);
+			assertEquals(viewIdx, f.camera);
+
+			BundlePinholeSnavely ce = expected.scene.cameras.get(e.camera).getModel();
+			BundlePinholeSnavely cf = found.scene.cameras.get(f.camera).getModel();
+			assertEquals(ce.f, cf.f, tol*ce.f);
+			assertEquals(ce.k1, cf.k1, tol);
+			assertEquals(ce.k2, cf.k2, tol);
+
+			for (int i = 0; i < 9; i++) {
+				assertEquals(e.worldToView.R.data[i], f.worldToView.R.data[i], tol);
+			}
+			assertEquals(e.worldToView.T.x, f.worldToView.T.x, tol);
+			assertEquals(e.worldToView.T.y, f.worldToView.T.y, tol);
+			assertEquals(e.worldToView.T.z, f.worldToView.T.z, tol);
+
+			SceneObservations.View oe = expected.observations.getView(viewIdx);
+			SceneObservations.View of = found.observations.getView(viewIdx);
+			assertEquals(oe.size(), of.size());
+			for (int i = 0; i < oe.size(); i++) {
+				assertEquals(oe.point.get(i), of.point.get(i));
+				assertEquals(oe.observations.get(i*2), of.observations.get(i*2), (float)tol);
+				assertEquals(oe.observations.get(i*2+1), of.observations.get(i*2+1), (float)tol);
+			}
+		}
+
+		for (int i = 0; i < numPoints; i++) {
+			SceneStructureMetric.Point e = expected.scene.points.get(i);
+			SceneStructureMetric.Point f = found.scene.points.get(i);
+			for (int j = 0; j < 3; j++) {
+				assertEquals(e.coordinate[j], f.coordinate[j], tol);
+			}
+			assertEquals(e.views.size, f.views.size);
+			for (int j = 0; j < e.views.size; j++) {
+				assertEquals(e.views.get(j), f.views.get(j));
+			}
+		}
+	}
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.io.video;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Peter Abeles
+ */
+class TestMjpegIndexedReader {
+
+	File video;
+	File sidecar;
+	int totalFrames = 5;
+
+	@BeforeEach
+	void before() throws IOException {
+		video = File.createTempFile("boofcv",".mjpeg");
+		sidecar = new File(video.getPath()+MjpegIndexedReader.SIDECAR_SUFFIX);
+		createVideo(video,totalFrames);
+	}
+
+	@AfterEach
+	void after() {
+		video.delete();
+		sidecar.delete();
+		MjpegIndexedReader.SEGMENT_SIZE = 1 << 30;
+	}
+
+	/**
+	 * Frames should be the same as the ones read by the codec which loads everything
+	 */
+	@Test
+	void compareToCodec() throws IOException {
+		List<byte[]> expected = new VideoMjpegCodec().read(new FileInputStream(video));
+		assertEquals(totalFrames,expected.size());
+
+		MjpegIndexedReader alg = new MjpegIndexedReader(video,false);
+		assertEquals(totalFrames,alg.getTotalFrames());
+
+		// read them out of order
+		for (int frame = totalFrames-1; frame >= 0; frame--) {
+			checkFrame(frame,alg.readFrame(frame));
+
+			// The codec removes the EOI marker
+			byte[] found = alg.readFrame(frame);
+			assertEquals(expected.get(frame).length+2,found.length);
+			for (int i = 0; i < expected.get(frame).length; i++) {
+				assertEquals(expected.get(frame)[i],found[i]);
+			}
+		}
+		assertFalse(sidecar.exists());
+		alg.close();
+	}
+
+	/**
+	 * Use tiny segments so that frames and markers cross segment boundaries
+	 */
+	@Test
+	void smallSegments() throws IOException {
+		MjpegIndexedReader expected = new MjpegIndexedReader(video,false);
+
+		for( int size : new int[]{1,3,100,1001} ) {
+			MjpegIndexedReader.SEGMENT_SIZE = size;
+			MjpegIndexedReader alg = new MjpegIndexedReader(video,false);
+			assertEquals(totalFrames,alg.getTotalFrames());
+			for (int frame = 0; frame < totalFrames; frame++) {
+				assertArrayEquals(expected.readFrame(frame),alg.readFrame(frame));
+			}
+			alg.close();
+		}
+		expected.close();
+	}
+
+	@Test
+	void sidecar() throws IOException {
+		MjpegIndexedReader alg = new MjpegIndexedReader(video,true);
+		assertTrue(sidecar.exists());
+		assertNull(alg.getSidecarFailure());
+		alg.close();
+
+		// The index should be loaded from the sidecar instead of scanning the file
+		MjpegFrameIndex index = new MjpegFrameIndex();
+		assertTrue(index.load(sidecar));
+		assertTrue(index.isValidFor(video));
+		index.offsets.data[1] += 2;
+		index.save(sidecar);
+
+		alg = new MjpegIndexedReader(video,true);
+		assertEquals(index.offsets.get(1),alg.getIndex().offsets.get(1));
+		alg.close();
+
+		// If the file changes the sidecar should be ignored
+		createVideo(video,totalFrames-1);
+		assertTrue(video.setLastModified(index.lastModified+10_000));
+		alg = new MjpegIndexedReader(video,true);
+		assertEquals(totalFrames-1,alg.getTotalFrames());
+		for (int frame = 0; frame < totalFrames-1; frame++) {
+			checkFrame(frame,alg.readFrame(frame));
+		}
+		alg.close();
+	}
+
+	/**
+	 * If the sidecar can't be saved the file should still be readable and the failure reported
+	 */
+	@Test
+	void sidecar_saveFails() throws IOException {
+		// a directory can't be written to as a file
+		assertTrue(sidecar.mkdir());
+
+		MjpegIndexedReader alg = new MjpegIndexedReader(video,true);
+		assertNotNull(alg.getSidecarFailure());
+		assertEquals(totalFrames,alg.getTotalFrames());
+		for (int frame = 0; frame < totalFrames; frame++) {
+			checkFrame(frame,alg.readFrame(frame));
+		}
+		alg.close();
+	}
+
+	/**
+	 * A frame which was cut off at the end of the file should be ignored
+	 */
+	@Test
+	void truncated() throws IOException {
+		MjpegIndexedReader full = new MjpegIndexedReader(video,false);
+		long length = full.getIndex().offsets.get(totalFrames-1) + full.getIndex().lengths.get(totalFrames-1)/2;
+		full.close();
+
+		try( java.io.RandomAccessFile raf = new java.io.RandomAccessFile(video,"rw") ) {
+			raf.setLength(length);
+		}
+
+		MjpegIndexedReader alg = new MjpegIndexedReader(video,false);
+		assertEquals(totalFrames-1,alg.getTotalFrames());
+		alg.close();
+	}
+
+	static void createVideo( File file , int totalFrames ) throws IOException {
+		CreateMJpeg alg = new CreateMJpeg(file);
+		for (int frame = 0; frame < totalFrames; frame++) {
+			alg.addFrame(createImage(frame));
+		}
+		assertEquals(totalFrames,alg.getTotalFrames());
+		alg.close();
+	}
+
+	static BufferedImage createImage( int frame ) {
+		BufferedImage image = new BufferedImage(40+frame,30,BufferedImage.TYPE_INT_RGB);
+		for (int y = 0; y < image.getHeight(); y++) {
+			for (int x = 0; x < image.getWidth(); x++) {
+				image.setRGB(x,y,(x*5+frame*20) << 8);
+			}
+		}
+		return image;
+	}
+
+	static void checkFrame( int frame , byte[] data ) throws IOException {
+		BufferedImage found = ImageIO.read(new ByteArrayInputStream(data));
+		assertEquals(40+frame,found.getWidth());
+		assertEquals(30,found.getHeight());
+	}
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.io.wrapper.images;
+
+import boofcv.io.video.CreateMJpeg;
+import boofcv.struct.image.GrayU8;
+import boofcv.struct.image.ImageType;
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * @author Peter Abeles
+ */
+class TestMjpegIndexedSequence {
+	@Test
+	void readAndSeek() throws IOException {
+		File video = File.createTempFile("boofcv",".mjpeg");
+		try {
+			CreateMJpeg writer = new CreateMJpeg(video);
+			for (int frame = 0; frame < 4; frame++) {
+				writer.addFrame(new BufferedImage(20+frame,10,BufferedImage.TYPE_INT_RGB));
+			}
+			writer.close();
+
+			MjpegIndexedSequence<GrayU8> alg = new MjpegIndexedSequence<>(video.getPath(),false,
+					ImageType.single(GrayU8.class));
+			assertEquals(4,alg.getTotalFrames());
+
+			int frame = 0;
+			while( alg.hasNext() ) {
+				assertEquals(20+frame,alg.getNextWidth());
+				assertEquals(20+frame,alg.next().width);
+				frame++;
+			}
+			assertEquals(4,frame);
+
+			alg.setFrame(2);
+			assertEquals(22,alg.next().width);
+			assertEquals(23,alg.next().width);
+			assertFalse(alg.hasNext());
+
+			alg.reset();
+			assertEquals(20,alg.next().width);
+			alg.close();
+		} finally {
+			video.delete();
+		}
+	}
+}
@@ -0,0 +1,243 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.io.wrapper.images;
+
+import boofcv.alg.misc.ImageMiscOps;
+import boofcv.io.image.SimpleImageSequence;
+import boofcv.struct.image.GrayF32;
+import boofcv.struct.image.GrayU8;
+import boofcv.struct.image.ImageType;
+import boofcv.testing.BoofTesting;
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Peter Abeles
+ */
+class TestReadAheadImageSequence {
+
+	private String imagePath = getClass().getResource("/boofcv/io/image/wrapper/images/").getFile();
+
+	/**
+	 * Frames should be returned in order with the correct contents
+	 */
+	@Test
+	void inOrder() {
+		for( int readAhead : new int[]{1,2,5} ) {
+			ReadAheadImageSequence<GrayU8> alg = new ReadAheadImageSequence<>(new Dummy(20),readAhead);
+
+			int total = 0;
+			while( alg.hasNext() ) {
+				assertEquals(10+total,alg.getNextWidth());
+				assertEquals(5,alg.getNextHeight());
+				GrayU8 image = alg.next();
+				checkFrame(total,image);
+				assertEquals(total,alg.getFrameNumber());
+				assertEquals(total,(int)(Integer)alg.getGuiImage());
+				total++;
+			}
+			assertEquals(20,total);
+			assertNull(alg.next());
+			alg.close();
+		}
+	}
+
+	/**
+	 * Reset part way through the sequence
+	 */
+	@Test
+	void reset() {
+		Dummy dummy = new Dummy(10);
+		ReadAheadImageSequence<GrayU8> alg = new ReadAheadImageSequence<>(dummy,3);
+
+		for (int i = 0; i < 4; i++) {
+			checkFrame(i,alg.next());
+		}
+		alg.reset();
+		int total = 0;
+		while( alg.hasNext() ) {
+			checkFrame(total++,alg.next());
+		}
+		assertEquals(10,total);
+
+		// reset after the end has been reached
+		alg.reset();
+		assertTrue(alg.hasNext());
+		checkFrame(0,alg.next());
+		alg.close();
+		assertTrue(dummy.closed);
+	}
+
+	/**
+	 * Turning on looping after the end has been reached
+	 */
+	@Test
+	void setLoop() {
+		ReadAheadImageSequence<GrayU8> alg = new ReadAheadImageSequence<>(new Dummy(3),2);
+		for (int i = 0; i < 3; i++) {
+			checkFrame(i,alg.next());
+		}
+		assertFalse(alg.hasNext());
+		alg.setLoop(true);
+		for (int i = 0; i < 7; i++) {
+			assertTrue(alg.hasNext());
+			checkFrame(i%3,alg.next());
+		}
+		alg.close();
+	}
+
+	/**
+	 * Exceptions in the decoding thread should be passed on to the caller
+	 */
+	@Test
+	void exception() {
+		Dummy dummy = new Dummy(10);
+		dummy.failAt = 2;
+		ReadAheadImageSequence<GrayU8> alg = new ReadAheadImageSequence<>(dummy,3);
+		checkFrame(0,alg.next());
+		checkFrame(1,alg.next());
+		assertThrows(RuntimeException.class, alg::hasNext);
+		assertFalse(alg.hasNext());
+		alg.close();
+	}
+
+	/**
+	 * Changing the looping behavior before an exception has been passed on to the caller should not discard it
+	 */
+	@Test
+	void exception_setLoop() {
+		Dummy dummy = new Dummy(10);
+		dummy.failAt = 2;
+		ReadAheadImageSequence<GrayU8> alg = new ReadAheadImageSequence<>(dummy,3);
+		checkFrame(0,alg.next());
+		checkFrame(1,alg.next());
+		// wait for the frame which failed to be decoded
+		assertTimeoutPreemptively(Duration.ofSeconds(10),()->{
+			while( alg.decoded.isEmpty() )
+				Thread.yield();
+			return true;
+		});
+		alg.setLoop(true);
+		assertThrows(RuntimeException.class, alg::hasNext);
+		assertFalse(alg.hasNext());
+		alg.close();
+	}
+
+	/**
+	 * Errors must also be passed on, otherwise the caller would wait forever for the next frame
+	 */
+	@Test
+	void error() {
+		Dummy dummy = new Dummy(10);
+		dummy.errorAt = 1;
+		ReadAheadImageSequence<GrayU8> alg = new ReadAheadImageSequence<>(dummy,3);
+		checkFrame(0,alg.next());
+		Error e = assertTimeoutPreemptively(Duration.ofSeconds(10),()->assertThrows(Error.class, alg::next));
+		assertEquals("Failed",e.getMessage());
+		assertFalse(alg.hasNext());
+		alg.close();
+	}
+
+	/**
+	 * Compare against reading directly from files
+	 */
+	@Test
+	void compareToFiles() {
+		ImageType<GrayF32> type = ImageType.single(GrayF32.class);
+		LoadFileImageSequence<GrayF32> expected = new LoadFileImageSequence<>(type, imagePath,"png");
+		ReadAheadImageSequence<GrayF32> alg = new ReadAheadImageSequence<>(
+				new LoadFileImageSequence<>(type, imagePath,"png"),2);
+
+		int total = 0;
+		while( expected.hasNext() ) {
+			assertTrue(alg.hasNext());
+			BoofTesting.assertEquals(expected.next(),alg.next(),1e-8);
+			BufferedImage buff = alg.getGuiImage();
+			assertEquals(100,buff.getWidth());
+			assertEquals(expected.getFrameNumber(),alg.getFrameNumber());
+			total++;
+		}
+		assertFalse(alg.hasNext());
+		assertEquals(3,total);
+		alg.close();
+	}
+
+	private void checkFrame( int frame , GrayU8 image ) {
+		assertEquals(10+frame,image.width);
+		assertEquals(5,image.height);
+		for (int y = 0; y < image.height; y++) {
+			for (int x = 0; x < image.width; x++) {
+				assertEquals(frame,image.get(x,y));
+			}
+		}
+	}
+
+	/**
+	 * Creates images with a shape and value which depends on the frame number. The same image is recycled
+	 */
+	private static class Dummy implements SimpleImageSequence<GrayU8> {
+		int total;
+		int index;
+		int failAt = -1;
+		int errorAt = -1;
+		boolean loop;
+		boolean closed;
+		GrayU8 image = new GrayU8(1,1);
+
+		Dummy(int total) {
+			this.total = total;
+		}
+
+		@Override public int getNextWidth() { return 10+index; }
+		@Override public int getNextHeight() { return 5; }
+
+		@Override
+		public boolean hasNext() {
+			return loop || index < total;
+		}
+
+		@Override
+		public GrayU8 next() {
+			if( loop && index >= total )
+				index = 0;
+			if( index == failAt ) {
+				// only fail once so that it's possible to tell if decoding continued after the failure
+				failAt = -1;
+				throw new RuntimeException("Failed");
+			}
+			if( index == errorAt )
+				throw new Error("Failed");
+			image.reshape(10+index,5);
+			ImageMiscOps.fill(image,index);
+			index++;
+			return image;
+		}
+
+		@Override public <InternalImage> InternalImage getGuiImage() { return (InternalImage)(Integer)(index-1); }
+		@Override public void close() { closed = true; }
+		@Override public int getFrameNumber() { return index-1; }
+		@Override public void setLoop(boolean loop) { this.loop = loop; }
+		@Override public ImageType<GrayU8> getImageType() { return ImageType.single(GrayU8.class); }
+		@Override public void reset() { index = 0; }
+	}
+}
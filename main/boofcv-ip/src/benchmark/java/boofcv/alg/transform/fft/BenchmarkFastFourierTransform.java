@@ -20,6 +20,7 @@ package boofcv.alg.transform.fft;
 
 import boofcv.abst.transform.fft.DiscreteFourierTransform;
 import boofcv.alg.misc.ImageMiscOps;
+import boofcv.concurrency.BoofConcurrency;
 import boofcv.misc.PerformerBase;
 import boofcv.misc.ProfileOperation;
 import boofcv.struct.image.GrayF32;
@@ -60,6 +61,14 @@ public class BenchmarkFastFourierTransform {
 		System.out.println("=========  Profile Image Size " + width + " x " + height + " ==========");
 		System.out.println();
 
-		ProfileOperation.printOpsPerSec(new ComputeFFT(), TEST_TIME);
+		// see how well it scales as the number of threads is increased
+		int maxThreads = Runtime.getRuntime().availableProcessors();
+		for (int threads = 1; ; threads = Math.min(maxThreads,threads*2)) {
+			BoofConcurrency.setMaxThreads(threads);
+			System.out.print("threads = "+threads+"  ");
+			ProfileOperation.printOpsPerSec(new ComputeFFT(), TEST_TIME);
+			if( threads == maxThreads )
+				break;
+		}
 	}
 }
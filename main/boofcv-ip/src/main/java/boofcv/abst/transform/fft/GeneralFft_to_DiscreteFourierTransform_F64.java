@@ -20,11 +20,18 @@ package boofcv.abst.transform.fft;
 
 import boofcv.alg.transform.fft.DiscreteFourierTransformOps;
 import boofcv.alg.transform.fft.GeneralPurposeFFT_F64_2D;
+import boofcv.alg.transform.fft.GeneralPurposeFFT_F64_2D_MT;
+import boofcv.concurrency.BoofConcurrency;
 import boofcv.struct.image.GrayF64;
 import boofcv.struct.image.InterleavedF64;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 /**
- * Wrapper around {@link GeneralPurposeFFT_F64_2D} which implements {@link DiscreteFourierTransform}
+ * Wrapper around {@link GeneralPurposeFFT_F64_2D} which implements {@link DiscreteFourierTransform}. If
+ * concurrency is turned on then {@link GeneralPurposeFFT_F64_2D_MT} is used instead. Transforms for recently
+ * used image shapes are saved so that switching between a few sizes doesn't require the plans to be recomputed.
  *
  * @author Peter Abeles
  */
@@ -38,6 +45,16 @@ public class GeneralFft_to_DiscreteFourierTransform_F64
 	// performs the FFT
 	private GeneralPurposeFFT_F64_2D alg;
 
+	// Maximum number of transforms which are saved
+	private int maxCachedPlans = 4;
+	// Previously declared transforms. Key is (height,width). Ordered from least to most recently used.
+	private Map<Long,GeneralPurposeFFT_F64_2D> plans = new LinkedHashMap<Long,GeneralPurposeFFT_F64_2D>(16,0.75f,true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Long, GeneralPurposeFFT_F64_2D> eldest) {
+			return size() > maxCachedPlans;
+		}
+	};
+
 	// storage for temporary results
 	private InterleavedF64 tmp = new InterleavedF64(1,1,2);
 
@@ -87,16 +104,42 @@ public class GeneralFft_to_DiscreteFourierTransform_F64
 	}
 
 	/**
-	 * Declare the algorithm if the image size has changed
+	 * Declare the algorithm if the image size has changed. A saved transform is used if one exists.
 	 */
 	private void checkDeclareAlg(GrayF64 image) {
-		if( prevWidth != image.width || prevHeight != image.height ) {
+		boolean concurrent = BoofConcurrency.USE_CONCURRENT;
+		if( prevWidth != image.width || prevHeight != image.height ||
+				(alg instanceof GeneralPurposeFFT_F64_2D_MT) != concurrent ) {
 			prevWidth = image.width;
 			prevHeight = image.height;
-			alg = new GeneralPurposeFFT_F64_2D(image.height,image.width);
+
+			long key = ((long)image.height << 32) | image.width;
+			alg = plans.get(key);
+			if( alg == null || (alg instanceof GeneralPurposeFFT_F64_2D_MT) != concurrent ) {
+				if( concurrent )
+					alg = new GeneralPurposeFFT_F64_2D_MT(image.height,image.width);
+				else
+					alg = new GeneralPurposeFFT_F64_2D(image.height,image.width);
+				plans.put(key,alg);
+			}
 		}
 	}
 
+	/**
+	 * Specifies the maximum number of transforms, one for each image shape, which are saved.
+	 *
+	 * @param maxCachedPlans Maximum number of saved transforms. &ge; 1
+	 */
+	public void setMaxCachedPlans( int maxCachedPlans ) {
+		if( maxCachedPlans < 1 )
+			throw new IllegalArgumentException("Must save at least one transform");
+		this.maxCachedPlans = maxCachedPlans;
+	}
+
+	public int getMaxCachedPlans() {
+		return maxCachedPlans;
+	}
+
 	@Override
 	public void setModifyInputs(boolean modify) {
 		this.modifyInputs = modify;
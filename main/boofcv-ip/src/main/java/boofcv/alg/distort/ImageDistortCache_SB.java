@@ -27,7 +27,8 @@ import georegression.struct.point.Point2D_F32;
 /**
  * Except for very simple functions, computing the per pixel distortion is an expensive operation.
  * To overcome this problem the distortion is computed once and cached.  Then when the image is distorted
- * again the save results are simply recalled and not computed again.
+ * again the save results are simply recalled and not computed again. The cache is stored in a
+ * {@link RemapTable_F32}, which can be shared with other instances that use the same model.
  *
  * @author Peter Abeles
  */
@@ -38,7 +39,10 @@ public class ImageDistortCache_SB<Input extends ImageGray<Input>,Output extends
 
 	// size of output image
 	protected int width=-1,height=-1;
-	protected Point2D_F32 map[];
+	// location of each output pixel in the source image
+	protected RemapTable_F32 table = new RemapTable_F32();
+	// if true the table was provided externally and must not be modified
+	protected boolean sharedTable = false;
 	// sub pixel interpolation
 	protected InterpolatePixelS<Input> interp;
 
@@ -72,6 +76,21 @@ public class ImageDistortCache_SB<Input extends ImageGray<Input>,Output extends
 		this.dstToSrc = dstToSrc;
 	}
 
+	/**
+	 * Uses a precomputed table instead of computing one from the model. The table is only read from and can be
+	 * shared with other instances. If the output image doesn't match the table's shape then a new table is
+	 * computed from the model.
+	 *
+	 * @param table Precomputed table for the current model. Not modified.
+	 */
+	public void setTable( RemapTable_F32 table ) {
+		this.table = table;
+		this.sharedTable = true;
+		this.width = table.width;
+		this.height = table.height;
+		this.dirty = false;
+	}
+
 	@Override
 	public void apply(Input srcImg, Output dstImg) {
 		init(srcImg, dstImg);
@@ -110,22 +129,19 @@ public class ImageDistortCache_SB<Input extends ImageGray<Input>,Output extends
 
 	protected void init(Input srcImg, Output dstImg) {
 		if( dirty || width != dstImg.width || height != dstImg.height) {
+			if( dstToSrc == null )
+				throw new IllegalArgumentException("Unexpected dstImg dimension and no model to compute a new table");
 			width = dstImg.width;
 			height = dstImg.height;
-			map = new Point2D_F32[width*height];
-			for( int i = 0; i < map.length; i++ ) {
-				map[i] = new Point2D_F32();
-			}
-
-			int index = 0;
-			for( int y = 0; y < height; y++ ) {
-				for( int x = 0; x < width; x++ ) {
-					dstToSrc.compute(x,y,map[index++]);
-				}
+			// never modify a table which might be used by someone else
+			if( sharedTable ) {
+				table = new RemapTable_F32();
+				sharedTable = false;
 			}
+			table.reshape(width,height);
+			computeTable();
 			dirty = false;
-		} else if( dstImg.width != width || dstImg.height != height )
-			throw new IllegalArgumentException("Unexpected dstImg dimension");
+		}
 
 		this.srcImg = srcImg;
 		this.dstImg = dstImg;
@@ -133,33 +149,42 @@ public class ImageDistortCache_SB<Input extends ImageGray<Input>,Output extends
 		assigner.setImage(dstImg);
 	}
 
+	/**
+	 * Computes the table from the model
+	 */
+	protected void computeTable() {
+		table.compute(dstToSrc);
+	}
+
 	protected void renderAll() {
+		final float[] map = table.data;
 
 		// todo TO make this faster first apply inside the region which can process the fast border
 		// then do the slower border thingy
 		for( int y = y0; y < y1; y++ ) {
 			int indexDst = dstImg.startIndex + dstImg.stride*y + x0;
-			for( int x = x0; x < x1; x++ , indexDst++ ) {
-				Point2D_F32 s = map[indexDst];
-
-				assigner.assign(indexDst,interp.get(s.x, s.y));
+			int indexMap = 2*(y*width + x0);
+			for( int x = x0; x < x1; x++ , indexDst++ , indexMap += 2 ) {
+				assigner.assign(indexDst,interp.get(map[indexMap], map[indexMap+1]));
 			}
 		}
 	}
 
 	protected void renderAll( GrayU8 mask ) {
+		final float[] map = table.data;
 		float maxWidth = srcImg.getWidth()-1;
 		float maxHeight = srcImg.getHeight()-1;
 
 		for( int y = y0; y < y1; y++ ) {
 			int indexDst = dstImg.startIndex + dstImg.stride*y + x0;
 			int indexMsk = mask.startIndex + mask.stride*y + x0;
+			int indexMap = 2*(y*width + x0);
 
-			for( int x = x0; x < x1; x++ , indexDst++ , indexMsk++ ) {
-				Point2D_F32 s = map[indexDst];
+			for( int x = x0; x < x1; x++ , indexDst++ , indexMsk++ , indexMap += 2 ) {
+				float sx = map[indexMap], sy = map[indexMap+1];
 
-				assigner.assign(indexDst,interp.get(s.x, s.y));
-				if( s.x >= 0 && s.x <= maxWidth && s.y >= 0 && s.y <= maxHeight ) {
+				assigner.assign(indexDst,interp.get(sx, sy));
+				if( sx >= 0 && sx <= maxWidth && sy >= 0 && sy <= maxHeight ) {
 					mask.data[indexMsk] = 1;
 				} else {
 					mask.data[indexMsk] = 0;
@@ -169,34 +194,38 @@ public class ImageDistortCache_SB<Input extends ImageGray<Input>,Output extends
 	}
 
 	protected void applyOnlyInside() {
+		final float[] map = table.data;
 		float maxWidth = srcImg.getWidth()-1;
 		float maxHeight = srcImg.getHeight()-1;
 
 		for( int y = y0; y < y1; y++ ) {
 			int indexDst = dstImg.startIndex + dstImg.stride*y + x0;
-			for( int x = x0; x < x1; x++ , indexDst++ ) {
-				Point2D_F32 s = map[indexDst];
+			int indexMap = 2*(y*width + x0);
+			for( int x = x0; x < x1; x++ , indexDst++ , indexMap += 2 ) {
+				float sx = map[indexMap], sy = map[indexMap+1];
 
-				if( s.x >= 0 && s.x <= maxWidth && s.y >= 0 && s.y <= maxHeight ) {
-					assigner.assign(indexDst,interp.get(s.x, s.y));
+				if( sx >= 0 && sx <= maxWidth && sy >= 0 && sy <= maxHeight ) {
+					assigner.assign(indexDst,interp.get(sx, sy));
 				}
 			}
 		}
 	}
 
 	protected void applyOnlyInside( GrayU8 mask ) {
+		final float[] map = table.data;
 		float maxWidth = srcImg.getWidth()-1;
 		float maxHeight = srcImg.getHeight()-1;
 
 		for( int y = y0; y < y1; y++ ) {
 			int indexDst = dstImg.startIndex + dstImg.stride*y + x0;
 			int indexMsk = mask.startIndex + mask.stride*y + x0;
+			int indexMap = 2*(y*width + x0);
 
-			for( int x = x0; x < x1; x++ , indexDst++ , indexMsk++ ) {
-				Point2D_F32 s = map[indexDst];
+			for( int x = x0; x < x1; x++ , indexDst++ , indexMsk++ , indexMap += 2 ) {
+				float sx = map[indexMap], sy = map[indexMap+1];
 
-				if( s.x >= 0 && s.x <= maxWidth && s.y >= 0 && s.y <= maxHeight ) {
-					assigner.assign(indexDst,interp.get(s.x, s.y));
+				if( sx >= 0 && sx <= maxWidth && sy >= 0 && sy <= maxHeight ) {
+					assigner.assign(indexDst,interp.get(sx, sy));
 					mask.data[indexMsk] = 1;
 				} else {
 					mask.data[indexMsk] = 0;
@@ -205,8 +234,8 @@ public class ImageDistortCache_SB<Input extends ImageGray<Input>,Output extends
 		}
 	}
 
-	public Point2D_F32[] getMap() {
-		return map;
+	public RemapTable_F32 getTable() {
+		return table;
 	}
 
 	public InterpolatePixelS<Input> getInterp() {
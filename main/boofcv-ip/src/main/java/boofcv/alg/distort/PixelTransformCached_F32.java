@@ -25,14 +25,14 @@ import org.ejml.UtilEjml;
 
 /**
  * Precomputes transformations for each pixel in the image.  Doesn't check bounds and will give an incorrect result
- * or crash if outside pixels are requested.
+ * or crash if outside pixels are requested. Results are stored in a {@link RemapTable_F32}, which is shared
+ * with concurrent copies since it's only read from.
  *
  * @author Peter Abeles
  */
 public class PixelTransformCached_F32 implements PixelTransform<Point2D_F32> {
 
-	Point2D_F32 map[];
-	int width,height;
+	RemapTable_F32 table;
 
 	boolean ignoreNaN = true;
 
@@ -41,23 +41,20 @@ public class PixelTransformCached_F32 implements PixelTransform<Point2D_F32> {
 	}
 
 	public PixelTransformCached_F32(int width, int height, PixelTransform<Point2D_F32> transform ) {
-		this.width = width+1; // add one to the width since some stuff checks the outside border
-		this.height = height+1;
-
-		map = new Point2D_F32[this.width*this.height];
-		int index = 0;
-		for (int y = 0; y < this.height; y++) {
-			for (int x = 0; x < this.width; x++) {
-				Point2D_F32 p = new Point2D_F32();
-				transform.compute(x,y,p);
-
-				// It's not obvious what to do if the pixel is invalid
-				// If left as uncountable it can mess up the processing completely later on.
-				// Figured a pixel out of the image at -1,-1 might get someone's attention that something is up
-				if( !ignoreNaN && (UtilEjml.isUncountable(p.x) || UtilEjml.isUncountable(p.y)) ) {
-					p.set(-1,-1);
+		// add one to the width since some stuff checks the outside border
+		table = new RemapTable_F32(width+1,height+1);
+		table.compute(transform);
+
+		// It's not obvious what to do if the pixel is invalid
+		// If left as uncountable it can mess up the processing completely later on.
+		// Figured a pixel out of the image at -1,-1 might get someone's attention that something is up
+		if( !ignoreNaN ) {
+			float[] data = table.data;
+			for (int i = 0; i < 2*table.width*table.height; i += 2) {
+				if( UtilEjml.isUncountable(data[i]) || UtilEjml.isUncountable(data[i+1]) ) {
+					data[i] = -1;
+					data[i+1] = -1;
 				}
-				map[index++] = p;
 			}
 		}
 	}
@@ -65,8 +62,22 @@ public class PixelTransformCached_F32 implements PixelTransform<Point2D_F32> {
 	PixelTransformCached_F32() {
 	}
 
-	public Point2D_F32 getPixel( int x, int y ) {
-		return map[width*y + x];
+	/**
+	 * Returns the cached value for pixel (x,y)
+	 */
+	public void getPixel( int x, int y , Point2D_F32 output ) {
+		table.get(x,y,output);
+	}
+
+	/**
+	 * Overwrites the cached value for pixel (x,y). This will also modify concurrent copies.
+	 */
+	public void setPixel( int x, int y , float srcX , float srcY ) {
+		table.set(x,y,srcX,srcY);
+	}
+
+	public RemapTable_F32 getTable() {
+		return table;
 	}
 
 	public boolean isIgnoreNaN() {
@@ -82,19 +93,16 @@ public class PixelTransformCached_F32 implements PixelTransform<Point2D_F32> {
 //		if( x < 0 || y < 0 || x >= width || y >= height )
 //			throw new IllegalArgumentException("Out of bounds");
 
-		output.set(map[y*width+x]);
+		int index = 2*(y*table.width+x);
+		output.x = table.data[index];
+		output.y = table.data[index+1];
 	}
 
 	@Override
 	public PixelTransform<Point2D_F32> copyConcurrent() {
+		// the table is only read from so it can be shared
 		PixelTransformCached_F32 ret = new PixelTransformCached_F32();
-		ret.map = new Point2D_F32[this.map.length];
-		for (int i = 0; i < ret.map.length; i++) {
-			ret.map[i] = this.map[i].copy();
-		}
-
-		ret.width = this.width;
-		ret.height = this.height;
+		ret.table = this.table;
 		ret.ignoreNaN = this.ignoreNaN;
 
 		return ret;
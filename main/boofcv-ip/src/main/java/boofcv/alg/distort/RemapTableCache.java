@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.distort;
+
+import boofcv.struct.distort.PixelTransform;
+import georegression.struct.point.Point2D_F32;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Cache of {@link RemapTable_F32} which allows tables for the same distortion model to be shared instead of
+ * being recomputed and stored multiple times. Tables are looked up using a user provided key, which must
+ * implement equals() and hashCode(), and the shape of the destination image. When the cache is full the least
+ * recently used table is discarded. Safe to call from multiple threads.
+ *
+ * @author Peter Abeles
+ */
+public class RemapTableCache {
+	// maximum number of tables which are saved
+	private int maxTables;
+
+	// maps the key to the table. Ordered by access so that the oldest can be removed
+	private final LinkedHashMap<Object,RemapTable_F32> tables = new LinkedHashMap<>(16,0.75f,true);
+
+	/**
+	 * @param maxTables Maximum number of tables which will be saved. &ge; 1
+	 */
+	public RemapTableCache( int maxTables ) {
+		setMaxTables(maxTables);
+	}
+
+	public RemapTableCache() {
+		this(4);
+	}
+
+	/**
+	 * Returns the table which matches the key and shape. If no such table is in the cache then a new one is
+	 * computed using the provided transform.
+	 *
+	 * @param key Identifies the distortion model. Must implement equals() and hashCode()
+	 * @param width Width of the destination image
+	 * @param height Height of the destination image
+	 * @param dstToSrc Provides the transform when the table needs to be computed
+	 * @return The table. Do not modify.
+	 */
+	public synchronized RemapTable_F32 lookup( Object key , int width , int height ,
+											   Supplier<PixelTransform<Point2D_F32>> dstToSrc ) {
+		Object fullKey = Arrays.asList(key,width,height);
+		RemapTable_F32 table = tables.get(fullKey);
+		if( table == null ) {
+			table = new RemapTable_F32(width,height);
+			table.compute(dstToSrc.get());
+			tables.put(fullKey,table);
+			discardOldest();
+		}
+		return table;
+	}
+
+	/**
+	 * Removes all tables from the cache
+	 */
+	public synchronized void clear() {
+		tables.clear();
+	}
+
+	public synchronized int size() {
+		return tables.size();
+	}
+
+	public synchronized int getMaxTables() {
+		return maxTables;
+	}
+
+	public synchronized void setMaxTables( int maxTables ) {
+		if( maxTables < 1 )
+			throw new IllegalArgumentException("maxTables must be >= 1");
+		this.maxTables = maxTables;
+		discardOldest();
+	}
+
+	private void discardOldest() {
+		Iterator<Map.Entry<Object,RemapTable_F32>> iter = tables.entrySet().iterator();
+		while( tables.size() > maxTables ) {
+			iter.next();
+			iter.remove();
+		}
+	}
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.distort;
+
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.struct.distort.PixelTransform;
+import georegression.struct.point.Point2D_F32;
+
+/**
+ * <p>
+ * Lookup table which stores the location in the source image for every pixel in the destination image. The
+ * locations are packed into a single float array as (x,y) pairs in row-major order. Compared to an array
+ * of {@link Point2D_F32} this requires less than half the memory and only a single object, which greatly reduces
+ * the cost of creating and garbage collecting the table for large images.
+ * </p>
+ *
+ * <p>
+ * Once computed the table is only read from, so a single instance can be shared between threads and
+ * between multiple {@link ImageDistortCache_SB} instances that use the same distortion model. Do not modify
+ * a table after it has been shared.
+ * </p>
+ *
+ * @author Peter Abeles
+ */
+public class RemapTable_F32 {
+	// shape of the destination image
+	int width, height;
+
+	/**
+	 * Location in the source image. Pixel (x,y) is stored at index 2*(y*width+x) for x and the next element for y.
+	 */
+	float[] data = new float[0];
+
+	public RemapTable_F32(int width, int height) {
+		reshape(width, height);
+	}
+
+	public RemapTable_F32() {
+	}
+
+	/**
+	 * Changes the shape of the table. The internal array is only reallocated if it's too small.
+	 */
+	public void reshape( int width , int height ) {
+		this.width = width;
+		this.height = height;
+		if( data.length < 2*width*height )
+			data = new float[2*width*height];
+	}
+
+	/**
+	 * Computes the table by applying the transform to every pixel.
+	 *
+	 * @param dstToSrc Transform from destination pixel to source pixel
+	 */
+	public void compute( PixelTransform<Point2D_F32> dstToSrc ) {
+		computeRows(dstToSrc,0,height);
+	}
+
+	/**
+	 * Concurrent version of {@link #compute}. Each thread uses its own copy of the transform.
+	 *
+	 * @param dstToSrc Transform from destination pixel to source pixel
+	 */
+	public void compute_MT( PixelTransform<Point2D_F32> dstToSrc ) {
+		BoofConcurrency.loopBlocks(0,height,(y0,y1)->
+				computeRows(dstToSrc.copyConcurrent(),y0,y1));
+	}
+
+	/**
+	 * Computes the table for the rows from y0 to y1-1
+	 */
+	void computeRows( PixelTransform<Point2D_F32> dstToSrc , int y0 , int y1 ) {
+		Point2D_F32 p = new Point2D_F32();
+		for( int y = y0; y < y1; y++ ) {
+			int index = 2*y*width;
+			for( int x = 0; x < width; x++ ) {
+				dstToSrc.compute(x,y,p);
+				data[index++] = p.x;
+				data[index++] = p.y;
+			}
+		}
+	}
+
+	/**
+	 * Returns the location in the source image of pixel (x,y) in the destination image
+	 */
+	public void get( int x , int y , Point2D_F32 output ) {
+		int index = 2*(y*width+x);
+		output.x = data[index];
+		output.y = data[index+1];
+	}
+
+	/**
+	 * Changes the location in the source image of pixel (x,y) in the destination image
+	 */
+	public void set( int x , int y , float srcX , float srcY ) {
+		int index = 2*(y*width+x);
+		data[index] = srcX;
+		data[index+1] = srcY;
+	}
+
+	/**
+	 * Returns true if the table has the specified shape
+	 */
+	public boolean isShape( int width , int height ) {
+		return this.width == width && this.height == height;
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	public float[] getData() {
+		return data;
+	}
+}
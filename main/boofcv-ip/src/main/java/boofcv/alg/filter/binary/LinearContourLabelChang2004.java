@@ -24,6 +24,7 @@ import boofcv.struct.PackedSetsPoint2D_I32;
 import boofcv.struct.image.GrayS32;
 import boofcv.struct.image.GrayU8;
 import org.ddogleg.struct.FastQueue;
+import org.ddogleg.struct.GrowQueue_I32;
 
 /**
  * <p>
@@ -73,7 +74,9 @@ public class LinearContourLabelChang2004 {
 
 	// predeclared/recycled data structures
 	PackedSetsPoint2D_I32 packedPoints = new PackedSetsPoint2D_I32(2000);
-	private FastQueue<ContourPacked> contours = new FastQueue<>(ContourPacked.class, true);
+	FastQueue<ContourPacked> contours = new FastQueue<>(ContourPacked.class, true);
+	// For each set of points, index (y*width + x) of the pixel the contour was traced from
+	GrowQueue_I32 seeds = new GrowQueue_I32();
 
 	// internal book keeping variables
 	private int x,y,indexIn,indexOut;
@@ -110,6 +113,7 @@ public class LinearContourLabelChang2004 {
 		binary = border;
 		packedPoints.reset();
 		contours.reset();
+		seeds.reset();
 		tracer.setInputs(binary,labeled, packedPoints);
 
 		// Outside border is all zeros so it can be ignored
@@ -177,6 +181,7 @@ public class LinearContourLabelChang2004 {
 		// save the set index for this contour and declare memory for it
 		c.externalIndex = packedPoints.size();
 		packedPoints.grow();
+		seeds.add((y-1)*(border.width-2) + x-1);
 		c.internalIndexes.reset();
 		tracer.trace(contours.size(),x,y,true);
 
@@ -199,6 +204,7 @@ public class LinearContourLabelChang2004 {
 		ContourPacked c = contours.get(label-1);
 		c.internalIndexes.add( packedPoints.size() );
 		packedPoints.grow();
+		seeds.add((y-1)*(border.width-2) + x-1);
 		tracer.setMaxContourSize(saveInternalContours?maxContourSize:0);
 		tracer.trace(label,x,y,false);
 
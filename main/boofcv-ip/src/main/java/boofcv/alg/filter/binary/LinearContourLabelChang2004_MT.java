@@ -0,0 +1,394 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.filter.binary;
+
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.struct.ConnectRule;
+import boofcv.struct.PackedSetsPoint2D_I32;
+import boofcv.struct.image.GrayS32;
+import boofcv.struct.image.GrayU8;
+import georegression.struct.point.Point2D_I32;
+import org.ddogleg.struct.FastQueue;
+import org.ddogleg.struct.GrowQueue_B;
+import org.ddogleg.struct.GrowQueue_I32;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * Concurrent version of {@link LinearContourLabelChang2004}. The image is split into horizontal strips which
+ * are labeled independently. A blob which doesn't touch the first or last row of its strip can't be connected
+ * to anything outside the strip, so its label and contours are already correct. Blobs which do touch a seam
+ * between two strips are copied into a second image, with everything else removed, and labeled again. This
+ * merges pieces which are connected across seams. The contours from the strips and the seam image are then
+ * sorted into the order in which a raster scan would have found them.
+ * </p>
+ *
+ * <p>
+ * Output is identical to the single threaded algorithm. How much faster it is depends on how much of the
+ * image is covered by blobs which cross a seam, since those are processed twice.
+ * </p>
+ *
+ * @author Peter Abeles
+ */
+public class LinearContourLabelChang2004_MT extends LinearContourLabelChang2004 {
+
+	// Number of strips the image is split into. If &le; 0 then the maximum number of threads is used
+	private int numberOfStrips = 0;
+	// Strips must have at least this many rows
+	private int minimumStripHeight = 40;
+
+	// Independently labeled strips
+	FastQueue<Strip> strips = new FastQueue<>(Strip.class, Strip::new);
+
+	// Labels the image which only contains blobs that touch a seam
+	LinearContourLabelChang2004 seamAlg;
+	GrayU8 seamBinary = new GrayU8(1,1);
+	GrayS32 seamLabeled = new GrayS32(1,1);
+	// Look up table from seam label to output label
+	GrowQueue_I32 seamToOutput = new GrowQueue_I32();
+	// First row in the image that's included in the seam image
+	int seamY0;
+
+	// Used to sort contours and sets of points by the pixel they were traced from.
+	// key = (seed pixel index) << 32 | element
+	long[] sortKeys = new long[0];
+	// Which strip an element came from or -1 for the seam image
+	GrowQueue_I32 elementSource = new GrowQueue_I32();
+	// Contour or set index inside of the source
+	GrowQueue_I32 elementIndex = new GrowQueue_I32();
+	// ID of the output contour a set belongs to. Negative if it's an external contour
+	GrowQueue_I32 elementContour = new GrowQueue_I32();
+
+	/**
+	 * Configures the algorithm.
+	 *
+	 * @param rule Connectivity rule.  4 or 8
+	 */
+	public LinearContourLabelChang2004_MT( ConnectRule rule ) {
+		super(rule);
+		seamAlg = new LinearContourLabelChang2004(rule);
+	}
+
+	@Override
+	public void process(GrayU8 binary , GrayS32 labeled ) {
+		int N = numberOfStrips > 0 ? numberOfStrips : BoofConcurrency.getMaxThreads();
+		N = Math.min(N, binary.height/Math.max(1,minimumStripHeight));
+		if( N <= 1 ) {
+			super.process(binary, labeled);
+			return;
+		}
+
+		labeled.reshape(binary.width,binary.height);
+
+		strips.resize(N);
+		for (int i = 0; i < N; i++) {
+			Strip s = strips.get(i);
+			s.y0 = binary.height*i/N;
+			s.y1 = binary.height*(i+1)/N;
+			configure(s.alg);
+		}
+
+		// Independently label each strip
+		BoofConcurrency.loopFor(0,N,i->processStrip(strips.get(i),binary,labeled));
+
+		// Blobs which touch a seam are copied into their own image and labeled
+		processSeamBlobs(binary,labeled);
+
+		// Put everything into the same order as the single threaded algorithm and relabel the image
+		mergeContours(binary.width);
+		BoofConcurrency.loopFor(0,N,i->relabel(strips.get(i),labeled));
+	}
+
+	/**
+	 * Copies settings into an algorithm which processes part of the image
+	 */
+	private void configure( LinearContourLabelChang2004 alg ) {
+		alg.setConnectRule(getConnectRule());
+		alg.setMinContourSize(getMinContourSize());
+		alg.setMaxContourSize(getMaxContourSize());
+		alg.setSaveInternalContours(isSaveInternalContours());
+	}
+
+	/**
+	 * Labels the strip and marks which blobs touch the seam with another strip
+	 */
+	private void processStrip( Strip s , GrayU8 binary , GrayS32 labeled ) {
+		s.binary = binary.subimage(0,s.y0,binary.width,s.y1,s.binary);
+		s.labeled = labeled.subimage(0,s.y0,binary.width,s.y1,s.labeled);
+		s.alg.process(s.binary,s.labeled);
+
+		int numBlobs = s.alg.getContours().size;
+		s.touchesSeam.resize(numBlobs+1);
+		Arrays.fill(s.touchesSeam.data,0,numBlobs+1,false);
+		s.toOutput.resize(numBlobs+1);
+		s.toOutput.data[0] = 0;
+
+		if( s.y0 > 0 )
+			markSeam(s, 0);
+		if( s.y1 < binary.height )
+			markSeam(s, s.labeled.height-1);
+		// background is never part of a blob
+		s.touchesSeam.data[0] = false;
+	}
+
+	private void markSeam( Strip s , int row ) {
+		int index = s.labeled.startIndex + row*s.labeled.stride;
+		for (int x = 0; x < s.labeled.width; x++) {
+			s.touchesSeam.data[s.labeled.data[index++]] = true;
+		}
+	}
+
+	/**
+	 * Creates an image that only contains blobs which touch a seam and labels it. Only rows which contain
+	 * these blobs are processed.
+	 */
+	private void processSeamBlobs( GrayU8 binary , GrayS32 labeled ) {
+		final int width = binary.width;
+		seamBinary.reshape(width,binary.height);
+
+		BoofConcurrency.loopFor(0,strips.size,i->{
+			Strip s = strips.get(i);
+			s.seamRow0 = Integer.MAX_VALUE;
+			s.seamRow1 = -1;
+			for (int y = s.y0; y < s.y1; y++) {
+				int indexLabeled = labeled.startIndex + y*labeled.stride;
+				int indexSeam = y*width;
+				boolean found = false;
+				for (int x = 0; x < width; x++) {
+					if( s.touchesSeam.data[labeled.data[indexLabeled++]] ) {
+						seamBinary.data[indexSeam++] = 1;
+						found = true;
+					} else {
+						seamBinary.data[indexSeam++] = 0;
+					}
+				}
+				if( found ) {
+					s.seamRow0 = Math.min(s.seamRow0,y);
+					s.seamRow1 = y+1;
+				}
+			}
+		});
+
+		int y0 = Integer.MAX_VALUE, y1 = -1;
+		for (int i = 0; i < strips.size; i++) {
+			y0 = Math.min(y0,strips.get(i).seamRow0);
+			y1 = Math.max(y1,strips.get(i).seamRow1);
+		}
+
+		configure(seamAlg);
+		if( y1 < 0 ) {
+			// nothing crosses a seam
+			seamY0 = 0;
+			seamAlg.contours.reset();
+			seamAlg.packedPoints.reset();
+			seamAlg.seeds.reset();
+		} else {
+			seamY0 = y0;
+			seamAlg.process(seamBinary.subimage(0,y0,width,y1,null),seamLabeled);
+		}
+		seamToOutput.resize(seamAlg.getContours().size+1);
+		seamToOutput.data[0] = 0;
+	}
+
+	/**
+	 * Combines contours and points from all the strips and the seam image. Contours are ordered by the pixel
+	 * their external contour was traced from and sets of points by the pixel they were traced from. This is
+	 * the order the single threaded algorithm encounters them in.
+	 */
+	private void mergeContours( int width ) {
+		FastQueue<ContourPacked> seamContours = seamAlg.getContours();
+
+		// ----------- Assign IDs to contours
+		resetElements();
+		for (int i = 0; i < strips.size; i++) {
+			Strip s = strips.get(i);
+			FastQueue<ContourPacked> found = s.alg.getContours();
+			for (int j = 0; j < found.size; j++) {
+				if( s.touchesSeam.data[j+1] )
+					continue;
+				addElement(s.alg.seeds.get(found.get(j).externalIndex) + s.y0*width,i,j,0);
+			}
+		}
+		for (int j = 0; j < seamContours.size; j++) {
+			addElement(seamAlg.seeds.get(seamContours.get(j).externalIndex) + seamY0*width,-1,j,0);
+		}
+		Arrays.sort(sortKeys,0,elementSource.size);
+
+		contours.reset();
+		for (int i = 0; i < elementSource.size; i++) {
+			int element = (int)sortKeys[i];
+			int local = elementIndex.data[element];
+
+			ContourPacked c = contours.grow();
+			c.reset();
+			c.id = contours.size;
+
+			if( elementSource.data[element] >= 0 )
+				strips.get(elementSource.data[element]).toOutput.data[local+1] = c.id;
+			else
+				seamToOutput.data[local+1] = c.id;
+		}
+
+		// ----------- Copy sets of points
+		resetElements();
+		for (int i = 0; i < strips.size; i++) {
+			Strip s = strips.get(i);
+			FastQueue<ContourPacked> found = s.alg.getContours();
+			for (int j = 0; j < found.size; j++) {
+				if( s.touchesSeam.data[j+1] )
+					continue;
+				addSets(found.get(j), s.alg.seeds, s.y0*width, i, s.toOutput.data[j+1]);
+			}
+		}
+		for (int j = 0; j < seamContours.size; j++) {
+			addSets(seamContours.get(j), seamAlg.seeds, seamY0*width, -1, seamToOutput.data[j+1]);
+		}
+		Arrays.sort(sortKeys,0,elementSource.size);
+
+		packedPoints.reset();
+		seeds.reset();
+		LinearContourLabelChang2004 previous = null;
+		PackedSetsPoint2D_I32.SetIterator iterator = null;
+		for (int i = 0; i < elementSource.size; i++) {
+			int element = (int)sortKeys[i];
+			int source = elementSource.data[element];
+			int contourID = elementContour.data[element];
+
+			LinearContourLabelChang2004 alg;
+			int offsetY;
+			if( source >= 0 ) {
+				alg = strips.get(source).alg;
+				offsetY = strips.get(source).y0;
+			} else {
+				alg = seamAlg;
+				offsetY = seamY0;
+			}
+
+			if( contourID < 0 ) {
+				contours.get(-contourID-1).externalIndex = packedPoints.size();
+			} else {
+				contours.get(contourID-1).internalIndexes.add(packedPoints.size());
+			}
+			packedPoints.grow();
+			seeds.add((int)(sortKeys[i] >> 32));
+
+			int set = elementIndex.data[element];
+			if( alg.packedPoints.sizeOfSet(set) == 0 )
+				continue;
+			if( alg != previous ) {
+				iterator = alg.packedPoints.createIterator();
+				previous = alg;
+			}
+			iterator.setup(set);
+			while( iterator.hasNext() ) {
+				Point2D_I32 p = iterator.next();
+				packedPoints.addPointToTail(p.x,p.y+offsetY);
+			}
+		}
+	}
+
+	/**
+	 * Adds the external and internal sets of a contour. The external set is added first so that if an internal
+	 * set was traced from the same pixel it will come after it.
+	 */
+	private void addSets( ContourPacked c , GrowQueue_I32 seeds , int offset , int source , int outputID ) {
+		addElement(seeds.get(c.externalIndex)+offset,source,c.externalIndex,-outputID);
+		for (int k = 0; k < c.internalIndexes.size; k++) {
+			int set = c.internalIndexes.get(k);
+			addElement(seeds.get(set)+offset,source,set,outputID);
+		}
+	}
+
+	private void resetElements() {
+		elementSource.reset();
+		elementIndex.reset();
+		elementContour.reset();
+	}
+
+	private void addElement( int seed , int source , int index , int contourID ) {
+		int element = elementSource.size;
+		if( sortKeys.length <= element ) {
+			sortKeys = Arrays.copyOf(sortKeys, Math.max(16,element*2));
+		}
+		sortKeys[element] = ((long)seed << 32) | element;
+		elementSource.add(source);
+		elementIndex.add(index);
+		elementContour.add(contourID);
+	}
+
+	/**
+	 * Converts labels in the strip into output labels
+	 */
+	private void relabel( Strip s , GrayS32 labeled ) {
+		for (int y = s.y0; y < s.y1; y++) {
+			int index = labeled.startIndex + y*labeled.stride;
+			int indexSeam = seamLabeled.startIndex + (y-seamY0)*seamLabeled.stride;
+			for (int x = 0; x < labeled.width; x++, index++, indexSeam++) {
+				int label = labeled.data[index];
+				if( label == 0 )
+					continue;
+				if( s.touchesSeam.data[label] )
+					labeled.data[index] = seamToOutput.data[seamLabeled.data[indexSeam]];
+				else
+					labeled.data[index] = s.toOutput.data[label];
+			}
+		}
+	}
+
+	public int getNumberOfStrips() {
+		return numberOfStrips;
+	}
+
+	/**
+	 * Specifies how many strips the image is split into.
+	 *
+	 * @param numberOfStrips Number of strips. If &le; 0 then the maximum number of threads is used.
+	 */
+	public void setNumberOfStrips(int numberOfStrips) {
+		this.numberOfStrips = numberOfStrips;
+	}
+
+	public int getMinimumStripHeight() {
+		return minimumStripHeight;
+	}
+
+	public void setMinimumStripHeight(int minimumStripHeight) {
+		this.minimumStripHeight = minimumStripHeight;
+	}
+
+	/**
+	 * Part of the image which is labeled independently
+	 */
+	static class Strip {
+		// rows in the image the strip spans. y0 inclusive, y1 exclusive
+		int y0, y1;
+		// rows which contain blobs that touch a seam
+		int seamRow0, seamRow1;
+
+		LinearContourLabelChang2004 alg = new LinearContourLabelChang2004(ConnectRule.EIGHT);
+		GrayU8 binary;
+		GrayS32 labeled;
+
+		// If true then the blob touches the seam with another strip
+		GrowQueue_B touchesSeam = new GrowQueue_B();
+		// Look up table from strip label to output label
+		GrowQueue_I32 toOutput = new GrowQueue_I32();
+	}
+}
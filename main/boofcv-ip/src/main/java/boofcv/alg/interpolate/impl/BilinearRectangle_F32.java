@@ -60,6 +60,14 @@ public class BilinearRectangle_F32 implements InterpolateRectangle<GrayF32> {
 		return orig;
 	}
 
+	@Override
+	public InterpolateRectangle<GrayF32> copy() {
+		BilinearRectangle_F32 ret = new BilinearRectangle_F32();
+		if( orig != null )
+			ret.setImage(orig);
+		return ret;
+	}
+
 	@Override
 	public void region(float tl_x, float tl_y, GrayF32 output ) {
 		if( tl_x < 0 || tl_y < 0 || tl_x + output.width > orig.width || tl_y + output.height > orig.height ) {
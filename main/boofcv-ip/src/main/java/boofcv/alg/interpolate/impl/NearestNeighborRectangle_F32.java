@@ -41,6 +41,13 @@ public class NearestNeighborRectangle_F32 implements InterpolateRectangle<GrayF3
 		return image;
 	}
 
+	@Override
+	public InterpolateRectangle<GrayF32> copy() {
+		NearestNeighborRectangle_F32 ret = new NearestNeighborRectangle_F32();
+		ret.image = image;
+		return ret;
+	}
+
 	@Override
 	public void region(float tl_x, float tl_y, GrayF32 dest) {
 
@@ -32,9 +32,11 @@ import boofcv.struct.image.*;
 public class DiscreteFourierTransformOps {
 
 	/**
-	 * Creates a {@link DiscreteFourierTransform} for images of type {@link GrayF32}.
+	 * Creates a {@link DiscreteFourierTransform} for images of type {@link GrayF32}. If concurrency is turned on
+	 * then rows and columns are transformed in parallel.
 	 *
 	 * @see GeneralPurposeFFT_F32_2D
+	 * @see GeneralPurposeFFT_F32_2D_MT
 	 *
 	 * @return {@link DiscreteFourierTransform}
 	 */
@@ -43,9 +45,11 @@ public class DiscreteFourierTransformOps {
 	}
 
 	/**
-	 * Creates a {@link DiscreteFourierTransform} for images of type {@link GrayF64}.
+	 * Creates a {@link DiscreteFourierTransform} for images of type {@link GrayF64}. If concurrency is turned on
+	 * then rows and columns are transformed in parallel.
 	 *
 	 * @see GeneralPurposeFFT_F64_2D
+	 * @see GeneralPurposeFFT_F64_2D_MT
 	 *
 	 * @return {@link DiscreteFourierTransform}
 	 */
@@ -144,6 +144,38 @@ public class GeneralPurposeFFT_F64_1D {
 		ch2 = new double[n*2];
 	}
 
+	/**
+	 * Creates a copy which shares the read only tables, e.g. twiddle factors, with the original but has its
+	 * own work space. This allows the same plan to be used by multiple threads without recomputing it.
+	 *
+	 * @param original The plan which is copied
+	 */
+	private GeneralPurposeFFT_F64_1D(GeneralPurposeFFT_F64_1D original) {
+		this.n = original.n;
+		this.nBluestein = original.nBluestein;
+		this.ip = original.ip;
+		this.w = original.w;
+		this.nw = original.nw;
+		this.nc = original.nc;
+		this.wtable = original.wtable;
+		this.wtable_r = original.wtable_r;
+		this.bk1 = original.bk1;
+		this.bk2 = original.bk2;
+		this.plan = original.plan;
+
+		if( original.ak != null )
+			ak = new double[original.ak.length];
+		ch = new double[n];
+		ch2 = new double[n*2];
+	}
+
+	/**
+	 * Returns a copy of this plan which can be used in a different thread. Tables are shared and not recomputed.
+	 */
+	public GeneralPurposeFFT_F64_1D copy() {
+		return new GeneralPurposeFFT_F64_1D(this);
+	}
+
 	/**
 	 * Computes 1D forward DFT of complex data leaving the result in
 	 * <code>a</code>. Complex number is stored as two double values in
@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.transform.fft;
+
+import boofcv.concurrency.BoofConcurrency;
+import org.ddogleg.struct.FastQueue;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * Concurrent implementation of {@link GeneralPurposeFFT_F64_2D}. The 1D transform of each row is computed
+ * in parallel, then blocks of columns are copied into a local buffer, transformed, and copied back. Each
+ * thread has its own copy of the 1D plans, which share the twiddle factors with the original, and its own
+ * column buffer.
+ * </p>
+ *
+ * <p>
+ * For real data the rows are transformed into full complex rows and only the first half of the columns
+ * are transformed. The other half is filled in using symmetry. {@link #realForward} and {@link #realInverse}
+ * are not concurrent.
+ * </p>
+ *
+ * @author Peter Abeles
+ */
+public class GeneralPurposeFFT_F64_2D_MT extends GeneralPurposeFFT_F64_2D {
+
+	// Number of columns which are copied into the local buffer at once
+	static final int COLUMN_BLOCK = 4;
+
+	// Plans and buffers for each thread
+	FastQueue<Workspace> workspace = new FastQueue<>(Workspace.class, Workspace::new);
+
+	/**
+	 * Creates new instance of the transform
+	 *
+	 * @param rows number of rows
+	 * @param columns number of columns
+	 */
+	public GeneralPurposeFFT_F64_2D_MT(int rows, int columns) {
+		super(rows, columns);
+	}
+
+	@Override
+	public void complexForward(final double[] a) {
+		if( rows == 1 || columns == 1 ) {
+			super.complexForward(a);
+			return;
+		}
+
+		final int rowStride = 2*columns;
+		BoofConcurrency.loopBlocks(0,rows,workspace,(w,r0,r1)->{
+			for (int r = r0; r < r1; r++) {
+				w.fftColumns.complexForward(a, r*rowStride);
+			}
+		});
+		transformColumns(a,columns,true,false);
+	}
+
+	@Override
+	public void complexInverse(final double[] a, final boolean scale) {
+		if( rows == 1 || columns == 1 ) {
+			super.complexInverse(a, scale);
+			return;
+		}
+
+		final int rowStride = 2*columns;
+		BoofConcurrency.loopBlocks(0,rows,workspace,(w,r0,r1)->{
+			for (int r = r0; r < r1; r++) {
+				w.fftColumns.complexInverse(a, r*rowStride, scale);
+			}
+		});
+		transformColumns(a,columns,false,scale);
+	}
+
+	@Override
+	public void realForwardFull(final double[] a) {
+		if( rows == 1 || columns == 1 ) {
+			super.realForwardFull(a);
+			return;
+		}
+
+		final int rowStride = 2*columns;
+		expandRows(a);
+		BoofConcurrency.loopBlocks(0,rows,workspace,(w,r0,r1)->{
+			for (int r = r0; r < r1; r++) {
+				// the 1D transform assumes the unused half of the row is zero
+				Arrays.fill(a, r*rowStride + columns, (r+1)*rowStride, 0);
+				w.fftColumns.realForwardFull(a, r*rowStride);
+			}
+		});
+		transformColumns(a,columns/2+1,true,false);
+		fillSymmetricColumns(a);
+	}
+
+	@Override
+	public void realInverseFull(final double[] a, final boolean scale) {
+		if( rows == 1 || columns == 1 ) {
+			super.realInverseFull(a, scale);
+			return;
+		}
+
+		final int rowStride = 2*columns;
+		expandRows(a);
+		BoofConcurrency.loopBlocks(0,rows,workspace,(w,r0,r1)->{
+			for (int r = r0; r < r1; r++) {
+				// the 1D transform assumes the unused half of the row is zero
+				Arrays.fill(a, r*rowStride + columns, (r+1)*rowStride, 0);
+				w.fftColumns.realInverseFull(a, r*rowStride, scale);
+			}
+		});
+		transformColumns(a,columns/2+1,false,scale);
+		fillSymmetricColumns(a);
+	}
+
+	/**
+	 * Moves each row of real data so that it starts at the beginning of a complex row
+	 */
+	private void expandRows( final double[] a ) {
+		for (int r = rows-1; r > 0; r--) {
+			System.arraycopy(a, r*columns, a, 2*r*columns, columns);
+		}
+	}
+
+	/**
+	 * Applies the 1D transform to the first 'numColumns' columns in the complex image
+	 */
+	private void transformColumns( final double[] a , int numColumns , final boolean forward , final boolean scale ) {
+		final int rowStride = 2*columns;
+		final int numBlocks = (numColumns+COLUMN_BLOCK-1)/COLUMN_BLOCK;
+
+		BoofConcurrency.loopBlocks(0,numBlocks,workspace,(w,b0,b1)->{
+			final double[] buffer = w.buffer;
+			for (int block = b0; block < b1; block++) {
+				int c0 = block*COLUMN_BLOCK;
+				int length = Math.min(COLUMN_BLOCK,numColumns-c0);
+
+				// copy the columns into the buffer
+				for (int r = 0; r < rows; r++) {
+					int idxA = r*rowStride + 2*c0;
+					int idxB = 2*r;
+					for (int i = 0; i < length; i++, idxA += 2, idxB += 2*rows) {
+						buffer[idxB] = a[idxA];
+						buffer[idxB+1] = a[idxA+1];
+					}
+				}
+
+				for (int i = 0; i < length; i++) {
+					if( forward )
+						w.fftRows.complexForward(buffer, 2*rows*i);
+					else
+						w.fftRows.complexInverse(buffer, 2*rows*i, scale);
+				}
+
+				// copy the results back
+				for (int r = 0; r < rows; r++) {
+					int idxA = r*rowStride + 2*c0;
+					int idxB = 2*r;
+					for (int i = 0; i < length; i++, idxA += 2, idxB += 2*rows) {
+						a[idxA] = buffer[idxB];
+						a[idxA+1] = buffer[idxB+1];
+					}
+				}
+			}
+		});
+	}
+
+	/**
+	 * The transform of real data is conjugate symmetric. Fills in the columns which were not computed using
+	 * F[r][c] = conj(F[rows-r][columns-c])
+	 */
+	private void fillSymmetricColumns( final double[] a ) {
+		final int rowStride = 2*columns;
+		final int c0 = columns/2+1;
+
+		BoofConcurrency.loopBlocks(0,rows,(r0,r1)->{
+			for (int r = r0; r < r1; r++) {
+				int idxSrcRow = ((rows-r)%rows)*rowStride;
+				int idxDst = r*rowStride + 2*c0;
+				for (int c = c0; c < columns; c++, idxDst += 2) {
+					int idxSrc = idxSrcRow + 2*(columns-c);
+					a[idxDst] = a[idxSrc];
+					a[idxDst+1] = -a[idxSrc+1];
+				}
+			}
+		});
+	}
+
+	/**
+	 * Plans and buffers used by a single thread
+	 */
+	class Workspace {
+		GeneralPurposeFFT_F64_1D fftRows, fftColumns;
+		double[] buffer = new double[2*rows*COLUMN_BLOCK];
+
+		public Workspace() {
+			fftRows = GeneralPurposeFFT_F64_2D_MT.this.fftRows.copy();
+			if( GeneralPurposeFFT_F64_2D_MT.this.fftColumns == GeneralPurposeFFT_F64_2D_MT.this.fftRows )
+				fftColumns = fftRows;
+			else
+				fftColumns = GeneralPurposeFFT_F64_2D_MT.this.fftColumns.copy();
+		}
+	}
+}
@@ -31,7 +31,9 @@ import boofcv.alg.interpolate.InterpolationType;
 import boofcv.concurrency.BoofConcurrency;
 import boofcv.factory.interpolate.FactoryInterpolation;
 import boofcv.struct.border.BorderType;
+import boofcv.struct.distort.PixelTransform;
 import boofcv.struct.image.*;
+import georegression.struct.point.Point2D_F32;
 
 /**
  * @author Peter Abeles
@@ -84,6 +86,40 @@ public class FactoryDistort {
 		}
 	}
 
+	/**
+	 * Creates a cached {@link boofcv.alg.distort.ImageDistort} which uses a precomputed table instead of computing
+	 * its own. The table is only read from, so the same table can be shared by multiple instances and threads.
+	 * Interleaved images are not supported.
+	 *
+	 * @param table Precomputed table that was computed using dstToSrc. Not modified.
+	 * @param dstToSrc Transform used to compute the table. Used if the output image has a different shape.
+	 * @param interp Which interpolation algorithm should be used.
+	 * @param outputType Type of output image.
+	 * @return ImageDistort
+	 */
+	public static <Input extends ImageBase<Input>, Output extends ImageBase<Output>>
+	ImageDistort<Input, Output> distort(RemapTable_F32 table, PixelTransform<Point2D_F32> dstToSrc,
+										InterpolatePixel<Input> interp, ImageType<Output> outputType) {
+		ImageDistortCache_SB single;
+		ImageDistort<Input, Output> distort;
+		switch( outputType.getFamily() ) {
+			case GRAY:
+				single = (ImageDistortCache_SB)distortSB(true,(InterpolatePixelS)interp,outputType.getImageClass());
+				distort = single;
+				break;
+			case PLANAR:
+				single = (ImageDistortCache_SB)distortSB(true,(InterpolatePixelS)interp,outputType.getImageClass());
+				distort = new ImplImageDistort_PL(single);
+				break;
+			default:
+				throw new IllegalArgumentException("Cached not supported for "+outputType.getFamily());
+		}
+		// the model must be set first since it marks the cache as being dirty
+		single.setModel(dstToSrc);
+		single.setTable(table);
+		return distort;
+	}
+
 	/**
 	 * Creates a {@link boofcv.alg.distort.ImageDistort} for the specified image type, transformation
 	 * and interpolation instance.
@@ -22,6 +22,10 @@ import boofcv.abst.filter.binary.BinaryContourFinder;
 import boofcv.abst.filter.binary.BinaryContourFinderLinearExternal;
 import boofcv.abst.filter.binary.BinaryLabelContourFinder;
 import boofcv.abst.filter.binary.BinaryLabelContourFinderChang2004;
+import boofcv.alg.filter.binary.LinearContourLabelChang2004;
+import boofcv.alg.filter.binary.LinearContourLabelChang2004_MT;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.struct.ConnectRule;
 
 /**
  * Creates instances of {@link BinaryLabelContourFinder}
@@ -30,8 +34,11 @@ import boofcv.abst.filter.binary.BinaryLabelContourFinderChang2004;
  */
 public class FactoryBinaryContourFinder {
 	/**
+	 * Labels blobs and finds their contours. If concurrency is turned on then the image is split into strips
+	 * which are labeled in parallel.
 	 *
-	 * @see boofcv.alg.filter.binary.LinearContourLabelChang2004
+	 * @see LinearContourLabelChang2004
+	 * @see LinearContourLabelChang2004_MT
 	 *
 	 * @return new instance
 	 */
@@ -39,7 +46,12 @@ public class FactoryBinaryContourFinder {
 		if( BOverrideFactoryBinaryContourFinder.chang2004 != null ) {
 			return BOverrideFactoryBinaryContourFinder.chang2004.createChang2004();
 		} else {
-			return new BinaryLabelContourFinderChang2004();
+			LinearContourLabelChang2004 alg;
+			if( BoofConcurrency.USE_CONCURRENT )
+				alg = new LinearContourLabelChang2004_MT(ConnectRule.FOUR);
+			else
+				alg = new LinearContourLabelChang2004(ConnectRule.FOUR);
+			return new BinaryLabelContourFinderChang2004(alg);
 		}
 	}
 
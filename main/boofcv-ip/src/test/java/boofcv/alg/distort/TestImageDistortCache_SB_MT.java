@@ -31,6 +31,8 @@ import org.junit.jupiter.api.Test;
 
 import java.util.Random;
 
+import static org.junit.jupiter.api.Assertions.*;
+
 /**
  * @author Peter Abeles
  */
@@ -85,4 +87,44 @@ public class TestImageDistortCache_SB_MT {
 
 		BoofTesting.assertEquals(output_ST,output_MT, UtilEjml.TEST_F32);
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Several instances share the same table. The output should be the same and the table should not be modified
+	 */
+	@Test
+	void sharedTable() {
+		GrayF32 input = new GrayF32(width,height);
+		GrayF32 expected = new GrayF32(width,height);
+		GrayF32 found = new GrayF32(width,height);
+		GImageMiscOps.fillUniform(input,rand,0,150);
+
+		InterpolatePixelS<GrayF32> interpolate = FactoryInterpolation.createPixelS(
+				0, 255, InterpolationType.BILINEAR, BorderType.EXTENDED, GrayF32.class);
+
+		ImageDistortCache_SB alg = new ImageDistortCache_SB(new AssignPixelValue_SB.F32(),interpolate);
+		alg.setModel(new TestImageDistortBasic_IL_MT.Transform());
+		alg.apply(input,expected);
+
+		RemapTable_F32 table = new RemapTable_F32(width,height);
+		table.compute(new TestImageDistortBasic_IL_MT.Transform());
+		float[] original = table.getData().clone();
+
+		ImageDistortCache_SB alg_ST = new ImageDistortCache_SB(new AssignPixelValue_SB.F32(),interpolate.copy());
+		ImageDistortCache_SB_MT alg_MT = new ImageDistortCache_SB_MT(new AssignPixelValue_SB.F32(),interpolate.copy());
+		alg_ST.setTable(table);
+		alg_MT.setTable(table);
+		assertSame(table,alg_ST.getTable());
+
+		alg_ST.apply(input,found);
+		BoofTesting.assertEquals(expected,found, UtilEjml.TEST_F32);
+		GImageMiscOps.fill(found,0);
+		alg_MT.apply(input,found);
+		BoofTesting.assertEquals(expected,found, UtilEjml.TEST_F32);
+
+		// A different shape requires a new table. The shared table should not be modified
+		alg_MT.setModel(new TestImageDistortBasic_IL_MT.Transform());
+		alg_MT.apply(input,new GrayF32(width/2,height/2));
+		assertNotSame(table,alg_MT.getTable());
+		assertArrayEquals(original,table.getData());
+	}
+}
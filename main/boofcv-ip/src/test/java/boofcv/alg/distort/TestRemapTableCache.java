@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.distort;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Peter Abeles
+ */
+class TestRemapTableCache {
+
+	@Test
+	void lookup_sameKey() {
+		RemapTableCache alg = new RemapTableCache();
+
+		RemapTable_F32 a = alg.lookup("foo",20,30,TestImageDistortBasic_IL_MT.Transform::new);
+		RemapTable_F32 b = alg.lookup("foo",20,30,()->{throw new RuntimeException("Should not be called");});
+
+		assertSame(a,b);
+		assertEquals(1,alg.size());
+		assertTrue(a.isShape(20,30));
+	}
+
+	@Test
+	void lookup_differentKeyOrShape() {
+		RemapTableCache alg = new RemapTableCache();
+
+		RemapTable_F32 a = alg.lookup("foo",20,30,TestImageDistortBasic_IL_MT.Transform::new);
+		RemapTable_F32 b = alg.lookup("bar",20,30,TestImageDistortBasic_IL_MT.Transform::new);
+		RemapTable_F32 c = alg.lookup("foo",21,30,TestImageDistortBasic_IL_MT.Transform::new);
+
+		assertNotSame(a,b);
+		assertNotSame(a,c);
+		assertEquals(3,alg.size());
+	}
+
+	@Test
+	void discardLeastRecentlyUsed() {
+		RemapTableCache alg = new RemapTableCache(2);
+
+		RemapTable_F32 a = alg.lookup("a",20,30,TestImageDistortBasic_IL_MT.Transform::new);
+		alg.lookup("b",20,30,TestImageDistortBasic_IL_MT.Transform::new);
+		// make "a" the most recently used
+		assertSame(a,alg.lookup("a",20,30,TestImageDistortBasic_IL_MT.Transform::new));
+		alg.lookup("c",20,30,TestImageDistortBasic_IL_MT.Transform::new);
+		assertEquals(2,alg.size());
+
+		// "b" should have been discarded
+		assertSame(a,alg.lookup("a",20,30,TestImageDistortBasic_IL_MT.Transform::new));
+		boolean[] called = new boolean[1];
+		alg.lookup("b",20,30,()->{called[0]=true;return new TestImageDistortBasic_IL_MT.Transform();});
+		assertTrue(called[0]);
+
+		alg.clear();
+		assertEquals(0,alg.size());
+	}
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.distort;
+
+import georegression.struct.point.Point2D_F32;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Peter Abeles
+ */
+class TestRemapTable_F32 {
+
+	int width = 30, height = 25;
+
+	@Test
+	void compute() {
+		TestImageDistortBasic_IL_MT.Transform transform = new TestImageDistortBasic_IL_MT.Transform();
+		RemapTable_F32 alg = new RemapTable_F32(width,height);
+		alg.compute(transform);
+
+		Point2D_F32 expected = new Point2D_F32();
+		Point2D_F32 found = new Point2D_F32();
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				transform.compute(x,y,expected);
+				alg.get(x,y,found);
+				assertEquals(expected.x,found.x,0.0f);
+				assertEquals(expected.y,found.y,0.0f);
+			}
+		}
+	}
+
+	@Test
+	void compute_MT() {
+		TestImageDistortBasic_IL_MT.Transform transform = new TestImageDistortBasic_IL_MT.Transform();
+		RemapTable_F32 expected = new RemapTable_F32(width,height);
+		RemapTable_F32 found = new RemapTable_F32(width,height);
+
+		expected.compute(transform);
+		found.compute_MT(transform);
+
+		assertArrayEquals(expected.getData(),found.getData(),0.0f);
+	}
+
+	@Test
+	void reshape() {
+		RemapTable_F32 alg = new RemapTable_F32(width,height);
+		float[] data = alg.getData();
+		assertEquals(2*width*height,data.length);
+
+		// shrinking shouldn't declare a new array
+		alg.reshape(width-2,height);
+		assertSame(data,alg.getData());
+		assertTrue(alg.isShape(width-2,height));
+
+		alg.reshape(width,height+1);
+		assertNotSame(data,alg.getData());
+		assertEquals(width,alg.getWidth());
+		assertEquals(height+1,alg.getHeight());
+	}
+
+	@Test
+	void set_get() {
+		RemapTable_F32 alg = new RemapTable_F32(width,height);
+		alg.set(4,5,1.5f,-2.0f);
+
+		Point2D_F32 found = new Point2D_F32();
+		alg.get(4,5,found);
+		assertEquals(1.5f,found.x,0.0f);
+		assertEquals(-2.0f,found.y,0.0f);
+		assertEquals(1.5f,alg.getData()[2*(5*width+4)],0.0f);
+	}
+}
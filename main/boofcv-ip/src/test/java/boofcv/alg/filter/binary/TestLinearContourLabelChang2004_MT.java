@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.filter.binary;
+
+import boofcv.alg.misc.ImageMiscOps;
+import boofcv.struct.ConnectRule;
+import boofcv.struct.PackedSetsPoint2D_I32;
+import boofcv.struct.image.GrayS32;
+import boofcv.struct.image.GrayU8;
+import boofcv.testing.BoofTesting;
+import georegression.struct.point.Point2D_I32;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author Peter Abeles
+ */
+class TestLinearContourLabelChang2004_MT {
+
+	Random rand = new Random(234);
+
+	/**
+	 * Compare against the single threaded algorithm on random images with different densities. Dense images
+	 * will have blobs which span several strips and contain holes with blobs inside of them
+	 */
+	@Test
+	void compareToSingleThread() {
+		for( ConnectRule rule : new ConnectRule[]{ConnectRule.FOUR,ConnectRule.EIGHT}) {
+			for( int numStrips : new int[]{2,3,5}) {
+				for( double density : new double[]{0.05,0.4,0.6,0.8}) {
+					GrayU8 binary = new GrayU8(73,91);
+					fillRandom(binary,density);
+
+					compare(rule,numStrips,binary,0,Integer.MAX_VALUE,true);
+					compare(rule,numStrips,binary,0,Integer.MAX_VALUE,false);
+					compare(rule,numStrips,binary,5,30,true);
+				}
+			}
+		}
+	}
+
+	/**
+	 * A single blob which spans the entire image and has holes in every strip
+	 */
+	@Test
+	void blobAcrossAllStrips() {
+		GrayU8 binary = new GrayU8(30,100);
+		ImageMiscOps.fillRectangle(binary,1,2,2,26,96);
+		for (int y = 5; y < 95; y += 6) {
+			ImageMiscOps.fillRectangle(binary,0,5+(y%4),y,3,3);
+			binary.set(6+(y%4),y+1,1);
+		}
+
+		for( ConnectRule rule : new ConnectRule[]{ConnectRule.FOUR,ConnectRule.EIGHT}) {
+			for( int numStrips : new int[]{2,4,7}) {
+				compare(rule,numStrips,binary,0,Integer.MAX_VALUE,true);
+			}
+		}
+	}
+
+	/**
+	 * When there are too few rows it should fall back to the single threaded algorithm
+	 */
+	@Test
+	void smallImage() {
+		GrayU8 binary = new GrayU8(20,8);
+		fillRandom(binary,0.5);
+		compare(ConnectRule.EIGHT,0,binary,0,Integer.MAX_VALUE,true);
+	}
+
+	/**
+	 * Fills the image with random vertical and horizontal lines so that blobs have complex shapes
+	 */
+	private void fillRandom( GrayU8 binary , double density ) {
+		ImageMiscOps.fill(binary,0);
+		int total = (int)(density*binary.width*binary.height/4);
+		for (int i = 0; i < total; i++) {
+			int x = rand.nextInt(binary.width);
+			int y = rand.nextInt(binary.height);
+			int length = 1+rand.nextInt(8);
+			if( rand.nextBoolean() ) {
+				for (int j = 0; j < length && x+j < binary.width; j++)
+					binary.set(x+j,y,1);
+			} else {
+				for (int j = 0; j < length && y+j < binary.height; j++)
+					binary.set(x,y+j,1);
+			}
+		}
+	}
+
+	private void compare( ConnectRule rule , int numStrips , GrayU8 binary ,
+						  int minContour , int maxContour , boolean saveInternal ) {
+		LinearContourLabelChang2004 expected = new LinearContourLabelChang2004(rule);
+		LinearContourLabelChang2004_MT found = new LinearContourLabelChang2004_MT(rule);
+		found.setNumberOfStrips(numStrips);
+		found.setMinimumStripHeight(5);
+
+		for( LinearContourLabelChang2004 alg : new LinearContourLabelChang2004[]{expected,found}) {
+			alg.setMinContourSize(minContour);
+			alg.setMaxContourSize(maxContour);
+			alg.setSaveInternalContours(saveInternal);
+		}
+
+		GrayS32 labeledExpected = new GrayS32(1,1);
+		GrayS32 labeledFound = new GrayS32(1,1);
+
+		expected.process(binary.clone(),labeledExpected);
+		// process it twice to make sure it correctly resets
+		found.process(binary.clone(),labeledFound);
+		found.process(binary.clone(),labeledFound);
+
+		BoofTesting.assertEquals(labeledExpected,labeledFound,0);
+
+		assertEquals(expected.getContours().size,found.getContours().size);
+		PackedSetsPoint2D_I32 pointsE = expected.getPackedPoints();
+		PackedSetsPoint2D_I32 pointsF = found.getPackedPoints();
+		assertEquals(pointsE.size(),pointsF.size());
+		for (int i = 0; i < expected.getContours().size; i++) {
+			ContourPacked a = expected.getContours().get(i);
+			ContourPacked b = found.getContours().get(i);
+
+			assertEquals(a.id,b.id);
+			assertEquals(a.externalIndex,b.externalIndex);
+			assertEquals(a.internalIndexes.size,b.internalIndexes.size);
+			for (int j = 0; j < a.internalIndexes.size; j++) {
+				assertEquals(a.internalIndexes.get(j),b.internalIndexes.get(j));
+			}
+		}
+		for (int i = 0; i < pointsE.size(); i++) {
+			List<Point2D_I32> listE = pointsE.getSet(i);
+			List<Point2D_I32> listF = pointsF.getSet(i);
+			assertEquals(listE.size(),listF.size());
+			for (int j = 0; j < listE.size(); j++) {
+				assertEquals(listE.get(j).x,listF.get(j).x);
+				assertEquals(listE.get(j).y,listF.get(j).y);
+			}
+		}
+	}
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.transform.fft;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the concurrent transform against the single threaded transform
+ *
+ * @author Peter Abeles
+ */
+public class TestGeneralPurposeFFT_F32_2D_MT {
+
+	Random rand = new Random(234);
+
+	// Includes power of two, mixed radix, Bluestein, and special cases
+	int[][] shapes = new int[][]{{16,16},{32,8},{15,20},{17,13},{1,20},{20,1},{223,6},{6,223}};
+
+	float tol = 1e-3f;
+
+	@Test
+	public void complexForward() {
+		for( int[] s : shapes ) {
+			GeneralPurposeFFT_F32_2D single = new GeneralPurposeFFT_F32_2D(s[0],s[1]);
+			GeneralPurposeFFT_F32_2D_MT multi = new GeneralPurposeFFT_F32_2D_MT(s[0],s[1]);
+
+			float[] expected = random(2*s[0]*s[1]);
+			float[] found = expected.clone();
+
+			single.complexForward(expected);
+			multi.complexForward(found);
+			check(expected,found);
+		}
+	}
+
+	@Test
+	public void complexInverse() {
+		for( boolean scale : new boolean[]{true,false}) {
+			for( int[] s : shapes ) {
+				GeneralPurposeFFT_F32_2D single = new GeneralPurposeFFT_F32_2D(s[0],s[1]);
+				GeneralPurposeFFT_F32_2D_MT multi = new GeneralPurposeFFT_F32_2D_MT(s[0],s[1]);
+
+				float[] expected = random(2*s[0]*s[1]);
+				float[] found = expected.clone();
+
+				single.complexInverse(expected,scale);
+				multi.complexInverse(found,scale);
+				check(expected,found);
+			}
+		}
+	}
+
+	@Test
+	public void realForwardFull() {
+		for( int[] s : shapes ) {
+			GeneralPurposeFFT_F32_2D single = new GeneralPurposeFFT_F32_2D(s[0],s[1]);
+			GeneralPurposeFFT_F32_2D_MT multi = new GeneralPurposeFFT_F32_2D_MT(s[0],s[1]);
+
+			float[] expected = randomReal(s[0]*s[1]);
+			float[] found = expected.clone();
+
+			single.realForwardFull(expected);
+			multi.realForwardFull(found);
+			check(expected,found);
+		}
+	}
+
+	@Test
+	public void realInverseFull() {
+		for( boolean scale : new boolean[]{true,false}) {
+			for( int[] s : shapes ) {
+				GeneralPurposeFFT_F32_2D single = new GeneralPurposeFFT_F32_2D(s[0],s[1]);
+				GeneralPurposeFFT_F32_2D_MT multi = new GeneralPurposeFFT_F32_2D_MT(s[0],s[1]);
+
+				float[] expected = randomReal(s[0]*s[1]);
+				float[] found = expected.clone();
+
+				single.realInverseFull(expected,scale);
+				multi.realInverseFull(found,scale);
+				check(expected,found);
+			}
+		}
+	}
+
+	/**
+	 * Call it multiple times with different inputs to make sure the work space is handled correctly
+	 */
+	@Test
+	public void multipleCalls() {
+		GeneralPurposeFFT_F32_2D single = new GeneralPurposeFFT_F32_2D(30,24);
+		GeneralPurposeFFT_F32_2D_MT multi = new GeneralPurposeFFT_F32_2D_MT(30,24);
+
+		for (int trial = 0; trial < 3; trial++) {
+			float[] expected = random(2*30*24);
+			float[] found = expected.clone();
+
+			single.complexForward(expected);
+			multi.complexForward(found);
+			check(expected,found);
+		}
+	}
+
+	private float[] random( int length ) {
+		float[] a = new float[length];
+		for (int i = 0; i < length; i++) {
+			a[i] = rand.nextFloat()*2-1;
+		}
+		return a;
+	}
+
+	/**
+	 * Real data is stored in the first half of an array that's large enough for complex data
+	 */
+	private float[] randomReal( int length ) {
+		float[] a = new float[2*length];
+		for (int i = 0; i < length; i++) {
+			a[i] = rand.nextFloat()*2-1;
+		}
+		return a;
+	}
+
+	private void check( float[] expected , float[] found ) {
+		for (int i = 0; i < expected.length; i++) {
+			assertEquals(expected[i],found[i],tol);
+		}
+	}
+}
@@ -18,7 +18,11 @@
 
 package boofcv.abst.fiducial;
 
+import boofcv.alg.drawing.FiducialImageEngine;
+import boofcv.alg.fiducial.square.FiducialSquareGenerator;
+import boofcv.alg.misc.ImageMiscOps;
 import boofcv.factory.fiducial.ConfigFiducialBinary;
+import boofcv.factory.fiducial.ConfigFiducialImage;
 import boofcv.factory.fiducial.FactoryFiducial;
 import boofcv.factory.filter.binary.ConfigThreshold;
 import boofcv.io.UtilIO;
@@ -31,6 +35,7 @@ import boofcv.struct.image.ImageGray;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 /**
  * @author Peter Abeles
@@ -78,7 +83,76 @@ public class BenchmarkFiducialDetector<T extends ImageGray<T>> {
 		System.out.println("FPS = "+benchmark.benchmark(600));
 	}
 
+	/**
+	 * Measures how long it takes to detect square image fiducials as the number of patterns in the library grows.
+	 * Patterns are random 8x8 grids, so like real markers they have large uniform regions. Half the markers
+	 * in the image are in the library and the other half aren't, so both matches and rejections are timed.
+	 */
+	private static void benchmarkImageLibrary( int librarySize ) {
+		final int numIterations = 50;
+		final int markerWidth = 120;
+		final int whiteBorder = 10;
+		final int gridWidth = 4;
+		Random rand = new Random(234);
+
+		SquareImage_to_FiducialDetector<GrayU8> detector = FactoryFiducial.squareImage(
+				new ConfigFiducialImage(), ConfigThreshold.fixed(125), GrayU8.class);
+
+		List<GrayU8> library = new ArrayList<>();
+		for (int i = 0; i < librarySize; i++) {
+			GrayU8 pattern = randomPattern(rand);
+			library.add(pattern);
+			detector.addPatternImage(pattern,125,1.0);
+		}
+
+		// Render a grid of markers. Every other one isn't in the library
+		FiducialImageEngine render = new FiducialImageEngine();
+		render.configure(whiteBorder,markerWidth);
+		FiducialSquareGenerator generator = new FiducialSquareGenerator(render);
+		generator.setMarkerWidth(markerWidth);
+		generator.setBlackBorder(0.25);
+
+		int cell = markerWidth+2*whiteBorder;
+		GrayU8 image = new GrayU8(cell*gridWidth,cell*gridWidth);
+		for (int i = 0; i < gridWidth*gridWidth; i++) {
+			generator.generate(i%2 == 0 ? library.get(rand.nextInt(librarySize)) : randomPattern(rand));
+			int x = (i%gridWidth)*cell;
+			int y = (i/gridWidth)*cell;
+			image.subimage(x,y,x+cell,y+cell,null).setTo(render.getGray());
+		}
+
+		// the first call builds the index
+		detector.detect(image);
+
+		long before = System.nanoTime();
+		for (int i = 0; i < numIterations; i++) {
+			detector.detect(image);
+		}
+		long after = System.nanoTime();
+
+		System.out.printf("library %5d  detect %8.3f ms  found %d of %d\n",librarySize,
+				(after-before)*1e-6/numIterations,detector.totalFound(),gridWidth*gridWidth/2);
+	}
+
+	/**
+	 * Creates a pattern with 8x8 cells which are randomly black or white
+	 */
+	private static GrayU8 randomPattern( Random rand ) {
+		GrayU8 pattern = new GrayU8(64,64);
+		for (int y = 0; y < 8; y++) {
+			for (int x = 0; x < 8; x++) {
+				if( rand.nextBoolean() )
+					ImageMiscOps.fillRectangle(pattern,255,x*8,y*8,8,8);
+			}
+		}
+		return pattern;
+	}
+
 	public static void main(String[] args) {
+		for( int librarySize : new int[]{10,1000,10000}) {
+			benchmarkImageLibrary(librarySize);
+		}
+
 		String directory = UtilIO.pathExample("fiducial/binary/");
 
 		FiducialDetector detector = FactoryFiducial.squareBinary(
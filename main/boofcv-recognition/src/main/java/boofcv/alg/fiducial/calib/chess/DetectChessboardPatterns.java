@@ -21,7 +21,9 @@ package boofcv.alg.fiducial.calib.chess;
 import boofcv.abst.fiducial.calib.ConfigChessboard;
 import boofcv.alg.feature.detect.chess.DetectChessboardCorners;
 import boofcv.alg.feature.detect.chess.DetectChessboardCorners2Pyramid;
+import boofcv.alg.feature.detect.chess.DetectChessboardCorners2Pyramid_MT;
 import boofcv.alg.fiducial.calib.chess.ChessboardCornerClusterToGrid.GridInfo;
+import boofcv.concurrency.BoofConcurrency;
 import boofcv.struct.image.ImageGray;
 import org.ddogleg.struct.FastQueue;
 
@@ -40,7 +42,11 @@ public class DetectChessboardPatterns<T extends ImageGray<T>> {
 
 	public DetectChessboardPatterns(ConfigChessboard config , Class<T> imageType ) {
 
-		detector = new DetectChessboardCorners2Pyramid<>(imageType);
+		if( BoofConcurrency.USE_CONCURRENT ) {
+			detector = new DetectChessboardCorners2Pyramid_MT<>(imageType);
+		} else {
+			detector = new DetectChessboardCorners2Pyramid<>(imageType);
+		}
 		clusterFinder = new ChessboardCornerClusterFinder<>(imageType);
 
 		// the user is unlikely to set this value correctly
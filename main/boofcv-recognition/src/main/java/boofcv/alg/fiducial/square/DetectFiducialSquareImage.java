@@ -71,6 +71,8 @@ public class DetectFiducialSquareImage<T extends ImageGray<T>>
 
 	// list of all known targets
 	private List<FiducialDef> targets = new ArrayList<>();
+	// Used to search for the best matching target. Descriptor i*4+j is target i in orientation j
+	private FiducialImageIndex index = new FiducialImageIndex(DESC_LENGTH);
 
 	// description of the current target candidate
 	private  short squareDef[] = new short[DESC_LENGTH];
@@ -152,9 +154,13 @@ public class DetectFiducialSquareImage<T extends ImageGray<T>>
 		ImageMiscOps.rotateCCW(binary);
 		binaryToDef(binary, def.desc[3]);
 
-		int index = targets.size();
+		for (int i = 0; i < 4; i++) {
+			index.add(def.desc[i]);
+		}
+
+		int which = targets.size();
 		targets.add( def );
-		return index;
+		return which;
 	}
 
 	/**
@@ -185,24 +191,16 @@ public class DetectFiducialSquareImage<T extends ImageGray<T>>
 //		binary.printBinary();
 		binaryToDef(binary, squareDef);
 
-		boolean matched = false;
-		int bestScore = hammingThreshold+1;
-		for (int i = 0; i < targets.size(); i++) {
-			FiducialDef def = targets.get(i);
-
-			for (int j = 0; j < 4; j++) {
-				int score = hamming(def.desc[j], squareDef);
-				if( score < bestScore ) {
-					bestScore = score;
-					result.rotation = j;
-					result.which = i;
-					result.lengthSide = def.lengthSide;
-					matched = true;
-				}
-			}
-		}
+		int bestIndex = index.lookup(squareDef,hammingThreshold,null);
+		if( bestIndex < 0 )
+			return false;
+
+		FiducialDef def = targets.get(bestIndex/4);
+		result.rotation = bestIndex%4;
+		result.which = bestIndex/4;
+		result.lengthSide = def.lengthSide;
 
-		return matched;
+		return true;
 	}
 
 	/**
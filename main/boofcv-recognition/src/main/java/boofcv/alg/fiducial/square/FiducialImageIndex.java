@@ -0,0 +1,441 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.fiducial.square;
+
+import boofcv.alg.descriptor.DescriptorDistance;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <p>
+ * Finds the descriptor with the smallest hamming distance to a query descriptor using multi-index hashing [1].
+ * Descriptors are packed binary patterns stored in a short[] array. Each of the m 16-bit words is a substring
+ * with its own table. If a descriptor is within a hamming distance of D of the query then at least one of its
+ * words must be within floor(D/m) bits of the query's word. More generally, once every table has been searched
+ * out to a radius of r and k of them out to r+1, all descriptors within m*r+k-1 bits have been found.
+ * </p>
+ *
+ * <p>
+ * Tables are searched one radius at a time, starting with the tables whose word is the least common, and
+ * every value within the radius of the query's word is looked up. The search stops once the best match is
+ * within the proven distance or the proven distance reaches the maximum allowed distance. Before each step the
+ * cost of finishing the search with the tables is estimated and compared against a linear scan of the
+ * descriptors which haven't been considered yet. If the scan is cheaper then it's used instead. The result is
+ * always identical to a linear search.
+ * </p>
+ *
+ * <p>
+ * The tables are only faster when the distance they need to prove is small relative to the number of words.
+ * The number of values looked up grows combinatorially with the radius, and at a large radius most descriptors
+ * are close to the query in some word. When the maximum distance is too large for the tables, e.g. 20% of the
+ * bits, then a query which matches nothing will be rejected with a linear scan. To avoid that scan in the
+ * common case a small part of its cost is first spent looking for descriptors which share a word with the query.
+ * A good match reduces the distance that needs to be proven, which is often enough for the tables to finish
+ * the search, and also lets the scan abort most distance computations early.
+ * </p>
+ *
+ * <p>
+ * Descriptors are referred to by the order they were added in. Ties are resolved by selecting the descriptor
+ * which was added first.
+ * </p>
+ *
+ * <p>
+ * [1] Norouzi, Mohammad, Ali Punjani, and David J. Fleet. "Fast search in hamming space with multi-index hashing."
+ * 2012 IEEE Conference on Computer Vision and Pattern Recognition. IEEE, 2012.
+ * </p>
+ *
+ * @author Peter Abeles
+ */
+public class FiducialImageIndex {
+	// number of bits in a word
+	private static final int WORD_BITS = 16;
+	// Cost of looking up a value in a table relative to comparing one word of a descriptor. Table look ups
+	// jump around in memory while distance computations read memory sequentially
+	private static final int PROBE_COST = 128;
+	// When the tables can't finish the search for less than a linear scan, this fraction of the scan's cost
+	// is spent looking for a match in the tables
+	private static final int QUICK_MATCH_FRACTION = 8;
+	// number of values which are exactly r bits from a word, i.e. 16 choose r
+	private static final long[] NUM_PROBES = new long[WORD_BITS+1];
+	// number of values which are less than r bits from a word
+	private static final long[] CUMULATIVE_PROBES = new long[WORD_BITS+2];
+
+	static {
+		NUM_PROBES[0] = 1;
+		for (int r = 1; r <= WORD_BITS; r++) {
+			NUM_PROBES[r] = NUM_PROBES[r-1]*(WORD_BITS-r+1)/r;
+		}
+		for (int r = 0; r <= WORD_BITS; r++) {
+			CUMULATIVE_PROBES[r+1] = CUMULATIVE_PROBES[r] + NUM_PROBES[r];
+		}
+	}
+
+	// number of 16-bit words in a descriptor
+	private final int length;
+
+	// All the descriptors which have been added
+	private List<short[]> descriptors = new ArrayList<>();
+
+	// For each word, the value of the word in every descriptor sorted in ascending order
+	private char[][] tableValues;
+	// For each word, the index of the descriptor which matches each value in tableValues
+	private int[][] tableIndexes;
+	// For each word, tableValues[tableHigh[word][h]] is the first value whose upper 8 bits are &ge; h
+	private int[][] tableHigh;
+	// true if descriptors have been added since the tables were built
+	private boolean dirty = true;
+
+	// Used to avoid computing the distance to the same descriptor more than once
+	private int[] visited = new int[0];
+	private int visitedStamp = 0;
+	private int numVisited;
+
+	// Tables sorted by the number of descriptors which exactly match the query's word. word in the lower 32-bits
+	private long[] tableOrder;
+	// start and end of the descriptors which exactly match each word in the query
+	private int[] lookup0, lookup1;
+	// total number of exact matches in the first i tables in tableOrder
+	private long[] exactPrefix;
+
+	// State of the current search
+	private short[] query;
+	private int[] indexes;
+	private char[] values;
+	private int[] high;
+	private int bestDistance;
+	private int bestIndex;
+
+	// Number of descriptors compared against the query in the last search. Used for diagnostics
+	private int totalCompared;
+
+	/**
+	 * @param length Number of 16-bit words in a descriptor
+	 */
+	public FiducialImageIndex( int length ) {
+		this.length = length;
+		this.tableOrder = new long[length];
+		this.lookup0 = new int[length];
+		this.lookup1 = new int[length];
+		this.exactPrefix = new long[length+1];
+	}
+
+	/**
+	 * Adds a descriptor to the index. The array is referenced and not copied.
+	 *
+	 * @return index of the descriptor
+	 */
+	public int add( short[] descriptor ) {
+		if( descriptor.length != length )
+			throw new IllegalArgumentException("Descriptor length doesn't match. "+descriptor.length+" != "+length);
+		descriptors.add(descriptor);
+		dirty = true;
+		return descriptors.size()-1;
+	}
+
+	/**
+	 * Removes all descriptors
+	 */
+	public void reset() {
+		descriptors.clear();
+		dirty = true;
+	}
+
+	/**
+	 * Searches for the descriptor with the smallest hamming distance which is &le; maxDistance
+	 *
+	 * @param query The descriptor being searched for
+	 * @param maxDistance Maximum allowed hamming distance, inclusive
+	 * @param distance (Output) Optional storage for the hamming distance of the best match. Only element 0 is used.
+	 * @return index of the best descriptor or -1 if none are within maxDistance
+	 */
+	public int lookup( short[] query , int maxDistance , int[] distance ) {
+		if( dirty )
+			buildTables();
+
+		final int N = descriptors.size();
+		this.query = query;
+		totalCompared = 0;
+		numVisited = 0;
+		bestDistance = maxDistance+1;
+		bestIndex = -1;
+
+		boolean useTables = N > 0 && maxDistance >= 0;
+		if( !useTables || !searchTables(maxDistance) ) {
+			// Linear scan of every descriptor which wasn't found in the tables
+			for (int index = 0; index < N; index++) {
+				if( useTables && visited[index] == visitedStamp )
+					continue;
+				check(index);
+			}
+		}
+
+		if( distance != null )
+			distance[0] = bestDistance;
+		return bestIndex;
+	}
+
+	/**
+	 * Searches the tables with an increasing radius until the best match is known or a linear scan is
+	 * estimated to be cheaper than continuing.
+	 *
+	 * @return true if the best match was found or false if a linear scan is needed
+	 */
+	private boolean searchTables( int maxDistance ) {
+		final int N = descriptors.size();
+		if( ++visitedStamp == Integer.MAX_VALUE ) {
+			Arrays.fill(visited,0);
+			visitedStamp = 1;
+		}
+
+		// Don't even look at the tables if a linear scan would be cheaper than a quick search for a match.
+		// The number of exact matches isn't known yet so it's assumed to be zero
+		Arrays.fill(exactPrefix,0);
+		final long quickBudget = N*distanceCost(maxDistance)/QUICK_MATCH_FRACTION;
+		if( quickBudget < length*PROBE_COST && proofCost(-1,maxDistance) > N*distanceCost(maxDistance) )
+			return false;
+
+		// search the least common words first
+		for (int word = 0; word < length; word++) {
+			char value = (char)query[word];
+			int[] high = tableHigh[word];
+			char[] values = tableValues[word];
+			int start = lowerBound(values,high[value>>8],high[(value>>8)+1],value);
+			int end = start;
+			while( end < N && values[end] == value )
+				end++;
+			lookup0[word] = start;
+			lookup1[word] = end;
+			tableOrder[word] = ((long)(end-start) << 32) | word;
+		}
+		Arrays.sort(tableOrder);
+		for (int i = 0; i < length; i++) {
+			exactPrefix[i+1] = exactPrefix[i] + (tableOrder[i] >>> 32);
+		}
+
+		// Every descriptor within 'proven' bits of the query has been considered
+		int proven = -1;
+		long quickWork = 0;
+		for (int radius = 0; radius <= WORD_BITS; radius++) {
+			for (int i = 0; i < length; i++) {
+				// Distance which needs to be proven and the cost of proving it with a linear scan
+				int target = Math.min(bestDistance,maxDistance);
+				long linearCost = (N-numVisited)*distanceCost(target);
+				if( proofCost(proven,target) > linearCost ) {
+					// spend a little bit of effort looking for a good match, which will reduce the target.
+					// Tables are sorted by cost so if this one is too expensive the rest will be too
+					if( radius > 0 )
+						return false;
+					quickWork += PROBE_COST + (tableOrder[i] >>> 32)*distanceCost(target);
+					if( quickWork > quickBudget )
+						return false;
+				}
+
+				int word = (int)tableOrder[i];
+				indexes = tableIndexes[word];
+				if( radius == 0 ) {
+					for (int j = lookup0[word]; j < lookup1[word]; j++) {
+						visit(indexes[j]);
+					}
+				} else {
+					values = tableValues[word];
+					high = tableHigh[word];
+					probe(query[word] & 0xFFFF,0,radius);
+				}
+
+				proven++;
+				if( bestDistance <= proven || maxDistance <= proven )
+					return true;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Estimated cost of searching the tables to go from proving that there's no better match within 'proven'
+	 * bits to 'target' bits.
+	 */
+	private long proofCost( int proven , int target ) {
+		// after this many steps every table has been searched at every radius
+		target = Math.min(target,length*(WORD_BITS+1)-1);
+		if( target <= proven )
+			return 0;
+		final int N = descriptors.size();
+		final long distanceCost = distanceCost(target);
+
+		// The number of descriptors which will be compared is only known at a radius of zero. After that
+		// assume that they are evenly distributed across all values
+		long cost = 0;
+		int first = proven+1;
+		if( first < length ) {
+			int last = Math.min(target,length-1);
+			cost += (last-first+1)*PROBE_COST + (exactPrefix[last+1]-exactPrefix[first])*distanceCost;
+			first = last+1;
+		}
+		if( first <= target ) {
+			long probes = probesToStep(target)-probesToStep(first-1);
+			cost += probes*PROBE_COST + probes*N*distanceCost/(1 << WORD_BITS);
+		}
+		return cost;
+	}
+
+	/**
+	 * Number of values which are looked up when the tables have been searched for 'step'+1 steps. A step
+	 * searches one table at the next radius.
+	 */
+	private long probesToStep( int step ) {
+		int radius = (step+1)/length;
+		int extra = (step+1)-radius*length;
+		return length*CUMULATIVE_PROBES[radius] + extra*NUM_PROBES[Math.min(WORD_BITS,radius)];
+	}
+
+	/**
+	 * Number of words which are examined when computing the distance to a descriptor. Unrelated descriptors
+	 * differ by about 8 bits in each word so the computation is aborted early.
+	 */
+	private long distanceCost( int limit ) {
+		return Math.min(length,limit/(WORD_BITS/2)+1);
+	}
+
+	/**
+	 * Recursively looks up every value which differs from 'value' by 'radius' bits. Only bits at or above
+	 * 'bit' are flipped.
+	 */
+	private void probe( int value , int bit , int radius ) {
+		if( radius == 0 ) {
+			int h = value >> 8;
+			int end = high[h+1];
+			for (int i = lowerBound(values,high[h],end,(char)value); i < end && values[i] == value; i++) {
+				visit(indexes[i]);
+			}
+			return;
+		}
+		for (int i = bit; i <= WORD_BITS-radius; i++) {
+			probe(value ^ (1 << i),i+1,radius-1);
+		}
+	}
+
+	/**
+	 * Compares the descriptor against the query if it hasn't already been compared
+	 */
+	private void visit( int index ) {
+		if( visited[index] == visitedStamp )
+			return;
+		visited[index] = visitedStamp;
+		numVisited++;
+		check(index);
+	}
+
+	/**
+	 * Compares the descriptor against the query and saves it if it's the best so far
+	 */
+	private void check( int index ) {
+		int d = distance(descriptors.get(index),query,bestDistance);
+		if( d < bestDistance || (d == bestDistance && index < bestIndex) ) {
+			bestDistance = d;
+			bestIndex = index;
+		}
+	}
+
+	/**
+	 * Computes the hamming distance between the two descriptors. If the distance is more than limit then
+	 * it stops early and returns a value which is more than limit.
+	 */
+	int distance( short[] a , short[] b , int limit ) {
+		totalCompared++;
+		int distance = 0;
+		int i = 0;
+		// two words at a time
+		for (; i < length-1; i += 2) {
+			distance += DescriptorDistance.hamming(((a[i] ^ b[i]) << 16) | ((a[i+1] ^ b[i+1]) & 0xFFFF));
+			if( distance > limit )
+				return distance;
+		}
+		if( i < length )
+			distance += DescriptorDistance.hamming((a[i] ^ b[i]) & 0xFFFF);
+		return distance;
+	}
+
+	/**
+	 * Sorts the value of every word in every descriptor so that descriptors with a matching word can be found
+	 * with a binary search
+	 */
+	private void buildTables() {
+		final int N = descriptors.size();
+		tableValues = new char[length][N];
+		tableIndexes = new int[length][N];
+		tableHigh = new int[length][257];
+		if( visited.length < N )
+			visited = new int[N];
+
+		long[] work = new long[N];
+		for (int word = 0; word < length; word++) {
+			for (int index = 0; index < N; index++) {
+				long value = descriptors.get(index)[word] & 0xFFFF;
+				work[index] = (value << 32) | index;
+			}
+			Arrays.sort(work);
+
+			char[] values = tableValues[word];
+			int[] indexes = tableIndexes[word];
+			for (int i = 0; i < N; i++) {
+				values[i] = (char)(work[i] >>> 32);
+				indexes[i] = (int)work[i];
+			}
+
+			int[] high = tableHigh[word];
+			for (int h = 0; h < 256; h++) {
+				high[h] = lowerBound(values,0,N,(char)(h<<8));
+			}
+			high[256] = N;
+		}
+		dirty = false;
+	}
+
+	/**
+	 * Returns the index of the first element in the range which is &ge; value
+	 */
+	private static int lowerBound( char[] values , int low , int high , char value ) {
+		while( low < high ) {
+			int mid = (low+high) >>> 1;
+			if( values[mid] < value )
+				low = mid+1;
+			else
+				high = mid;
+		}
+		return low;
+	}
+
+	public int size() {
+		return descriptors.size();
+	}
+
+	public short[] get( int index ) {
+		return descriptors.get(index);
+	}
+
+	public int getLength() {
+		return length;
+	}
+
+	public int getTotalCompared() {
+		return totalCompared;
+	}
+}
@@ -0,0 +1,275 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.scene;
+
+import org.ddogleg.struct.FastQueue;
+import org.ddogleg.struct.GrowQueue_I32;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * <p>
+ * Inverted file index for retrieving images which have similar visual words. For each word a list of the images
+ * which contain it and the word's frequency in that image (TF) is saved. Words are weighted by their inverse
+ * document frequency (IDF), log(N/N<sub>w</sub>), where N is the number of images and N<sub>w</sub> the number of
+ * images which contain the word. Images are scored using the cosine similarity of their weighted histograms.
+ * When queried only the lists of words in the query are examined, so the cost depends on how many images share
+ * words with the query and not the total number of images. Words which are in every image have a weight of zero
+ * and are skipped.
+ * </p>
+ *
+ * <p>
+ * Images can be added at any time. The weights are updated before the next query. Persist using Java serialization.
+ * </p>
+ *
+ * @author Peter Abeles
+ */
+public class InvertedFileTfIdf implements Serializable {
+
+	// For each word, which images contain it
+	PostingList[] words;
+
+	// Number of images which have been added
+	int numberOfImages;
+	// L2 norm of the weighted histogram for each image
+	double[] imageNorms = new double[0];
+	// true if images have been added since the weights were last computed
+	boolean modified = false;
+
+	// Workspace for queries
+	transient double[] scores;
+	transient GrowQueue_I32 touched;
+	transient int[] queryWords;
+
+	/**
+	 * Creates an index for the specified number of words
+	 *
+	 * @param numberOfWords Total number of words in the vocabulary
+	 */
+	public InvertedFileTfIdf( int numberOfWords ) {
+		words = new PostingList[numberOfWords];
+		for (int i = 0; i < numberOfWords; i++) {
+			words[i] = new PostingList();
+		}
+	}
+
+	/**
+	 * Adds a new image to the index
+	 *
+	 * @param imageWords The word each feature in the image was assigned to. Not modified.
+	 * @param length Number of features
+	 * @return Index of the image
+	 */
+	public int addImage( int[] imageWords , int length ) {
+		int imageIndex = numberOfImages++;
+		modified = true;
+
+		int[] sorted = sortWords(imageWords,length);
+		for (int i = 0; i < length; ) {
+			int word = sorted[i];
+			int count = countRun(sorted,i,length);
+			words[word].add(imageIndex,count/(float)length);
+			i += count;
+		}
+
+		return imageIndex;
+	}
+
+	/**
+	 * Recomputes the norm of each image. Must be called after images are added and before a query.
+	 * Queries will call this automatically if needed.
+	 */
+	public void computeWeights() {
+		int N = numberOfImages;
+		imageNorms = new double[N];
+
+		for (int word = 0; word < words.length; word++) {
+			PostingList list = words[word];
+			double idf = idf(list.size);
+			if( idf == 0 )
+				continue;
+			for (int i = 0; i < list.size; i++) {
+				double w = list.frequency[i]*idf;
+				imageNorms[list.images[i]] += w*w;
+			}
+		}
+
+		for (int i = 0; i < N; i++) {
+			imageNorms[i] = Math.sqrt(imageNorms[i]);
+		}
+		modified = false;
+	}
+
+	/**
+	 * Finds the images which are most similar to the query
+	 *
+	 * @param imageWords The word each feature in the query image was assigned to. Not modified.
+	 * @param length Number of features
+	 * @param exclude Index of an image which is not to be returned, e.g. the query itself. -1 to disable.
+	 * @param maxResults The maximum number of results which will be returned
+	 * @param results (Output) Matches sorted from best to worst. Cleared upon each call.
+	 */
+	public void query( int[] imageWords , int length , int exclude , int maxResults , FastQueue<Match> results ) {
+		results.reset();
+		if( modified )
+			computeWeights();
+		if( length == 0 || maxResults <= 0 )
+			return;
+
+		int N = numberOfImages;
+		if( scores == null || scores.length < N ) {
+			scores = new double[N];
+			touched = new GrowQueue_I32();
+		}
+		touched.reset();
+
+		// Go through each word in the query and accumulate the dot product with every image that has it
+		double queryNorm = 0;
+		int[] sorted = sortWords(imageWords,length);
+		for (int i = 0; i < length; ) {
+			int word = sorted[i];
+			int count = countRun(sorted,i,length);
+			i += count;
+
+			PostingList list = words[word];
+			double idf = idf(list.size);
+			if( idf == 0 )
+				continue;
+			double weightQuery = (count/(double)length)*idf;
+			queryNorm += weightQuery*weightQuery;
+
+			for (int j = 0; j < list.size; j++) {
+				int image = list.images[j];
+				if( scores[image] == 0 )
+					touched.add(image);
+				scores[image] += weightQuery*list.frequency[j]*idf;
+			}
+		}
+		queryNorm = Math.sqrt(queryNorm);
+
+		// Select the best images and reset the scores for the next query
+		for (int i = 0; i < touched.size; i++) {
+			int image = touched.data[i];
+			double score = scores[image]/(queryNorm*imageNorms[image]);
+			scores[image] = 0;
+			if( image == exclude )
+				continue;
+			insertSorted(image,score,maxResults,results);
+		}
+	}
+
+	/**
+	 * Adds the match to the sorted list if it is one of the best. Ties are broken using the image index
+	 * so that the results don't depend on the order images were encountered in
+	 */
+	private static void insertSorted( int image , double score , int maxResults , FastQueue<Match> results ) {
+		int location = results.size;
+		while( location > 0 ) {
+			Match m = results.get(location-1);
+			if( m.score > score || (m.score == score && m.image < image) )
+				break;
+			location--;
+		}
+		if( location >= maxResults )
+			return;
+
+		if( results.size < maxResults )
+			results.grow();
+		for (int i = results.size-1; i > location; i--) {
+			results.get(i).set(results.get(i-1));
+		}
+		results.get(location).set(image,score);
+	}
+
+	/**
+	 * Inverse document frequency for a word that's in the specified number of images
+	 */
+	double idf( int imagesWithWord ) {
+		if( imagesWithWord == 0 )
+			return 0;
+		return Math.log(numberOfImages/(double)imagesWithWord);
+	}
+
+	private int[] sortWords( int[] imageWords , int length ) {
+		if( queryWords == null || queryWords.length < length )
+			queryWords = new int[length];
+		System.arraycopy(imageWords,0,queryWords,0,length);
+		Arrays.sort(queryWords,0,length);
+		return queryWords;
+	}
+
+	private static int countRun( int[] sorted , int start , int length ) {
+		int end = start+1;
+		while( end < length && sorted[end] == sorted[start] )
+			end++;
+		return end-start;
+	}
+
+	/**
+	 * Number of images which contain the word
+	 */
+	public int getImagesWithWord( int word ) {
+		return words[word].size;
+	}
+
+	public int getNumberOfImages() {
+		return numberOfImages;
+	}
+
+	public int getNumberOfWords() {
+		return words.length;
+	}
+
+	/**
+	 * List of images which contain a word and how often the word appears in them
+	 */
+	public static class PostingList implements Serializable {
+		public int[] images = new int[2];
+		public float[] frequency = new float[2];
+		public int size;
+
+		public void add( int image , float frequency ) {
+			if( size == images.length ) {
+				images = Arrays.copyOf(images,size*2);
+				this.frequency = Arrays.copyOf(this.frequency,size*2);
+			}
+			images[size] = image;
+			this.frequency[size] = frequency;
+			size++;
+		}
+	}
+
+	/**
+	 * An image which matched the query and its cosine similarity
+	 */
+	public static class Match {
+		public int image;
+		public double score;
+
+		public void set( int image , double score ) {
+			this.image = image;
+			this.score = score;
+		}
+
+		public void set( Match m ) {
+			set(m.image,m.score);
+		}
+	}
+}
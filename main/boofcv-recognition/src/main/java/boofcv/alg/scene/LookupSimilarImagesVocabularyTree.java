@@ -0,0 +1,307 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.scene;
+
+import boofcv.abst.feature.associate.AssociateDescription;
+import boofcv.alg.sfm.structure2.LookupSimilarImages;
+import boofcv.struct.feature.AssociatedIndex;
+import boofcv.struct.feature.TupleDesc_F64;
+import boofcv.struct.image.ImageDimension;
+import georegression.struct.point.Point2D_F64;
+import org.ddogleg.struct.FastQueue;
+import org.ddogleg.struct.GrowQueue_I32;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ * Implementation of {@link LookupSimilarImages} which uses a {@link VocabularyTree} to convert features into words
+ * and an {@link InvertedFileTfIdf inverted file} to find images with similar words. Only the
+ * {@link #setMaxSimilar(int) most similar} images are returned, which avoids examining every possible pair of
+ * images. Features in similar images are associated using the provided {@link AssociateDescription}.
+ * </p>
+ *
+ * <p>
+ * Similarity is symmetric. If image B is one of the most similar images to A then A will be returned as being
+ * similar to B, even if it isn't one of B's most similar images. Consumers such as
+ * {@link boofcv.alg.sfm.structure2.GeneratePairwiseImageGraph} only consider each pair once and rely on this.
+ * Similar images are found for every image the first time {@link #findSimilar} is called after a change.
+ * </p>
+ *
+ * <p>
+ * Usage: Learn the vocabulary tree, add every image using {@link #addImage}, then pass this to
+ * {@link boofcv.alg.sfm.structure2.GeneratePairwiseImageGraph}. The vocabulary, index, and features can be saved
+ * with Java serialization. The association algorithm isn't saved and must be specified again with
+ * {@link #setAssociate} after loading.
+ * </p>
+ *
+ * @author Peter Abeles
+ */
+public class LookupSimilarImagesVocabularyTree implements LookupSimilarImages, Serializable {
+
+	// Converts features into words
+	VocabularyTree tree;
+	// Used to find images with similar words
+	InvertedFileTfIdf index;
+
+	// Used to associate features between two images
+	transient AssociateDescription<TupleDesc_F64> associate;
+
+	// The maximum number of similar images returned
+	int maxSimilar = 10;
+	// Images with a cosine similarity less than this are not considered similar
+	double minimumSimilarity = 0.0;
+
+	// Names of all the images and their index
+	List<String> imageIds = new ArrayList<>();
+	Map<String,Integer> imageToIndex = new HashMap<>();
+	// Features in each image
+	List<ImageInfo> images = new ArrayList<>();
+
+	// Similar images for each image. null if images or settings have changed since it was computed
+	transient List<GrowQueue_I32> similarImages;
+
+	// Workspace
+	transient FastQueue<InvertedFileTfIdf.Match> matches;
+	transient FastQueue<TupleDesc_F64> descSrc, descDst;
+
+	/**
+	 * Specifies internal algorithms
+	 *
+	 * @param tree Vocabulary tree which has already been learned
+	 * @param associate Used to associate features between images
+	 */
+	public LookupSimilarImagesVocabularyTree( VocabularyTree tree,
+											  AssociateDescription<TupleDesc_F64> associate ) {
+		this.tree = tree;
+		this.associate = associate;
+		this.index = new InvertedFileTfIdf(tree.getNumberOfClusters());
+	}
+
+	/**
+	 * Adds a new image. Features are copied.
+	 *
+	 * @param id Unique ID of the image
+	 * @param width Image width
+	 * @param height Image height
+	 * @param pixels Pixel coordinate of each feature
+	 * @param descs Description of each feature
+	 */
+	public void addImage( String id , int width , int height ,
+						  FastQueue<Point2D_F64> pixels , FastQueue<TupleDesc_F64> descs ) {
+		if( imageToIndex.containsKey(id) )
+			throw new IllegalArgumentException("Image ID already exists: "+id);
+		if( pixels.size != descs.size )
+			throw new IllegalArgumentException("Number of pixels and descriptions must be the same");
+
+		ImageInfo info = new ImageInfo();
+		info.width = width;
+		info.height = height;
+		info.pixels = new double[pixels.size*2];
+		info.descs = new double[descs.size][];
+		info.words = new int[descs.size];
+
+		for (int i = 0; i < pixels.size; i++) {
+			Point2D_F64 p = pixels.get(i);
+			info.pixels[i*2] = p.x;
+			info.pixels[i*2+1] = p.y;
+			info.descs[i] = descs.get(i).value.clone();
+			info.words[i] = tree.assign(info.descs[i]);
+		}
+
+		int imageIndex = index.addImage(info.words,info.words.length);
+		imageToIndex.put(id,imageIndex);
+		imageIds.add(id);
+		images.add(info);
+		similarImages = null;
+	}
+
+	@Override
+	public List<String> getImageIDs() {
+		return imageIds;
+	}
+
+	@Override
+	public void findSimilar( String target, List<String> similar ) {
+		similar.clear();
+		if( similarImages == null )
+			computeSimilarImages();
+
+		GrowQueue_I32 found = similarImages.get(lookupIndex(target));
+		for (int i = 0; i < found.size; i++) {
+			similar.add(imageIds.get(found.data[i]));
+		}
+	}
+
+	/**
+	 * Finds the most similar images to each image, then adds each image to the list of the images it was found
+	 * to be similar to so that the relationship is symmetric
+	 */
+	void computeSimilarImages() {
+		if( matches == null )
+			matches = new FastQueue<>(InvertedFileTfIdf.Match.class,true);
+
+		int N = images.size();
+		similarImages = new ArrayList<>();
+		for (int imageIndex = 0; imageIndex < N; imageIndex++) {
+			ImageInfo info = images.get(imageIndex);
+			index.query(info.words,info.words.length,imageIndex,maxSimilar,matches);
+
+			GrowQueue_I32 list = new GrowQueue_I32(matches.size);
+			for (int i = 0; i < matches.size; i++) {
+				InvertedFileTfIdf.Match m = matches.get(i);
+				if( m.score < minimumSimilarity )
+					break;
+				list.add(m.image);
+			}
+			similarImages.add(list);
+		}
+
+		// Each list starts with the most similar images, sorted from best to worst. Reverse matches go after them
+		int[] numMostSimilar = new int[N];
+		for (int imageIndex = 0; imageIndex < N; imageIndex++) {
+			numMostSimilar[imageIndex] = similarImages.get(imageIndex).size;
+		}
+		for (int imageIndex = 0; imageIndex < N; imageIndex++) {
+			GrowQueue_I32 list = similarImages.get(imageIndex);
+			for (int i = 0; i < numMostSimilar[imageIndex]; i++) {
+				GrowQueue_I32 other = similarImages.get(list.data[i]);
+				if( other.indexOf(imageIndex) < 0 )
+					other.add(imageIndex);
+			}
+		}
+	}
+
+	@Override
+	public void lookupPixelFeats( String target, FastQueue<Point2D_F64> features ) {
+		ImageInfo info = images.get(lookupIndex(target));
+
+		features.reset();
+		for (int i = 0; i < info.pixels.length; i += 2) {
+			features.grow().set(info.pixels[i],info.pixels[i+1]);
+		}
+	}
+
+	@Override
+	public boolean lookupMatches( String viewA, String viewB, FastQueue<AssociatedIndex> pairs ) {
+		pairs.reset();
+		if( associate == null )
+			throw new IllegalArgumentException("Association algorithm must be specified");
+
+		ImageInfo infoA = images.get(lookupIndex(viewA));
+		ImageInfo infoB = images.get(lookupIndex(viewB));
+		if( descSrc == null ) {
+			descSrc = new FastQueue<>(TupleDesc_F64.class,()->new TupleDesc_F64(0));
+			descDst = new FastQueue<>(TupleDesc_F64.class,()->new TupleDesc_F64(0));
+		}
+		wrapDescriptions(infoA,descSrc);
+		wrapDescriptions(infoB,descDst);
+
+		associate.setSource(descSrc);
+		associate.setDestination(descDst);
+		associate.associate();
+
+		FastQueue<AssociatedIndex> found = associate.getMatches();
+		for (int i = 0; i < found.size; i++) {
+			pairs.grow().set(found.get(i));
+		}
+
+		return pairs.size > 0;
+	}
+
+	/**
+	 * Puts the descriptions into the list without copying the arrays
+	 */
+	private static void wrapDescriptions( ImageInfo info , FastQueue<TupleDesc_F64> descs ) {
+		descs.reset();
+		for (int i = 0; i < info.descs.length; i++) {
+			descs.grow().setValue(info.descs[i]);
+		}
+	}
+
+	@Override
+	public void lookupShape( String target, ImageDimension shape ) {
+		ImageInfo info = images.get(lookupIndex(target));
+		shape.set(info.width,info.height);
+	}
+
+	private int lookupIndex( String id ) {
+		Integer idx = imageToIndex.get(id);
+		if( idx == null )
+			throw new IllegalArgumentException("Unknown image: "+id);
+		return idx;
+	}
+
+	public VocabularyTree getTree() {
+		return tree;
+	}
+
+	public InvertedFileTfIdf getIndex() {
+		return index;
+	}
+
+	public AssociateDescription<TupleDesc_F64> getAssociate() {
+		return associate;
+	}
+
+	public void setAssociate( AssociateDescription<TupleDesc_F64> associate ) {
+		this.associate = associate;
+	}
+
+	public int getMaxSimilar() {
+		return maxSimilar;
+	}
+
+	/**
+	 * Specifies the maximum number of similar images found for each image. More can be returned by
+	 * {@link #findSimilar} since similarity is symmetric.
+	 */
+	public void setMaxSimilar( int maxSimilar ) {
+		this.maxSimilar = maxSimilar;
+		similarImages = null;
+	}
+
+	public double getMinimumSimilarity() {
+		return minimumSimilarity;
+	}
+
+	/**
+	 * Images with a cosine similarity less than this are not considered similar. 0 to 1.
+	 */
+	public void setMinimumSimilarity( double minimumSimilarity ) {
+		this.minimumSimilarity = minimumSimilarity;
+		similarImages = null;
+	}
+
+	/**
+	 * Features and shape of an image
+	 */
+	static class ImageInfo implements Serializable {
+		int width, height;
+		// pixel coordinates interleaved, x0 y0 x1 y1 ...
+		double[] pixels;
+		double[][] descs;
+		// word each feature is assigned to
+		int[] words;
+	}
+}
@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.scene;
+
+import org.ddogleg.clustering.AssignCluster;
+import org.ddogleg.clustering.ComputeClusters;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <p>
+ * Hierarchical vocabulary of visual words, a.k.a. vocabulary tree [1]. The tree is learned by recursively clustering
+ * features into {@link #getBranchFactor() branchFactor} clusters until the maximum number of levels is reached or
+ * a node has too few features to split. Each leaf is a word. A feature is assigned to a word by descending the tree
+ * and selecting the closest child at each level, which requires branchFactor*levels distance computations
+ * instead of one for every word.
+ * </p>
+ *
+ * <p>
+ * Since it implements {@link AssignCluster} it can be used anywhere a flat set of words can, e.g.
+ * {@link FeatureToWordHistogram_F64}. Soft assignment is not supported and all the weight is given to the selected
+ * word. The tree is not modified after it has been learned, so {@link #copy()} returns the same instance and
+ * it can be shared between threads. Persist it using Java serialization.
+ * </p>
+ *
+ * <p>[1] Nister, David, and Henrik Stewenius. "Scalable recognition with a vocabulary tree."
+ * CVPR 2006. Vol. 2. IEEE, 2006.</p>
+ *
+ * @author Peter Abeles
+ */
+public class VocabularyTree implements AssignCluster<double[]>, Serializable {
+
+	// Number of children each node is split into
+	int branchFactor;
+	// Maximum number of levels below the root
+	int maxLevels;
+
+	// All the nodes in the tree. The root is the first element. Children of a node are stored sequentially.
+	List<Node> nodes = new ArrayList<>();
+	// Number of words/leaves in the tree
+	int numberOfWords;
+
+	/**
+	 * Configures the shape of the tree
+	 *
+	 * @param branchFactor Number of children each node is split into. &ge; 2
+	 * @param maxLevels Maximum number of levels below the root. &ge; 1
+	 */
+	public VocabularyTree( int branchFactor , int maxLevels ) {
+		if( branchFactor < 2 )
+			throw new IllegalArgumentException("branchFactor must be >= 2");
+		if( maxLevels < 1 )
+			throw new IllegalArgumentException("maxLevels must be >= 1");
+		this.branchFactor = branchFactor;
+		this.maxLevels = maxLevels;
+	}
+
+	/**
+	 * Learns the tree from the set of points. Any previously learned tree is discarded.
+	 *
+	 * @param computeClusters Cluster finding algorithm. Must have already been initialized.
+	 * @param points Points which are to be clustered. Not modified.
+	 */
+	public void learn( ComputeClusters<double[]> computeClusters , List<double[]> points ) {
+		nodes.clear();
+		numberOfWords = 0;
+
+		Node root = new Node();
+		nodes.add(root);
+		split(computeClusters,root,0,points);
+	}
+
+	/**
+	 * Clusters the points inside the node and recursively splits the children
+	 */
+	private void split( ComputeClusters<double[]> computeClusters , Node node , int level , List<double[]> points ) {
+		if( level >= maxLevels || points.size() <= branchFactor ) {
+			node.word = numberOfWords++;
+			return;
+		}
+
+		computeClusters.process(points,branchFactor);
+		AssignCluster<double[]> assignment = computeClusters.getAssignment();
+
+		List<List<double[]>> members = new ArrayList<>();
+		for (int i = 0; i < assignment.getNumberOfClusters(); i++) {
+			members.add(new ArrayList<>());
+		}
+		for (int i = 0; i < points.size(); i++) {
+			double[] p = points.get(i);
+			members.get(assignment.assign(p)).add(p);
+		}
+
+		// Clusters without any members are discarded
+		for (int i = members.size()-1; i >= 0; i--) {
+			if( members.get(i).isEmpty() )
+				members.remove(i);
+		}
+
+		// The points could not be split, so there's no point in going deeper
+		if( members.size() <= 1 ) {
+			node.word = numberOfWords++;
+			return;
+		}
+
+		// Children need to be created first so that they are sequential
+		node.firstChild = nodes.size();
+		node.numChildren = members.size();
+		for (int i = 0; i < members.size(); i++) {
+			Node child = new Node();
+			child.mean = computeMean(members.get(i));
+			nodes.add(child);
+		}
+
+		for (int i = 0; i < members.size(); i++) {
+			split(computeClusters,nodes.get(node.firstChild+i),level+1,members.get(i));
+		}
+	}
+
+	private static double[] computeMean( List<double[]> points ) {
+		double[] mean = new double[points.get(0).length];
+		for (int i = 0; i < points.size(); i++) {
+			double[] p = points.get(i);
+			for (int j = 0; j < mean.length; j++) {
+				mean[j] += p[j];
+			}
+		}
+		for (int j = 0; j < mean.length; j++) {
+			mean[j] /= points.size();
+		}
+		return mean;
+	}
+
+	/**
+	 * Finds the word the point belongs to by descending the tree
+	 *
+	 * @param point Point which is to be assigned
+	 * @return The word
+	 */
+	@Override
+	public int assign( double[] point ) {
+		if( nodes.isEmpty() )
+			throw new IllegalArgumentException("The tree must be learned first");
+
+		Node node = nodes.get(0);
+		while( node.numChildren > 0 ) {
+			int best = node.firstChild;
+			double bestDistance = Double.MAX_VALUE;
+			for (int i = 0; i < node.numChildren; i++) {
+				double d = distanceSq(nodes.get(node.firstChild+i).mean,point);
+				if( d < bestDistance ) {
+					bestDistance = d;
+					best = node.firstChild+i;
+				}
+			}
+			node = nodes.get(best);
+		}
+		return node.word;
+	}
+
+	/**
+	 * Soft assignment isn't supported. All the weight is given to the word selected by {@link #assign(double[])}
+	 */
+	@Override
+	public void assign( double[] point, double[] fit ) {
+		Arrays.fill(fit,0);
+		fit[assign(point)] = 1.0;
+	}
+
+	private static double distanceSq( double[] a , double[] b ) {
+		double total = 0;
+		for (int i = 0; i < a.length; i++) {
+			double d = a[i]-b[i];
+			total += d*d;
+		}
+		return total;
+	}
+
+	@Override
+	public int getNumberOfClusters() {
+		return numberOfWords;
+	}
+
+	/**
+	 * The tree isn't modified by assignment so the same instance is returned
+	 */
+	@Override
+	public AssignCluster<double[]> copy() {
+		return this;
+	}
+
+	public int getBranchFactor() {
+		return branchFactor;
+	}
+
+	public int getMaxLevels() {
+		return maxLevels;
+	}
+
+	public List<Node> getNodes() {
+		return nodes;
+	}
+
+	/**
+	 * A node in the tree
+	 */
+	public static class Node implements Serializable {
+		// mean of all the points inside this node. null for the root
+		public double[] mean;
+		// index of the first child and the number of children. Leaves have no children.
+		public int firstChild = -1;
+		public int numChildren = 0;
+		// The word this node represents if it's a leaf, otherwise -1
+		public int word = -1;
+	}
+}
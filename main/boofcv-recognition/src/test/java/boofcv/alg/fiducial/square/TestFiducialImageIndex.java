@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.fiducial.square;
+
+import boofcv.alg.descriptor.DescriptorDistance;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Peter Abeles
+ */
+public class TestFiducialImageIndex {
+	private Random rand = new Random(234);
+	private int length = 16;
+
+	/**
+	 * Compare against a linear search across a range of thresholds with queries which are near and far
+	 * from descriptors in the index. A small library is searched with a linear scan and a large one
+	 * with the tables.
+	 */
+	@Test
+	public void lookup_compareToBruteForce() {
+		lookup_compareToBruteForce(200,false);
+		lookup_compareToBruteForce(20000,false);
+	}
+
+	/**
+	 * Descriptors of real images have large uniform regions, so many words are the same. Results
+	 * should still match a linear search.
+	 */
+	@Test
+	public void lookup_uniformWords() {
+		lookup_compareToBruteForce(200,true);
+		lookup_compareToBruteForce(20000,true);
+	}
+
+	private void lookup_compareToBruteForce( int numDescriptors , boolean uniform ) {
+		FiducialImageIndex alg = new FiducialImageIndex(length);
+		for (int i = 0; i < numDescriptors; i++) {
+			alg.add(uniform ? uniformDescriptor() : randomDescriptor());
+		}
+		// add a duplicate so that ties are tested
+		alg.add(alg.get(20).clone());
+
+		int[] distance = new int[1];
+		for (int trial = 0; trial < 200; trial++) {
+			short[] query;
+			if( trial%2 == 0 ) {
+				query = alg.get(rand.nextInt(alg.size())).clone();
+				flipBits(query, rand.nextInt(40));
+			} else {
+				query = uniform ? uniformDescriptor() : randomDescriptor();
+			}
+
+			for( int threshold : new int[]{0,5,length-1,length,31,40,80,length*16} ) {
+				int expected = bruteForce(alg,query,threshold);
+				int found = alg.lookup(query,threshold,distance);
+				assertEquals(expected,found);
+				if( found >= 0 )
+					assertEquals(hamming(alg.get(found),query),distance[0]);
+			}
+		}
+	}
+
+	/**
+	 * Close matches in a large library should be found without looking at most of the descriptors, even when
+	 * the maximum distance is too large for the tables to prove there is no match
+	 */
+	@Test
+	public void lookup_sublinear() {
+		FiducialImageIndex alg = new FiducialImageIndex(length);
+		for (int i = 0; i < 20000; i++) {
+			alg.add(randomDescriptor());
+		}
+
+		short[] query = alg.get(500).clone();
+		flipBits(query,3);
+		assertEquals(500,alg.lookup(query,length*4,null));
+		assertTrue(alg.getTotalCompared() < 100);
+	}
+
+	/**
+	 * The index needs to search a larger radius to prove that there is no match or to find a match which has
+	 * no identical words. Neither should require a linear scan.
+	 */
+	@Test
+	public void lookup_sublinear_radius() {
+		FiducialImageIndex alg = new FiducialImageIndex(length);
+		for (int i = 0; i < 20000; i++) {
+			alg.add(randomDescriptor());
+		}
+
+		// nothing within the threshold
+		assertEquals(-1,alg.lookup(randomDescriptor(),2*length-1,null));
+		assertTrue(alg.getTotalCompared() < 1000);
+
+		// every word is different from the best match
+		short[] query = alg.get(500).clone();
+		for (int i = 0; i < length; i++) {
+			query[i] ^= 1 << rand.nextInt(16);
+		}
+		int[] distance = new int[1];
+		assertEquals(500,alg.lookup(query,2*length-1,distance));
+		assertEquals(length,distance[0]);
+		assertTrue(alg.getTotalCompared() < 1000);
+	}
+
+	/**
+	 * Add descriptors after a search has been done. The index should be rebuilt
+	 */
+	@Test
+	public void add_afterLookup() {
+		FiducialImageIndex alg = new FiducialImageIndex(length);
+		alg.add(randomDescriptor());
+		short[] query = randomDescriptor();
+		alg.lookup(query,0,null);
+		alg.add(query);
+		assertEquals(1,alg.lookup(query,0,null));
+
+		alg.reset();
+		assertEquals(0,alg.size());
+		assertEquals(-1,alg.lookup(query,length*16,null));
+	}
+
+	private int bruteForce( FiducialImageIndex alg , short[] query , int threshold ) {
+		int best = -1;
+		int bestScore = threshold+1;
+		for (int i = 0; i < alg.size(); i++) {
+			int score = hamming(alg.get(i),query);
+			if( score < bestScore ) {
+				bestScore = score;
+				best = i;
+			}
+		}
+		return best;
+	}
+
+	private short[] randomDescriptor() {
+		short[] desc = new short[length];
+		for (int i = 0; i < length; i++) {
+			desc[i] = (short)rand.nextInt();
+		}
+		return desc;
+	}
+
+	/**
+	 * Most words are all black or all white
+	 */
+	private short[] uniformDescriptor() {
+		short[] desc = new short[length];
+		for (int i = 0; i < length; i++) {
+			switch( rand.nextInt(4) ) {
+				case 0: desc[i] = 0; break;
+				case 1: desc[i] = (short)0xFFFF; break;
+				case 2: desc[i] = (short)(0xFFFF << rand.nextInt(16)); break;
+				default: desc[i] = (short)rand.nextInt();
+			}
+		}
+		return desc;
+	}
+
+	private void flipBits( short[] desc , int total ) {
+		for (int i = 0; i < total; i++) {
+			int bit = rand.nextInt(length*16);
+			desc[bit/16] ^= 1 << (bit%16);
+		}
+	}
+
+	private static int hamming( short[] a , short[] b ) {
+		int distance = 0;
+		for (int i = 0; i < a.length; i++) {
+			distance += DescriptorDistance.hamming((a[i]&0xFFFF) ^ (b[i]&0xFFFF));
+		}
+		return distance;
+	}
+}
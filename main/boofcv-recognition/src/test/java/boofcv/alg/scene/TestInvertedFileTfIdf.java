@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.scene;
+
+import org.ddogleg.struct.FastQueue;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Peter Abeles
+ */
+class TestInvertedFileTfIdf {
+
+	FastQueue<InvertedFileTfIdf.Match> results = new FastQueue<>(InvertedFileTfIdf.Match.class,true);
+
+	@Test
+	void addImage() {
+		InvertedFileTfIdf alg = new InvertedFileTfIdf(5);
+
+		assertEquals(0,alg.addImage(new int[]{1,1,2,0},3));
+		assertEquals(1,alg.addImage(new int[]{2,3},2));
+
+		assertEquals(2,alg.getNumberOfImages());
+		assertEquals(0,alg.getImagesWithWord(0));
+		assertEquals(1,alg.getImagesWithWord(1));
+		assertEquals(2,alg.getImagesWithWord(2));
+		assertEquals(1,alg.getImagesWithWord(3));
+
+		// word frequency inside the image
+		assertEquals(2.0/3.0,alg.words[1].frequency[0],1e-6);
+		assertEquals(0.5,alg.words[3].frequency[0],1e-6);
+	}
+
+	/**
+	 * Query with an image that's in the index. It should be the best match with a perfect score
+	 */
+	@Test
+	void query_identical() {
+		InvertedFileTfIdf alg = createIndex();
+
+		int[] query = new int[]{4,5,5,6};
+		alg.query(query,query.length,-1,10,results);
+
+		assertEquals(2,results.size);
+		assertEquals(1,results.get(0).image);
+		assertEquals(1.0,results.get(0).score,1e-8);
+		assertEquals(2,results.get(1).image);
+		assertTrue(results.get(1).score < 1.0);
+
+		// exclude the identical image
+		alg.query(query,query.length,1,10,results);
+		assertEquals(1,results.size);
+		assertEquals(2,results.get(0).image);
+	}
+
+	/**
+	 * A word which is in every image has no weight and shouldn't cause images to match
+	 */
+	@Test
+	void query_commonWord() {
+		InvertedFileTfIdf alg = createIndex();
+
+		int[] query = new int[]{0,0,0};
+		alg.query(query,query.length,-1,10,results);
+		assertEquals(0,results.size);
+	}
+
+	/**
+	 * Only the best results should be returned and they should be sorted
+	 */
+	@Test
+	void query_maxResults() {
+		InvertedFileTfIdf alg = new InvertedFileTfIdf(10);
+		for (int i = 0; i < 8; i++) {
+			// each image shares more words with the query than the previous
+			int[] words = new int[8];
+			for (int j = 0; j < words.length; j++) {
+				words[j] = j <= i ? 1+j : 9;
+			}
+			alg.addImage(words,words.length);
+		}
+		// makes word 9 have some weight
+		alg.addImage(new int[]{0},1);
+
+		int[] query = new int[]{1,2,3,4,5,6,7,8};
+		alg.query(query,query.length,-1,3,results);
+
+		assertEquals(3,results.size);
+		assertEquals(7,results.get(0).image);
+		assertEquals(6,results.get(1).image);
+		assertEquals(5,results.get(2).image);
+		assertTrue(results.get(0).score > results.get(1).score);
+		assertTrue(results.get(1).score > results.get(2).score);
+
+		// Adding an identical image should change the results. Ties are broken by index
+		alg.addImage(query,query.length);
+		alg.query(query,query.length,-1,3,results);
+		assertEquals(7,results.get(0).image);
+		assertEquals(9,results.get(1).image);
+		assertEquals(6,results.get(2).image);
+		assertEquals(1.0,results.get(1).score,1e-8);
+	}
+
+	private InvertedFileTfIdf createIndex() {
+		InvertedFileTfIdf alg = new InvertedFileTfIdf(10);
+		alg.addImage(new int[]{0,1,2,3},4);
+		alg.addImage(new int[]{0,4,5,5,6},5);
+		alg.addImage(new int[]{0,6,7},3);
+		alg.addImage(new int[]{0,8,9,9},4);
+		return alg;
+	}
+}
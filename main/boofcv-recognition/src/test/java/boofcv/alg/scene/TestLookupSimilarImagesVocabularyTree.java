@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.scene;
+
+import boofcv.abst.feature.associate.AssociateDescription;
+import boofcv.abst.feature.associate.ScoreAssociateEuclideanSq_F64;
+import boofcv.factory.feature.associate.FactoryAssociation;
+import boofcv.struct.feature.AssociatedIndex;
+import boofcv.struct.feature.TupleDesc_F64;
+import boofcv.struct.image.ImageDimension;
+import georegression.struct.point.Point2D_F64;
+import org.ddogleg.struct.FastQueue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Peter Abeles
+ */
+class TestLookupSimilarImagesVocabularyTree {
+
+	VocabularyTree tree = new VocabularyTree(4,2);
+
+	/**
+	 * Learns a tree where points along a line with values from 4*k to 4*k+3 are assigned to the same word
+	 */
+	@BeforeEach
+	void learnTree() {
+		List<double[]> points = new ArrayList<>();
+		for (int i = 0; i < 64; i++) {
+			points.add(new double[]{i});
+		}
+		tree.learn(new TestVocabularyTree.SplitClusters(),points);
+	}
+
+	/**
+	 * Image "hub" shares one word with each of the other images, which have nothing else in common. Each of
+	 * the other images is the same distance from the hub.
+	 */
+	LookupSimilarImagesVocabularyTree createHub() {
+		LookupSimilarImagesVocabularyTree alg = new LookupSimilarImagesVocabularyTree(tree,createAssociate());
+		alg.setMaxSimilar(1);
+		addImage(alg,"hub",100,1,5,9);
+		addImage(alg,"a",110,1,21);
+		addImage(alg,"b",120,5,25);
+		addImage(alg,"c",130,9,29);
+		return alg;
+	}
+
+	@Test
+	void addImage_lookup() {
+		LookupSimilarImagesVocabularyTree alg = createHub();
+
+		assertEquals(4,alg.getImageIDs().size());
+		assertEquals("b",alg.getImageIDs().get(2));
+		assertThrows(IllegalArgumentException.class,()->addImage(alg,"b",10,2));
+
+		FastQueue<Point2D_F64> pixels = new FastQueue<>(Point2D_F64.class,true);
+		alg.lookupPixelFeats("b",pixels);
+		assertEquals(2,pixels.size);
+		assertEquals(0,pixels.get(0).distance(5,6),1e-8);
+		assertEquals(0,pixels.get(1).distance(25,26),1e-8);
+
+		ImageDimension shape = new ImageDimension();
+		alg.lookupShape("c",shape);
+		assertEquals(130,shape.width);
+		assertEquals(131,shape.height);
+
+		assertThrows(IllegalArgumentException.class,()->alg.lookupShape("d",shape));
+	}
+
+	/**
+	 * Only one similar image is requested per image, but the hub is the most similar image to three images
+	 */
+	@Test
+	void findSimilar_symmetric() {
+		LookupSimilarImagesVocabularyTree alg = createHub();
+
+		List<String> similar = new ArrayList<>();
+		alg.findSimilar("hub",similar);
+		assertEquals(3,similar.size());
+		// the hub's most similar image comes first
+		assertEquals("a",similar.get(0));
+		assertTrue(similar.contains("b"));
+		assertTrue(similar.contains("c"));
+
+		for( String id : new String[]{"a","b","c"}) {
+			alg.findSimilar(id,similar);
+			assertEquals(1,similar.size());
+			assertEquals("hub",similar.get(0));
+		}
+
+		checkSymmetric(alg);
+	}
+
+	/**
+	 * Changing settings or adding an image must update the similar images
+	 */
+	@Test
+	void findSimilar_modified() {
+		LookupSimilarImagesVocabularyTree alg = createHub();
+
+		List<String> similar = new ArrayList<>();
+		alg.findSimilar("a",similar);
+		assertEquals(1,similar.size());
+
+		addImage(alg,"d",140,21,49);
+		alg.findSimilar("a",similar);
+		assertEquals(2,similar.size());
+		assertTrue(similar.contains("d"));
+		checkSymmetric(alg);
+
+		alg.setMinimumSimilarity(1.1);
+		alg.findSimilar("a",similar);
+		assertEquals(0,similar.size());
+	}
+
+	@Test
+	void lookupMatches() {
+		LookupSimilarImagesVocabularyTree alg = createHub();
+
+		FastQueue<AssociatedIndex> pairs = new FastQueue<>(AssociatedIndex.class,true);
+		assertTrue(alg.lookupMatches("c","hub",pairs));
+		assertEquals(1,pairs.size);
+		assertEquals(0,pairs.get(0).src);
+		assertEquals(2,pairs.get(0).dst);
+
+		assertFalse(alg.lookupMatches("a","b",pairs));
+		assertEquals(0,pairs.size);
+	}
+
+	/**
+	 * Save and load the lookup. The transient workspace needs to be recreated and the association must be
+	 * specified again
+	 */
+	@Test
+	void serialize() throws IOException, ClassNotFoundException {
+		LookupSimilarImagesVocabularyTree original = createHub();
+		List<String> expected = new ArrayList<>();
+		original.findSimilar("hub",expected);
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try( ObjectOutputStream out = new ObjectOutputStream(bytes) ) {
+			out.writeObject(original);
+		}
+		LookupSimilarImagesVocabularyTree found;
+		try( ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())) ) {
+			found = (LookupSimilarImagesVocabularyTree)in.readObject();
+		}
+
+		assertEquals(original.getImageIDs(),found.getImageIDs());
+		assertNull(found.getAssociate());
+
+		List<String> similar = new ArrayList<>();
+		found.findSimilar("hub",similar);
+		assertEquals(expected,similar);
+		checkSymmetric(found);
+
+		FastQueue<AssociatedIndex> pairs = new FastQueue<>(AssociatedIndex.class,true);
+		assertThrows(IllegalArgumentException.class,()->found.lookupMatches("c","hub",pairs));
+		found.setAssociate(createAssociate());
+		assertTrue(found.lookupMatches("c","hub",pairs));
+		assertEquals(1,pairs.size);
+
+		// new images can still be added
+		addImage(found,"d",140,21,49);
+		found.findSimilar("d",similar);
+		assertEquals(1,similar.size());
+		assertEquals("a",similar.get(0));
+	}
+
+	private static void checkSymmetric( LookupSimilarImagesVocabularyTree alg ) {
+		List<String> similarA = new ArrayList<>();
+		List<String> similarB = new ArrayList<>();
+		for( String a : alg.getImageIDs() ) {
+			alg.findSimilar(a,similarA);
+			for( String b : similarA ) {
+				alg.findSimilar(b,similarB);
+				assertTrue(similarB.contains(a));
+			}
+		}
+	}
+
+	private static AssociateDescription<TupleDesc_F64> createAssociate() {
+		return FactoryAssociation.greedy(new ScoreAssociateEuclideanSq_F64(),1.0,false);
+	}
+
+	/**
+	 * Adds an image where each feature has a 1D descriptor and is located at (value, value+1)
+	 */
+	private static void addImage( LookupSimilarImagesVocabularyTree alg , String id , int width , double ...values ) {
+		FastQueue<Point2D_F64> pixels = new FastQueue<>(Point2D_F64.class,true);
+		FastQueue<TupleDesc_F64> descs = new FastQueue<>(TupleDesc_F64.class,()->new TupleDesc_F64(1));
+		for( double v : values ) {
+			pixels.grow().set(v,v+1);
+			descs.grow().value[0] = v;
+		}
+		alg.addImage(id,width,width+1,pixels,descs);
+	}
+}
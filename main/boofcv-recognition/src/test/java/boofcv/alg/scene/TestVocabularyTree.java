@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.scene;
+
+import org.ddogleg.clustering.AssignCluster;
+import org.ddogleg.clustering.ComputeClusters;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * @author Peter Abeles
+ */
+class TestVocabularyTree {
+
+	/**
+	 * Points along a line are split evenly at each level. See if the expected words are found
+	 */
+	@Test
+	void learn_assign() {
+		List<double[]> points = createPoints(64);
+
+		VocabularyTree alg = new VocabularyTree(4,2);
+		alg.learn(new SplitClusters(),points);
+
+		assertEquals(16,alg.getNumberOfClusters());
+		// root, 4 children, and 16 grand children
+		assertEquals(1+4+16,alg.getNodes().size());
+
+		for (int i = 0; i < points.size(); i++) {
+			int wordI = alg.assign(points.get(i));
+			for (int j = i+1; j < points.size(); j++) {
+				int wordJ = alg.assign(points.get(j));
+				if( i/4 == j/4 )
+					assertEquals(wordI,wordJ);
+				else
+					assertNotEquals(wordI,wordJ);
+			}
+		}
+	}
+
+	/**
+	 * Nodes with too few points should not be split
+	 */
+	@Test
+	void learn_fewPoints() {
+		VocabularyTree alg = new VocabularyTree(4,3);
+		alg.learn(new SplitClusters(),createPoints(16));
+
+		// the first level will have 4 points in each node, which can't be split
+		assertEquals(4,alg.getNumberOfClusters());
+		assertEquals(1+4,alg.getNodes().size());
+
+		alg.learn(new SplitClusters(),createPoints(3));
+		assertEquals(1,alg.getNumberOfClusters());
+		assertEquals(0,alg.assign(new double[]{2}));
+	}
+
+	@Test
+	void assign_soft() {
+		VocabularyTree alg = new VocabularyTree(4,1);
+		alg.learn(new SplitClusters(),createPoints(16));
+
+		double[] fit = new double[4];
+		alg.assign(new double[]{9},fit);
+
+		int word = alg.assign(new double[]{9});
+		for (int i = 0; i < 4; i++) {
+			assertEquals(i==word?1.0:0.0,fit[i]);
+		}
+	}
+
+	private static List<double[]> createPoints( int N ) {
+		List<double[]> points = new ArrayList<>();
+		for (int i = 0; i < N; i++) {
+			points.add(new double[]{i});
+		}
+		return points;
+	}
+
+	/**
+	 * Sorts 1D points and splits them into clusters with the same number of points
+	 */
+	static class SplitClusters implements ComputeClusters<double[]> {
+		Assign assign;
+
+		@Override
+		public void init( int pointDimension, long randomSeed ) {}
+
+		@Override
+		public void process( List<double[]> points, int numCluster ) {
+			double[] values = new double[points.size()];
+			for (int i = 0; i < values.length; i++) {
+				values[i] = points.get(i)[0];
+			}
+			Arrays.sort(values);
+
+			assign = new Assign();
+			assign.means = new double[numCluster];
+			int size = values.length/numCluster;
+			for (int i = 0; i < numCluster; i++) {
+				for (int j = 0; j < size; j++) {
+					assign.means[i] += values[i*size+j];
+				}
+				assign.means[i] /= size;
+			}
+		}
+
+		@Override
+		public AssignCluster<double[]> getAssignment() {
+			return assign;
+		}
+
+		@Override
+		public double getDistanceMeasure() {
+			return 0;
+		}
+
+		@Override
+		public void setVerbose( boolean verbose ) {}
+	}
+
+	static class Assign implements AssignCluster<double[]> {
+		double[] means;
+
+		@Override
+		public int assign( double[] point ) {
+			int best = 0;
+			for (int i = 1; i < means.length; i++) {
+				if( Math.abs(means[i]-point[0]) < Math.abs(means[best]-point[0]) )
+					best = i;
+			}
+			return best;
+		}
+
+		@Override
+		public void assign( double[] point, double[] fit ) {}
+
+		@Override
+		public int getNumberOfClusters() {
+			return means.length;
+		}
+
+		@Override
+		public AssignCluster<double[]> copy() {
+			return this;
+		}
+	}
+}
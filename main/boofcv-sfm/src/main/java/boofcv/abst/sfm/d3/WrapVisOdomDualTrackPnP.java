@@ -25,21 +25,25 @@ import boofcv.alg.geo.DistanceFromModelMultiView;
 import boofcv.alg.geo.pose.PnPStereoDistanceReprojectionSq;
 import boofcv.alg.geo.pose.PnPStereoEstimator;
 import boofcv.alg.geo.pose.RefinePnPStereo;
+import boofcv.alg.geo.robust.Ransac_MT;
 import boofcv.alg.sfm.d3.VisOdomDualTrackPnP;
 import boofcv.struct.calib.CameraPinholeBrown;
 import boofcv.struct.calib.StereoParameters;
 import boofcv.struct.geo.Point2D3D;
 import boofcv.struct.image.ImageGray;
 import boofcv.struct.image.ImageType;
+import boofcv.struct.sfm.Stereo2D3D;
 import georegression.struct.point.Point2D_F64;
 import georegression.struct.point.Point3D_F64;
 import georegression.struct.se.Se3_F64;
 
+import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
- * TODO comment
+ * Wrapper around {@link VisOdomDualTrackPnP} for {@link StereoVisualOdometry}. How long each stage took in the
+ * most recent frame can be accessed from here too.
  *
  * @author Peter Abeles
  */
@@ -54,6 +58,11 @@ public class WrapVisOdomDualTrackPnP<T extends ImageGray<T>>
 
 	VisOdomDualTrackPnP<T,?> alg;
 
+	// Optional. Robust estimator where each thread owns a copy of the generator and distance function
+	@Nullable Ransac_MT<Se3_F64,Stereo2D3D> ransacThreads;
+	// Calibration which the thread copies are created with
+	@Nullable StereoParameters threadCalibration;
+
 	Class<T> imageType;
 
 	boolean success;
@@ -123,6 +132,57 @@ public class WrapVisOdomDualTrackPnP<T extends ImageGray<T>>
 		distanceStereo.setIntrinsic(0,parameters.left);
 		distanceStereo.setIntrinsic(1,parameters.right);
 		assoc.setCalibration(parameters);
+
+		if( ransacThreads != null ) {
+			threadCalibration.setLeft(new CameraPinholeBrown(parameters.left));
+			threadCalibration.setRight(new CameraPinholeBrown(parameters.right));
+			threadCalibration.setRightToLeft(parameters.rightToLeft.copy());
+			ransacThreads.discardWorkers();
+		}
+	}
+
+	/**
+	 * Specifies a robust estimator which creates its own generator and distance function for each thread.
+	 * Those copies are configured using threadCalibration, which is updated when the calibration is set.
+	 *
+	 * @param ransacThreads The robust estimator used by alg
+	 * @param threadCalibration Calibration which is referenced by the factories inside of ransacThreads
+	 */
+	public void setThreadCopies( Ransac_MT<Se3_F64,Stereo2D3D> ransacThreads , StereoParameters threadCalibration ) {
+		this.ransacThreads = ransacThreads;
+		this.threadCalibration = threadCalibration;
+	}
+
+	/**
+	 * Time in milliseconds it took to update the trackers in the most recent frame
+	 */
+	public double getTimeTracking() {
+		return alg.getTimeTracking();
+	}
+
+	/**
+	 * Time in milliseconds it took to spawn and associate new tracks in the most recent frame
+	 */
+	public double getTimeSpawn() {
+		return alg.getTimeSpawn();
+	}
+
+	/**
+	 * Time in milliseconds it took to robustly estimate motion in the most recent frame
+	 */
+	public double getTimeEstimate() {
+		return alg.getTimeEstimate();
+	}
+
+	/**
+	 * Time in milliseconds it took to refine the motion estimate in the most recent frame
+	 */
+	public double getTimeRefine() {
+		return alg.getTimeRefine();
+	}
+
+	public VisOdomDualTrackPnP<T, ?> getAlgorithm() {
+		return alg;
 	}
 
 	@Override
@@ -58,14 +58,14 @@ public class StitchingFromMotion2D<I extends ImageBase<I>, IT extends Invertible
 	// estimates image motion
 	private ImageMotion2D<I,IT> motion;
 	// renders the distorted image according to results from motion
-	private ImageDistort<I,I> distorter;
+	protected ImageDistort<I,I> distorter;
 	// converts different types of motion models into other formats
 	private StitchingTransform<IT> converter;
 
 	// Transform from first video frame to the initial location in the stitched image
 	private IT worldToInit;
 	// size of the stitch image
-	private int widthStitch, heightStitch;
+	protected int widthStitch, heightStitch;
 
 	// Largest allowed fractional change in area
 	private double maxJumpFraction;
@@ -77,8 +77,8 @@ public class StitchingFromMotion2D<I extends ImageBase<I>, IT extends Invertible
 	// storage for the transform from current frame to the initial frame
 	private IT worldToCurr;
 
-	private PixelTransform<Point2D_F32> tranWorldToCurr;
-	private PixelTransform<Point2D_F32> tranCurrToWorld;
+	protected PixelTransform<Point2D_F32> tranWorldToCurr;
+	protected PixelTransform<Point2D_F32> tranCurrToWorld;
 	private Point2D_F32 work = new Point2D_F32();
 
 	// storage for the stitched image
@@ -134,10 +134,7 @@ public class StitchingFromMotion2D<I extends ImageBase<I>, IT extends Invertible
 	 * @return True if the stitched image is updated and false if it failed and was not
 	 */
 	public boolean process( I image ) {
-		if( stitchedImage == null ) {
-			stitchedImage = (I)image.createNew(widthStitch, heightStitch);
-			workImage = (I)image.createNew(widthStitch, heightStitch);
-		}
+		declareStitchImage(image);
 
 		if( motion.process(image) ) {
 			update(image);
@@ -153,8 +150,7 @@ public class StitchingFromMotion2D<I extends ImageBase<I>, IT extends Invertible
 	 * Throws away current results and starts over again
 	 */
 	public void reset() {
-		if( stitchedImage != null )
-			GImageMiscOps.fill(stitchedImage, 0);
+		clearStitchImage();
 		motion.reset();
 		worldToCurr.reset();
 		first = true;
@@ -202,17 +198,82 @@ public class StitchingFromMotion2D<I extends ImageBase<I>, IT extends Invertible
 
 		// only process a cropped portion to speed up processing
 		RectangleLength2D_I32 box = DistortImageOps.boundBox(image.width, image.height,
-				stitchedImage.width, stitchedImage.height,work, tranCurrToWorld);
+				widthStitch, heightStitch,work, tranCurrToWorld);
 
 		int x0 = box.x0;
 		int y0 = box.y0;
 		int x1 = box.x0 + box.width;
 		int y1 = box.y0 + box.height;
 
+		renderCurrent(image,x0,y0,x1,y1);
+	}
+
+	/**
+	 * Declares storage for the stitched image the first time an image is processed
+	 *
+	 * @param image The first image
+	 */
+	protected void declareStitchImage( I image ) {
+		if( stitchedImage == null ) {
+			stitchedImage = (I)image.createNew(widthStitch, heightStitch);
+			workImage = (I)image.createNew(widthStitch, heightStitch);
+		}
+	}
+
+	/**
+	 * Fills the stitched image with zero
+	 */
+	protected void clearStitchImage() {
+		if( stitchedImage != null )
+			GImageMiscOps.fill(stitchedImage, 0);
+	}
+
+	/**
+	 * Renders the current image into the specified region of the stitched image using {@link #tranWorldToCurr}
+	 */
+	protected void renderCurrent( I image , int x0 , int y0 , int x1 , int y1 ) {
 		distorter.setModel(tranWorldToCurr);
 		distorter.apply(image, stitchedImage,x0,y0,x1,y1);
 	}
 
+	/**
+	 * Replaces the stitched image with a transformed copy of itself. Pixels which don't map to the old image
+	 * are filled with zero.
+	 *
+	 * @param newToOld Transform from new stitch image pixels to old stitch image pixels
+	 * @param width Width of the new stitch image
+	 * @param height Height of the new stitch image
+	 */
+	protected void transformStitchImage( PixelTransform<Point2D_F32> newToOld , int width , int height ) {
+		workImage.reshape(width,height);
+		GImageMiscOps.fill(workImage, 0);
+		distorter.setModel(newToOld);
+		distorter.apply(stitchedImage, workImage);
+
+		swapStitchImage(width,height);
+	}
+
+	/**
+	 * Changes the size of the stitched image without transforming it. Pixels which are not in the old image
+	 * are filled with zero.
+	 */
+	protected void cropStitchImage( int width , int height ) {
+		workImage.reshape(width,height);
+		GImageMiscOps.fill(workImage, 0);
+		int overlapWidth = Math.min(width,stitchedImage.width);
+		int overlapHeight = Math.min(height,stitchedImage.height);
+		GImageMiscOps.copy(0,0,0,0,overlapWidth,overlapHeight,stitchedImage,workImage);
+
+		swapStitchImage(width,height);
+	}
+
+	private void swapStitchImage( int width , int height ) {
+		stitchedImage.reshape(width,height);
+		I tmp = stitchedImage;
+		stitchedImage = workImage;
+		workImage = tmp;
+	}
+
 	private void computeCurrToInit_PixelTran() {
 		IT initToCurr = motion.getFirstToCurrent();
 		worldToInit.concat(initToCurr, worldToCurr);
@@ -235,16 +296,8 @@ public class StitchingFromMotion2D<I extends ImageBase<I>, IT extends Invertible
 
 		PixelTransform<Point2D_F32> newToOld = converter.convertPixel(oldWorldToNewWorld,null);
 
-		// fill in the background color
-		GImageMiscOps.fill(workImage, 0);
-		// render the transform
-		distorter.setModel(newToOld);
-		distorter.apply(stitchedImage, workImage);
-
-		// swap the two images
-		I s = workImage;
-		workImage = stitchedImage;
-		stitchedImage = s;
+		// render the transform. The background is filled with zero
+		transformStitchImage(newToOld,widthStitch,heightStitch);
 
 		// have motion estimates be relative to this frame
 		motion.setToFirst();
@@ -264,12 +317,9 @@ public class StitchingFromMotion2D<I extends ImageBase<I>, IT extends Invertible
 	public void resizeStitchImage( int widthStitch, int heightStitch , IT newToOldStitch ) {
 
 		// copy the old image into the new one
-		workImage.reshape(widthStitch,heightStitch);
-		GImageMiscOps.fill(workImage, 0);
 		if( newToOldStitch != null ) {
 			PixelTransform<Point2D_F32> newToOld = converter.convertPixel(newToOldStitch,null);
-			distorter.setModel(newToOld);
-			distorter.apply(stitchedImage, workImage);
+			transformStitchImage(newToOld,widthStitch,heightStitch);
 
 			// update the transforms
 			IT tmp = (IT)worldToCurr.createInstance();
@@ -278,14 +328,8 @@ public class StitchingFromMotion2D<I extends ImageBase<I>, IT extends Invertible
 
 			computeCurrToInit_PixelTran();
 		} else {
-			int overlapWidth = Math.min(widthStitch,stitchedImage.width);
-			int overlapHeight = Math.min(heightStitch,stitchedImage.height);
-			GImageMiscOps.copy(0,0,0,0,overlapWidth,overlapHeight,stitchedImage,workImage);
+			cropStitchImage(widthStitch,heightStitch);
 		}
-		stitchedImage.reshape(widthStitch,heightStitch);
-		I tmp = stitchedImage;
-		stitchedImage = workImage;
-		workImage = tmp;
 
 		this.widthStitch = widthStitch;
 		this.heightStitch = heightStitch;
@@ -0,0 +1,393 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.sfm.d2;
+
+import boofcv.alg.misc.GImageMiscOps;
+import boofcv.struct.image.ImageBase;
+import boofcv.struct.image.ImageType;
+
+import javax.annotation.Nullable;
+import java.io.*;
+import java.util.*;
+
+/**
+ * <p>
+ * Stores a large image as a grid of square tiles. Tiles are only allocated once they are requested, so regions
+ * which have never been written to consume no memory and are implicitly zero. If the number of tiles in memory
+ * exceeds {@link #setMaxTilesInMemory(int) maxTilesInMemory} then the least recently used tiles are written
+ * to disk and loaded again when they are next requested.
+ * </p>
+ *
+ * <p>
+ * The tile at (row,col) covers pixels x = col*tileSize to (col+1)*tileSize-1 and y = row*tileSize
+ * to (row+1)*tileSize-1. Tiles along the right and bottom border can extend past the image. Pixels outside the
+ * image are always zero. This class is not thread safe but the images inside of different tiles can be
+ * modified concurrently.
+ * </p>
+ *
+ * @author Peter Abeles
+ */
+public class StitchingTiles<I extends ImageBase<I>> {
+	// Width and height of a tile
+	final int tileSize;
+	// Type of image in each tile
+	final ImageType<I> imageType;
+
+	// Size of the full image
+	int width, height;
+
+	// All the tiles which have been allocated. Ordered from least to most recently used
+	LinkedHashMap<Long,Tile<I>> tiles = new LinkedHashMap<>(16,0.75f,true);
+	// Number of tiles which are in memory
+	int tilesInMemory;
+	// Maximum number of tiles which can be in memory. If <= 0 then there is no limit
+	int maxTilesInMemory = 0;
+
+	// Directory tiles are saved to. Created when first needed
+	@Nullable File spillDirectory;
+	// Images from tiles which have been saved to disk or discarded and can be reused
+	ArrayDeque<I> unused = new ArrayDeque<>();
+	// Maximum number of images in unused. Images beyond this are left for the garbage collector so that
+	// the total number of images in memory stays bounded
+	static final int MAX_UNUSED = 2;
+
+	/**
+	 * Specifies the shape of the tiles
+	 *
+	 * @param tileSize Width and height of each tile. &gt; 0
+	 * @param imageType Type of image stored in each tile
+	 */
+	public StitchingTiles( int tileSize , ImageType<I> imageType ) {
+		if( tileSize <= 0 )
+			throw new IllegalArgumentException("tileSize must be > 0");
+		this.tileSize = tileSize;
+		this.imageType = imageType;
+	}
+
+	/**
+	 * Discards all the tiles and changes the image size
+	 */
+	public void reset( int width , int height ) {
+		for( Tile<I> t : tiles.values() ) {
+			if( t.file != null && !t.file.delete() )
+				t.file.deleteOnExit();
+		}
+		tiles.clear();
+		tilesInMemory = 0;
+		unused.clear();
+		this.width = width;
+		this.height = height;
+	}
+
+	/**
+	 * Returns the tile if it has been allocated, loading it from disk if needed.
+	 *
+	 * @return The tile or null if it has never been allocated
+	 */
+	public @Nullable Tile<I> lookup( int row , int col ) {
+		Tile<I> tile = tiles.get(key(row,col));
+		if( tile != null )
+			load(tile);
+		return tile;
+	}
+
+	/**
+	 * Returns the tile, allocating it if it doesn't exist and loading it from disk if needed.
+	 * Newly allocated tiles are filled with zero.
+	 */
+	public Tile<I> grow( int row , int col ) {
+		if( row < 0 || col < 0 || row >= getRows() || col >= getCols() )
+			throw new IllegalArgumentException("Tile is outside the image. row="+row+" col="+col);
+
+		Tile<I> tile = tiles.get(key(row,col));
+		if( tile == null ) {
+			tile = new Tile<>();
+			tile.row = row;
+			tile.col = col;
+			tile.image = declareImage();
+			GImageMiscOps.fill(tile.image,0);
+			tiles.put(key(row,col),tile);
+			tilesInMemory++;
+		} else {
+			load(tile);
+		}
+		return tile;
+	}
+
+	/**
+	 * Returns true if the tile has been allocated
+	 */
+	public boolean isAllocated( int row , int col ) {
+		return tiles.containsKey(key(row,col));
+	}
+
+	/**
+	 * Saves the least recently used tiles to disk until the number in memory is within the limit
+	 */
+	public void spillColdTiles() {
+		if( maxTilesInMemory > 0 )
+			spillColdTiles(maxTilesInMemory);
+	}
+
+	private void spillColdTiles( int limit ) {
+		if( tilesInMemory <= limit )
+			return;
+
+		for( Tile<I> t : tiles.values() ) {
+			if( t.image == null )
+				continue;
+			save(t);
+			if( tilesInMemory <= limit )
+				break;
+		}
+	}
+
+	/**
+	 * Changes the size of the image without moving any pixels. Tiles outside the new image are discarded and
+	 * pixels outside the new image are set to zero.
+	 */
+	public void resize( int width , int height ) {
+		this.width = width;
+		this.height = height;
+
+		Iterator<Tile<I>> iter = tiles.values().iterator();
+		List<Tile<I>> border = new ArrayList<>();
+		while( iter.hasNext() ) {
+			Tile<I> t = iter.next();
+			if( t.col >= getCols() || t.row >= getRows() ) {
+				if( t.image != null ) {
+					tilesInMemory--;
+					recycle(t.image);
+				} else if( !t.file.delete() ) {
+					t.file.deleteOnExit();
+				}
+				iter.remove();
+			} else if( (t.col+1)*tileSize > width || (t.row+1)*tileSize > height ) {
+				border.add(t);
+			}
+		}
+
+		// Pixels outside the image must be zero in case the image is enlarged again
+		for (int i = 0; i < border.size(); i++) {
+			Tile<I> t = border.get(i);
+			load(t);
+			int localWidth = width-t.col*tileSize;
+			int localHeight = height-t.row*tileSize;
+			if( localWidth < tileSize )
+				GImageMiscOps.fillRectangle(t.image,0,localWidth,0,tileSize-localWidth,tileSize);
+			if( localHeight < tileSize )
+				GImageMiscOps.fillRectangle(t.image,0,0,localHeight,tileSize,tileSize-localHeight);
+			spillColdTiles();
+		}
+	}
+
+	/**
+	 * Copies a rectangular region into the output image. Pixels which are not inside an allocated tile are zero.
+	 *
+	 * @param x0 Lower extent. Inclusive.
+	 * @param y0 Lower extent. Inclusive.
+	 * @param x1 Upper extent. Exclusive.
+	 * @param y1 Upper extent. Exclusive.
+	 * @param output (Output) Storage for the region. Reshaped.
+	 */
+	public void copyRegion( int x0 , int y0 , int x1 , int y1 , I output ) {
+		output.reshape(x1-x0,y1-y0);
+		GImageMiscOps.fill(output,0);
+
+		int clipX0 = Math.max(0,x0), clipY0 = Math.max(0,y0);
+		int clipX1 = Math.min(width,x1), clipY1 = Math.min(height,y1);
+		if( clipX0 >= clipX1 || clipY0 >= clipY1 )
+			return;
+
+		int col0 = clipX0/tileSize, col1 = (clipX1-1)/tileSize;
+		int row0 = clipY0/tileSize, row1 = (clipY1-1)/tileSize;
+
+		for (int row = row0; row <= row1; row++) {
+			for (int col = col0; col <= col1; col++) {
+				Tile<I> t = lookup(row,col);
+				if( t == null )
+					continue;
+				int tx0 = Math.max(clipX0,col*tileSize), tx1 = Math.min(clipX1,(col+1)*tileSize);
+				int ty0 = Math.max(clipY0,row*tileSize), ty1 = Math.min(clipY1,(row+1)*tileSize);
+				GImageMiscOps.copy(tx0-col*tileSize,ty0-row*tileSize,tx0-x0,ty0-y0,
+						tx1-tx0,ty1-ty0,t.image,output);
+				spillColdTiles();
+			}
+		}
+	}
+
+	/**
+	 * Passes every allocated tile to the consumer one at a time in row-major order. Tiles are loaded from
+	 * disk as needed so that the number in memory stays within the limit. The image passed to the
+	 * consumer is a sub-image which has been cropped to be inside the full image.
+	 */
+	public void forEachTile( TileConsumer<I> consumer ) {
+		List<Long> keys = new ArrayList<>(tiles.keySet());
+		Collections.sort(keys);
+
+		I sub = null;
+		for (int i = 0; i < keys.size(); i++) {
+			Tile<I> t = Objects.requireNonNull(tiles.get(keys.get(i)));
+			// make room for the tile before loading it
+			if( t.image == null && maxTilesInMemory > 0 )
+				spillColdTiles(maxTilesInMemory-1);
+			load(t);
+			int x0 = t.col*tileSize;
+			int y0 = t.row*tileSize;
+			int x1 = Math.min(width,x0+tileSize);
+			int y1 = Math.min(height,y0+tileSize);
+			sub = t.image.subimage(0,0,x1-x0,y1-y0,sub);
+			consumer.accept(t.row,t.col,x0,y0,sub);
+			spillColdTiles();
+		}
+	}
+
+	private I declareImage() {
+		if( unused.isEmpty() )
+			return imageType.createImage(tileSize,tileSize);
+		return unused.pop();
+	}
+
+	private void recycle( I image ) {
+		if( unused.size() < MAX_UNUSED )
+			unused.add(image);
+	}
+
+	private void save( Tile<I> tile ) {
+		try {
+			if( spillDirectory == null ) {
+				spillDirectory = File.createTempFile("boofcv_tiles","");
+				if( !spillDirectory.delete() || !spillDirectory.mkdir() )
+					throw new IOException("Failed to create directory "+spillDirectory.getPath());
+				spillDirectory.deleteOnExit();
+			}
+			File file = new File(spillDirectory,"tile_"+tile.row+"_"+tile.col);
+			file.deleteOnExit();
+			try( ObjectOutputStream out = new ObjectOutputStream(
+					new BufferedOutputStream(new FileOutputStream(file))) ) {
+				out.writeObject(tile.image);
+			}
+			recycle(tile.image);
+			tile.image = null;
+			tile.file = file;
+			tilesInMemory--;
+		} catch( IOException e ) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private void load( Tile<I> tile ) {
+		if( tile.image != null )
+			return;
+		try( ObjectInputStream in = new ObjectInputStream(
+				new BufferedInputStream(new FileInputStream(tile.file))) ) {
+			tile.image = (I)in.readObject();
+		} catch( IOException | ClassNotFoundException e ) {
+			throw new RuntimeException(e);
+		}
+		if( !tile.file.delete() )
+			tile.file.deleteOnExit();
+		tile.file = null;
+		tilesInMemory++;
+	}
+
+	private static long key( int row , int col ) {
+		return ((long)row << 32) | (col & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Number of tile rows needed to cover the image
+	 */
+	public int getRows() {
+		return (height+tileSize-1)/tileSize;
+	}
+
+	/**
+	 * Number of tile columns needed to cover the image
+	 */
+	public int getCols() {
+		return (width+tileSize-1)/tileSize;
+	}
+
+	public int getTileSize() {
+		return tileSize;
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	public ImageType<I> getImageType() {
+		return imageType;
+	}
+
+	/**
+	 * Total number of tiles which have been allocated
+	 */
+	public int getTotalTiles() {
+		return tiles.size();
+	}
+
+	public int getTilesInMemory() {
+		return tilesInMemory;
+	}
+
+	public int getMaxTilesInMemory() {
+		return maxTilesInMemory;
+	}
+
+	/**
+	 * Specifies the maximum number of tiles kept in memory. Tiles beyond this are saved to disk. The limit
+	 * can be exceeded temporarily while an image is being rendered.
+	 *
+	 * @param maxTilesInMemory Maximum number of tiles. &le; 0 for no limit.
+	 */
+	public void setMaxTilesInMemory( int maxTilesInMemory ) {
+		this.maxTilesInMemory = maxTilesInMemory;
+	}
+
+	/**
+	 * A single tile
+	 */
+	public static class Tile<I extends ImageBase<I>> {
+		public int row, col;
+		// Image for the tile. null if it has been saved to disk
+		public @Nullable I image;
+		// File the tile has been saved to. null if it is in memory
+		public @Nullable File file;
+	}
+
+	/**
+	 * Processes a single tile
+	 */
+	public interface TileConsumer<I extends ImageBase<I>> {
+		/**
+		 * @param row Tile row
+		 * @param col Tile column
+		 * @param x0 Location of the tile's top left corner in the full image
+		 * @param y0 Location of the tile's top left corner in the full image
+		 * @param image Image for the tile. Cropped to be inside the full image. Don't save a reference.
+		 */
+		void accept( int row , int col , int x0 , int y0 , I image );
+	}
+}
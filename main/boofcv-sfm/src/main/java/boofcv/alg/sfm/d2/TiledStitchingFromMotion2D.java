@@ -0,0 +1,335 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.sfm.d2;
+
+import boofcv.abst.sfm.d2.ImageMotion2D;
+import boofcv.alg.distort.ImageDistort;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.struct.distort.PixelTransform;
+import boofcv.struct.image.ImageBase;
+import georegression.struct.InvertibleTransform;
+import georegression.struct.point.Point2D_F32;
+import org.ddogleg.struct.Factory;
+import org.ddogleg.struct.FastQueue;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>
+ * Variant of {@link StitchingFromMotion2D} which stores the stitched image in {@link StitchingTiles tiles} instead
+ * of a single image. This is intended for creating large mosaics, e.g. from aerial survey video, where the stitched
+ * image would not fit in memory. Only tiles which the current frame overlaps are allocated and rendered, and tiles
+ * are rendered in parallel. Resizing without a transform doesn't copy any pixels. The least recently used tiles can
+ * be saved to disk, see {@link #setMaxTilesInMemory(int)}.
+ * </p>
+ *
+ * <p>
+ * The final mosaic should be retrieved one tile at a time using {@link #exportTiles}. {@link #getStitchedImage()}
+ * will work, but it creates a copy of the entire stitched image.
+ * </p>
+ *
+ * @author Peter Abeles
+ */
+public class TiledStitchingFromMotion2D<I extends ImageBase<I>, IT extends InvertibleTransform>
+		extends StitchingFromMotion2D<I,IT>
+{
+	// Creates a distorter for each thread
+	Factory<ImageDistort<I,I>> factoryDistort;
+
+	// Width and height of each tile
+	int tileSize;
+	// Maximum number of tiles in memory. <= 0 for no limit
+	int maxTilesInMemory = 0;
+
+	// storage for the stitched image
+	@Nullable StitchingTiles<I> tiles;
+	// storage for the transformed stitched image
+	@Nullable StitchingTiles<I> workTiles;
+
+	// Tiles which will be rendered into
+	List<StitchingTiles.Tile<I>> touched = new ArrayList<>();
+	// Distorter and transform for each thread
+	FastQueue<TileWorker> workers;
+
+	// Copy of the stitched image returned by getStitchedImage()
+	@Nullable I stitchedCopy;
+	// Region of the old stitched image which is needed when transforming a tile
+	@Nullable I region;
+	OffsetTransform regionTransform = new OffsetTransform();
+
+	private Point2D_F32 corner = new Point2D_F32();
+
+	/**
+	 * Provides internal algorithms and tuning parameters.
+	 *
+	 * @param motion Estimates image motion
+	 * @param factoryDistort Creates algorithms which apply found transformation to stitch images.
+	 *                       One is created for each thread.
+	 * @param converter Converts internal model into a homogenous transformation
+	 * @param maxJumpFraction If the view area changes by more than this fraction a fault is declared
+	 * @param tileSize Width and height of each tile
+	 */
+	public TiledStitchingFromMotion2D( ImageMotion2D<I, IT> motion,
+									   Factory<ImageDistort<I,I>> factoryDistort,
+									   StitchingTransform<IT> converter,
+									   double maxJumpFraction,
+									   int tileSize )
+	{
+		super(motion, factoryDistort.newInstance(), converter, maxJumpFraction);
+		if( tileSize <= 0 )
+			throw new IllegalArgumentException("tileSize must be > 0");
+		this.factoryDistort = factoryDistort;
+		this.tileSize = tileSize;
+		this.workers = new FastQueue<>((Class)TileWorker.class, TileWorker::new);
+	}
+
+	@Override
+	protected void declareStitchImage( I image ) {
+		if( tiles != null )
+			return;
+		tiles = new StitchingTiles<>(tileSize, image.getImageType());
+		workTiles = new StitchingTiles<>(tileSize, image.getImageType());
+		tiles.setMaxTilesInMemory(maxTilesInMemory);
+		workTiles.setMaxTilesInMemory(maxTilesInMemory);
+		tiles.reset(widthStitch,heightStitch);
+	}
+
+	@Override
+	protected void clearStitchImage() {
+		if( tiles != null )
+			tiles.reset(widthStitch,heightStitch);
+	}
+
+	@Override
+	protected void renderCurrent( I image, int x0, int y0, int x1, int y1 ) {
+		if( x0 >= x1 || y0 >= y1 )
+			return;
+
+		// Only render tiles which the image actually overlaps
+		touched.clear();
+		for (int row = y0/tileSize; row <= (y1-1)/tileSize; row++) {
+			for (int col = x0/tileSize; col <= (x1-1)/tileSize; col++) {
+				if( !overlapsCurrent(row,col,image.width,image.height) )
+					continue;
+				touched.add(tiles.grow(row,col));
+			}
+		}
+
+		if( BoofConcurrency.USE_CONCURRENT ) {
+			BoofConcurrency.loopBlocks(0,touched.size(),workers,(worker,idx0,idx1)->
+					worker.render(image,idx0,idx1,x0,y0,x1,y1));
+		} else {
+			workers.resize(1);
+			workers.get(0).render(image,0,touched.size(),x0,y0,x1,y1);
+		}
+
+		tiles.spillColdTiles();
+	}
+
+	/**
+	 * Checks to see if the tile might overlap the current image by seeing if the bounding box of the tile
+	 * in the current image intersects the current image.
+	 */
+	boolean overlapsCurrent( int row , int col , int width , int height ) {
+		int tx0 = col*tileSize, ty0 = row*tileSize;
+		float minX = Float.MAX_VALUE, maxX = -Float.MAX_VALUE;
+		float minY = Float.MAX_VALUE, maxY = -Float.MAX_VALUE;
+		for (int i = 0; i < 4; i++) {
+			int x = tx0 + ((i&1) == 0 ? 0 : tileSize);
+			int y = ty0 + ((i&2) == 0 ? 0 : tileSize);
+			tranWorldToCurr.compute(x,y,corner);
+			minX = Math.min(minX,corner.x); maxX = Math.max(maxX,corner.x);
+			minY = Math.min(minY,corner.y); maxY = Math.max(maxY,corner.y);
+		}
+		return maxX >= 0 && minX <= width && maxY >= 0 && minY <= height;
+	}
+
+	/**
+	 * Renders the old tiles into new tiles one tile at a time. Only the region in the old image which a
+	 * new tile maps to is copied, so memory is bounded.
+	 */
+	@Override
+	protected void transformStitchImage( PixelTransform<Point2D_F32> newToOld, int width, int height ) {
+		StitchingTiles<I> src = tiles;
+		StitchingTiles<I> dst = workTiles;
+		dst.reset(width,height);
+		if( region == null )
+			region = src.getImageType().createImage(1,1);
+
+		regionTransform.transform = newToOld;
+		distorter.setModel(regionTransform);
+
+		for (int row = 0; row < dst.getRows(); row++) {
+			for (int col = 0; col < dst.getCols(); col++) {
+				int tx0 = col*tileSize, ty0 = row*tileSize;
+
+				// Bounding box of the tile in the old image, with a margin for interpolation
+				float minX = Float.MAX_VALUE, maxX = -Float.MAX_VALUE;
+				float minY = Float.MAX_VALUE, maxY = -Float.MAX_VALUE;
+				for (int i = 0; i < 4; i++) {
+					newToOld.compute(tx0 + ((i&1) == 0 ? 0 : tileSize), ty0 + ((i&2) == 0 ? 0 : tileSize),corner);
+					minX = Math.min(minX,corner.x); maxX = Math.max(maxX,corner.x);
+					minY = Math.min(minY,corner.y); maxY = Math.max(maxY,corner.y);
+				}
+				int bx0 = Math.max(0,(int)Math.floor(minX)-2), bx1 = Math.min(src.getWidth(),(int)Math.ceil(maxX)+2);
+				int by0 = Math.max(0,(int)Math.floor(minY)-2), by1 = Math.min(src.getHeight(),(int)Math.ceil(maxY)+2);
+				if( bx0 >= bx1 || by0 >= by1 || !anyAllocated(src,bx0,by0,bx1,by1) )
+					continue;
+
+				src.copyRegion(bx0,by0,bx1,by1,region);
+
+				StitchingTiles.Tile<I> tile = dst.grow(row,col);
+				regionTransform.setOffset(tx0,ty0,bx0,by0);
+				distorter.apply(region,tile.image,0,0,
+						Math.min(tileSize,width-tx0),Math.min(tileSize,height-ty0));
+				dst.spillColdTiles();
+			}
+		}
+
+		// Swap and discard the old tiles
+		src.reset(0,0);
+		tiles = dst;
+		workTiles = src;
+	}
+
+	/**
+	 * Returns true if any tile which overlaps the region has been allocated
+	 */
+	private boolean anyAllocated( StitchingTiles<I> tiles , int x0 , int y0 , int x1 , int y1 ) {
+		for (int row = y0/tileSize; row <= (y1-1)/tileSize; row++) {
+			for (int col = x0/tileSize; col <= (x1-1)/tileSize; col++) {
+				if( tiles.isAllocated(row,col) )
+					return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	protected void cropStitchImage( int width, int height ) {
+		tiles.resize(width,height);
+	}
+
+	/**
+	 * Passes each tile in the stitched image to the consumer, in row-major order. Tiles which have never been
+	 * rendered into are skipped and should be treated as zero.
+	 */
+	public void exportTiles( StitchingTiles.TileConsumer<I> consumer ) {
+		if( tiles != null )
+			tiles.forEachTile(consumer);
+	}
+
+	/**
+	 * Returns a copy of the entire stitched image. For large mosaics use {@link #exportTiles} instead.
+	 */
+	@Override
+	public @Nullable I getStitchedImage() {
+		if( tiles == null )
+			return null;
+		if( stitchedCopy == null )
+			stitchedCopy = tiles.getImageType().createImage(1,1);
+		tiles.copyRegion(0,0,widthStitch,heightStitch,stitchedCopy);
+		return stitchedCopy;
+	}
+
+	public @Nullable StitchingTiles<I> getTiles() {
+		return tiles;
+	}
+
+	public int getTileSize() {
+		return tileSize;
+	}
+
+	public int getMaxTilesInMemory() {
+		return maxTilesInMemory;
+	}
+
+	/**
+	 * Specifies the maximum number of tiles which are kept in memory. The least recently used tiles beyond
+	 * this limit are saved to disk.
+	 *
+	 * @param maxTilesInMemory Maximum number of tiles. &le; 0 for no limit.
+	 */
+	public void setMaxTilesInMemory( int maxTilesInMemory ) {
+		this.maxTilesInMemory = maxTilesInMemory;
+		if( tiles != null ) {
+			tiles.setMaxTilesInMemory(maxTilesInMemory);
+			workTiles.setMaxTilesInMemory(maxTilesInMemory);
+		}
+	}
+
+	/**
+	 * Renders a set of tiles in a single thread
+	 */
+	class TileWorker {
+		ImageDistort<I,I> distorter = factoryDistort.newInstance();
+		OffsetTransform offset = new OffsetTransform();
+
+		void render( I image , int idx0 , int idx1 , int x0 , int y0 , int x1 , int y1 ) {
+			offset.transform = tranWorldToCurr.copyConcurrent();
+			distorter.setModel(offset);
+
+			for (int i = idx0; i < idx1; i++) {
+				StitchingTiles.Tile<I> tile = touched.get(i);
+				int tx0 = tile.col*tileSize, ty0 = tile.row*tileSize;
+
+				offset.setOffset(tx0,ty0,0,0);
+				distorter.apply(image,tile.image,
+						Math.max(x0,tx0)-tx0, Math.max(y0,ty0)-ty0,
+						Math.min(x1,tx0+tileSize)-tx0, Math.min(y1,ty0+tileSize)-ty0);
+			}
+		}
+	}
+
+	/**
+	 * Converts pixels in a tile into global coordinates, applies the transform, then converts into local
+	 * coordinates of the source image.
+	 */
+	static class OffsetTransform implements PixelTransform<Point2D_F32> {
+		PixelTransform<Point2D_F32> transform;
+		// location of the destination tile
+		int dstX0, dstY0;
+		// location of the source image
+		float srcX0, srcY0;
+
+		void setOffset( int dstX0 , int dstY0 , float srcX0 , float srcY0 ) {
+			this.dstX0 = dstX0;
+			this.dstY0 = dstY0;
+			this.srcX0 = srcX0;
+			this.srcY0 = srcY0;
+		}
+
+		@Override
+		public void compute( int x, int y, Point2D_F32 output ) {
+			transform.compute(x+dstX0,y+dstY0,output);
+			output.x -= srcX0;
+			output.y -= srcY0;
+		}
+
+		@Override
+		public PixelTransform<Point2D_F32> copyConcurrent() {
+			OffsetTransform c = new OffsetTransform();
+			c.transform = transform.copyConcurrent();
+			c.setOffset(dstX0,dstY0,srcX0,srcY0);
+			return c;
+		}
+	}
+}
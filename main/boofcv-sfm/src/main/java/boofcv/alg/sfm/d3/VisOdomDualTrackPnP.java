@@ -57,8 +57,8 @@ import java.util.List;
 public class VisOdomDualTrackPnP<T extends ImageBase<T>,Desc extends TupleDesc> {
 
 	// Left and right input images
-	private T inputLeft;
-	private T inputRight;
+	protected T inputLeft;
+	protected T inputRight;
 
 	// when the inlier set is less than this number new features are detected
 	private int thresholdAdd;
@@ -71,14 +71,14 @@ public class VisOdomDualTrackPnP<T extends ImageBase<T>,Desc extends TupleDesc>
 	private ModelFitter<Se3_F64, Stereo2D3D> modelRefiner;
 
 	// trackers for left and right cameras
-	private PointTracker<T> trackerLeft;
-	private PointTracker<T> trackerRight;
-	private DescribeRegionPoint<T,Desc> describe;
+	protected PointTracker<T> trackerLeft;
+	protected PointTracker<T> trackerRight;
+	protected DescribeRegionPoint<T,Desc> describe;
 
 	// Data structures used when associating left and right cameras
-	private FastQueue<Point2D_F64> pointsLeft = new FastQueue<>(Point2D_F64.class, false);
-	private FastQueue<Point2D_F64> pointsRight = new FastQueue<>(Point2D_F64.class, false);
-	private FastQueue<Desc> descLeft,descRight;
+	protected FastQueue<Point2D_F64> pointsLeft = new FastQueue<>(Point2D_F64.class, false);
+	protected FastQueue<Point2D_F64> pointsRight = new FastQueue<>(Point2D_F64.class, false);
+	protected FastQueue<Desc> descLeft,descRight;
 
 	// matches features between left and right images
 	private AssociateDescription2D<Desc> assocL2R;
@@ -110,6 +110,12 @@ public class VisOdomDualTrackPnP<T extends ImageBase<T>,Desc extends TupleDesc>
 	// is this the first frame
 	private boolean first = true;
 
+	// How long each stage took in the most recent call to process(), in milliseconds
+	private double timeTracking;
+	private double timeSpawn;
+	private double timeEstimate;
+	private double timeRefine;
+
 	/**
 	 * Specifies internal algorithms and parameters
 	 *
@@ -185,17 +191,24 @@ public class VisOdomDualTrackPnP<T extends ImageBase<T>,Desc extends TupleDesc>
 		this.inputRight = right;
 
 		tick++;
-		trackerLeft.process(left);
-		trackerRight.process(right);
+		timeSpawn = timeEstimate = timeRefine = 0;
+
+		long time0 = System.nanoTime();
+		processTrackers(left, right);
+		long time1 = System.nanoTime();
+		timeTracking = (time1-time0)*1e-6;
 
 		if( first ) {
 			addNewTracks();
 			first = false;
+			timeSpawn = (System.nanoTime()-time1)*1e-6;
 		} else {
 			mutualTrackDrop();
 			selectCandidateTracks();
 			boolean failed = !estimateMotion();
 			dropUnusedTracks();
+			long time2 = System.nanoTime();
+			timeEstimate = (time2-time1)*1e-6;
 
 			if( failed )
 				return false;
@@ -204,15 +217,26 @@ public class VisOdomDualTrackPnP<T extends ImageBase<T>,Desc extends TupleDesc>
 
 			if( modelRefiner != null )
 				refineMotionEstimate();
+			long time3 = System.nanoTime();
+			timeRefine = (time3-time2)*1e-6;
 
 			if( thresholdAdd <= 0 || N < thresholdAdd ) {
 				changePoseToReference();
 				addNewTracks();
+				timeSpawn = (System.nanoTime()-time3)*1e-6;
 			}
 		}
 		return true;
 	}
 
+	/**
+	 * Updates the left and right trackers with the latest images
+	 */
+	protected void processTrackers( T left , T right ) {
+		trackerLeft.process(left);
+		trackerRight.process(right);
+	}
+
 	/**
 	 * Non-linear refinement of motion estimate
 	 */
@@ -390,15 +414,10 @@ public class VisOdomDualTrackPnP<T extends ImageBase<T>,Desc extends TupleDesc>
 	 * Spawns tracks in each image and associates features together.
 	 */
 	private void addNewTracks() {
-		trackerLeft.spawnTracks();
-		trackerRight.spawnTracks();
+		List<PointTrack> newLeft = new ArrayList<>();
+		List<PointTrack> newRight = new ArrayList<>();
 
-		List<PointTrack> newLeft = trackerLeft.getNewTracks(null);
-		List<PointTrack> newRight = trackerRight.getNewTracks(null);
-
-		// get a list of new tracks and their descriptions
-		addNewToList(inputLeft, newLeft, pointsLeft, descLeft);
-		addNewToList(inputRight,newRight,pointsRight,descRight);
+		spawnAndDescribe(newLeft, newRight);
 
 		// associate using L2R
 		assocL2R.setSource(pointsLeft,descLeft);
@@ -479,9 +498,27 @@ public class VisOdomDualTrackPnP<T extends ImageBase<T>,Desc extends TupleDesc>
 //		}
 	}
 
-	private void addNewToList( T image,
-							   List<PointTrack> tracks ,
-							   FastQueue<Point2D_F64> points , FastQueue<Desc> descs )
+	/**
+	 * Spawns new tracks in the left and right images, then computes the location and description of each new track
+	 *
+	 * @param newLeft (Output) new tracks in the left image
+	 * @param newRight (Output) new tracks in the right image
+	 */
+	protected void spawnAndDescribe( List<PointTrack> newLeft , List<PointTrack> newRight ) {
+		trackerLeft.spawnTracks();
+		trackerRight.spawnTracks();
+
+		trackerLeft.getNewTracks(newLeft);
+		trackerRight.getNewTracks(newRight);
+
+		// get a list of new tracks and their descriptions
+		addNewToList(describe, inputLeft, newLeft, pointsLeft, descLeft);
+		addNewToList(describe, inputRight,newRight,pointsRight,descRight);
+	}
+
+	protected void addNewToList( DescribeRegionPoint<T,Desc> describe, T image,
+								 List<PointTrack> tracks ,
+								 FastQueue<Point2D_F64> points , FastQueue<Desc> descs )
 	{
 		describe.setImage(image);
 		points.reset(); descs.reset();
@@ -531,6 +568,35 @@ public class VisOdomDualTrackPnP<T extends ImageBase<T>,Desc extends TupleDesc>
 		return matcher;
 	}
 
+	/**
+	 * Time in milliseconds it took to update the left and right trackers
+	 */
+	public double getTimeTracking() {
+		return timeTracking;
+	}
+
+	/**
+	 * Time in milliseconds it took to spawn, describe, associate, and triangulate new tracks. Zero if no tracks
+	 * were spawned.
+	 */
+	public double getTimeSpawn() {
+		return timeSpawn;
+	}
+
+	/**
+	 * Time in milliseconds it took to select candidate tracks and robustly estimate the motion
+	 */
+	public double getTimeEstimate() {
+		return timeEstimate;
+	}
+
+	/**
+	 * Time in milliseconds it took to refine the motion estimate
+	 */
+	public double getTimeRefine() {
+		return timeRefine;
+	}
+
 	public static class LeftTrackInfo
 	{
 		public Stereo2D3D location = new Stereo2D3D();
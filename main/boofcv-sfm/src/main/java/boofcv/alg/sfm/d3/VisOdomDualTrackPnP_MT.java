@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boofcv.alg.sfm.d3;
+
+import boofcv.abst.feature.associate.AssociateDescription2D;
+import boofcv.abst.feature.describe.DescribeRegionPoint;
+import boofcv.abst.feature.tracker.PointTrack;
+import boofcv.abst.feature.tracker.PointTracker;
+import boofcv.abst.geo.Triangulate2ViewsMetric;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.struct.feature.TupleDesc;
+import boofcv.struct.image.ImageBase;
+import boofcv.struct.sfm.Stereo2D3D;
+import georegression.struct.se.Se3_F64;
+import org.ddogleg.fitting.modelset.ModelFitter;
+import org.ddogleg.fitting.modelset.ModelMatcher;
+
+import javax.annotation.Nullable;
+import java.util.List;
+
+/**
+ * Concurrent implementation of {@link VisOdomDualTrackPnP}. The left and right trackers are updated at the same
+ * time and new tracks are spawned in both images at the same time. If a second descriptor is provided then the
+ * new tracks in each image are also described at the same time, otherwise they are described one image at a time.
+ * To score motion hypotheses in parallel pass in a concurrent matcher, e.g. {@link boofcv.alg.geo.robust.Ransac_MT}.
+ *
+ * @author Peter Abeles
+ */
+public class VisOdomDualTrackPnP_MT<T extends ImageBase<T>,Desc extends TupleDesc>
+		extends VisOdomDualTrackPnP<T,Desc>
+{
+	// Describes features in the right image. If null then describe is used for both images
+	protected @Nullable DescribeRegionPoint<T,Desc> describeRight;
+
+	/**
+	 * Specifies internal algorithms and parameters
+	 *
+	 * @param describeRight Optional. Describes features in the right image so that it can be done in parallel
+	 *                      with the left image. Must be a different instance from describe.
+	 * @see VisOdomDualTrackPnP#VisOdomDualTrackPnP
+	 */
+	public VisOdomDualTrackPnP_MT(int thresholdAdd, int thresholdRetire, double epilolarTol,
+								  PointTracker<T> trackerLeft, PointTracker<T> trackerRight,
+								  DescribeRegionPoint<T,Desc> describe,
+								  @Nullable DescribeRegionPoint<T,Desc> describeRight,
+								  AssociateDescription2D<Desc> assocL2R,
+								  Triangulate2ViewsMetric triangulate,
+								  ModelMatcher<Se3_F64, Stereo2D3D> matcher,
+								  ModelFitter<Se3_F64, Stereo2D3D> modelRefiner)
+	{
+		super(thresholdAdd, thresholdRetire, epilolarTol, trackerLeft, trackerRight,
+				describe, assocL2R, triangulate, matcher, modelRefiner);
+		if( describeRight == describe )
+			throw new IllegalArgumentException("describeRight must be a different instance from describe");
+		this.describeRight = describeRight;
+	}
+
+	@Override
+	protected void processTrackers(T left, T right) {
+		BoofConcurrency.loopFor(0,2,i->{
+			if( i == 0 )
+				trackerLeft.process(left);
+			else
+				trackerRight.process(right);
+		});
+	}
+
+	@Override
+	protected void spawnAndDescribe(List<PointTrack> newLeft, List<PointTrack> newRight) {
+		BoofConcurrency.loopFor(0,2,i->{
+			if( i == 0 ) {
+				trackerLeft.spawnTracks();
+				trackerLeft.getNewTracks(newLeft);
+				addNewToList(describe, inputLeft, newLeft, pointsLeft, descLeft);
+			} else {
+				trackerRight.spawnTracks();
+				trackerRight.getNewTracks(newRight);
+				if( describeRight != null )
+					addNewToList(describeRight, inputRight, newRight, pointsRight, descRight);
+			}
+		});
+
+		if( describeRight == null )
+			addNewToList(describe, inputRight, newRight, pointsRight, descRight);
+	}
+}
@@ -38,7 +38,7 @@ import boofcv.struct.geo.TrifocalTensor;
 import georegression.struct.point.Point3D_F64;
 import georegression.struct.point.Vector3D_F64;
 import georegression.struct.se.Se3_F64;
-import org.ddogleg.fitting.modelset.ransac.Ransac;
+import org.ddogleg.fitting.modelset.ModelMatcher;
 import org.ddogleg.optimization.lm.ConfigLevenbergMarquardt;
 import org.ejml.data.DMatrixRMaj;
 import org.ejml.dense.row.CommonOps_DDRM;
@@ -89,7 +89,7 @@ public class ThreeViewEstimateMetricScene {
 	public ConfigConverge convergeSBA = new ConfigConverge(1e-6,1e-6,100);
 
 	// estimating the trifocal tensor and storing which observations are in the inlier set
-	public Ransac<TrifocalTensor,AssociatedTriple> ransac;
+	public ModelMatcher<TrifocalTensor,AssociatedTriple> ransac;
 	public List<AssociatedTriple> inliers;
 	public Estimate1ofTrifocalTensor trifocalEstimator;
 
@@ -49,12 +49,15 @@ import java.util.Map;
  */
 public class GeneratePairwiseImageGraph {
 	public PairwiseImageGraph2 graph = new PairwiseImageGraph2();
-	private List<String> imageIds;
+	protected List<String> imageIds;
 
 	// concensus matching algorithms
 	ModelMatcher<DMatrixRMaj, AssociatedPair> ransac3D;
 	ModelMatcher<Homography2D_F64,AssociatedPair> ransacH;
 
+	// storage for the results from a single pair of images
+	PairResults results = new PairResults();
+
 	/**
 	 * The minimum number of inliers for an edge to be accepted
 	 */
@@ -68,21 +71,47 @@ public class GeneratePairwiseImageGraph {
 	 * Configures and declares concensum matching algorithms
 	 */
 	public GeneratePairwiseImageGraph() {
+		this(false);
+	}
+
+	/**
+	 * Configures and declares concensum matching algorithms
+	 *
+	 * @param concurrentRansac If true then the concurrent implementation of RANSAC is used. Its results don't
+	 *                         depend on which pairs it has previously been called with.
+	 */
+	public GeneratePairwiseImageGraph( boolean concurrentRansac ) {
+		ransac3D = createRansac3D(concurrentRansac);
+		ransacH = createRansacH(concurrentRansac);
+	}
+
+	/**
+	 * Creates the robust estimator for the fundamental matrix
+	 */
+	protected static ModelMatcher<DMatrixRMaj, AssociatedPair> createRansac3D( boolean concurrent ) {
 		ConfigRansac configRansacF = new ConfigRansac();
 		configRansacF.maxIterations = 500;
 		configRansacF.inlierThreshold = 1;
+		configRansacF.concurrent = concurrent;
 
+		ConfigFundamental configF = new ConfigFundamental();
+		configF.errorModel = ConfigFundamental.ErrorModel.GEOMETRIC;
+		configF.numResolve = 1;
+
+		return FactoryMultiViewRobust.fundamentalRansac(configF,configRansacF);
+	}
+
+	/**
+	 * Creates the robust estimator for the homography
+	 */
+	protected static ModelMatcher<Homography2D_F64,AssociatedPair> createRansacH( boolean concurrent ) {
 		// F computes epipolar error, which isn't as strict as reprojection error for H, so give H a larger error tol
 		ConfigRansac configRansacH = new ConfigRansac();
 		configRansacH.maxIterations = 500;
 		configRansacH.inlierThreshold = 2.0;
+		configRansacH.concurrent = concurrent;
 
-		ConfigFundamental configF = new ConfigFundamental();
-		configF.errorModel = ConfigFundamental.ErrorModel.GEOMETRIC;
-		configF.numResolve = 1;
-
-		ransac3D = FactoryMultiViewRobust.fundamentalRansac(configF,configRansacF);
-		ransacH = FactoryMultiViewRobust.homographyRansac(null,configRansacH);
+		return FactoryMultiViewRobust.homographyRansac(null,configRansacH);
 	}
 
 	/**
@@ -138,11 +167,25 @@ public class GeneratePairwiseImageGraph {
 					pairs.grow().set(srcFeats.get(m.src),dstFeats.get(m.dst));
 				}
 
-				createEdge(src,dst,pairs,matches);
+				considerPair(src,dst,pairs,matches);
 			}
 		}
 	}
 
+	/**
+	 * Called for every pair of similar images. By default an edge is created immediately if there is a
+	 * geometric relationship.
+	 *
+	 * @param src ID of src image
+	 * @param dst ID of dst image
+	 * @param pairs Associated features pixels
+	 * @param matches Associated features feature indexes
+	 */
+	protected void considerPair( String src , String dst ,
+								 FastQueue<AssociatedPair> pairs , FastQueue<AssociatedIndex> matches ) {
+		createEdge(src,dst,pairs,matches);
+	}
+
 	/**
 	 * Connects two views together if they meet a minimal set of geometric requirements. Determines if there
 	 * is strong evidence that there is 3D information present and not just a homography
@@ -154,6 +197,25 @@ public class GeneratePairwiseImageGraph {
 	 */
 	protected void createEdge( String src , String dst ,
 							   FastQueue<AssociatedPair> pairs , FastQueue<AssociatedIndex> matches ) {
+		if( evaluatePair(ransac3D,ransacH,pairs,matches,results) )
+			addEdge(src,dst,results);
+	}
+
+	/**
+	 * Fits a fundamental matrix and a homography to the associated features and decides if there is
+	 * a geometric relationship and if it has 3D structure. The graph is not modified.
+	 *
+	 * @param ransac3D Robust estimator for the fundamental matrix
+	 * @param ransacH Robust estimator for the homography
+	 * @param pairs Associated features pixels
+	 * @param matches Associated features feature indexes
+	 * @param results (Output) Inlier counts, selected model, and its inliers
+	 * @return true if an edge should be created
+	 */
+	protected boolean evaluatePair( ModelMatcher<DMatrixRMaj, AssociatedPair> ransac3D,
+									ModelMatcher<Homography2D_F64,AssociatedPair> ransacH,
+									FastQueue<AssociatedPair> pairs , FastQueue<AssociatedIndex> matches ,
+									PairResults results ) {
 		// Fitting Essential/Fundamental works when the scene is not planar and not pure rotation
 		int countF = 0;
 		if( ransac3D.process(pairs.toList()) ) {
@@ -168,46 +230,60 @@ public class GeneratePairwiseImageGraph {
 
 		// fail if not enough features are remaining after RANSAC
 		if( Math.max(countF,countH) < minimumInliers )
-			return;
+			return false;
 
 		// The idea here is that if the number features for F is greater than H then it's a 3D scene.
 		// If they are similar then it might be a plane
-		boolean is3D = countF > countH*ratio3D;
+		results.is3D = countF > countH*ratio3D;
+		results.countF = countF;
+		results.countH = countH;
 
+		if( results.is3D ) {
+			saveInlierMatches(ransac3D, matches,results.inliers);
+			results.F.set(ransac3D.getModelParameters());
+		} else {
+			saveInlierMatches(ransacH, matches,results.inliers);
+			Homography2D_F64 H = ransacH.getModelParameters();
+			ConvertDMatrixStruct.convert(H,results.F);
+		}
+		return true;
+	}
+
+	/**
+	 * Adds an edge to the graph between the two views
+	 */
+	protected void addEdge( String src , String dst , PairResults results ) {
 		PairwiseImageGraph2.Motion edge = graph.edges.grow();
-		edge.is3D = is3D;
-		edge.countF = countF;
-		edge.countH = countH;
+		edge.is3D = results.is3D;
+		edge.countF = results.countF;
+		edge.countH = results.countH;
 		edge.index = graph.edges.size-1;
 		edge.src = graph.lookupNode(src);
 		edge.dst = graph.lookupNode(dst);
 		edge.src.connections.add(edge);
 		edge.dst.connections.add(edge);
+		edge.F.set(results.F);
 
-		if( is3D ) {
-			saveInlierMatches(ransac3D, matches,edge);
-			edge.F.set(ransac3D.getModelParameters());
-		} else {
-			saveInlierMatches(ransacH, matches,edge);
-			Homography2D_F64 H = ransacH.getModelParameters();
-			ConvertDMatrixStruct.convert(H,edge.F);
+		edge.inliers.reset();
+		for (int i = 0; i < results.inliers.size; i++) {
+			edge.inliers.grow().set(results.inliers.get(i));
 		}
 	}
 
 	/**
-	 * Puts the inliers from RANSAC into the edge's list of associated features
+	 * Puts the inliers from RANSAC into the list of associated features
 	 * @param ransac RANSAC
 	 * @param matches List of matches from feature association
-	 * @param edge The edge that the inliers are to be saved to
+	 * @param inliers The list that the inliers are to be saved to
 	 */
-	private void saveInlierMatches(ModelMatcher<?, ?> ransac,
-								   FastQueue<AssociatedIndex> matches, PairwiseImageGraph2.Motion edge) {
+	private static void saveInlierMatches(ModelMatcher<?, ?> ransac,
+										  FastQueue<AssociatedIndex> matches, FastQueue<AssociatedIndex> inliers) {
 
 		int N = ransac.getMatchSet().size();
-		edge.inliers.reset();
+		inliers.reset();
 		for (int i = 0; i < N; i++) {
 			int idx = ransac.getInputIndex(i);
-			edge.inliers.grow().set(matches.get(idx));
+			inliers.grow().set(matches.get(idx));
 		}
 	}
 
@@ -230,4 +306,18 @@ public class GeneratePairwiseImageGraph {
 	public void setRatio3D(double ratio3D) {
 		this.ratio3D = ratio3D;
 	}
+
+	/**
+	 * Results from evaluating a single pair of images
+	 */
+	public static class PairResults {
+		// number of inliers for the fundamental matrix and homography
+		public int countF, countH;
+		// true if the relationship has 3D structure
+		public boolean is3D;
+		// fundamental matrix or homography, depending on is3D
+		public DMatrixRMaj F = new DMatrixRMaj(3,3);
+		// associated features which are inliers of the selected model
+		public FastQueue<AssociatedIndex> inliers = new FastQueue<>(AssociatedIndex.class,true);
+	}
 }
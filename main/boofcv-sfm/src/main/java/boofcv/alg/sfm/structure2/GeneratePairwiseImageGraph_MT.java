@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.sfm.structure2;
+
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.struct.feature.AssociatedIndex;
+import boofcv.struct.geo.AssociatedPair;
+import georegression.struct.homography.Homography2D_F64;
+import org.ddogleg.fitting.modelset.ModelMatcher;
+import org.ddogleg.struct.FastQueue;
+import org.ejml.data.DMatrixRMaj;
+
+import javax.annotation.Nullable;
+import java.io.PrintStream;
+
+/**
+ * Concurrent implementation of {@link GeneratePairwiseImageGraph}. Pairs of similar images are collected into
+ * batches. The pairs in a batch are evaluated in parallel, with each thread having its own robust estimators,
+ * and then edges are added to the graph in the same order the pairs were encountered. The concurrent
+ * implementation of RANSAC is used since its results are independent of the order it's called in, so the graph
+ * will be identical to the one produced by a single thread with {@code concurrentRansac} set to true.
+ *
+ * @author Peter Abeles
+ */
+public class GeneratePairwiseImageGraph_MT extends GeneratePairwiseImageGraph {
+
+	// Number of pairs which are collected before they are evaluated
+	int batchSize = 200;
+
+	// Pairs of images which are waiting to be evaluated
+	FastQueue<PairJob> jobs = new FastQueue<>(PairJob.class,true);
+	// Robust estimators and other storage for each thread
+	FastQueue<Worker> workers = new FastQueue<>(Worker.class,Worker::new);
+
+	// Used to print out progress
+	@Nullable PrintStream verbose;
+	int verboseLevel;
+
+	// total number of pairs evaluated and edges created in the most recent call to process
+	int totalPairs;
+	int totalEdges;
+	// How long it took to process all the pairs in milliseconds
+	double timeMS;
+	long time0;
+
+	public GeneratePairwiseImageGraph_MT() {
+		super(true);
+	}
+
+	@Override
+	public void process( LookupSimilarImages db ) {
+		jobs.reset();
+		totalPairs = 0;
+		totalEdges = 0;
+		time0 = System.nanoTime();
+
+		super.process(db);
+
+		// evaluate the pairs in the last batch
+		evaluateJobs();
+		timeMS = (System.nanoTime()-time0)*1e-6;
+
+		if( verbose != null )
+			verbose.printf("pairwise: pairs=%d edges=%d time=%.1f (ms) pairs/sec=%.1f\n",
+					totalPairs,totalEdges,timeMS,getPairsPerSecond());
+	}
+
+	@Override
+	protected void considerPair( String src, String dst,
+								 FastQueue<AssociatedPair> pairs, FastQueue<AssociatedIndex> matches ) {
+		if( !BoofConcurrency.USE_CONCURRENT ) {
+			totalPairs++;
+			int before = graph.edges.size;
+			super.considerPair(src,dst,pairs,matches);
+			totalEdges += graph.edges.size-before;
+			return;
+		}
+
+		// Save a copy of the pair since the input will be modified after this function returns
+		PairJob job = jobs.grow();
+		job.src = src;
+		job.dst = dst;
+		job.pairs.reset();
+		for (int i = 0; i < pairs.size; i++) {
+			job.pairs.grow().set(pairs.get(i));
+		}
+		job.matches.reset();
+		for (int i = 0; i < matches.size; i++) {
+			job.matches.grow().set(matches.get(i));
+		}
+
+		if( jobs.size >= batchSize )
+			evaluateJobs();
+	}
+
+	/**
+	 * Evaluates all the pairs in the current batch in parallel then adds the edges to the graph in order
+	 */
+	void evaluateJobs() {
+		if( jobs.size == 0 )
+			return;
+
+		BoofConcurrency.loopBlocks(0,jobs.size,workers,(worker,idx0,idx1)->{
+			for (int i = idx0; i < idx1; i++) {
+				PairJob job = jobs.get(i);
+				job.accepted = evaluatePair(worker.ransac3D,worker.ransacH,job.pairs,job.matches,job.results);
+			}
+		});
+
+		// Add the edges in a single thread so that the graph is deterministic
+		for (int i = 0; i < jobs.size; i++) {
+			PairJob job = jobs.get(i);
+			if( !job.accepted )
+				continue;
+			addEdge(job.src,job.dst,job.results);
+			totalEdges++;
+		}
+		totalPairs += jobs.size;
+
+		if( verbose != null && verboseLevel > 0 ) {
+			double elapsed = (System.nanoTime()-time0)*1e-9;
+			verbose.printf("pairwise: batch=%d pairs=%d edges=%d pairs/sec=%.1f\n",
+					jobs.size,totalPairs,totalEdges,totalPairs/elapsed);
+		}
+
+		jobs.reset();
+	}
+
+	/**
+	 * Number of pairs evaluated per second in the most recent call to process
+	 */
+	public double getPairsPerSecond() {
+		return timeMS > 0 ? 1000.0*totalPairs/timeMS : 0;
+	}
+
+	/**
+	 * Adjusts the level of verbosity for printing progress
+	 *
+	 * @param verbose Where to print. null to disable.
+	 * @param level 0 = summary only. &gt; 0 = after every batch too
+	 */
+	public void setVerbose( @Nullable PrintStream verbose , int level ) {
+		this.verbose = verbose;
+		this.verboseLevel = level;
+	}
+
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * Specifies how many pairs are collected before being evaluated in parallel. Larger batches
+	 * improve thread utilization but consume more memory.
+	 */
+	public void setBatchSize( int batchSize ) {
+		if( batchSize <= 0 )
+			throw new IllegalArgumentException("batchSize must be > 0");
+		this.batchSize = batchSize;
+	}
+
+	public int getTotalPairs() {
+		return totalPairs;
+	}
+
+	public int getTotalEdges() {
+		return totalEdges;
+	}
+
+	public double getTimeMS() {
+		return timeMS;
+	}
+
+	/**
+	 * A pair of images which is waiting to be evaluated and the results
+	 */
+	public static class PairJob {
+		public String src, dst;
+		public FastQueue<AssociatedPair> pairs = new FastQueue<>(AssociatedPair.class,true);
+		public FastQueue<AssociatedIndex> matches = new FastQueue<>(AssociatedIndex.class,true);
+		public PairResults results = new PairResults();
+		public boolean accepted;
+	}
+
+	/**
+	 * Storage for a single thread
+	 */
+	public static class Worker {
+		public ModelMatcher<DMatrixRMaj, AssociatedPair> ransac3D = createRansac3D(true);
+		public ModelMatcher<Homography2D_F64,AssociatedPair> ransacH = createRansacH(true);
+	}
+}
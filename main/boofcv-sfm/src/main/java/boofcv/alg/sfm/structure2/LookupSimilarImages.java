@@ -35,6 +35,8 @@ public interface LookupSimilarImages {
 	List<String> getImageIDs();
 
 	/**
+	 * Finds images which are similar to the target. The relationship must be symmetric, i.e. if B is similar to A
+	 * then A must be similar to B.
 	 *
 	 * @param target ID of target image
 	 * @param similar Storage for IDs of similar images. Cleared upon each call
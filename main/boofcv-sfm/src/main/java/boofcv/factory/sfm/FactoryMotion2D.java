@@ -135,14 +135,48 @@ public class FactoryMotion2D {
 	public static <I extends ImageBase<I>, IT extends InvertibleTransform>
 	StitchingFromMotion2D<I, IT>
 	createVideoStitch( double maxJumpFraction , ImageMotion2D<I,IT> motion2D , ImageType<I> imageType ) {
-		StitchingTransform<IT> transform;
+		StitchingTransform<IT> transform = createStitchingTransform(motion2D);
+		ImageDistort<I,I> distorter = createStitchingDistort(imageType);
 
+		return new StitchingFromMotion2D<>(motion2D, distorter, transform, maxJumpFraction);
+	}
+
+	/**
+	 * Estimates the image motion then combines images together into a mosaic which is stored in tiles. Intended
+	 * for mosaics which are too large to be stored in a single image.
+	 *
+	 * @see TiledStitchingFromMotion2D
+	 *
+	 * @param maxJumpFraction If the area changes by this much between two consecuative frames then the transform
+	 *                        is reset.
+	 * @param motion2D Estimates the image motion.
+	 * @param imageType Type of image processed
+	 * @param tileSize Width and height of each tile. Try 256
+	 * @param <I> Image input type.
+	 * @param <IT> Model model
+	 * @return TiledStitchingFromMotion2D
+	 */
+	public static <I extends ImageBase<I>, IT extends InvertibleTransform>
+	TiledStitchingFromMotion2D<I, IT>
+	createVideoStitchTiled( double maxJumpFraction , ImageMotion2D<I,IT> motion2D , ImageType<I> imageType ,
+							int tileSize ) {
+		StitchingTransform<IT> transform = createStitchingTransform(motion2D);
+
+		return new TiledStitchingFromMotion2D<>(motion2D, ()->createStitchingDistort(imageType),
+				transform, maxJumpFraction, tileSize);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <IT extends InvertibleTransform> StitchingTransform<IT>
+	createStitchingTransform( ImageMotion2D<?,IT> motion2D ) {
 		if( motion2D.getTransformType() == Affine2D_F64.class ) {
-			transform = (StitchingTransform)FactoryStitchingTransform.createAffine_F64();
+			return (StitchingTransform)FactoryStitchingTransform.createAffine_F64();
 		} else {
-			transform = (StitchingTransform)FactoryStitchingTransform.createHomography_F64();
+			return (StitchingTransform)FactoryStitchingTransform.createHomography_F64();
 		}
+	}
 
+	private static <I extends ImageBase<I>> ImageDistort<I,I> createStitchingDistort( ImageType<I> imageType ) {
 		InterpolatePixel<I> interp;
 
 		if( imageType.getFamily() == ImageType.Family.GRAY || imageType.getFamily() == ImageType.Family.PLANAR ) {
@@ -154,7 +188,6 @@ public class FactoryMotion2D {
 
 		ImageDistort<I,I> distorter = FactoryDistort.distort(false, interp, imageType);
 		distorter.setRenderAll(false);
-
-		return new StitchingFromMotion2D<>(motion2D, distorter, transform, maxJumpFraction);
+		return distorter;
 	}
 }
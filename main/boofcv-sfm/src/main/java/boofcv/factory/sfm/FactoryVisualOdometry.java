@@ -39,18 +39,21 @@ import boofcv.alg.feature.associate.AssociateMaxDistanceNaive;
 import boofcv.alg.feature.associate.AssociateStereo2D;
 import boofcv.alg.geo.DistanceFromModelMultiView;
 import boofcv.alg.geo.pose.*;
+import boofcv.alg.geo.robust.Ransac_MT;
 import boofcv.alg.sfm.DepthSparse3D;
 import boofcv.alg.sfm.StereoSparse3D;
 import boofcv.alg.sfm.d3.*;
 import boofcv.alg.sfm.d3.direct.PyramidDirectColorDepth;
 import boofcv.alg.sfm.robust.DistancePlane2DToPixelSq;
 import boofcv.alg.sfm.robust.GenerateSe2_PlanePtPixel;
+import boofcv.concurrency.BoofConcurrency;
 import boofcv.factory.feature.associate.FactoryAssociation;
 import boofcv.factory.geo.ConfigTriangulation;
 import boofcv.factory.geo.EnumPNP;
 import boofcv.factory.geo.EstimatorToGenerator;
 import boofcv.factory.geo.FactoryMultiView;
 import boofcv.factory.transform.pyramid.FactoryPyramid;
+import boofcv.struct.calib.StereoParameters;
 import boofcv.struct.feature.TupleDesc;
 import boofcv.struct.geo.Point2D3D;
 import boofcv.struct.image.ImageBase;
@@ -64,9 +67,13 @@ import georegression.fitting.se.ModelManagerSe2_F64;
 import georegression.fitting.se.ModelManagerSe3_F64;
 import georegression.struct.se.Se2_F64;
 import georegression.struct.se.Se3_F64;
+import org.ddogleg.fitting.modelset.DistanceFromModel;
+import org.ddogleg.fitting.modelset.ModelGenerator;
 import org.ddogleg.fitting.modelset.ModelMatcher;
 import org.ddogleg.fitting.modelset.ransac.Ransac;
 
+import javax.annotation.Nullable;
+
 /**
  * Factory for creating visual odometry algorithms.
  *
@@ -299,6 +306,42 @@ public class FactoryVisualOdometry {
 												 PointTracker<T> trackerLeft, PointTracker<T> trackerRight,
 												 DescribeRegionPoint<T,Desc> descriptor,
 												 Class<T> imageType)
+	{
+		return stereoDualTrackerPnP(thresholdAdd, thresholdRetire, inlierPixelTol, epipolarPixelTol,
+				ransacIterations, refineIterations, trackerLeft, trackerRight, descriptor, null, imageType);
+	}
+
+	/**
+	 * Creates a stereo visual odometry algorithm that independently tracks features in left and right camera.
+	 * If {@link BoofConcurrency#USE_CONCURRENT} is true then {@link VisOdomDualTrackPnP_MT} is used, the two
+	 * trackers are updated in parallel, and motion hypotheses are scored in parallel by {@link Ransac_MT}.
+	 *
+	 * @see VisOdomDualTrackPnP
+	 *
+	 * @param thresholdAdd When the number of inliers is below this number new features are detected
+	 * @param thresholdRetire When a feature has not been in the inlier list for this many ticks it is dropped
+	 * @param inlierPixelTol Tolerance in pixels for defining an inlier during robust model matching.  Typically 1.5
+	 * @param epipolarPixelTol Tolerance in pixels for enforcing the epipolar constraint
+	 * @param ransacIterations Number of iterations performed by RANSAC.  Try 300 or more.
+	 * @param refineIterations Number of iterations done during non-linear optimization.  Try 50 or more.
+	 * @param trackerLeft Tracker used for left camera
+	 * @param trackerRight Tracker used for right camera
+	 * @param descriptor Describes new tracks in the left image and the right image too if descriptorRight is null
+	 * @param descriptorRight Optional. Describes new tracks in the right image, allowing both images to be
+	 *                        described in parallel. Must be a different instance from descriptor.
+	 * @param imageType Type of image being processed
+	 * @return Stereo visual odometry algorithm.
+	 */
+	public static <T extends ImageGray<T>, Desc extends TupleDesc>
+	StereoVisualOdometry<T> stereoDualTrackerPnP(int thresholdAdd, int thresholdRetire,
+												 double inlierPixelTol,
+												 double epipolarPixelTol,
+												 int ransacIterations,
+												 int refineIterations,
+												 PointTracker<T> trackerLeft, PointTracker<T> trackerRight,
+												 DescribeRegionPoint<T,Desc> descriptor,
+												 @Nullable DescribeRegionPoint<T,Desc> descriptorRight,
+												 Class<T> imageType)
 	{
 		EstimateNofPnP pnp = FactoryMultiView.pnp_N(EnumPNP.P3P_FINSTERWALDER, -1);
 		DistanceFromModelMultiView<Se3_F64,Point2D3D> distanceMono = new PnPDistanceReprojectionSq();
@@ -311,8 +354,18 @@ public class FactoryVisualOdometry {
 		// Pixel tolerance for RANSAC inliers - euclidean error squared from left + right images
 		double ransacTOL = 2*inlierPixelTol * inlierPixelTol;
 
-		ModelMatcher<Se3_F64, Stereo2D3D> motion =
-				new Ransac<>(2323, manager, generator, distanceStereo, ransacIterations, ransacTOL);
+		// Calibration used by the generator and distance function owned by each thread
+		StereoParameters threadCalibration = new StereoParameters();
+		Ransac_MT<Se3_F64,Stereo2D3D> ransacThreads = null;
+
+		ModelMatcher<Se3_F64, Stereo2D3D> motion;
+		if( BoofConcurrency.USE_CONCURRENT ) {
+			motion = ransacThreads = new Ransac_MT<>(2323, manager,
+					()->createStereoGenerator(threadCalibration), ()->createStereoDistance(threadCalibration),
+					ransacIterations, ransacTOL);
+		} else {
+			motion = new Ransac<>(2323, manager, generator, distanceStereo, ransacIterations, ransacTOL);
+		}
 
 		RefinePnPStereo refinePnP = null;
 
@@ -333,10 +386,44 @@ public class FactoryVisualOdometry {
 		Triangulate2ViewsMetric triangulate = FactoryMultiView.triangulate2ViewMetric(
 				new ConfigTriangulation(ConfigTriangulation.Type.GEOMETRIC));
 
-		VisOdomDualTrackPnP<T,Desc> alg = new VisOdomDualTrackPnP<>(thresholdAdd, thresholdRetire, epipolarPixelTol,
-				trackerLeft, trackerRight, descriptor, associateUnique, triangulate, motion, refinePnP);
+		VisOdomDualTrackPnP<T,Desc> alg;
+		if( BoofConcurrency.USE_CONCURRENT ) {
+			alg = new VisOdomDualTrackPnP_MT<>(thresholdAdd, thresholdRetire, epipolarPixelTol,
+					trackerLeft, trackerRight, descriptor, descriptorRight, associateUnique, triangulate, motion, refinePnP);
+		} else {
+			alg = new VisOdomDualTrackPnP<>(thresholdAdd, thresholdRetire, epipolarPixelTol,
+					trackerLeft, trackerRight, descriptor, associateUnique, triangulate, motion, refinePnP);
+		}
+
+		WrapVisOdomDualTrackPnP<T> wrap = new WrapVisOdomDualTrackPnP<>(
+				pnpStereo, distanceMono, distanceStereo, associateStereo, alg, refinePnP, imageType);
+		if( ransacThreads != null )
+			wrap.setThreadCopies(ransacThreads, threadCalibration);
+		return wrap;
+	}
 
-		return new WrapVisOdomDualTrackPnP<>(pnpStereo, distanceMono, distanceStereo, associateStereo, alg, refinePnP, imageType);
+	/**
+	 * Creates the PnP stereo generator used by a single thread. Calibration is ignored until it has been specified.
+	 */
+	private static ModelGenerator<Se3_F64,Stereo2D3D> createStereoGenerator( StereoParameters calibration ) {
+		PnPDistanceReprojectionSq distanceMono = new PnPDistanceReprojectionSq();
+		PnPStereoEstimator pnpStereo = new PnPStereoEstimator(
+				FactoryMultiView.pnp_N(EnumPNP.P3P_FINSTERWALDER, -1),distanceMono,0);
+		if( calibration.left != null ) {
+			pnpStereo.setLeftToRight(calibration.rightToLeft.invert(null));
+			distanceMono.setIntrinsic(0,calibration.left);
+		}
+		return new EstimatorToGenerator<>(pnpStereo);
+	}
+
+	/**
+	 * Creates the stereo distance function used by a single thread. Calibration is ignored until it has been specified.
+	 */
+	private static DistanceFromModel<Se3_F64,Stereo2D3D> createStereoDistance( StereoParameters calibration ) {
+		PnPStereoDistanceReprojectionSq distance = new PnPStereoDistanceReprojectionSq();
+		if( calibration.left != null )
+			distance.setStereoParameters(calibration);
+		return distance;
 	}
 
 	/**
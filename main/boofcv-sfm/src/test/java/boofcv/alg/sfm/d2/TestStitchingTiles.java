@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.sfm.d2;
+
+import boofcv.alg.misc.GImageMiscOps;
+import boofcv.alg.misc.ImageMiscOps;
+import boofcv.struct.image.GrayF32;
+import boofcv.struct.image.ImageType;
+import boofcv.testing.BoofTesting;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Peter Abeles
+ */
+class TestStitchingTiles {
+
+	Random rand = new Random(234);
+
+	@Test
+	void grow_lookup() {
+		StitchingTiles<GrayF32> alg = new StitchingTiles<>(20,ImageType.single(GrayF32.class));
+		alg.reset(50,30);
+
+		assertEquals(3,alg.getCols());
+		assertEquals(2,alg.getRows());
+		assertNull(alg.lookup(1,2));
+
+		StitchingTiles.Tile<GrayF32> tile = alg.grow(1,2);
+		assertEquals(1,tile.row);
+		assertEquals(2,tile.col);
+		assertEquals(20,tile.image.width);
+		assertEquals(20,tile.image.height);
+		assertSame(tile,alg.lookup(1,2));
+		assertEquals(1,alg.getTotalTiles());
+		assertEquals(1,alg.getTilesInMemory());
+
+		// outside the image
+		assertThrows(IllegalArgumentException.class,()->alg.grow(2,0));
+	}
+
+	/**
+	 * Write to tiles then read it back as one image
+	 */
+	@Test
+	void copyRegion() {
+		StitchingTiles<GrayF32> alg = new StitchingTiles<>(20,ImageType.single(GrayF32.class));
+		alg.reset(50,45);
+
+		GrayF32 expected = new GrayF32(50,45);
+		fillTile(alg,expected,0,1);
+		fillTile(alg,expected,2,2);
+
+		GrayF32 found = new GrayF32(1,1);
+		alg.copyRegion(0,0,50,45,found);
+		BoofTesting.assertEquals(expected,found,0);
+
+		// region which extends outside the image
+		alg.copyRegion(-5,10,30,50,found);
+		assertEquals(35,found.width);
+		assertEquals(40,found.height);
+		for (int y = 0; y < found.height; y++) {
+			for (int x = 0; x < found.width; x++) {
+				float v = expected.isInBounds(x-5,y+10) ? expected.get(x-5,y+10) : 0;
+				assertEquals(v,found.get(x,y),0);
+			}
+		}
+	}
+
+	/**
+	 * Tiles are saved to disk when the limit is exceeded and loaded again when needed
+	 */
+	@Test
+	void spillColdTiles() {
+		StitchingTiles<GrayF32> alg = new StitchingTiles<>(20,ImageType.single(GrayF32.class));
+		alg.reset(60,60);
+		alg.setMaxTilesInMemory(2);
+
+		GrayF32 expected = new GrayF32(60,60);
+		fillTile(alg,expected,0,0);
+		fillTile(alg,expected,1,1);
+		fillTile(alg,expected,2,0);
+		assertEquals(3,alg.getTilesInMemory());
+
+		alg.spillColdTiles();
+		assertEquals(2,alg.getTilesInMemory());
+		assertEquals(3,alg.getTotalTiles());
+		// least recently used was saved
+		assertNull(alg.tiles.get(0L).image);
+		assertNotNull(alg.tiles.get(0L).file);
+
+		GrayF32 found = new GrayF32(1,1);
+		alg.copyRegion(0,0,60,60,found);
+		BoofTesting.assertEquals(expected,found,0);
+		assertTrue(alg.getTilesInMemory() <= 2);
+
+		alg.reset(60,60);
+		assertEquals(0,alg.getTotalTiles());
+		assertEquals(0,alg.getTilesInMemory());
+	}
+
+	@Test
+	void resize() {
+		StitchingTiles<GrayF32> alg = new StitchingTiles<>(20,ImageType.single(GrayF32.class));
+		alg.reset(60,60);
+
+		GrayF32 expected = new GrayF32(60,60);
+		fillTile(alg,expected,0,0);
+		fillTile(alg,expected,1,1);
+		fillTile(alg,expected,2,2);
+
+		alg.resize(35,45);
+		assertEquals(2,alg.getTotalTiles());
+
+		// pixels outside the image should be zero when enlarged again
+		alg.resize(60,60);
+		ImageMiscOps.fillRectangle(expected,0,35,0,25,60);
+		ImageMiscOps.fillRectangle(expected,0,0,45,60,15);
+
+		GrayF32 found = new GrayF32(1,1);
+		alg.copyRegion(0,0,60,60,found);
+		BoofTesting.assertEquals(expected,found,0);
+	}
+
+	@Test
+	void forEachTile() {
+		StitchingTiles<GrayF32> alg = new StitchingTiles<>(20,ImageType.single(GrayF32.class));
+		alg.reset(50,50);
+		alg.setMaxTilesInMemory(1);
+
+		GrayF32 expected = new GrayF32(50,50);
+		fillTile(alg,expected,2,2);
+		fillTile(alg,expected,0,1);
+		fillTile(alg,expected,1,0);
+		alg.spillColdTiles();
+
+		List<int[]> found = new ArrayList<>();
+		alg.forEachTile((row,col,x0,y0,image)->{
+			found.add(new int[]{row,col});
+			assertEquals(col*20,x0);
+			assertEquals(row*20,y0);
+			assertEquals(Math.min(20,50-x0),image.width);
+			assertEquals(Math.min(20,50-y0),image.height);
+			BoofTesting.assertEquals(expected.subimage(x0,y0,x0+image.width,y0+image.height),image,0);
+			assertTrue(alg.getTilesInMemory() <= 1);
+		});
+
+		assertEquals(3,found.size());
+		assertArrayEquals(new int[]{0,1},found.get(0));
+		assertArrayEquals(new int[]{1,0},found.get(1));
+		assertArrayEquals(new int[]{2,2},found.get(2));
+	}
+
+	/**
+	 * Images from tiles which have been saved to disk are recycled, but the total number of images in memory
+	 * must stay bounded
+	 */
+	@Test
+	void forEachTile_boundedMemory() {
+		StitchingTiles<GrayF32> alg = new StitchingTiles<>(20,ImageType.single(GrayF32.class));
+		alg.reset(100,100);
+		alg.setMaxTilesInMemory(3);
+
+		GrayF32 expected = new GrayF32(100,100);
+		for (int row = 0; row < 5; row++) {
+			for (int col = 0; col < 5; col++) {
+				fillTile(alg,expected,row,col);
+				alg.spillColdTiles();
+				assertTrue(alg.getTilesInMemory() + alg.unused.size() <= 3 + StitchingTiles.MAX_UNUSED);
+			}
+		}
+
+		for (int trial = 0; trial < 2; trial++) {
+			int[] count = new int[1];
+			alg.forEachTile((row,col,x0,y0,image)->{
+				count[0]++;
+				BoofTesting.assertEquals(expected.subimage(x0,y0,x0+image.width,y0+image.height),image,0);
+				assertTrue(alg.getTilesInMemory() <= 3);
+				assertTrue(alg.getTilesInMemory() + alg.unused.size() <= 3 + StitchingTiles.MAX_UNUSED);
+			});
+			assertEquals(25,count[0]);
+		}
+
+		alg.resize(30,30);
+		assertTrue(alg.getTilesInMemory() + alg.unused.size() <= 3 + StitchingTiles.MAX_UNUSED);
+
+		alg.reset(100,100);
+		assertEquals(0,alg.unused.size());
+	}
+
+	/**
+	 * Fills a tile with random values, and the same region inside the full image
+	 */
+	private void fillTile( StitchingTiles<GrayF32> alg , GrayF32 full , int row , int col ) {
+		StitchingTiles.Tile<GrayF32> tile = alg.grow(row,col);
+		GImageMiscOps.fillUniform(tile.image,rand,1,100);
+
+		int x0 = col*20, y0 = row*20;
+		int x1 = Math.min(full.width,x0+20), y1 = Math.min(full.height,y0+20);
+		for (int y = y0; y < y1; y++) {
+			for (int x = x0; x < x1; x++) {
+				full.set(x,y,tile.image.get(x-x0,y-y0));
+			}
+		}
+		// pixels outside the image must be zero
+		ImageMiscOps.fillRectangle(tile.image,0,x1-x0,0,20,20);
+		ImageMiscOps.fillRectangle(tile.image,0,0,y1-y0,20,20);
+	}
+}
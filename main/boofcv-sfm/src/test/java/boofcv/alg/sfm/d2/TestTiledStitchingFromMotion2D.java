@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.sfm.d2;
+
+import boofcv.abst.sfm.d2.ImageMotion2D;
+import boofcv.alg.distort.ImageDistort;
+import boofcv.alg.interpolate.InterpolatePixelS;
+import boofcv.alg.interpolate.InterpolationType;
+import boofcv.alg.misc.ImageMiscOps;
+import boofcv.factory.distort.FactoryDistort;
+import boofcv.factory.interpolate.FactoryInterpolation;
+import boofcv.struct.border.BorderType;
+import boofcv.struct.image.GrayF32;
+import boofcv.testing.BoofTesting;
+import georegression.struct.affine.Affine2D_F64;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares the tiled implementation against {@link StitchingFromMotion2D}
+ *
+ * @author Peter Abeles
+ */
+class TestTiledStitchingFromMotion2D {
+
+	Random rand = new Random(234);
+	GrayF32 image = new GrayF32(100,150);
+	Affine2D_F64 motion0 = new Affine2D_F64(0.95,0.1,-0.1,0.95,-20.5,-31.2);
+	Affine2D_F64 motion1 = new Affine2D_F64(0.94,0.12,-0.12,0.94,-24.2,-30.1);
+
+	TestTiledStitchingFromMotion2D() {
+		ImageMiscOps.fillUniform(image,rand,0,255);
+	}
+
+	@Test
+	void compareToSingle() {
+		compareToSingle(0);
+	}
+
+	/**
+	 * Only a few tiles are allowed in memory, the rest are saved to disk
+	 */
+	@Test
+	void compareToSingle_spill() {
+		compareToSingle(2);
+	}
+
+	void compareToSingle( int maxTilesInMemory ) {
+		StitchingFromMotion2D<GrayF32,Affine2D_F64> single = createSingle();
+		TiledStitchingFromMotion2D<GrayF32,Affine2D_F64> tiled = createTiled();
+		tiled.setMaxTilesInMemory(maxTilesInMemory);
+
+		process(single,tiled,motion0);
+		BoofTesting.assertEquals(single.getStitchedImage(),tiled.getStitchedImage(),1e-4);
+		process(single,tiled,motion1);
+		BoofTesting.assertEquals(single.getStitchedImage(),tiled.getStitchedImage(),1e-4);
+
+		if( maxTilesInMemory > 0 )
+			assertTrue(tiled.getTiles().getTilesInMemory() <= maxTilesInMemory);
+	}
+
+	/**
+	 * Only tiles which the image overlaps should be allocated
+	 */
+	@Test
+	void onlyTouchedTiles() {
+		TiledStitchingFromMotion2D<GrayF32,Affine2D_F64> tiled = createTiled();
+		tiled.configure(1000,1000,null);
+
+		((MockMotion)tiled.getMotion()).found = new Affine2D_F64(1,0,0,1,-500,-600);
+		assertTrue(tiled.process(image));
+
+		// The image covers x=500 to 600 and y=600 to 750
+		StitchingTiles<GrayF32> tiles = tiled.getTiles();
+		assertEquals(4*6,tiles.getTotalTiles());
+		for (int row = 600/32; row <= 749/32; row++) {
+			for (int col = 500/32; col <= 599/32; col++) {
+				assertTrue(tiles.isAllocated(row,col));
+			}
+		}
+	}
+
+	@Test
+	void setOriginToCurrent() {
+		StitchingFromMotion2D<GrayF32,Affine2D_F64> single = createSingle();
+		TiledStitchingFromMotion2D<GrayF32,Affine2D_F64> tiled = createTiled();
+
+		process(single,tiled,motion0);
+		process(single,tiled,motion1);
+		single.setOriginToCurrent();
+		tiled.setOriginToCurrent();
+
+		BoofTesting.assertEquals(single.getStitchedImage(),tiled.getStitchedImage(),1e-3);
+	}
+
+	@Test
+	void resizeStitchImage_noTransform() {
+		StitchingFromMotion2D<GrayF32,Affine2D_F64> single = createSingle();
+		TiledStitchingFromMotion2D<GrayF32,Affine2D_F64> tiled = createTiled();
+
+		process(single,tiled,motion0);
+		single.resizeStitchImage(150,110,null);
+		tiled.resizeStitchImage(150,110,null);
+		BoofTesting.assertEquals(single.getStitchedImage(),tiled.getStitchedImage(),0);
+
+		single.resizeStitchImage(250,320,null);
+		tiled.resizeStitchImage(250,320,null);
+		BoofTesting.assertEquals(single.getStitchedImage(),tiled.getStitchedImage(),0);
+	}
+
+	@Test
+	void resizeStitchImage_Transform() {
+		StitchingFromMotion2D<GrayF32,Affine2D_F64> single = createSingle();
+		TiledStitchingFromMotion2D<GrayF32,Affine2D_F64> tiled = createTiled();
+
+		process(single,tiled,motion0);
+
+		Affine2D_F64 transform = new Affine2D_F64(0.8,0.1,-0.1,0.8,-2.5,4.1);
+		single.resizeStitchImage(250,320,transform);
+		tiled.resizeStitchImage(250,320,transform);
+		BoofTesting.assertEquals(single.getStitchedImage(),tiled.getStitchedImage(),1e-3);
+
+		// see if new images are rendered in the same location
+		process(single,tiled,motion1);
+		BoofTesting.assertEquals(single.getStitchedImage(),tiled.getStitchedImage(),1e-3);
+	}
+
+	private void process( StitchingFromMotion2D<GrayF32,Affine2D_F64> single,
+						  TiledStitchingFromMotion2D<GrayF32,Affine2D_F64> tiled ,
+						  Affine2D_F64 motion ) {
+		((MockMotion)single.getMotion()).found = motion;
+		((MockMotion)tiled.getMotion()).found = motion;
+		assertTrue(single.process(image));
+		assertTrue(tiled.process(image));
+	}
+
+	private StitchingFromMotion2D<GrayF32,Affine2D_F64> createSingle() {
+		StitchingFromMotion2D<GrayF32,Affine2D_F64> alg = new StitchingFromMotion2D<>(
+				new MockMotion(), createDistort(), FactoryStitchingTransform.createAffine_F64(), 0.3);
+		alg.configure(200,300,null);
+		return alg;
+	}
+
+	private TiledStitchingFromMotion2D<GrayF32,Affine2D_F64> createTiled() {
+		TiledStitchingFromMotion2D<GrayF32,Affine2D_F64> alg = new TiledStitchingFromMotion2D<>(
+				new MockMotion(), this::createDistort, FactoryStitchingTransform.createAffine_F64(), 0.3, 32);
+		alg.configure(200,300,null);
+		return alg;
+	}
+
+	private ImageDistort<GrayF32,GrayF32> createDistort() {
+		InterpolatePixelS<GrayF32> interp = FactoryInterpolation.createPixelS(0, 255,
+				InterpolationType.BILINEAR, BorderType.EXTENDED, GrayF32.class);
+		ImageDistort<GrayF32,GrayF32> distorter = FactoryDistort.distortSB(false, interp, GrayF32.class);
+		distorter.setRenderAll(false);
+		return distorter;
+	}
+
+	private static class MockMotion implements ImageMotion2D<GrayF32,Affine2D_F64> {
+		Affine2D_F64 found = new Affine2D_F64();
+
+		@Override
+		public boolean process( GrayF32 input ) {
+			return true;
+		}
+
+		@Override
+		public void reset() {}
+
+		@Override
+		public void setToFirst() {
+			found = new Affine2D_F64();
+		}
+
+		@Override
+		public Affine2D_F64 getFirstToCurrent() {
+			return found;
+		}
+
+		@Override
+		public Class<Affine2D_F64> getTransformType() {
+			return Affine2D_F64.class;
+		}
+	}
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.sfm.structure2;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Peter Abeles
+ */
+class TestGeneratePairwiseImageGraph_MT {
+	/**
+	 * Compare to the single threaded version. Batch size is set so that there are multiple batches, with the last
+	 * one being partially full
+	 */
+	@Test
+	void compareToSingle() {
+		MockLookupSimilarImages similar = new MockLookupSimilarImages(5,123123);
+
+		GeneratePairwiseImageGraph single = new GeneratePairwiseImageGraph(true);
+		GeneratePairwiseImageGraph_MT alg = new GeneratePairwiseImageGraph_MT();
+		alg.setBatchSize(3);
+
+		single.process(similar);
+		alg.process(similar);
+
+		PairwiseImageGraph2 expected = single.getGraph();
+		PairwiseImageGraph2 found = alg.getGraph();
+
+		assertEquals(expected.nodes.size,found.nodes.size);
+		for (int i = 0; i < expected.nodes.size; i++) {
+			PairwiseImageGraph2.View a = expected.nodes.get(i);
+			PairwiseImageGraph2.View b = found.nodes.get(i);
+			assertEquals(a.id,b.id);
+			assertEquals(a.totalFeatures,b.totalFeatures);
+			assertEquals(a.connections.size,b.connections.size);
+		}
+
+		assertEquals(10,found.edges.size);
+		assertEquals(expected.edges.size,found.edges.size);
+		for (int i = 0; i < expected.edges.size; i++) {
+			PairwiseImageGraph2.Motion a = expected.edges.get(i);
+			PairwiseImageGraph2.Motion b = found.edges.get(i);
+			assertEquals(i,b.index);
+			assertEquals(a.src.id,b.src.id);
+			assertEquals(a.dst.id,b.dst.id);
+			assertEquals(a.is3D,b.is3D);
+			assertEquals(a.inliers.size,b.inliers.size);
+		}
+
+		assertEquals(10,alg.getTotalPairs());
+		assertEquals(10,alg.getTotalEdges());
+		assertTrue(alg.getTimeMS()>0);
+	}
+}
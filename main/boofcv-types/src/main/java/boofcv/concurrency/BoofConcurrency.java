@@ -26,7 +26,15 @@ import java.util.function.IntConsumer;
 import java.util.stream.IntStream;
 
 /**
+ * <p>
  * Location of controls for turning on and off concurrent (i.e. threaded) algorithms.
+ * </p>
+ *
+ * <p>
+ * By default all threads share a single global thread pool. A thread can temporarily use a different pool
+ * and/or limit the number of threads a single call will use by opening a {@link ConcurrencyScope}. This allows
+ * several pipelines running in the same process to be assigned their own set of threads.
+ * </p>
  *
  * -Djava.util.concurrent.ForkJoinPool.common.parallelism=16
  *
@@ -45,6 +53,9 @@ public class BoofConcurrency {
 	// Custom thread pool for streams so that the number of threads can be controlled
 	private static ForkJoinPool pool = new ForkJoinPool();
 
+	// Thread specific settings which override the global pool. null if there are none
+	private static final ThreadLocal<ConcurrencyScope> localScope = new ThreadLocal<>();
+
 	/**
 	 * Sets the maximum number of threads available in the thread pool and adjusts USE_CONCURRENT. If
 	 * the number of threads is less than 2 then USE_CONCURRENT will be set to false and the single thread
@@ -62,10 +73,91 @@ public class BoofConcurrency {
 	}
 
 	/**
-	 * Returns the maximum number of threads which can be run at once in this pool
+	 * Replaces the global thread pool with the specified pool. USE_CONCURRENT is not modified.
+	 */
+	public static void setPool( ForkJoinPool pool ) {
+		BoofConcurrency.pool = pool;
+	}
+
+	/**
+	 * Returns the maximum number of threads which can be run at once by the calling thread. If a scope is open
+	 * then that is taken in account.
 	 */
 	public static int getMaxThreads() {
-		return pool.getParallelism();
+		ConcurrencyScope scope = localScope.get();
+		return scope == null ? pool.getParallelism() : scope.getThreads();
+	}
+
+	/**
+	 * Returns the pool which the calling thread will use
+	 */
+	public static ForkJoinPool getPool() {
+		ConcurrencyScope scope = localScope.get();
+		return scope == null ? pool : scope.pool;
+	}
+
+	/**
+	 * Opens a scope where the calling thread, and threads it spawns through this class, will use the
+	 * specified pool and no more than the specified number of threads per call. Close the scope to restore
+	 * the previous settings.
+	 *
+	 * @param pool The thread pool
+	 * @param maxThreads Maximum number of threads a single call can use. If &le; 1 then calls are run in
+	 *                   the calling thread.
+	 * @return The scope. Must be closed.
+	 */
+	public static ConcurrencyScope openScope( ForkJoinPool pool , int maxThreads ) {
+		ConcurrencyScope scope = new ConcurrencyScope(pool,maxThreads,localScope.get());
+		localScope.set(scope);
+		return scope;
+	}
+
+	/**
+	 * Opens a scope which uses the specified pool with no additional limit on the number of threads.
+	 *
+	 * @see #openScope(ForkJoinPool, int)
+	 */
+	public static ConcurrencyScope openScope( ForkJoinPool pool ) {
+		return openScope(pool,Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Opens a scope which uses the current pool but limits the number of threads a single call can use.
+	 *
+	 * @see #openScope(ForkJoinPool, int)
+	 */
+	public static ConcurrencyScope openScope( int maxThreads ) {
+		return openScope(getPool(),maxThreads);
+	}
+
+	static void closeScope( ConcurrencyScope scope ) {
+		if( localScope.get() != scope )
+			throw new IllegalStateException("Scopes must be closed in the reverse order they were opened");
+		if( scope.previous == null )
+			localScope.remove();
+		else
+			localScope.set(scope.previous);
+	}
+
+	/**
+	 * Runs the task with the specified scope active in the current thread. Used to pass the scope on to
+	 * worker threads.
+	 */
+	private static void runInScope( ConcurrencyScope scope , Runnable task ) {
+		ConcurrencyScope previous = localScope.get();
+		if( previous == scope ) {
+			task.run();
+			return;
+		}
+		localScope.set(scope);
+		try {
+			task.run();
+		} finally {
+			if( previous == null )
+				localScope.remove();
+			else
+				localScope.set(previous);
+		}
 	}
 
 	public static boolean isUseConcurrent() {
@@ -80,6 +172,16 @@ public class BoofConcurrency {
 	 * @param consumer The consumer
 	 */
 	public static void loopFor(int start , int endExclusive , IntConsumer consumer ) {
+		ConcurrencyScope scope = localScope.get();
+		if( scope != null ) {
+			// the number of threads used by a parallel stream can't be limited, so split it into blocks
+			loopBlocks(start,endExclusive,(i0,i1)->{
+				for (int i = i0; i < i1; i++) {
+					consumer.accept(i);
+				}
+			});
+			return;
+		}
 		try {
 			pool.submit(() ->IntStream.range(start, endExclusive).parallel().forEach(consumer)).get();
 		} catch (InterruptedException | ExecutionException e) {
@@ -95,8 +197,17 @@ public class BoofConcurrency {
 	 * @param consumer The consumer
 	 */
 	public static void loopFor(int start , int endExclusive , int step , IntConsumer consumer ) {
+		int range = endExclusive-start;
+		ConcurrencyScope scope = localScope.get();
+		if( scope != null ) {
+			loopBlocks(0,range/step,(i0,i1)->{
+				for (int i = i0; i < i1; i++) {
+					consumer.accept(start+i*step);
+				}
+			});
+			return;
+		}
 		try {
-			int range = endExclusive-start;
 			pool.submit(() ->IntStream.range(0, range/step).parallel().forEach(i-> consumer.accept(start+i*step))).get();
 		} catch (InterruptedException | ExecutionException e) {
 			e.printStackTrace();
@@ -122,8 +233,9 @@ public class BoofConcurrency {
 	 */
 	public static void loopBlocks(int start , int endExclusive , int minBlock,
 								  IntRangeConsumer consumer ) {
-		final ForkJoinPool pool = BoofConcurrency.pool;
-		int numThreads = pool.getParallelism();
+		final ConcurrencyScope scope = localScope.get();
+		final ForkJoinPool pool = scope == null ? BoofConcurrency.pool : scope.pool;
+		int numThreads = scope == null ? pool.getParallelism() : scope.getThreads();
 
 		int range = endExclusive-start;
 		if( range == 0 ) // nothing to do here!
@@ -131,7 +243,14 @@ public class BoofConcurrency {
 		if( range < 0 )
 			throw new IllegalArgumentException("end must be more than start. "+start+" -> "+endExclusive);
 
+		if( numThreads <= 1 ) {
+			consumer.accept(start,endExclusive);
+			return;
+		}
+
 		int block = selectBlockSize(range,minBlock,numThreads);
+		if( scope != null )
+			consumer = wrap(scope,consumer);
 
 		try {
 			pool.submit(new IntRangeTask(start,endExclusive,block,consumer)).get();
@@ -156,8 +275,9 @@ public class BoofConcurrency {
 	 * @param consumer The consumer
 	 */
 	public static void loopBlocks(int start , int endExclusive , IntRangeConsumer consumer ) {
-		final ForkJoinPool pool = BoofConcurrency.pool;
-		int numThreads = pool.getParallelism();
+		final ConcurrencyScope scope = localScope.get();
+		final ForkJoinPool pool = scope == null ? BoofConcurrency.pool : scope.pool;
+		int numThreads = scope == null ? pool.getParallelism() : scope.getThreads();
 
 		int range = endExclusive-start;
 		if( range == 0 ) // nothing to do here!
@@ -165,9 +285,16 @@ public class BoofConcurrency {
 		if( range < 0 )
 			throw new IllegalArgumentException("end must be more than start. "+start+" -> "+endExclusive);
 
+		if( numThreads <= 1 ) {
+			consumer.accept(start,endExclusive);
+			return;
+		}
+
 		// Did some experimentation here. Gave it more threads than were needed or exactly what was needed
 		// exactly seemed to do better in the test cases
 		int blockSize = Math.max(1,range/numThreads);
+		if( scope != null )
+			consumer = wrap(scope,consumer);
 
 		try {
 			pool.submit(new IntRangeTask(start,endExclusive,blockSize,consumer)).get();
@@ -185,8 +312,9 @@ public class BoofConcurrency {
 	 * @param consumer The consumer
 	 */
 	public static <T>void loopBlocks(int start , int endExclusive , FastQueue<T> workspace, IntRangeObjectConsumer<T> consumer ) {
-		final ForkJoinPool pool = BoofConcurrency.pool;
-		int numThreads = pool.getParallelism();
+		final ConcurrencyScope scope = localScope.get();
+		final ForkJoinPool pool = scope == null ? BoofConcurrency.pool : scope.pool;
+		int numThreads = scope == null ? pool.getParallelism() : scope.getThreads();
 
 		int range = endExclusive-start;
 		if( range == 0 ) // nothing to do here!
@@ -194,9 +322,17 @@ public class BoofConcurrency {
 		if( range < 0 )
 			throw new IllegalArgumentException("end must be more than start. "+start+" -> "+endExclusive);
 
+		if( numThreads <= 1 ) {
+			workspace.resize(1);
+			consumer.accept(workspace.get(0),start,endExclusive);
+			return;
+		}
+
 		// Did some experimentation here. Gave it more threads than were needed or exactly what was needed
 		// exactly seemed to do better in the test cases
 		int blockSize = Math.max(1,range/numThreads);
+		if( scope != null )
+			consumer = wrap(scope,consumer);
 
 		try {
 			pool.submit(new IntRangeObjectTask<>(start,endExclusive,blockSize,workspace,consumer)).get();
@@ -216,8 +352,9 @@ public class BoofConcurrency {
 	 */
 	public static <T>void loopBlocks(int start , int endExclusive , int minBlock ,
 									 FastQueue<T> workspace, IntRangeObjectConsumer<T> consumer ) {
-		final ForkJoinPool pool = BoofConcurrency.pool;
-		int numThreads = pool.getParallelism();
+		final ConcurrencyScope scope = localScope.get();
+		final ForkJoinPool pool = scope == null ? BoofConcurrency.pool : scope.pool;
+		int numThreads = scope == null ? pool.getParallelism() : scope.getThreads();
 
 		int range = endExclusive-start;
 		if( range == 0 ) // nothing to do here!
@@ -225,7 +362,15 @@ public class BoofConcurrency {
 		if( range < 0 )
 			throw new IllegalArgumentException("end must be more than start. "+start+" -> "+endExclusive);
 
+		if( numThreads <= 1 ) {
+			workspace.resize(1);
+			consumer.accept(workspace.get(0),start,endExclusive);
+			return;
+		}
+
 		int blockSize = selectBlockSize(range,minBlock,numThreads);
+		if( scope != null )
+			consumer = wrap(scope,consumer);
 
 		try {
 			pool.submit(new IntRangeObjectTask<>(start,endExclusive,blockSize,workspace,consumer)).get();
@@ -234,6 +379,17 @@ public class BoofConcurrency {
 		}
 	}
 
+	/**
+	 * Wraps the consumer so that the scope is active inside of worker threads
+	 */
+	private static IntRangeConsumer wrap( ConcurrencyScope scope , IntRangeConsumer consumer ) {
+		return (i0,i1)->runInScope(scope,()->consumer.accept(i0,i1));
+	}
+
+	private static <T>IntRangeObjectConsumer<T> wrap( ConcurrencyScope scope , IntRangeObjectConsumer<T> consumer ) {
+		return (workspace,i0,i1)->runInScope(scope,()->consumer.accept(workspace,i0,i1));
+	}
+
 	/**
 	 * Computes sums up the results using the specified primitive type
 	 *
@@ -245,7 +401,7 @@ public class BoofConcurrency {
 	 */
 	public static Number sum(int start , int endExclusive , Class type, IntProducerNumber producer ) {
 		try {
-			return pool.submit(new IntOperatorTask.Sum(start,endExclusive,type,producer)).get();
+			return getPool().submit(new IntOperatorTask.Sum(start,endExclusive,type,producer)).get();
 		} catch (InterruptedException | ExecutionException e) {
 			throw new RuntimeException(e);
 		}
@@ -262,7 +418,7 @@ public class BoofConcurrency {
 	 */
 	public static Number max(int start , int endExclusive , Class type, IntProducerNumber producer ) {
 		try {
-			return pool.submit(new IntOperatorTask.Max(start,endExclusive,type,producer)).get();
+			return getPool().submit(new IntOperatorTask.Max(start,endExclusive,type,producer)).get();
 		} catch (InterruptedException | ExecutionException e) {
 			throw new RuntimeException(e);
 		}
@@ -279,7 +435,7 @@ public class BoofConcurrency {
 	 */
 	public static Number min(int start , int endExclusive , Class type, IntProducerNumber producer ) {
 		try {
-			return pool.submit(new IntOperatorTask.Min(start,endExclusive,type,producer)).get();
+			return getPool().submit(new IntOperatorTask.Min(start,endExclusive,type,producer)).get();
 		} catch (InterruptedException | ExecutionException e) {
 			throw new RuntimeException(e);
 		}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.concurrency;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * <p>
+ * Overrides the thread pool and the maximum number of threads used by {@link BoofConcurrency} for the thread
+ * which opened it. Threads spawned by BoofConcurrency while the scope is open inherit these settings. When
+ * closed the previous settings are restored. Scopes can be nested but must be closed in the reverse order they
+ * were opened and by the thread which opened them. Intended to be used with try-with-resources:
+ * </p>
+ *
+ * <pre>
+ * try( ConcurrencyScope scope = BoofConcurrency.openScope(pool,2) ) {
+ *     detector.process(image);
+ * }
+ * </pre>
+ *
+ * @author Peter Abeles
+ */
+public class ConcurrencyScope implements AutoCloseable {
+	// Pool that threads are run inside of
+	final ForkJoinPool pool;
+	// Maximum number of blocks/threads a single call will be split into
+	final int maxThreads;
+
+	// The scope which was active before this one was opened. Can be null.
+	final ConcurrencyScope previous;
+	// The thread which opened this scope
+	final Thread owner;
+
+	boolean closed = false;
+
+	ConcurrencyScope(ForkJoinPool pool, int maxThreads, ConcurrencyScope previous) {
+		this.pool = pool;
+		this.maxThreads = maxThreads;
+		this.previous = previous;
+		this.owner = Thread.currentThread();
+	}
+
+	/**
+	 * Number of threads which a single call can use. The smaller of the pool's parallelism and maxThreads.
+	 */
+	public int getThreads() {
+		return Math.min(maxThreads,pool.getParallelism());
+	}
+
+	public ForkJoinPool getPool() {
+		return pool;
+	}
+
+	public int getMaxThreads() {
+		return maxThreads;
+	}
+
+	@Override
+	public void close() {
+		if( closed )
+			return;
+		if( Thread.currentThread() != owner )
+			throw new IllegalStateException("Scope must be closed by the thread which opened it");
+		BoofConcurrency.closeScope(this);
+		closed = true;
+	}
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.concurrency;
+
+import org.ddogleg.struct.FastQueue;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Peter Abeles
+ */
+class TestConcurrencyScope {
+
+	/**
+	 * All the work should be done inside the scope's pool
+	 */
+	@Test
+	void customPool() {
+		ForkJoinPool custom = new ForkJoinPool(3);
+		Set<ForkJoinPool> pools = new HashSet<>();
+
+		try( ConcurrencyScope scope = BoofConcurrency.openScope(custom) ) {
+			assertSame(custom,BoofConcurrency.getPool());
+			assertEquals(3,BoofConcurrency.getMaxThreads());
+			BoofConcurrency.loopBlocks(0,100,(i0,i1)->{
+				synchronized (pools) {
+					pools.add(ForkJoinTask.getPool());
+				}
+			});
+		}
+		assertEquals(1,pools.size());
+		assertTrue(pools.contains(custom));
+		assertNotSame(custom,BoofConcurrency.getPool());
+		custom.shutdown();
+	}
+
+	/**
+	 * The range should not be split into more blocks than the maximum number of threads
+	 */
+	@Test
+	void maxThreads() {
+		ForkJoinPool custom = new ForkJoinPool(8);
+		AtomicInteger count = new AtomicInteger();
+		FastQueue<int[]> workspace = new FastQueue<>(int[].class,()->new int[1]);
+
+		try( ConcurrencyScope scope = BoofConcurrency.openScope(custom,2) ) {
+			assertEquals(2,BoofConcurrency.getMaxThreads());
+			BoofConcurrency.loopBlocks(0,100,(i0,i1)->count.incrementAndGet());
+			assertTrue(count.get() <= 2);
+
+			count.set(0);
+			BoofConcurrency.loopBlocks(0,100,1,workspace,(w,i0,i1)->count.incrementAndGet());
+			assertTrue(count.get() <= 2);
+
+			// every value should still be processed
+			boolean[] visited = new boolean[100];
+			BoofConcurrency.loopFor(0,100,i->visited[i]=true);
+			for (int i = 0; i < visited.length; i++) {
+				assertTrue(visited[i]);
+			}
+		}
+		custom.shutdown();
+	}
+
+	/**
+	 * With one thread everything should be done in the calling thread
+	 */
+	@Test
+	void singleThread() {
+		Thread caller = Thread.currentThread();
+		try( ConcurrencyScope scope = BoofConcurrency.openScope(1) ) {
+			BoofConcurrency.loopFor(0,50,i->assertSame(caller,Thread.currentThread()));
+			BoofConcurrency.loopBlocks(0,50,(i0,i1)->{
+				assertSame(caller,Thread.currentThread());
+				assertEquals(0,i0);
+				assertEquals(50,i1);
+			});
+		}
+	}
+
+	/**
+	 * Threads spawned inside the scope should see the same scope
+	 */
+	@Test
+	void inheritedByWorkers() {
+		ForkJoinPool custom = new ForkJoinPool(4);
+		try( ConcurrencyScope scope = BoofConcurrency.openScope(custom,3) ) {
+			BoofConcurrency.loopBlocks(0,20,(i0,i1)->{
+				assertSame(custom,BoofConcurrency.getPool());
+				assertEquals(3,BoofConcurrency.getMaxThreads());
+			});
+		}
+		custom.shutdown();
+	}
+
+	@Test
+	void nested() {
+		ForkJoinPool poolA = new ForkJoinPool(2);
+		ForkJoinPool poolB = new ForkJoinPool(2);
+		ForkJoinPool global = BoofConcurrency.getPool();
+
+		try( ConcurrencyScope a = BoofConcurrency.openScope(poolA) ) {
+			assertSame(poolA,BoofConcurrency.getPool());
+			try( ConcurrencyScope b = BoofConcurrency.openScope(poolB) ) {
+				assertSame(poolB,BoofConcurrency.getPool());
+			}
+			assertSame(poolA,BoofConcurrency.getPool());
+		}
+		assertSame(global,BoofConcurrency.getPool());
+
+		poolA.shutdown();
+		poolB.shutdown();
+	}
+
+	@Test
+	void closeOutOfOrder() {
+		ConcurrencyScope a = BoofConcurrency.openScope(2);
+		ConcurrencyScope b = BoofConcurrency.openScope(2);
+		assertThrows(IllegalStateException.class, a::close);
+		b.close();
+		a.close();
+		// closing twice should do nothing
+		a.close();
+	}
+}